@@ -0,0 +1,62 @@
+package com.windtunnel.aggregation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 并行聚合结果
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AggregationResult {
+
+    private final List<PartitionAggregate> partitions;
+
+    private final Map<String, PartitionAggregate> bySource;
+
+    private final PartitionAggregate total;
+
+    private final int parallelism;
+
+    private final long elapsedMillis;
+
+    AggregationResult(List<PartitionAggregate> partitions, Map<String, PartitionAggregate> bySource,
+                      PartitionAggregate total, int parallelism, long elapsedMillis) {
+        this.partitions = partitions;
+        this.bySource = bySource;
+        this.total = total;
+        this.parallelism = parallelism;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 按数据来源、时间片顺序排列的分区结果
+     */
+    public List<PartitionAggregate> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * 按数据来源合并的结果，保持请求中的来源顺序
+     */
+    public Map<String, PartitionAggregate> getBySource() {
+        return bySource;
+    }
+
+    /**
+     * 全部分区合并的结果
+     */
+    public PartitionAggregate getTotal() {
+        return total;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
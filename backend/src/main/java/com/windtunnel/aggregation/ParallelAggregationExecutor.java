@@ -0,0 +1,269 @@
+package com.windtunnel.aggregation;
+
+import com.windtunnel.archive.ColumnarArchiveStore;
+import com.windtunnel.archive.HotTierBoundary;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.quantile.QuantileSketchRegistry;
+import com.windtunnel.service.RealTimeDataArchiveService;
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.QuantileSketch;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleConsumer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * 并行聚合执行器
+ *
+ * 把跨数据来源、长时间范围的聚合查询切分为（数据来源, 时间片）分区，在有界的ForkJoin线程池中
+ * 递归二分并发计算，每个分区各自读取列式归档的区域映射、解码压缩块并以游标流式读取热数据，
+ * 得到可合并的部分状态后再按来源和全部分区合并。分区之间没有共享状态，耗时随线程数近似线性下降。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ParallelAggregationExecutor {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private HotTierBoundary hotTierBoundary;
+
+    @Autowired
+    private RealTimeDataArchiveService realTimeDataArchiveService;
+
+    @Autowired
+    private QuantileSketchRegistry quantileSketchRegistry;
+
+    @Value("${wind-tunnel.parallel-aggregation.parallelism:0}")
+    private int parallelism;
+
+    @Value("${wind-tunnel.parallel-aggregation.max-partitions:10000}")
+    private int maxPartitions;
+
+    @Value("${wind-tunnel.parallel-aggregation.timeout:120000}")
+    private long timeoutMillis;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("parallel-aggregation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        log.info("并行聚合线程池已创建，线程数: {}", threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 并行聚合
+     *
+     * @param sources 数据来源列表
+     * @param channels 通道列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间（含）
+     * @param slice 时间片粒度
+     * @param withSketches 是否同时计算分位数草图
+     * @return 分区、按来源和全部分区的聚合结果
+     * @throws IllegalArgumentException 分区数量超过上限
+     * @throws IllegalStateException 分区计算失败或超时
+     */
+    public AggregationResult aggregate(List<String> sources, List<RealTimeDataChannel> channels,
+                                       LocalDateTime startTime, LocalDateTime endTime, TimeSlice slice,
+                                       boolean withSketches) {
+        long begin = System.currentTimeMillis();
+        List<PartitionAggregate> partitions = split(sources, channels.size(), startTime, endTime, slice, withSketches);
+        RealTimeDataChannel[] fields = channels.toArray(new RealTimeDataChannel[0]);
+
+        ForkJoinTask<Void> task = pool.submit(new PartitionTask(partitions, fields, 0, partitions.size()));
+        try {
+            task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new IllegalStateException("并行聚合超时，分区数: " + partitions.size());
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("并行聚合被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("分区聚合失败: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        // 部分状态的合并只与分区数和通道数有关，在调用线程完成
+        Map<String, PartitionAggregate> bySource = new LinkedHashMap<>();
+        PartitionAggregate total = new PartitionAggregate(null, startTime, endTime, fields.length,
+                withSketches ? newSketches(fields.length) : null);
+        for (PartitionAggregate partition : partitions) {
+            bySource.computeIfAbsent(partition.getSource(), source -> new PartitionAggregate(source, startTime, endTime,
+                    fields.length, withSketches ? newSketches(fields.length) : null)).merge(partition);
+            total.merge(partition);
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+        log.debug("并行聚合完成，分区数: {}, 线程数: {}, 耗时: {}ms", partitions.size(), pool.getParallelism(), elapsed);
+        return new AggregationResult(partitions, bySource, total, pool.getParallelism(), elapsed);
+    }
+
+    /**
+     * 按数据来源和时间片切分分区，时间片区间为 [起点, 下一起点)
+     */
+    private List<PartitionAggregate> split(List<String> sources, int channels, LocalDateTime startTime,
+                                           LocalDateTime endTime, TimeSlice slice, boolean withSketches) {
+        List<PartitionAggregate> partitions = new ArrayList<>();
+        for (String source : sources) {
+            LocalDateTime sliceStart = startTime;
+            while (!sliceStart.isAfter(endTime)) {
+                LocalDateTime next = slice.next(sliceStart);
+                // 各层读取均包含结束时间，时间片结束时间取下一起点前1毫秒，避免边界数据重复计入
+                LocalDateTime sliceEnd = next == null || next.isAfter(endTime) ? endTime : next.minusNanos(1_000_000);
+                partitions.add(new PartitionAggregate(source, sliceStart, sliceEnd, channels,
+                        withSketches ? newSketches(channels) : null));
+                if (partitions.size() > maxPartitions) {
+                    throw new IllegalArgumentException("分区数量超过上限 " + maxPartitions + "，请缩小时间范围或增大时间片");
+                }
+                if (next == null) {
+                    break;
+                }
+                sliceStart = next;
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * 计算单个分区：列式归档直接合并块的区域映射，压缩块和热数据逐点累加；
+     * 分位数优先合并已持久化的草图汇总，没有汇总时由逐点扫描构建
+     */
+    private void evaluate(PartitionAggregate partition, RealTimeDataChannel[] channels) {
+        String source = partition.getSource();
+        LocalDateTime startTime = partition.getStartTime();
+        LocalDateTime endTime = partition.getEndTime();
+
+        boolean[] scanSketch = new boolean[channels.length];
+        SampleConsumer[] consumers = new SampleConsumer[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            ChannelAggregate aggregate = partition.getAggregate(i);
+            QuantileSketch sketch = partition.getSketch(i);
+            if (sketch == null) {
+                consumers[i] = (timestamp, value) -> aggregate.add(value);
+                continue;
+            }
+            QuantileSketch rollup = quantileSketchRegistry.merge(source, channels[i].getFieldName(), startTime, endTime);
+            if (rollup.getCount() > 0) {
+                sketch.merge(rollup);
+                consumers[i] = (timestamp, value) -> aggregate.add(value);
+            } else {
+                scanSketch[i] = true;
+                consumers[i] = (timestamp, value) -> {
+                    aggregate.add(value);
+                    sketch.add(value);
+                };
+            }
+        }
+
+        ChannelAggregate[] archived = columnarArchiveStore.aggregate(source, startTime, endTime);
+        for (int i = 0; i < channels.length; i++) {
+            partition.getAggregate(i).merge(archived[channels[i].ordinal()]);
+            if (scanSketch[i] && !archived[channels[i].ordinal()].isEmpty()) {
+                QuantileSketch sketch = partition.getSketch(i);
+                columnarArchiveStore.scanChannel(source, channels[i], startTime, endTime,
+                        (timestamp, value) -> sketch.add(value));
+            }
+            realTimeDataArchiveService.readArchivedSeries(source, channels[i], startTime, endTime, consumers[i]);
+        }
+        readHotData(source, channels, startTime, endTime, consumers);
+    }
+
+    @SuppressWarnings("null")
+    private void readHotData(String source, RealTimeDataChannel[] channels, LocalDateTime startTime,
+                             LocalDateTime endTime, SampleConsumer[] consumers) {
+        // 排除已写入冷数据层但尚未删除的数据，避免迁移期间重复计入
+        Query query = new Query(hotTierBoundary.criteria(source, startTime, endTime));
+        query.fields().include("dataTime");
+        for (RealTimeDataChannel channel : channels) {
+            query.fields().include(channel.getFieldName());
+        }
+        try (Stream<RealTimeData> stream = mongoTemplate.stream(query, RealTimeData.class)) {
+            for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                for (int i = 0; i < channels.length; i++) {
+                    consumers[i].accept(0L, channels[i].read(data));
+                }
+            }
+        }
+    }
+
+    private QuantileSketch[] newSketches(int channels) {
+        QuantileSketch[] sketches = new QuantileSketch[channels];
+        for (int i = 0; i < channels; i++) {
+            sketches[i] = quantileSketchRegistry.newSketch();
+        }
+        return sketches;
+    }
+
+    /**
+     * 分区区间 [from, to) 的计算任务，区间大于1时二分后并发执行
+     */
+    private final class PartitionTask extends RecursiveAction {
+
+        private final List<PartitionAggregate> partitions;
+
+        private final RealTimeDataChannel[] channels;
+
+        private final int from;
+
+        private final int to;
+
+        PartitionTask(List<PartitionAggregate> partitions, RealTimeDataChannel[] channels, int from, int to) {
+            this.partitions = partitions;
+            this.channels = channels;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    evaluate(partitions.get(from), channels);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PartitionTask(partitions, channels, from, middle),
+                    new PartitionTask(partitions, channels, middle, to));
+        }
+    }
+}
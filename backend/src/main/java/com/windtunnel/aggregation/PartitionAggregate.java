@@ -0,0 +1,79 @@
+package com.windtunnel.aggregation;
+
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.QuantileSketch;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分区聚合的部分状态
+ *
+ * 一个（数据来源, 时间片）分区内各通道的计数、和、平方和、最小值、最大值，以及可选的分位数草图。
+ * 各分量都可以精确合并，按来源或全部分区汇总时只合并部分状态，不重新扫描数据。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class PartitionAggregate {
+
+    private final String source;
+
+    private final LocalDateTime startTime;
+
+    private final LocalDateTime endTime;
+
+    private final ChannelAggregate[] aggregates;
+
+    /**
+     * 未请求分位数时为空
+     */
+    private final QuantileSketch[] sketches;
+
+    PartitionAggregate(String source, LocalDateTime startTime, LocalDateTime endTime, int channels,
+                       QuantileSketch[] sketches) {
+        this.source = source;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.aggregates = new ChannelAggregate[channels];
+        for (int i = 0; i < channels; i++) {
+            aggregates[i] = new ChannelAggregate();
+        }
+        this.sketches = sketches;
+    }
+
+    /**
+     * 合并另一个分区的部分状态
+     */
+    void merge(PartitionAggregate other) {
+        for (int i = 0; i < aggregates.length; i++) {
+            aggregates[i].merge(other.aggregates[i]);
+            if (sketches != null && other.sketches != null) {
+                sketches[i].merge(other.sketches[i]);
+            }
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public ChannelAggregate getAggregate(int channel) {
+        return aggregates[channel];
+    }
+
+    /**
+     * 通道的分位数草图，未请求分位数时返回null
+     */
+    public QuantileSketch getSketch(int channel) {
+        return sketches != null ? sketches[channel] : null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.windtunnel.aggregation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 聚合时间片粒度
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum TimeSlice {
+
+    /**
+     * 按自然小时切分
+     */
+    HOUR,
+
+    /**
+     * 按自然日切分
+     */
+    DAY,
+
+    /**
+     * 不切分，整个时间范围为一个时间片
+     */
+    NONE;
+
+    /**
+     * 按名称解析，大小写不敏感
+     *
+     * @throws IllegalArgumentException 名称不支持
+     */
+    public static TimeSlice of(String name) {
+        for (TimeSlice slice : values()) {
+            if (slice.name().equalsIgnoreCase(name)) {
+                return slice;
+            }
+        }
+        throw new IllegalArgumentException("不支持的时间片粒度: " + name);
+    }
+
+    /**
+     * 时间所在时间片之后的下一个时间片起点，不切分时返回null
+     */
+    LocalDateTime next(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            case NONE -> null;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.windtunnel.alert;
+
+import java.util.Objects;
+
+/**
+ * 告警键
+ *
+ * 同一数据来源、同一设备、同一检测规则的告警共享一个状态机
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class AlertKey {
+
+    private final String source;
+
+    private final Long equipmentId;
+
+    private final String rule;
+
+    public AlertKey(String source, Long equipmentId, String rule) {
+        this.source = source;
+        this.equipmentId = equipmentId;
+        this.rule = rule;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AlertKey)) {
+            return false;
+        }
+        AlertKey other = (AlertKey) o;
+        return Objects.equals(source, other.source) && Objects.equals(equipmentId, other.equipmentId)
+                && Objects.equals(rule, other.rule);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, equipmentId, rule);
+    }
+
+    @Override
+    public String toString() {
+        return source + "/" + equipmentId + "/" + rule;
+    }
+}
@@ -0,0 +1,343 @@
+package com.windtunnel.alert;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.entity.notification.Notification;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警管理器
+ *
+ * 为每个（数据来源，设备，检测规则）维护告警状态机，只有状态转换和周期摘要生成通知：
+ * <ul>
+ *     <li>触发滞回：连续异常达到 raise-count 次才触发告警</li>
+ *     <li>恢复滞回：连续正常达到 clear-count 次进入恢复确认，去重窗口内再次异常视为同一告警继续</li>
+ *     <li>摘要：告警持续期间每个摘要周期最多发送一条汇总通知</li>
+ *     <li>限流：每分钟通知数量超过上限时，摘要和短时间内反复触发的告警被合并，异常次数计入下一条通知，
+ *     并在下一周期发送一条限流汇总；新告警的首次触发通知和已发送告警的恢复通知不受限流影响</li>
+ *     <li>恢复通知只在触发通知已发送时发送，接收方不会收到没有对应告警的恢复</li>
+ * </ul>
+ * 状态只在内存中维护，进程重启后首个异常会重新触发告警
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class AlertManager {
+
+    public static final String BUSINESS_TYPE_RAISED = "ALERT_RAISED";
+
+    public static final String BUSINESS_TYPE_DIGEST = "ALERT_DIGEST";
+
+    public static final String BUSINESS_TYPE_CLEARED = "ALERT_CLEARED";
+
+    public static final String BUSINESS_TYPE_RATE_LIMITED = "ALERT_RATE_LIMITED";
+
+    private static final long RATE_WINDOW_MILLIS = 60_000L;
+
+    @Value("${wind-tunnel.alert.raise-count:3}")
+    private int raiseCount;
+
+    @Value("${wind-tunnel.alert.clear-count:10}")
+    private int clearCount;
+
+    @Value("${wind-tunnel.alert.dedup-window:60000}")
+    private long dedupWindowMillis;
+
+    @Value("${wind-tunnel.alert.digest-interval:300000}")
+    private long digestIntervalMillis;
+
+    @Value("${wind-tunnel.alert.stale-timeout:600000}")
+    private long staleTimeoutMillis;
+
+    @Value("${wind-tunnel.alert.rate-limit-per-minute:60}")
+    private int rateLimitPerMinute;
+
+    private final Map<AlertKey, AlertState> states = new HashMap<>();
+
+    /**
+     * 最近恢复的告警键及恢复时间，摘要周期内再次触发视为反复告警，受限流约束
+     */
+    private final Map<AlertKey, Long> recentlyCleared = new HashMap<>();
+
+    private long rateWindowStart;
+
+    private int rateWindowCount;
+
+    private long rateLimitedCount;
+
+    /**
+     * 处理一条实时数据，按接入时各检测规则的结论推进告警状态机
+     *
+     * 检测规则在接入时对每条数据只执行一次，这里不再重复推进有状态的检测器；
+     * 未经接入检测的数据（例如直接发布的事件）在此补做一次检测
+     *
+     * @param data 实时数据
+     * @param now 当前时间（毫秒）
+     * @return 需要发送的通知
+     */
+    public synchronized List<Notification> onSample(RealTimeData data, long now) {
+        List<Notification> notifications = new ArrayList<>();
+        if (data.getAnomalyVerdicts() == null) {
+            AnomalyDetectionStrategyFactory.detect(data);
+        }
+        for (Map.Entry<String, String> verdict : data.getAnomalyVerdicts().entrySet()) {
+            AlertKey key = new AlertKey(data.getSource(), data.getEquipmentId(), verdict.getKey());
+            if (verdict.getValue() != null) {
+                onAbnormal(key, verdict.getValue(), now, notifications);
+            } else {
+                AlertState state = states.get(key);
+                if (state != null) {
+                    onNormal(key, state, now, notifications);
+                }
+            }
+        }
+        return notifications;
+    }
+
+    /**
+     * 推进与时间相关的状态转换：恢复确认、周期摘要、长时间无数据的告警和限流汇总
+     *
+     * @param now 当前时间（毫秒）
+     * @return 需要发送的通知
+     */
+    public synchronized List<Notification> sweep(long now) {
+        List<Notification> notifications = new ArrayList<>();
+        Iterator<Map.Entry<AlertKey, AlertState>> iterator = states.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<AlertKey, AlertState> entry = iterator.next();
+            AlertKey key = entry.getKey();
+            AlertState state = entry.getValue();
+            switch (state.phase) {
+                case CLEARING:
+                    if (now - state.clearingSince >= dedupWindowMillis) {
+                        clear(key, state, now, "已恢复正常", notifications);
+                        iterator.remove();
+                    }
+                    break;
+                case RAISED:
+                    if (now - state.lastAbnormalAt >= staleTimeoutMillis) {
+                        clear(key, state, now, "长时间未收到异常数据，自动恢复", notifications);
+                        iterator.remove();
+                    } else {
+                        notifyOngoing(key, state, now, notifications);
+                    }
+                    break;
+                default:
+                    if (now - state.lastAbnormalAt >= staleTimeoutMillis) {
+                        iterator.remove();
+                    }
+                    break;
+            }
+        }
+        recentlyCleared.values().removeIf(clearedAt -> now - clearedAt >= digestIntervalMillis);
+        rollRateWindow(now, notifications);
+        return notifications;
+    }
+
+    /**
+     * 当前告警中的键数量
+     */
+    public synchronized int getActiveAlertCount() {
+        int active = 0;
+        for (AlertState state : states.values()) {
+            if (state.phase != AlertState.Phase.NORMAL) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private void onAbnormal(AlertKey key, String description, long now, List<Notification> notifications) {
+        AlertState state = states.computeIfAbsent(key, k -> new AlertState());
+        state.lastAbnormalAt = now;
+        state.lastDescription = description;
+        state.consecutiveNormal = 0;
+        switch (state.phase) {
+            case NORMAL:
+                if (state.consecutiveAbnormal == 0) {
+                    state.firstDescription = description;
+                }
+                state.consecutiveAbnormal++;
+                state.totalOccurrences++;
+                if (state.consecutiveAbnormal >= raiseCount) {
+                    state.phase = AlertState.Phase.RAISED;
+                    state.raisedAt = now;
+                    // 新告警的首次触发不限流；摘要周期内刚恢复又触发的反复告警按限流合并
+                    Long clearedAt = recentlyCleared.remove(key);
+                    boolean repeated = clearedAt != null && now - clearedAt < digestIntervalMillis;
+                    state.lastNotifiedAt = now;
+                    if (emit(notifications, raised(key, state), now, !repeated)) {
+                        state.raisedDelivered = true;
+                        state.occurrencesSinceNotify = 0;
+                    } else {
+                        state.occurrencesSinceNotify = state.consecutiveAbnormal;
+                    }
+                }
+                break;
+            case CLEARING:
+                // 去重窗口内再次异常，视为同一告警继续
+                state.phase = AlertState.Phase.RAISED;
+                state.totalOccurrences++;
+                state.occurrencesSinceNotify++;
+                break;
+            default:
+                state.totalOccurrences++;
+                state.occurrencesSinceNotify++;
+                notifyOngoing(key, state, now, notifications);
+                break;
+        }
+    }
+
+    private void onNormal(AlertKey key, AlertState state, long now, List<Notification> notifications) {
+        switch (state.phase) {
+            case NORMAL:
+                // 未达到触发阈值的零星异常不保留状态
+                states.remove(key);
+                break;
+            case RAISED:
+                state.consecutiveNormal++;
+                if (state.consecutiveNormal >= clearCount) {
+                    state.phase = AlertState.Phase.CLEARING;
+                    state.clearingSince = now;
+                }
+                break;
+            default:
+                if (now - state.clearingSince >= dedupWindowMillis) {
+                    clear(key, state, now, "已恢复正常", notifications);
+                    states.remove(key);
+                }
+                break;
+        }
+    }
+
+    /**
+     * 告警持续期间的通知：触发通知被限流合并时补发触发通知，否则按摘要周期发送摘要
+     *
+     * 被限流的通知不清零异常计数，异常次数合并到下一条通知
+     */
+    private void notifyOngoing(AlertKey key, AlertState state, long now, List<Notification> notifications) {
+        if (!state.raisedDelivered) {
+            if (now - state.lastNotifiedAt >= RATE_WINDOW_MILLIS) {
+                state.lastNotifiedAt = now;
+                if (emit(notifications, raised(key, state), now, false)) {
+                    state.raisedDelivered = true;
+                    state.occurrencesSinceNotify = 0;
+                }
+            }
+            return;
+        }
+        if (state.occurrencesSinceNotify > 0 && now - state.lastNotifiedAt >= digestIntervalMillis) {
+            state.lastNotifiedAt = now;
+            if (emit(notifications, digest(key, state, now), now, false)) {
+                state.occurrencesSinceNotify = 0;
+            }
+        }
+    }
+
+    /**
+     * 告警恢复：只有触发通知已发送时才发送恢复通知，且不受限流影响，保证接收方的告警能够关闭
+     */
+    private void clear(AlertKey key, AlertState state, long now, String reason, List<Notification> notifications) {
+        if (state.raisedDelivered) {
+            emit(notifications, cleared(key, state, now, reason), now, true);
+        } else {
+            log.debug("告警 {} 的触发通知被限流合并，恢复时不发送通知", key);
+        }
+        state.resetToNormal();
+        recentlyCleared.put(key, now);
+    }
+
+    private Notification raised(AlertKey key, AlertState state) {
+        Notification notification = build(key, BUSINESS_TYPE_RAISED, 2);
+        notification.setTitle("系统告警");
+        notification.setContent("检测到设备 " + key.getSource() + " 数据异常: " + state.firstDescription
+                + "（连续 " + state.consecutiveAbnormal + " 次"
+                + (state.totalOccurrences > state.consecutiveAbnormal ? "，累计 " + state.totalOccurrences + " 次" : "")
+                + "）");
+        return notification;
+    }
+
+    private Notification digest(AlertKey key, AlertState state, long now) {
+        Notification notification = build(key, BUSINESS_TYPE_DIGEST, 1);
+        notification.setTitle("持续告警摘要");
+        notification.setContent("设备 " + key.getSource() + " 规则 " + key.getRule() + " 持续异常 "
+                + formatDuration(now - state.raisedAt) + "，最近周期内异常 " + state.occurrencesSinceNotify
+                + " 次，累计 " + state.totalOccurrences + " 次，最新: " + state.lastDescription);
+        return notification;
+    }
+
+    private Notification cleared(AlertKey key, AlertState state, long now, String reason) {
+        Notification notification = build(key, BUSINESS_TYPE_CLEARED, 1);
+        notification.setTitle("告警恢复");
+        notification.setContent("设备 " + key.getSource() + " 规则 " + key.getRule() + " " + reason
+                + "，持续 " + formatDuration(state.lastAbnormalAt - state.raisedAt) + "，累计异常 "
+                + state.totalOccurrences + " 次");
+        return notification;
+    }
+
+    private Notification build(AlertKey key, String businessType, int priority) {
+        Notification notification = new Notification();
+        notification.setSenderId(0L); // 系统发送者ID
+        notification.setSenderName("SYSTEM"); // 系统发送者名称
+        notification.setNotificationType(1); // 系统通知
+        notification.setSendStatus(0); // 待发送
+        notification.setPriority(priority);
+        notification.setBusinessId(key.getEquipmentId());
+        notification.setBusinessType(businessType);
+        return notification;
+    }
+
+    /**
+     * 按每分钟上限放行通知，不受限流影响的通知同样计入当前周期的数量
+     *
+     * @param bypassLimit 是否不受限流影响
+     * @return 是否已放行
+     */
+    private boolean emit(List<Notification> notifications, Notification notification, long now, boolean bypassLimit) {
+        if (now - rateWindowStart >= RATE_WINDOW_MILLIS) {
+            rollRateWindow(now, notifications);
+        }
+        if (!bypassLimit && rateWindowCount >= rateLimitPerMinute) {
+            rateLimitedCount++;
+            return false;
+        }
+        rateWindowCount++;
+        notifications.add(notification);
+        return true;
+    }
+
+    private void rollRateWindow(long now, List<Notification> notifications) {
+        if (now - rateWindowStart < RATE_WINDOW_MILLIS) {
+            return;
+        }
+        rateWindowStart = now;
+        rateWindowCount = 0;
+        if (rateLimitedCount > 0) {
+            log.warn("告警通知触发限流，上一周期丢弃 {} 条", rateLimitedCount);
+            Notification notification = build(new AlertKey(null, null, null), BUSINESS_TYPE_RATE_LIMITED, 2);
+            notification.setTitle("告警限流");
+            notification.setContent("告警通知超过每分钟 " + rateLimitPerMinute + " 条上限，上一周期有 "
+                    + rateLimitedCount + " 条告警通知被抑制");
+            rateLimitedCount = 0;
+            rateWindowCount++;
+            notifications.add(notification);
+        }
+    }
+
+    private String formatDuration(long millis) {
+        Duration duration = Duration.ofMillis(Math.max(0, millis));
+        return String.format("%d分%d秒", duration.toMinutes(), duration.toSecondsPart());
+    }
+}
@@ -0,0 +1,73 @@
+package com.windtunnel.alert;
+
+/**
+ * 单个告警键的状态
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class AlertState {
+
+    /**
+     * 告警阶段
+     */
+    enum Phase {
+        /**
+         * 正常，连续异常次数未达到触发阈值
+         */
+        NORMAL,
+        /**
+         * 告警中
+         */
+        RAISED,
+        /**
+         * 已连续恢复正常，等待去重窗口结束后确认恢复
+         */
+        CLEARING
+    }
+
+    Phase phase = Phase.NORMAL;
+
+    int consecutiveAbnormal;
+
+    int consecutiveNormal;
+
+    long raisedAt;
+
+    long lastAbnormalAt;
+
+    long clearingSince;
+
+    long lastNotifiedAt;
+
+    /**
+     * 告警期间累计异常次数
+     */
+    long totalOccurrences;
+
+    /**
+     * 上次通知以来的异常次数
+     */
+    long occurrencesSinceNotify;
+
+    /**
+     * 本次告警的触发通知是否已发送，未发送时不发送恢复通知
+     */
+    boolean raisedDelivered;
+
+    String firstDescription;
+
+    String lastDescription;
+
+    void resetToNormal() {
+        phase = Phase.NORMAL;
+        consecutiveAbnormal = 0;
+        consecutiveNormal = 0;
+        totalOccurrences = 0;
+        occurrencesSinceNotify = 0;
+        raisedDelivered = false;
+        firstDescription = null;
+        lastDescription = null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.windtunnel.alignment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对齐后的多来源序列
+ *
+ * 所有序列共享同一时间网格，同一下标即同一时刻，跨来源分析按下标顺序遍历一次即可完成合并连接
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AlignedSeries {
+
+    private final long startMillis;
+
+    private final long stepMillis;
+
+    private final int points;
+
+    /**
+     * 序列键为 {数据来源}.{通道}，缺失的网格点为NaN
+     */
+    private final Map<String, double[]> series = new LinkedHashMap<>();
+
+    public AlignedSeries(long startMillis, long stepMillis, int points) {
+        this.startMillis = startMillis;
+        this.stepMillis = stepMillis;
+        this.points = points;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * 第index个网格点的时间
+     */
+    public long timeAt(int index) {
+        return startMillis + index * stepMillis;
+    }
+
+    public Map<String, double[]> getSeries() {
+        return series;
+    }
+
+    /**
+     * 获取指定来源和通道的序列
+     *
+     * @return 网格取值，不存在时返回null
+     */
+    public double[] get(String source, String channel) {
+        return series.get(key(source, channel));
+    }
+
+    void put(String source, String channel, double[] values) {
+        series.put(key(source, channel), values);
+    }
+
+    static String key(String source, String channel) {
+        return source + "." + channel;
+    }
+}
@@ -0,0 +1,115 @@
+package com.windtunnel.alignment;
+
+/**
+ * 单个数据来源的时钟偏差估计器
+ *
+ * 每条带设备时间的数据给出一个观测值 接收时间 - 设备时间 = 时钟偏差 + 传输延迟。
+ * 传输延迟非负且大部分时间接近最小值，因此取滑动时间窗口内观测值的最小值作为偏差估计，
+ * 排队和网络抖动只会抬高单个观测值而不影响估计；窗口滑动使估计能跟随设备时钟漂移。
+ * 滑动最小值用单调队列维护，每次观测均摊O(1)。
+ *
+ * 非线程安全，由调用方按来源加锁。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ClockOffsetEstimator {
+
+    private final long windowMillis;
+
+    /**
+     * 单调队列（观测值递增），环形数组存储
+     */
+    private long[] arrivals;
+
+    private long[] deltas;
+
+    private int head;
+
+    private int size;
+
+    private long samples;
+
+    private long lastDelta;
+
+    public ClockOffsetEstimator(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.arrivals = new long[16];
+        this.deltas = new long[16];
+    }
+
+    /**
+     * 记录一次观测并返回校正后的采集时间
+     *
+     * @param deviceMillis 设备时间
+     * @param arrivalMillis 接收时间
+     * @return 校正后的采集时间，不晚于接收时间
+     */
+    public long correct(long deviceMillis, long arrivalMillis) {
+        observe(deviceMillis, arrivalMillis);
+        return Math.min(deviceMillis + getOffset(), arrivalMillis);
+    }
+
+    /**
+     * 记录一次观测
+     */
+    public void observe(long deviceMillis, long arrivalMillis) {
+        long delta = arrivalMillis - deviceMillis;
+        // 队尾不小于新观测值的元素不可能再成为窗口最小值
+        while (size > 0 && deltas[index(size - 1)] >= delta) {
+            size--;
+        }
+        if (size == deltas.length) {
+            grow();
+        }
+        int tail = index(size);
+        arrivals[tail] = arrivalMillis;
+        deltas[tail] = delta;
+        size++;
+        // 淘汰窗口外的观测值，最新的观测值始终保留
+        while (size > 1 && arrivals[head] < arrivalMillis - windowMillis) {
+            head = index(1);
+            size--;
+        }
+        samples++;
+        lastDelta = delta;
+    }
+
+    /**
+     * 当前偏差估计（毫秒），加到设备时间上得到服务器时间
+     */
+    public long getOffset() {
+        return size > 0 ? deltas[head] : 0;
+    }
+
+    /**
+     * 最近一次观测的传输延迟估计（毫秒）
+     */
+    public long getLastDelay() {
+        return lastDelta - getOffset();
+    }
+
+    /**
+     * 累计观测次数
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    private int index(int offset) {
+        return (head + offset) & (deltas.length - 1);
+    }
+
+    private void grow() {
+        long[] newArrivals = new long[arrivals.length * 2];
+        long[] newDeltas = new long[deltas.length * 2];
+        for (int i = 0; i < size; i++) {
+            newArrivals[i] = arrivals[index(i)];
+            newDeltas[i] = deltas[index(i)];
+        }
+        arrivals = newArrivals;
+        deltas = newDeltas;
+        head = 0;
+    }
+}
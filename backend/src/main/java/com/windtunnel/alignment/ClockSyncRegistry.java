@@ -0,0 +1,84 @@
+package com.windtunnel.alignment;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 时钟同步注册表
+ *
+ * 按数据来源维护设备时钟偏差估计，在接入边缘把设备上报的采集时间校正到服务器时钟，
+ * 使存储的数据时间反映采集时刻而不是网络和队列延迟之后的接收时刻
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ClockSyncRegistry {
+
+    @Value("${wind-tunnel.alignment.offset-window:60000}")
+    private long offsetWindowMillis;
+
+    private final Map<String, ClockOffsetEstimator> estimators = new ConcurrentHashMap<>();
+
+    /**
+     * 按设备时间校正数据时间，未上报设备时间的数据保持接收时间不变
+     *
+     * @param data 实时数据，创建时间视为接收时间
+     */
+    public void apply(RealTimeData data) {
+        if (data == null || data.getDeviceTime() == null || data.getSource() == null) {
+            return;
+        }
+        long deviceMillis = EpochTimes.toEpochMilli(data.getDeviceTime());
+        long arrivalMillis = EpochTimes.toEpochMilli(
+                data.getCreateTime() != null ? data.getCreateTime() : LocalDateTime.now());
+        ClockOffsetEstimator estimator = estimators.computeIfAbsent(data.getSource(),
+                key -> new ClockOffsetEstimator(offsetWindowMillis));
+        long corrected;
+        synchronized (estimator) {
+            corrected = estimator.correct(deviceMillis, arrivalMillis);
+        }
+        data.setDataTime(EpochTimes.toLocalDateTime(corrected));
+    }
+
+    /**
+     * 批量校正
+     */
+    public void apply(List<RealTimeData> dataList) {
+        for (RealTimeData data : dataList) {
+            apply(data);
+        }
+    }
+
+    /**
+     * 获取各数据来源的时钟偏差估计
+     *
+     * @return 偏差列表，每项包含数据来源、偏差、最近延迟和观测次数
+     */
+    public List<Map<String, Object>> getOffsets() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        estimators.forEach((source, estimator) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("source", source);
+            synchronized (estimator) {
+                item.put("offsetMillis", estimator.getOffset());
+                item.put("lastDelayMillis", estimator.getLastDelay());
+                item.put("samples", estimator.getSamples());
+            }
+            result.add(item);
+        });
+        return result;
+    }
+}
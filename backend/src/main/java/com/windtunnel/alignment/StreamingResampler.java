@@ -0,0 +1,92 @@
+package com.windtunnel.alignment;
+
+import com.windtunnel.timeseries.SampleConsumer;
+
+import java.util.Arrays;
+
+/**
+ * 流式线性插值重采样器
+ *
+ * 按时间升序接收原始采样点，只保留上一个采样点，每到达一个新采样点就填充两点之间的所有网格点，
+ * 一次遍历即可把任意采样率的序列对齐到公共时间网格。
+ * 两个采样点间隔超过最大间隔、网格点早于第一个采样点或晚于最后一个采样点时输出NaN，不外推。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class StreamingResampler implements SampleConsumer {
+
+    private final long startMillis;
+
+    private final long stepMillis;
+
+    private final long maxGapMillis;
+
+    private final double[] values;
+
+    private int next;
+
+    private boolean hasPrevious;
+
+    private long previousTime;
+
+    private double previousValue;
+
+    /**
+     * @param startMillis 网格起点
+     * @param stepMillis 网格步长
+     * @param points 网格点数量
+     * @param maxGapMillis 允许插值的最大采样间隔
+     */
+    public StreamingResampler(long startMillis, long stepMillis, int points, long maxGapMillis) {
+        this.startMillis = startMillis;
+        this.stepMillis = stepMillis;
+        this.maxGapMillis = maxGapMillis;
+        this.values = new double[points];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    @Override
+    public void accept(long timestamp, double value) {
+        if (Double.isNaN(value) || (hasPrevious && timestamp < previousTime)) {
+            // 缺失值和乱序点（如归档与热数据的重叠部分）直接跳过
+            return;
+        }
+        if (hasPrevious && timestamp > previousTime) {
+            boolean gap = timestamp - previousTime > maxGapMillis;
+            double slope = (value - previousValue) / (timestamp - previousTime);
+            for (long grid = gridTime(next); next < values.length && grid <= timestamp; grid = gridTime(++next)) {
+                if (grid == previousTime) {
+                    values[next] = previousValue;
+                } else if (grid == timestamp) {
+                    values[next] = value;
+                } else if (!gap) {
+                    values[next] = previousValue + slope * (grid - previousTime);
+                }
+            }
+        } else if (!hasPrevious) {
+            // 第一个采样点之前的网格点保持NaN
+            while (next < values.length && gridTime(next) < timestamp) {
+                next++;
+            }
+        }
+        hasPrevious = true;
+        previousTime = timestamp;
+        previousValue = value;
+    }
+
+    /**
+     * 结束输入并返回网格取值
+     */
+    public double[] finish() {
+        if (hasPrevious && next < values.length && gridTime(next) == previousTime) {
+            values[next++] = previousValue;
+        }
+        return values;
+    }
+
+    private long gridTime(int index) {
+        return startMillis + index * stepMillis;
+    }
+}
@@ -0,0 +1,81 @@
+package com.windtunnel.alignment;
+
+import com.windtunnel.archive.TieredSeriesReader;
+import com.windtunnel.timeseries.EpochTimes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 多来源时间对齐引擎
+ *
+ * 把多个数据来源的通道重采样到公共时间网格。每个来源只按时间顺序遍历一次冷数据和热数据，
+ * 所有请求通道的重采样器同时推进，不在内存中保留原始数据。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class TimeAligner {
+
+    @Autowired
+    private TieredSeriesReader tieredSeriesReader;
+
+    @Value("${wind-tunnel.alignment.max-gap:5000}")
+    private long defaultMaxGapMillis;
+
+    @Value("${wind-tunnel.alignment.max-points:100000}")
+    private int maxPoints;
+
+    /**
+     * 对齐多个来源的通道
+     *
+     * @param sources 数据来源列表
+     * @param channels 通道列表（字段名、dataContent键名或宽通道名称）
+     * @param startTime 网格起点
+     * @param endTime 网格终点（含）
+     * @param stepMillis 网格步长（毫秒）
+     * @param maxGapMillis 允许插值的最大采样间隔，为空时使用配置值
+     * @return 对齐后的序列
+     * @throws IllegalArgumentException 参数无效或网格点数超过上限
+     */
+    public AlignedSeries align(List<String> sources, List<String> channels, LocalDateTime startTime,
+                               LocalDateTime endTime, long stepMillis, Long maxGapMillis) {
+        if (sources == null || sources.isEmpty() || channels == null || channels.isEmpty()) {
+            throw new IllegalArgumentException("数据来源和通道不能为空");
+        }
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("网格步长必须大于0");
+        }
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        if (endMillis < startMillis) {
+            throw new IllegalArgumentException("结束时间不能早于开始时间");
+        }
+        long points = (endMillis - startMillis) / stepMillis + 1;
+        if (points > maxPoints) {
+            throw new IllegalArgumentException("网格点数 " + points + " 超过上限 " + maxPoints + "，请增大步长或缩小时间范围");
+        }
+        long maxGap = maxGapMillis != null ? maxGapMillis : defaultMaxGapMillis;
+
+        AlignedSeries result = new AlignedSeries(startMillis, stepMillis, (int) points);
+        for (String source : sources) {
+            StreamingResampler[] resamplers = new StreamingResampler[channels.size()];
+            for (int i = 0; i < resamplers.length; i++) {
+                resamplers[i] = new StreamingResampler(startMillis, stepMillis, (int) points, maxGap);
+            }
+            long rows = tieredSeriesReader.read(source, channels, startTime, endTime, resamplers);
+            for (int i = 0; i < resamplers.length; i++) {
+                result.put(source, channels.get(i), resamplers[i].finish());
+            }
+            log.debug("数据来源 {} 对齐完成，热数据 {} 条，网格点 {} 个", source, rows, points);
+        }
+        return result;
+    }
+}
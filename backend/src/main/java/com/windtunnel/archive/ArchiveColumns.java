@@ -0,0 +1,128 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 归档文件列定义
+ *
+ * 前若干列与RealTimeDataChannel一一对应，其后依次为设备ID、实验室ID、数据状态、风险等级。
+ * 所有列均以double保存，NaN表示空值（ID在2^53以内可精确表示）。
+ * 列无法表示的字段（ID、dataContent、附加参数、异常描述、创建时间、设备时间、宽通道取值等）
+ * 按行保存在块的附加数据中，重建时合并回行，迁移到归档后不丢失任何字段。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class ArchiveColumns {
+
+    static final int EQUIPMENT_ID = RealTimeDataChannel.count();
+
+    static final int LABORATORY_ID = EQUIPMENT_ID + 1;
+
+    static final int STATUS = EQUIPMENT_ID + 2;
+
+    static final int RISK_LEVEL = EQUIPMENT_ID + 3;
+
+    static final int COUNT = EQUIPMENT_ID + 4;
+
+    private ArchiveColumns() {
+    }
+
+    /**
+     * 读取列值
+     */
+    static double read(RealTimeData data, int column) {
+        if (column < EQUIPMENT_ID) {
+            return RealTimeDataChannel.of(column).read(data);
+        }
+        Number value;
+        if (column == EQUIPMENT_ID) {
+            value = data.getEquipmentId();
+        } else if (column == LABORATORY_ID) {
+            value = data.getLaboratoryId();
+        } else if (column == STATUS) {
+            value = data.getStatus();
+        } else {
+            value = data.getRiskLevel();
+        }
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * 写入列值
+     */
+    static void write(RealTimeData data, int column, double value) {
+        if (column < EQUIPMENT_ID) {
+            RealTimeDataChannel.of(column).write(data, value);
+            return;
+        }
+        boolean isNull = Double.isNaN(value);
+        if (column == EQUIPMENT_ID) {
+            data.setEquipmentId(isNull ? null : (long) value);
+        } else if (column == LABORATORY_ID) {
+            data.setLaboratoryId(isNull ? null : (long) value);
+        } else if (column == STATUS) {
+            data.setStatus(isNull ? null : (int) value);
+        } else {
+            data.setRiskLevel(isNull ? null : (int) value);
+        }
+    }
+
+    /**
+     * 提取列无法表示的字段
+     *
+     * 数据时间只在有亚毫秒精度时保存；通道值只在转换为double会改变数值时保存
+     *
+     * @return 附加字段，其余字段为空
+     */
+    static RealTimeData extras(RealTimeData data) {
+        RealTimeData extras = new RealTimeData();
+        extras.setId(data.getId());
+        extras.setCreateTime(data.getCreateTime());
+        extras.setDataContent(data.getDataContent());
+        extras.setOtherParams(data.getOtherParams());
+        extras.setAnomalyDescription(data.getAnomalyDescription());
+        extras.setDeviceTime(data.getDeviceTime());
+        extras.setSchemaId(data.getSchemaId());
+        extras.setChannelValues(data.getChannelValues());
+        LocalDateTime dataTime = data.getDataTime();
+        if (dataTime != null && dataTime.getNano() % 1_000_000 != 0) {
+            extras.setDataTime(dataTime);
+        }
+        for (RealTimeDataChannel channel : RealTimeDataChannel.values()) {
+            BigDecimal value = channel.decimal(data);
+            if (value != null && BigDecimal.valueOf(value.doubleValue()).compareTo(value) != 0) {
+                channel.setDecimal(extras, value);
+            }
+        }
+        return extras;
+    }
+
+    /**
+     * 把附加字段合并回由列重建的行
+     */
+    static void applyExtras(RealTimeData data, RealTimeData extras) {
+        data.setId(extras.getId());
+        data.setCreateTime(extras.getCreateTime());
+        data.setDataContent(extras.getDataContent());
+        data.setOtherParams(extras.getOtherParams());
+        data.setAnomalyDescription(extras.getAnomalyDescription());
+        data.setDeviceTime(extras.getDeviceTime());
+        data.setSchemaId(extras.getSchemaId());
+        data.setChannelValues(extras.getChannelValues());
+        if (extras.getDataTime() != null) {
+            data.setDataTime(extras.getDataTime());
+        }
+        for (RealTimeDataChannel channel : RealTimeDataChannel.values()) {
+            BigDecimal value = channel.decimal(extras);
+            if (value != null) {
+                channel.setDecimal(data, value);
+            }
+        }
+    }
+}
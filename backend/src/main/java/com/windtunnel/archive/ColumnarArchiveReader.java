@@ -0,0 +1,370 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.codec.RealTimeDataBinaryCodec;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.GorillaDecoder;
+import com.windtunnel.timeseries.SampleConsumer;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 列式归档文件读取器
+ *
+ * 打开时仅解析块索引；查询时先用块的时间范围和区域映射剪枝，只读取和解码需要的块和列。
+ * 文件偏移均为long，通过文件通道的绝对位置读取，不受单个缓冲区2GB的限制，可被多个线程并发共享。
+ * 按行重建时解压块的附加数据，还原列无法表示的字段；版本1文件没有附加数据，只还原列字段。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ColumnarArchiveReader {
+
+    private final Path path;
+
+    /**
+     * 线程在读取时被中断会关闭文件通道，关闭后按需重新打开
+     */
+    private volatile FileChannel channel;
+
+    private final int blockCount;
+
+    private final long[] blockMinTime;
+
+    private final long[] blockMaxTime;
+
+    private final int[] blockRows;
+
+    /**
+     * 每块附加数据的偏移和长度，版本1文件为0
+     */
+    private final long[] extrasOffset;
+
+    private final int[] extrasLength;
+
+    /**
+     * 生成分区时的数据快照时间，版本1文件为null
+     */
+    private final Long createdUntil;
+
+    /**
+     * 每块每列的索引信息，下标为 block * 列数 + column
+     */
+    private final long[] columnOffset;
+
+    private final int[] columnLength;
+
+    private final int[] columnCount;
+
+    private final double[] columnMin;
+
+    private final double[] columnMax;
+
+    private final double[] columnSum;
+
+    private final double[] columnSumSquares;
+
+    private ColumnarArchiveReader(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        ByteBuffer header = read(0, ColumnarArchiveWriter.V1_HEADER_SIZE);
+        if (header.getInt(0) != ColumnarArchiveWriter.MAGIC) {
+            throw new IllegalStateException("不是有效的归档文件");
+        }
+        int version = header.getInt(4);
+        if (version != 1 && version != ColumnarArchiveWriter.VERSION) {
+            throw new IllegalStateException("不支持的归档文件版本: " + version);
+        }
+        this.blockCount = header.getInt(8);
+        long indexOffset = header.getLong(12);
+        this.createdUntil = version > 1 ? read(ColumnarArchiveWriter.V1_HEADER_SIZE, 8).getLong(0) : null;
+        int blockHeaderSize = version > 1 ? ColumnarArchiveWriter.BLOCK_HEADER_SIZE
+                : ColumnarArchiveWriter.V1_BLOCK_HEADER_SIZE;
+
+        this.blockMinTime = new long[blockCount];
+        this.blockMaxTime = new long[blockCount];
+        this.blockRows = new int[blockCount];
+        this.extrasOffset = new long[blockCount];
+        this.extrasLength = new int[blockCount];
+        int entries = blockCount * ArchiveColumns.COUNT;
+        this.columnOffset = new long[entries];
+        this.columnLength = new int[entries];
+        this.columnCount = new int[entries];
+        this.columnMin = new double[entries];
+        this.columnMax = new double[entries];
+        this.columnSum = new double[entries];
+        this.columnSumSquares = new double[entries];
+
+        // 索引按块顺序存放在文件末尾，逐块读取
+        int entrySize = blockHeaderSize + ArchiveColumns.COUNT * ColumnarArchiveWriter.COLUMN_INDEX_SIZE;
+        for (int block = 0; block < blockCount; block++) {
+            ByteBuffer index = read(indexOffset + (long) block * entrySize, entrySize);
+            blockMinTime[block] = index.getLong(0);
+            blockMaxTime[block] = index.getLong(8);
+            blockRows[block] = index.getInt(16);
+            if (version > 1) {
+                extrasOffset[block] = index.getLong(20);
+                extrasLength[block] = index.getInt(28);
+            }
+            int position = blockHeaderSize;
+            for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+                int entry = block * ArchiveColumns.COUNT + column;
+                columnOffset[entry] = index.getLong(position);
+                columnLength[entry] = index.getInt(position + 8);
+                columnCount[entry] = index.getInt(position + 12);
+                columnMin[entry] = index.getDouble(position + 16);
+                columnMax[entry] = index.getDouble(position + 24);
+                columnSum[entry] = index.getDouble(position + 32);
+                columnSumSquares[entry] = index.getDouble(position + 40);
+                position += ColumnarArchiveWriter.COLUMN_INDEX_SIZE;
+            }
+        }
+    }
+
+    /**
+     * 打开归档文件，文件通道随读取器保持打开
+     */
+    public static ColumnarArchiveReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ColumnarArchiveReader(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 生成分区时的数据快照时间（epoch毫秒），分区内数据的创建时间均不晚于该时间
+     *
+     * @return 快照时间，版本1文件未记录时返回null
+     */
+    public Long getCreatedUntil() {
+        return createdUntil;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * 文件内最早时间，无数据时返回Long.MAX_VALUE
+     */
+    public long getMinTime() {
+        return blockCount > 0 ? blockMinTime[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * 文件内最晚时间，无数据时返回Long.MIN_VALUE
+     */
+    public long getMaxTime() {
+        return blockCount > 0 ? blockMaxTime[blockCount - 1] : Long.MIN_VALUE;
+    }
+
+    /**
+     * 按行重建时间范围内的实时数据
+     *
+     * @param source 数据来源（归档文件按来源分区，不单独存储该列）
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param consumer 数据消费者
+     */
+    public void scanRows(String source, long startMillis, long endMillis, Consumer<RealTimeData> consumer) {
+        GorillaDecoder[] decoders = new GorillaDecoder[ArchiveColumns.COUNT];
+        for (int block = 0; block < blockCount; block++) {
+            if (!overlaps(block, startMillis, endMillis)) {
+                continue;
+            }
+            for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+                decoders[column] = decoder(block, column);
+            }
+            try (DataInputStream extras = extras(block)) {
+                for (int row = 0; row < blockRows[block]; row++) {
+                    for (GorillaDecoder decoder : decoders) {
+                        decoder.next();
+                    }
+                    byte[] encodedExtras = extras != null ? readExtras(extras) : null;
+                    long timestamp = decoders[0].timestamp();
+                    if (timestamp < startMillis || timestamp > endMillis) {
+                        continue;
+                    }
+                    RealTimeData data = new RealTimeData();
+                    data.setSource(source);
+                    data.setDataTime(EpochTimes.toLocalDateTime(timestamp));
+                    for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+                        ArchiveColumns.write(data, column, decoders[column].value());
+                    }
+                    if (encodedExtras != null) {
+                        ArchiveColumns.applyExtras(data, RealTimeDataBinaryCodec.decode(encodedExtras));
+                    }
+                    consumer.accept(data);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取归档附加数据失败", e);
+            }
+        }
+    }
+
+    /**
+     * 扫描单列，按时间范围和取值范围剪枝
+     *
+     * @param column 列下标
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param minValue 取值下限（含）
+     * @param maxValue 取值上限（含）
+     * @param consumer 采样点消费者，空值不回调
+     * @return 回调的采样点数量
+     */
+    public long scanColumn(int column, long startMillis, long endMillis, double minValue, double maxValue,
+                           SampleConsumer consumer) {
+        long emitted = 0;
+        for (int block = 0; block < blockCount; block++) {
+            int entry = block * ArchiveColumns.COUNT + column;
+            if (!overlaps(block, startMillis, endMillis) || columnCount[entry] == 0
+                    || columnMax[entry] < minValue || columnMin[entry] > maxValue) {
+                continue;
+            }
+            GorillaDecoder decoder = decoder(block, column);
+            while (decoder.next()) {
+                long timestamp = decoder.timestamp();
+                double value = decoder.value();
+                if (timestamp >= startMillis && timestamp <= endMillis
+                        && value >= minValue && value <= maxValue) {
+                    consumer.accept(timestamp, value);
+                    emitted++;
+                }
+            }
+        }
+        return emitted;
+    }
+
+    /**
+     * 聚合单列，完全落在时间范围内的块直接合并区域映射，无需解码
+     *
+     * @param column 列下标
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param target 聚合结果
+     */
+    public void aggregateColumn(int column, long startMillis, long endMillis, ChannelAggregate target) {
+        for (int block = 0; block < blockCount; block++) {
+            int entry = block * ArchiveColumns.COUNT + column;
+            if (!overlaps(block, startMillis, endMillis) || columnCount[entry] == 0) {
+                continue;
+            }
+            if (blockMinTime[block] >= startMillis && blockMaxTime[block] <= endMillis) {
+                target.merge(columnCount[entry], columnSum[entry], columnSumSquares[entry],
+                        columnMin[entry], columnMax[entry]);
+                continue;
+            }
+            GorillaDecoder decoder = decoder(block, column);
+            while (decoder.next()) {
+                long timestamp = decoder.timestamp();
+                if (timestamp >= startMillis && timestamp <= endMillis) {
+                    target.add(decoder.value());
+                }
+            }
+        }
+    }
+
+    private boolean overlaps(int block, long startMillis, long endMillis) {
+        return blockMaxTime[block] >= startMillis && blockMinTime[block] <= endMillis;
+    }
+
+    /**
+     * 块附加数据的解压流，版本1文件返回null
+     */
+    private DataInputStream extras(int block) {
+        if (extrasLength[block] == 0) {
+            return null;
+        }
+        ByteBuffer compressed = readUnchecked(extrasOffset[block], extrasLength[block]);
+        return new DataInputStream(new InflaterInputStream(new ByteBufferInputStream(compressed)));
+    }
+
+    private static byte[] readExtras(DataInputStream extras) throws IOException {
+        byte[] bytes = new byte[extras.readInt()];
+        extras.readFully(bytes);
+        return bytes;
+    }
+
+    private GorillaDecoder decoder(int block, int column) {
+        int entry = block * ArchiveColumns.COUNT + column;
+        return new GorillaDecoder(readUnchecked(columnOffset[entry], columnLength[entry]), 0);
+    }
+
+    /**
+     * 从文件的绝对位置读取指定长度，不改变通道位置
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        FileChannel current = channel();
+        while (bytes.hasRemaining()) {
+            if (current.read(bytes, offset + bytes.position()) < 0) {
+                throw new EOFException("归档文件已截断，偏移: " + offset);
+            }
+        }
+        return bytes.flip();
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel current = channel;
+        if (current.isOpen()) {
+            return current;
+        }
+        synchronized (this) {
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            return channel;
+        }
+    }
+
+    private ByteBuffer readUnchecked(long offset, int length) {
+        try {
+            return read(offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取归档文件失败", e);
+        }
+    }
+
+    /**
+     * 基于缓冲区的输入流，读取不影响原缓冲区的位置
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 本地列式归档存储
+ *
+ * 冷数据按 {根目录}/{数据来源}/{yyyyMMdd}-{序号}.wtc 分区存储，文件写入后不可变。
+ * 读取器按文件缓存，查询时先按文件名中的日期过滤分区，再由块索引剪枝。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ColumnarArchiveStore {
+
+    private static final String FILE_SUFFIX = ".wtc";
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Value("${wind-tunnel.archive.local-dir:data/archive}")
+    private String localDir;
+
+    @Value("${wind-tunnel.archive.block-rows:4096}")
+    private int blockRows;
+
+    private final Map<Path, ColumnarArchiveReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * 为指定来源和日期创建新的分区文件写入器，同一天多次归档时序号递增
+     *
+     * @param source 数据来源
+     * @param day 分区日期
+     * @param createdUntil 数据快照时间（epoch毫秒），写入的数据创建时间均不晚于该时间
+     * @return 写入器
+     */
+    public ColumnarArchiveWriter openWriter(String source, LocalDate day, long createdUntil) throws IOException {
+        Path directory = sourceDirectory(source);
+        String prefix = DAY_FORMAT.format(day) + "-";
+        int sequence = 0;
+        for (Path partition : listPartitions(directory)) {
+            String fileName = partition.getFileName().toString();
+            if (fileName.startsWith(prefix)) {
+                int fileSequence = Integer.parseInt(fileName.substring(prefix.length(), fileName.length() - FILE_SUFFIX.length()));
+                sequence = Math.max(sequence, fileSequence + 1);
+            }
+        }
+        return new ColumnarArchiveWriter(directory.resolve(prefix + sequence + FILE_SUFFIX), blockRows, createdUntil);
+    }
+
+    /**
+     * 指定来源和日期已归档数据的快照时间，即各分区文件快照时间的最大值
+     *
+     * 分区按快照时间递增生成，创建时间不晚于该时间的当天数据都已写入归档
+     *
+     * @param source 数据来源
+     * @param day 分区日期
+     * @return 快照时间（epoch毫秒），当天没有记录快照时间的分区时返回null
+     */
+    public Long tieredUntil(String source, LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        Long tieredUntil = null;
+        for (Path partition : partitions(source, start, start)) {
+            Long createdUntil = reader(partition).getCreatedUntil();
+            if (createdUntil != null && (tieredUntil == null || createdUntil > tieredUntil)) {
+                tieredUntil = createdUntil;
+            }
+        }
+        return tieredUntil;
+    }
+
+    /**
+     * 时间范围内各日期已归档数据的快照时间
+     *
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 日期到快照时间（epoch毫秒）的映射，不含没有记录快照时间的日期
+     */
+    public Map<LocalDate, Long> tieredUntil(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        Map<LocalDate, Long> result = new TreeMap<>();
+        for (Path partition : partitions(source, startTime, endTime)) {
+            Long createdUntil = reader(partition).getCreatedUntil();
+            if (createdUntil != null) {
+                LocalDate day = LocalDate.parse(partition.getFileName().toString().substring(0, 8), DAY_FORMAT);
+                result.merge(day, createdUntil, Math::max);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询时间范围内的归档数据
+     *
+     * @param source 数据来源，为空时查询所有来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 重建的实时数据列表
+     */
+    public List<RealTimeData> readRows(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        List<RealTimeData> result = new ArrayList<>();
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        for (String archivedSource : source != null ? List.of(source) : listSources()) {
+            for (Path partition : partitions(archivedSource, startTime, endTime)) {
+                reader(partition).scanRows(archivedSource, startMillis, endMillis, result::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 扫描单个通道的归档数据
+     *
+     * @param source 数据来源
+     * @param channel 通道
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param consumer 采样点消费者
+     * @return 回调的采样点数量
+     */
+    public long scanChannel(String source, RealTimeDataChannel channel, LocalDateTime startTime,
+                            LocalDateTime endTime, SampleConsumer consumer) {
+        return scanChannel(source, channel, startTime, endTime,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, consumer);
+    }
+
+    /**
+     * 扫描单个通道取值范围内的归档数据，区域映射与取值范围不相交的块直接跳过
+     *
+     * @param source 数据来源
+     * @param channel 通道
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param minValue 取值下限（含）
+     * @param maxValue 取值上限（含）
+     * @param consumer 采样点消费者
+     * @return 回调的采样点数量
+     */
+    public long scanChannel(String source, RealTimeDataChannel channel, LocalDateTime startTime,
+                            LocalDateTime endTime, double minValue, double maxValue, SampleConsumer consumer) {
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        long emitted = 0;
+        for (Path partition : partitions(source, startTime, endTime)) {
+            emitted += reader(partition).scanColumn(channel.ordinal(), startMillis, endMillis,
+                    minValue, maxValue, consumer);
+        }
+        return emitted;
+    }
+
+    /**
+     * 扫描指定分区文件中单个通道的归档数据，分区文件不存在时跳过
+     *
+     * @param source 数据来源
+     * @param fileNames 分区文件名
+     * @param channel 通道
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param consumer 采样点消费者
+     * @return 回调的采样点数量
+     */
+    public long scanPartitions(String source, List<String> fileNames, RealTimeDataChannel channel,
+                               LocalDateTime startTime, LocalDateTime endTime, SampleConsumer consumer) {
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        Path directory = sourceDirectory(source);
+        long emitted = 0;
+        for (String fileName : fileNames) {
+            Path partition = directory.resolve(fileName);
+            if (Files.isRegularFile(partition)) {
+                emitted += reader(partition).scanColumn(channel.ordinal(), startMillis, endMillis,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, consumer);
+            }
+        }
+        return emitted;
+    }
+
+    /**
+     * 聚合时间范围内各通道的归档数据
+     *
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 按通道序号排列的聚合结果
+     */
+    public ChannelAggregate[] aggregate(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        ChannelAggregate[] aggregates = new ChannelAggregate[RealTimeDataChannel.count()];
+        for (int i = 0; i < aggregates.length; i++) {
+            aggregates[i] = new ChannelAggregate();
+        }
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        for (Path partition : partitions(source, startTime, endTime)) {
+            ColumnarArchiveReader reader = reader(partition);
+            for (int i = 0; i < aggregates.length; i++) {
+                reader.aggregateColumn(i, startMillis, endMillis, aggregates[i]);
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * 列出所有已归档的数据来源
+     */
+    public List<String> listSources() {
+        Path root = Paths.get(localDir);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.list(root)) {
+            return stream.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 列出与时间范围相交的分区文件，按日期和序号排序
+     */
+    List<Path> partitions(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        String firstDay = DAY_FORMAT.format(startTime.toLocalDate());
+        String lastDay = DAY_FORMAT.format(endTime.toLocalDate());
+        List<Path> result = new ArrayList<>();
+        for (Path partition : listPartitions(sourceDirectory(source))) {
+            String day = partition.getFileName().toString().substring(0, 8);
+            if (day.compareTo(firstDay) >= 0 && day.compareTo(lastDay) <= 0) {
+                result.add(partition);
+            }
+        }
+        return result;
+    }
+
+    private List<Path> listPartitions(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted((a, b) -> comparePartitionNames(a.getFileName().toString(), b.getFileName().toString()))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int comparePartitionNames(String a, String b) {
+        int dayCompare = a.substring(0, 8).compareTo(b.substring(0, 8));
+        if (dayCompare != 0) {
+            return dayCompare;
+        }
+        return Integer.compare(a.length(), b.length()) != 0 ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+
+    private ColumnarArchiveReader reader(Path partition) {
+        return readers.computeIfAbsent(partition, path -> {
+            try {
+                log.debug("打开归档分区文件: {}", path);
+                return ColumnarArchiveReader.open(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Path sourceDirectory(String source) {
+        return Paths.get(localDir, source.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.codec.RealTimeDataBinaryCodec;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.GorillaEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 列式归档文件写入器
+ *
+ * 按块写入一个分区（数据来源 + 日期）的数据，每块内每列为一个行对齐的Gorilla编码流，
+ * 列无法表示的字段按行编码后压缩为块的附加数据，文件末尾为块索引（时间范围 + 附加数据位置 + 每列的区域映射）。
+ * 写入临时文件，关闭时原子重命名，保证正式文件一经出现即不可变。
+ *
+ * 文件头记录生成分区时的数据快照时间（只归档了创建时间不晚于该时间的数据），
+ * 分层任务中断后重跑时据此判断哪些数据已经归档，避免重复写入。
+ *
+ * 文件格式（版本2）：
+ * <pre>
+ * [魔数:4][版本:4][块数量:4][索引偏移:8][快照时间:8]
+ * [块1列1]...[块1列N][块1附加数据][块2列1]...
+ * [索引：每块 最小时间:8 最大时间:8 行数:4 附加数据偏移:8 附加数据长度:4，
+ *       每列 偏移:8 长度:4 非空数:4 最小值:8 最大值:8 和:8 平方和:8]
+ * </pre>
+ * 版本1没有快照时间和附加数据，文件头20字节，块头20字节，仍可读取。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ColumnarArchiveWriter implements Closeable {
+
+    static final int MAGIC = 0x57544341;
+
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 28;
+
+    static final int BLOCK_HEADER_SIZE = 32;
+
+    static final int V1_HEADER_SIZE = 20;
+
+    static final int V1_BLOCK_HEADER_SIZE = 20;
+
+    static final int COLUMN_INDEX_SIZE = 48;
+
+    private final Path target;
+
+    private final Path temp;
+
+    private final FileChannel channel;
+
+    private final int blockRows;
+
+    private final long createdUntil;
+
+    private final ByteArrayOutputStream extrasBytes = new ByteArrayOutputStream();
+
+    private DataOutputStream extras;
+
+    private final GorillaEncoder[] encoders = new GorillaEncoder[ArchiveColumns.COUNT];
+
+    private final ChannelAggregate[] zoneMaps = new ChannelAggregate[ArchiveColumns.COUNT];
+
+    private final List<ByteBuffer> blockIndex = new ArrayList<>();
+
+    private long position = HEADER_SIZE;
+
+    private int rows;
+
+    private long blockMinTime;
+
+    private long blockMaxTime;
+
+    private long totalRows;
+
+    /**
+     * @param createdUntil 数据快照时间（epoch毫秒），写入的数据创建时间均不晚于该时间
+     */
+    ColumnarArchiveWriter(Path target, int blockRows, long createdUntil) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.blockRows = blockRows;
+        this.createdUntil = createdUntil;
+        Files.createDirectories(target.getParent());
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        resetBlock();
+    }
+
+    /**
+     * 追加一行数据，数据需按时间升序追加
+     *
+     * @throws IllegalArgumentException dataContent中包含无法无损编码的取值类型，此时本行未写入
+     */
+    public void append(RealTimeData data) throws IOException {
+        byte[] encodedExtras = RealTimeDataBinaryCodec.encode(ArchiveColumns.extras(data));
+        extras.writeInt(encodedExtras.length);
+        extras.write(encodedExtras);
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        blockMaxTime = Math.max(blockMaxTime, timestamp);
+        blockMinTime = Math.min(blockMinTime, timestamp);
+        for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+            double value = ArchiveColumns.read(data, column);
+            encoders[column].append(timestamp, value);
+            zoneMaps[column].add(value);
+        }
+        rows++;
+        totalRows++;
+        if (rows >= blockRows) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * 已写入的总行数
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * 分区文件名
+     */
+    public String getFileName() {
+        return target.getFileName().toString();
+    }
+
+    /**
+     * 放弃写入并删除临时文件
+     */
+    public void abort() throws IOException {
+        extras.close();
+        channel.close();
+        Files.deleteIfExists(temp);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rows > 0) {
+            flushBlock();
+        }
+        long indexOffset = position;
+        for (ByteBuffer entry : blockIndex) {
+            entry.flip();
+            writeFully(entry);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(blockIndex.size()).putLong(indexOffset).putLong(createdUntil);
+        header.flip();
+        channel.write(header, 0);
+        channel.force(true);
+        channel.close();
+
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void flushBlock() throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(BLOCK_HEADER_SIZE + ArchiveColumns.COUNT * COLUMN_INDEX_SIZE);
+        entry.putLong(blockMinTime).putLong(blockMaxTime).putInt(rows);
+        ByteBuffer columns = entry.slice(BLOCK_HEADER_SIZE, ArchiveColumns.COUNT * COLUMN_INDEX_SIZE);
+        for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+            byte[] encoded = encoders[column].finish();
+            ChannelAggregate zoneMap = zoneMaps[column];
+            columns.putLong(position).putInt(encoded.length).putInt((int) zoneMap.getCount())
+                 .putDouble(zoneMap.getMin()).putDouble(zoneMap.getMax())
+                 .putDouble(zoneMap.getSum()).putDouble(zoneMap.getSumSquares());
+            writeFully(ByteBuffer.wrap(encoded));
+        }
+        extras.close();
+        byte[] compressed = extrasBytes.toByteArray();
+        entry.putLong(position).putInt(compressed.length);
+        writeFully(ByteBuffer.wrap(compressed));
+        entry.position(entry.capacity());
+        blockIndex.add(entry);
+        resetBlock();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void resetBlock() {
+        for (int column = 0; column < ArchiveColumns.COUNT; column++) {
+            encoders[column] = new GorillaEncoder(blockRows);
+            zoneMaps[column] = new ChannelAggregate();
+        }
+        extrasBytes.reset();
+        extras = new DataOutputStream(new DeflaterOutputStream(extrasBytes));
+        rows = 0;
+        blockMinTime = Long.MAX_VALUE;
+        blockMaxTime = Long.MIN_VALUE;
+    }
+}
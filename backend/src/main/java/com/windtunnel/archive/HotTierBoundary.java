@@ -0,0 +1,61 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.entity.ChunkArchiveWatermark;
+import com.windtunnel.service.RealTimeDataArchiveService;
+import com.windtunnel.timeseries.EpochTimes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热数据层边界
+ *
+ * 数据写入冷数据层后、从MongoDB删除前，同一条数据同时存在于两层。读取热数据时排除已被压缩块归档水位
+ * 或列式分区快照时间覆盖的数据，与冷数据合并计算时每条数据只计入一次。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class HotTierBoundary {
+
+    @Autowired
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private RealTimeDataArchiveService realTimeDataArchiveService;
+
+    /**
+     * 热数据查询条件：数据来源和时间范围内、尚未写入冷数据层的数据
+     *
+     * @param source 数据来源
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（含）
+     * @return 查询条件
+     */
+    public Criteria criteria(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        Criteria criteria = Criteria.where("source").is(source).and("dataTime").gte(startTime).lte(endTime);
+        List<Criteria> archived = new ArrayList<>();
+        ChunkArchiveWatermark watermark = realTimeDataArchiveService.getWatermark(source);
+        if (watermark != null && watermark.getArchivedBefore().isAfter(startTime)) {
+            archived.add(Criteria.where("dataTime").lt(watermark.getArchivedBefore())
+                    .and("createTime").lte(watermark.getCreatedUntil()));
+        }
+        for (Map.Entry<LocalDate, Long> day : columnarArchiveStore.tieredUntil(source, startTime, endTime).entrySet()) {
+            archived.add(Criteria.where("dataTime").gte(day.getKey().atStartOfDay())
+                    .lt(day.getKey().plusDays(1).atStartOfDay())
+                    .and("createTime").lte(EpochTimes.toLocalDateTime(day.getValue())));
+        }
+        if (!archived.isEmpty()) {
+            criteria.norOperator(archived.toArray(new Criteria[0]));
+        }
+        return criteria;
+    }
+}
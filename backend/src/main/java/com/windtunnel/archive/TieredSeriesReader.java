@@ -0,0 +1,173 @@
+package com.windtunnel.archive;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.history.RecentHistoryBuffer;
+import com.windtunnel.service.RealTimeDataArchiveService;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleConsumer;
+import com.windtunnel.wide.ChannelSchema;
+import com.windtunnel.wide.ChannelSchemaRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 分层序列读取器
+ *
+ * 按 Gorilla压缩块 → 列式归档 → MongoDB热数据 的顺序流式读取一个数据来源的多个通道，
+ * 以原始类型回调采样点，不在内存中保留原始数据。冷数据只存储字段通道，
+ * dataContent和宽通道只能从热数据读取。查询范围完全在近期历史缓冲区的覆盖范围内时直接从堆外内存读取。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class TieredSeriesReader {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private RealTimeDataArchiveService realTimeDataArchiveService;
+
+    @Autowired
+    private ChannelSchemaRegistry channelSchemaRegistry;
+
+    @Autowired
+    private RecentHistoryBuffer recentHistoryBuffer;
+
+    @Autowired
+    private HotTierBoundary hotTierBoundary;
+
+    /**
+     * 读取时间范围内的通道数据
+     *
+     * @param source 数据来源
+     * @param channels 通道列表（字段名、dataContent键名或宽通道名称）
+     * @param startTime 开始时间
+     * @param endTime 结束时间（含）
+     * @param consumers 与通道一一对应的采样点消费者，热数据中缺失的取值回调为NaN
+     * @return 读取的热数据条数
+     */
+    public long read(String source, List<String> channels, LocalDateTime startTime, LocalDateTime endTime,
+                     SampleConsumer[] consumers) {
+        // 近期数据完整保留在内存中时直接读取，内存中只有非缺失的取值
+        long recent = recentHistoryBuffer.read(source, channels, EpochTimes.toEpochMilli(startTime),
+                EpochTimes.toEpochMilli(endTime), consumers);
+        if (recent >= 0) {
+            return recent;
+        }
+        RealTimeDataChannel[] nativeChannels = new RealTimeDataChannel[channels.size()];
+        for (int i = 0; i < nativeChannels.length; i++) {
+            nativeChannels[i] = RealTimeDataChannel.fromFieldName(channels.get(i));
+            if (nativeChannels[i] != null) {
+                // 冷数据早于热数据，先读冷数据可保持时间顺序
+                realTimeDataArchiveService.readArchivedSeries(source, nativeChannels[i], startTime, endTime, consumers[i]);
+                columnarArchiveStore.scanChannel(source, nativeChannels[i], startTime, endTime, consumers[i]);
+            }
+        }
+        return readHotData(source, channels, nativeChannels, startTime, endTime, consumers);
+    }
+
+    /**
+     * 按存储块指针读取时间范围内的通道数据
+     *
+     * 压缩块按ID读取、列式归档只打开指定的分区文件，不再按时间范围查找冷数据，热数据仍按时间范围读取
+     *
+     * @param source 数据来源
+     * @param channels 通道列表（字段名、dataContent键名或宽通道名称）
+     * @param startTime 开始时间
+     * @param endTime 结束时间（含）
+     * @param chunkIds 按通道名称分组的压缩块ID
+     * @param partitionFiles 列式归档分区文件名
+     * @param consumers 与通道一一对应的采样点消费者，热数据中缺失的取值回调为NaN
+     * @return 读取的热数据条数
+     */
+    public long readIndexed(String source, List<String> channels, LocalDateTime startTime, LocalDateTime endTime,
+                            Map<String, List<String>> chunkIds, List<String> partitionFiles,
+                            SampleConsumer[] consumers) {
+        RealTimeDataChannel[] nativeChannels = new RealTimeDataChannel[channels.size()];
+        for (int i = 0; i < nativeChannels.length; i++) {
+            nativeChannels[i] = RealTimeDataChannel.fromFieldName(channels.get(i));
+            if (nativeChannels[i] != null) {
+                List<String> ids = chunkIds.getOrDefault(nativeChannels[i].getFieldName(), List.of());
+                if (!ids.isEmpty()) {
+                    realTimeDataArchiveService.readChunks(ids, startTime, endTime, consumers[i]);
+                }
+                columnarArchiveStore.scanPartitions(source, partitionFiles, nativeChannels[i], startTime, endTime,
+                        consumers[i]);
+            }
+        }
+        return readHotData(source, channels, nativeChannels, startTime, endTime, consumers);
+    }
+
+    @SuppressWarnings("null")
+    private long readHotData(String source, List<String> channels, RealTimeDataChannel[] nativeChannels,
+                             LocalDateTime startTime, LocalDateTime endTime, SampleConsumer[] consumers) {
+        // 排除已写入冷数据层但尚未删除的数据，迁移期间同一采样点只回调一次
+        Query query = new Query(hotTierBoundary.criteria(source, startTime, endTime))
+                .with(Sort.by(Sort.Direction.ASC, "dataTime"));
+        // 只读取需要的字段
+        query.fields().include("dataTime");
+        boolean needsContent = false;
+        for (RealTimeDataChannel channel : nativeChannels) {
+            if (channel != null) {
+                query.fields().include(channel.getFieldName());
+            } else {
+                needsContent = true;
+            }
+        }
+        if (needsContent) {
+            query.fields().include("dataContent").include("schemaId").include("channelValues");
+        }
+
+        long rows = 0;
+        ChannelSchema schema = null;
+        try (Stream<RealTimeData> stream = mongoTemplate.stream(query, RealTimeData.class)) {
+            for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+                if (data.getSchemaId() != null && (schema == null || schema.getSchemaId() != data.getSchemaId())) {
+                    schema = channelSchemaRegistry.get(source, data.getSchemaId());
+                }
+                for (int i = 0; i < consumers.length; i++) {
+                    double value = nativeChannels[i] != null
+                            ? nativeChannels[i].read(data)
+                            : readExtended(data, channels.get(i), schema);
+                    consumers[i].accept(timestamp, value);
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 读取非字段通道：先查dataContent，再查宽通道取值
+     */
+    private double readExtended(RealTimeData data, String channel, ChannelSchema schema) {
+        Object value = data.getDataContent() != null ? data.getDataContent().get(channel) : null;
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return schema != null && data.getSchemaId() != null ? schema.value(data, channel) : Double.NaN;
+    }
+}
@@ -0,0 +1,58 @@
+package com.windtunnel.calibration;
+
+import com.windtunnel.entity.EquipmentCalibration;
+
+/**
+ * 校准曲线
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface CalibrationCurve {
+
+    /**
+     * 多项式曲线类型
+     */
+    int TYPE_POLYNOMIAL = 1;
+
+    /**
+     * 查找表曲线类型
+     */
+    int TYPE_LOOKUP_TABLE = 2;
+
+    /**
+     * 校准单个原始值
+     *
+     * @param raw 原始值
+     * @return 校准值，原始值为NaN时返回NaN
+     */
+    double apply(double raw);
+
+    /**
+     * 原地校准数组区间 [from, to)
+     *
+     * @param values 原始值数组，NaN表示空值
+     * @param from 起始下标（含）
+     * @param to 结束下标（不含）
+     */
+    void apply(double[] values, int from, int to);
+
+    /**
+     * 解析校准记录中的曲线定义
+     *
+     * @param calibration 校准记录
+     * @return 校准曲线
+     * @throws IllegalArgumentException 曲线定义无效
+     */
+    static CalibrationCurve parse(EquipmentCalibration calibration) {
+        Integer type = calibration.getCurveType();
+        if (type == null || type == TYPE_POLYNOMIAL) {
+            return PolynomialCurve.parse(calibration.getCoefficients());
+        }
+        if (type == TYPE_LOOKUP_TABLE) {
+            return LookupTableCurve.parse(calibration.getLookupTable());
+        }
+        throw new IllegalArgumentException("不支持的曲线类型: " + type);
+    }
+}
@@ -0,0 +1,288 @@
+package com.windtunnel.calibration;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.windtunnel.entity.EquipmentCalibration;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.repository.EquipmentCalibrationRepository;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 校准曲线注册表
+ *
+ * 按设备ID缓存校准曲线，设备校准时间更新或新增校准版本时失效，缓存项另有过期时间以感知数据库中的直接修改。
+ *
+ * 校准按批进行：每个通道先把整批取值收集到复用的基本类型数组，再对使用同一曲线的连续区间整段求值，
+ * 最后写回。原始值保存在扩展数据内容的 rawValues 中，所用版本保存在 calibrationVersions 中，
+ * 因此对同一条数据重复校准总是基于原始值，重放消息和历史重校准都是幂等的
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class CalibrationRegistry {
+
+    /**
+     * 扩展数据内容中保存原始值的键
+     */
+    public static final String RAW_VALUES_KEY = "rawValues";
+
+    /**
+     * 扩展数据内容中保存校准版本的键
+     */
+    public static final String VERSIONS_KEY = "calibrationVersions";
+
+    @Autowired
+    private EquipmentCalibrationRepository equipmentCalibrationRepository;
+
+    @Value("${wind-tunnel.calibration.cache-ttl:600000}")
+    private long cacheTtl;
+
+    private final Map<Long, EquipmentCalibrations> cache = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<BatchBuffers> buffers = ThreadLocal.withInitial(BatchBuffers::new);
+
+    /**
+     * 使设备的校准缓存失效
+     *
+     * @param equipmentId 设备ID
+     */
+    public void invalidate(Long equipmentId) {
+        if (equipmentId != null && cache.remove(equipmentId) != null) {
+            log.info("设备校准缓存已失效，设备ID: {}", equipmentId);
+        }
+    }
+
+    /**
+     * 校准单条数据
+     *
+     * @param data 实时数据
+     * @return 校准值发生变化的通道数
+     */
+    public int apply(RealTimeData data) {
+        return apply(List.of(data));
+    }
+
+    /**
+     * 按批校准数据，无设备ID或设备无校准曲线的数据保持不变
+     *
+     * @param batch 实时数据批次
+     * @return 校准值发生变化的通道数
+     */
+    public int apply(List<RealTimeData> batch) {
+        return apply(batch, null);
+    }
+
+    /**
+     * 按批校准数据，并记录校准值或校准版本发生变化的数据下标
+     *
+     * @param batch 实时数据批次
+     * @param changedRecords 发生变化的数据下标，可为空
+     * @return 校准值发生变化的通道数
+     */
+    public int apply(List<RealTimeData> batch, BitSet changedRecords) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        BatchBuffers buffer = buffers.get();
+        buffer.ensureCapacity(size);
+
+        // 同一批次通常只来自少数设备，按批缓存查找结果
+        boolean anyCalibrated = false;
+        Map<Long, EquipmentCalibrations> batchCalibrations = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            RealTimeData data = batch.get(i);
+            EquipmentCalibrations calibrations = data.getEquipmentId() == null || data.getDataTime() == null
+                    ? EquipmentCalibrations.EMPTY
+                    : batchCalibrations.computeIfAbsent(data.getEquipmentId(), this::get);
+            buffer.calibrations[i] = calibrations;
+            buffer.timestamps[i] = calibrations.isEmpty() ? 0 : EpochTimes.toEpochMilli(data.getDataTime());
+            anyCalibrated |= !calibrations.isEmpty() || hasCalibrationState(data);
+        }
+        if (!anyCalibrated) {
+            return 0;
+        }
+
+        int changed = 0;
+        for (int c = 0; c < RealTimeDataChannel.count(); c++) {
+            changed += applyChannel(batch, RealTimeDataChannel.of(c), buffer, changedRecords);
+        }
+        return changed;
+    }
+
+    private int applyChannel(List<RealTimeData> batch, RealTimeDataChannel channel, BatchBuffers buffer,
+                             BitSet changedRecords) {
+        int size = batch.size();
+        int c = channel.ordinal();
+        boolean any = false;
+        for (int i = 0; i < size; i++) {
+            RealTimeData data = batch.get(i);
+            int index = buffer.calibrations[i].isEmpty() ? -1 : buffer.calibrations[i].find(c, buffer.timestamps[i]);
+            buffer.curves[i] = index >= 0 ? buffer.calibrations[i].curve(c, index) : null;
+            buffer.versions[i] = index >= 0 ? buffer.calibrations[i].version(c, index) : 0;
+            // BigDecimal转double开销较大，每个取值只读取一次
+            buffer.current[i] = channel.read(data);
+            buffer.raw[i] = rawValue(data, channel, buffer.current[i]);
+            buffer.values[i] = buffer.raw[i];
+            any |= buffer.curves[i] != null || Double.compare(buffer.raw[i], buffer.current[i]) != 0;
+        }
+        if (!any) {
+            return 0;
+        }
+
+        // 对使用同一曲线的连续区间整段校准
+        int start = 0;
+        while (start < size) {
+            CalibrationCurve curve = buffer.curves[start];
+            int end = start + 1;
+            while (end < size && buffer.curves[end] == curve) {
+                end++;
+            }
+            if (curve != null) {
+                curve.apply(buffer.values, start, end);
+            }
+            start = end;
+        }
+
+        int changed = 0;
+        for (int i = 0; i < size; i++) {
+            RealTimeData data = batch.get(i);
+            double raw = buffer.raw[i];
+            if (Double.isNaN(raw)) {
+                continue;
+            }
+            double current = buffer.current[i];
+            double updated;
+            boolean stateChanged;
+            if (buffer.curves[i] != null) {
+                updated = buffer.values[i];
+                if (!Double.isFinite(updated)) {
+                    // 曲线外推溢出时保留当前值，避免写入无效数值
+                    continue;
+                }
+                calibrationState(data, RAW_VALUES_KEY).put(channel.getFieldName(), raw);
+                Object previous = calibrationState(data, VERSIONS_KEY).put(channel.getFieldName(), buffer.versions[i]);
+                stateChanged = !(previous instanceof Number number) || number.intValue() != buffer.versions[i];
+            } else if (removeState(data, channel)) {
+                // 曲线已停用或删除，恢复原始值
+                updated = raw;
+                stateChanged = true;
+            } else {
+                continue;
+            }
+            boolean valueChanged = Double.compare(current, updated) != 0;
+            if (valueChanged) {
+                channel.write(data, updated);
+                changed++;
+            }
+            if (changedRecords != null && (valueChanged || stateChanged)) {
+                changedRecords.set(i);
+            }
+        }
+        return changed;
+    }
+
+    private EquipmentCalibrations get(Long equipmentId) {
+        long now = System.currentTimeMillis();
+        EquipmentCalibrations cached = cache.get(equipmentId);
+        if (cached != null && now - cached.getLoadedAt() < cacheTtl) {
+            return cached;
+        }
+        EquipmentCalibrations loaded;
+        try {
+            QueryWrapper<EquipmentCalibration> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("equipment_id", equipmentId).eq("enabled", 1);
+            loaded = new EquipmentCalibrations(equipmentCalibrationRepository.selectList(queryWrapper), now);
+        } catch (Exception e) {
+            // 加载失败时沿用旧的曲线，过期前不再重试，避免每批数据都访问数据库
+            log.error("加载设备校准曲线失败，设备ID: {}, 原因: {}", equipmentId, e.getMessage());
+            loaded = cached != null ? cached.renewed(now) : new EquipmentCalibrations(List.of(), now);
+        }
+        cache.put(equipmentId, loaded);
+        return loaded;
+    }
+
+    private static boolean hasCalibrationState(RealTimeData data) {
+        return data.getDataContent() != null && data.getDataContent().get(RAW_VALUES_KEY) instanceof Map;
+    }
+
+    private static double rawValue(RealTimeData data, RealTimeDataChannel channel, double current) {
+        if (data.getDataContent() != null && data.getDataContent().get(RAW_VALUES_KEY) instanceof Map<?, ?> raw
+                && raw.get(channel.getFieldName()) instanceof Number value) {
+            return value.doubleValue();
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> calibrationState(RealTimeData data, String key) {
+        Map<String, Object> content = data.getDataContent();
+        if (content == null) {
+            content = new HashMap<>();
+            data.setDataContent(content);
+        }
+        Object state = content.get(key);
+        if (!(state instanceof Map)) {
+            state = new HashMap<String, Object>();
+            content.put(key, state);
+        }
+        return (Map<String, Object>) state;
+    }
+
+    private static boolean removeState(RealTimeData data, RealTimeDataChannel channel) {
+        if (!hasCalibrationState(data)) {
+            return false;
+        }
+        boolean removed = ((Map<?, ?>) data.getDataContent().get(RAW_VALUES_KEY)).remove(channel.getFieldName()) != null;
+        if (data.getDataContent().get(VERSIONS_KEY) instanceof Map<?, ?> versions) {
+            versions.remove(channel.getFieldName());
+        }
+        return removed;
+    }
+
+    /**
+     * 每个线程复用的批处理缓冲区
+     */
+    private static final class BatchBuffers {
+
+        EquipmentCalibrations[] calibrations = new EquipmentCalibrations[0];
+
+        long[] timestamps = new long[0];
+
+        CalibrationCurve[] curves = new CalibrationCurve[0];
+
+        int[] versions = new int[0];
+
+        double[] current = new double[0];
+
+        double[] raw = new double[0];
+
+        double[] values = new double[0];
+
+        void ensureCapacity(int size) {
+            if (values.length >= size) {
+                return;
+            }
+            calibrations = new EquipmentCalibrations[size];
+            timestamps = new long[size];
+            curves = new CalibrationCurve[size];
+            versions = new int[size];
+            current = new double[size];
+            raw = new double[size];
+            values = new double[size];
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.windtunnel.calibration;
+
+import com.windtunnel.entity.EquipmentCalibration;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 单台设备各通道的校准曲线版本，按生效时间升序排列，构造后不可变
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+final class EquipmentCalibrations {
+
+    static final EquipmentCalibrations EMPTY = new EquipmentCalibrations(List.of(), 0);
+
+    private final long[][] effectiveTimes;
+
+    private final CalibrationCurve[][] curves;
+
+    private final int[][] versions;
+
+    private final long loadedAt;
+
+    private final boolean empty;
+
+    EquipmentCalibrations(List<EquipmentCalibration> calibrations, long loadedAt) {
+        this.loadedAt = loadedAt;
+        this.effectiveTimes = new long[RealTimeDataChannel.count()][];
+        this.curves = new CalibrationCurve[RealTimeDataChannel.count()][];
+        this.versions = new int[RealTimeDataChannel.count()][];
+        List<List<EquipmentCalibration>> byChannel = new ArrayList<>();
+        for (int i = 0; i < RealTimeDataChannel.count(); i++) {
+            byChannel.add(new ArrayList<>());
+        }
+        for (EquipmentCalibration calibration : calibrations) {
+            RealTimeDataChannel channel = RealTimeDataChannel.fromFieldName(calibration.getChannel());
+            if (channel != null) {
+                byChannel.get(channel.ordinal()).add(calibration);
+            }
+        }
+        boolean anyCurve = false;
+        for (int c = 0; c < byChannel.size(); c++) {
+            List<EquipmentCalibration> channelCalibrations = byChannel.get(c);
+            channelCalibrations.sort(Comparator.comparing(EquipmentCalibration::getEffectiveTime)
+                    .thenComparing(EquipmentCalibration::getVersion));
+            List<long[]> accepted = new ArrayList<>();
+            List<CalibrationCurve> acceptedCurves = new ArrayList<>();
+            for (EquipmentCalibration calibration : channelCalibrations) {
+                try {
+                    acceptedCurves.add(CalibrationCurve.parse(calibration));
+                    accepted.add(new long[]{EpochTimes.toEpochMilli(calibration.getEffectiveTime()),
+                            calibration.getVersion()});
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无效的校准曲线，设备ID: {}, 通道: {}, 版本: {}, 原因: {}",
+                            calibration.getEquipmentId(), calibration.getChannel(), calibration.getVersion(),
+                            e.getMessage());
+                }
+            }
+            if (accepted.isEmpty()) {
+                continue;
+            }
+            anyCurve = true;
+            effectiveTimes[c] = new long[accepted.size()];
+            versions[c] = new int[accepted.size()];
+            curves[c] = acceptedCurves.toArray(new CalibrationCurve[0]);
+            for (int i = 0; i < accepted.size(); i++) {
+                effectiveTimes[c][i] = accepted.get(i)[0];
+                versions[c][i] = (int) accepted.get(i)[1];
+            }
+        }
+        this.empty = !anyCurve;
+    }
+
+    private EquipmentCalibrations(EquipmentCalibrations source, long loadedAt) {
+        this.loadedAt = loadedAt;
+        this.effectiveTimes = source.effectiveTimes;
+        this.curves = source.curves;
+        this.versions = source.versions;
+        this.empty = source.empty;
+    }
+
+    /**
+     * 沿用相同曲线、以新的加载时间重新计算过期的副本
+     */
+    EquipmentCalibrations renewed(long now) {
+        return new EquipmentCalibrations(this, now);
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 查找时间点生效的版本下标
+     *
+     * @return 版本下标，无生效版本或该通道无校准时返回-1
+     */
+    int find(int channel, long timestamp) {
+        long[] times = effectiveTimes[channel];
+        if (times == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = times.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= timestamp) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    CalibrationCurve curve(int channel, int index) {
+        return curves[channel][index];
+    }
+
+    int version(int channel, int index) {
+        return versions[channel][index];
+    }
+}
@@ -0,0 +1,69 @@
+package com.windtunnel.calibration;
+
+import java.util.Arrays;
+
+/**
+ * 查找表校准曲线，表内分段线性插值，表外按首尾线段外推
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class LookupTableCurve implements CalibrationCurve {
+
+    private final double[] raw;
+
+    private final double[] calibrated;
+
+    LookupTableCurve(double[] raw, double[] calibrated) {
+        this.raw = raw;
+        this.calibrated = calibrated;
+    }
+
+    static LookupTableCurve parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("查找表不能为空");
+        }
+        String[] pairs = text.split(",");
+        if (pairs.length < 2) {
+            throw new IllegalArgumentException("查找表至少需要两个点");
+        }
+        double[] raw = new double[pairs.length];
+        double[] calibrated = new double[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] point = pairs[i].split(":");
+            try {
+                raw[i] = Double.parseDouble(point[0].trim());
+                calibrated[i] = Double.parseDouble(point[1].trim());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的查找表点: " + pairs[i]);
+            }
+            if (i > 0 && raw[i] <= raw[i - 1]) {
+                throw new IllegalArgumentException("查找表原始值必须严格递增: " + pairs[i]);
+            }
+        }
+        return new LookupTableCurve(raw, calibrated);
+    }
+
+    @Override
+    public double apply(double value) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        int index = Arrays.binarySearch(raw, value);
+        if (index >= 0) {
+            return calibrated[index];
+        }
+        // 插入点左侧的点作为线段起点，并限制在首尾线段内以实现外推
+        int segment = Math.min(Math.max(-index - 2, 0), raw.length - 2);
+        double slope = (calibrated[segment + 1] - calibrated[segment]) / (raw[segment + 1] - raw[segment]);
+        return calibrated[segment] + (value - raw[segment]) * slope;
+    }
+
+    @Override
+    public void apply(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = apply(values[i]);
+        }
+    }
+}
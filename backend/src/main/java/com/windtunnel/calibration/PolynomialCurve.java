@@ -0,0 +1,71 @@
+package com.windtunnel.calibration;
+
+/**
+ * 多项式校准曲线，按秦九韶（Horner）法求值
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class PolynomialCurve implements CalibrationCurve {
+
+    /**
+     * 系数，下标为幂次
+     */
+    private final double[] coefficients;
+
+    PolynomialCurve(double[] coefficients) {
+        this.coefficients = coefficients;
+    }
+
+    static PolynomialCurve parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("多项式系数不能为空");
+        }
+        String[] parts = text.split(",");
+        double[] coefficients = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                coefficients[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的多项式系数: " + parts[i]);
+            }
+        }
+        return new PolynomialCurve(coefficients);
+    }
+
+    @Override
+    public double apply(double raw) {
+        double result = 0;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            result = result * raw + coefficients[i];
+        }
+        return result;
+    }
+
+    @Override
+    public void apply(double[] values, int from, int to) {
+        // 一次、二次曲线最常见，展开为直接计算；NaN经运算仍为NaN，无需分支
+        if (coefficients.length == 2) {
+            double c0 = coefficients[0];
+            double c1 = coefficients[1];
+            for (int i = from; i < to; i++) {
+                values[i] = c0 + c1 * values[i];
+            }
+            return;
+        }
+        if (coefficients.length == 3) {
+            double c0 = coefficients[0];
+            double c1 = coefficients[1];
+            double c2 = coefficients[2];
+            for (int i = from; i < to; i++) {
+                double x = values[i];
+                values[i] = c0 + x * (c1 + x * c2);
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            values[i] = apply(values[i]);
+        }
+    }
+}
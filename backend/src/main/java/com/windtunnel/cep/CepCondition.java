@@ -0,0 +1,35 @@
+package com.windtunnel.cep;
+
+import lombok.Data;
+
+/**
+ * CEP条件
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class CepCondition {
+
+    /**
+     * 字段：通道字段名（如windSpeed）、status、riskLevel，
+     * 或派生通道名（扩展数据内容中的数值，包括频谱特征如 vibration.rms）
+     */
+    private String field;
+
+    /**
+     * 运算符
+     */
+    private CepOperator operator;
+
+    /**
+     * 阈值，RISING/FALLING时忽略
+     */
+    private Double value;
+
+    /**
+     * 限定数据来源，为空时不限
+     */
+    private String source;
+}
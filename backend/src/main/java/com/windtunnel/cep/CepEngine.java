@@ -0,0 +1,202 @@
+package com.windtunnel.cep;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.timeseries.EpochTimes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 复杂事件处理引擎
+ *
+ * 订阅事件总线上的实时数据，在独立线程上对所有已注册模式持续匹配，匹配结果发布到事件总线并保留最近的记录。
+ * 实时匹配使用到达时间作为时钟；离线评估使用数据时间，且与实时状态互不影响
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class CepEngine {
+
+    /**
+     * 内置模式：异常状态下温度持续升高
+     */
+    public static final String TEMPERATURE_RISING_ABNORMAL = "TEMPERATURE_RISING_ABNORMAL";
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.cep.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${wind-tunnel.cep.max-runs:64}")
+    private int maxRuns;
+
+    @Value("${wind-tunnel.cep.recent-matches:1000}")
+    private int recentMatchLimit;
+
+    @Value("${wind-tunnel.cep.sweep-interval:1000}")
+    private long sweepInterval;
+
+    private CepRuntime runtime;
+
+    private final Deque<CepMatch> recentMatches = new ArrayDeque<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        runtime = new CepRuntime(maxKeys, maxRuns);
+        runtime.addPattern(temperatureRisingAbnormal());
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "cep", this::onEvents);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cep-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 注册模式，同名模式被替换且其部分匹配状态清空
+     *
+     * @param pattern 模式定义
+     * @throws IllegalArgumentException 模式定义不合法时抛出
+     */
+    public synchronized void registerPattern(CepPattern pattern) {
+        runtime.addPattern(pattern);
+        log.info("CEP模式已注册: {}, 共享条件数: {}", pattern.getName(), runtime.getPredicateCount());
+    }
+
+    /**
+     * 移除模式
+     *
+     * @param name 模式名称
+     * @return 是否存在并已移除
+     */
+    public synchronized boolean removePattern(String name) {
+        return runtime.removePattern(name);
+    }
+
+    /**
+     * 已注册的模式
+     */
+    public synchronized List<CepPattern> getPatterns() {
+        return runtime.getPatterns();
+    }
+
+    /**
+     * 最近的匹配结果，最新的在前
+     *
+     * @param limit 最大数量
+     */
+    public synchronized List<CepMatch> getRecentMatches(int limit) {
+        List<CepMatch> result = new ArrayList<>(Math.min(limit, recentMatches.size()));
+        Iterator<CepMatch> iterator = recentMatches.descendingIterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * 使用已注册的模式离线评估一组事件，按数据时间推进时钟
+     *
+     * @param events 事件序列
+     * @return 匹配结果
+     */
+    public List<CepMatch> evaluate(List<RealTimeData> events) {
+        CepRuntime offline = new CepRuntime(maxKeys, maxRuns);
+        for (CepPattern pattern : getPatterns()) {
+            offline.addPattern(pattern);
+        }
+        List<CepMatch> matches = new ArrayList<>();
+        long clock = Long.MIN_VALUE;
+        for (RealTimeData data : events) {
+            if (data.getDataTime() != null) {
+                clock = Math.max(clock, EpochTimes.toEpochMilli(data.getDataTime()));
+            }
+            offline.process(data, clock == Long.MIN_VALUE ? 0 : clock, matches::add);
+        }
+        if (clock != Long.MIN_VALUE) {
+            offline.advanceTime(clock, matches::add);
+        }
+        return matches;
+    }
+
+    private synchronized void onEvents(List<RealTimeData> events) {
+        long now = System.currentTimeMillis();
+        for (RealTimeData data : events) {
+            runtime.process(data, now, this::onMatch);
+        }
+    }
+
+    private synchronized void sweep() {
+        try {
+            runtime.advanceTime(System.currentTimeMillis(), this::onMatch);
+        } catch (Exception e) {
+            log.error("推进CEP时间窗口失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void onMatch(CepMatch match) {
+        log.info("CEP模式匹配: {}, 分区: {}, 时间: {} - {}", match.getPatternName(), match.getPartitionKey(),
+                match.getStartTime(), match.getEndTime());
+        recentMatches.addLast(match);
+        while (recentMatches.size() > recentMatchLimit) {
+            recentMatches.removeFirst();
+        }
+        eventBus.publish(EventTopics.CEP_MATCH, match);
+    }
+
+    private CepPattern temperatureRisingAbnormal() {
+        CepCondition abnormal = new CepCondition();
+        abnormal.setField("status");
+        abnormal.setOperator(CepOperator.NEQ);
+        abnormal.setValue(0.0);
+
+        CepCondition rising = new CepCondition();
+        rising.setField("temperature");
+        rising.setOperator(CepOperator.RISING);
+
+        CepStep first = new CepStep();
+        first.setName("abnormal");
+        first.getConditions().add(abnormal);
+
+        CepStep second = new CepStep();
+        second.setName("abnormal-rising");
+        second.getConditions().add(abnormal);
+        second.getConditions().add(rising);
+
+        CepPattern pattern = new CepPattern();
+        pattern.setName(TEMPERATURE_RISING_ABNORMAL);
+        pattern.setDescription("异常状态下温度持续升高");
+        pattern.setWithinMillis(60000);
+        pattern.getSteps().add(first);
+        pattern.getSteps().add(second);
+        return pattern;
+    }
+}
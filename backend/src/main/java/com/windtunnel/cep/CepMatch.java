@@ -0,0 +1,43 @@
+package com.windtunnel.cep;
+
+import com.windtunnel.entity.RealTimeData;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * CEP模式匹配结果
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class CepMatch {
+
+    /**
+     * 模式名称
+     */
+    private String patternName;
+
+    /**
+     * 分区键
+     */
+    private String partitionKey;
+
+    /**
+     * 首个步骤命中时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 匹配完成时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 各步骤首次命中的事件，按步骤顺序排列
+     */
+    private List<RealTimeData> events;
+}
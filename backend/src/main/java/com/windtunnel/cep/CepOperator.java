@@ -0,0 +1,52 @@
+package com.windtunnel.cep;
+
+/**
+ * CEP条件运算符
+ *
+ * RISING/FALLING与同一数据来源同一字段的上一个取值比较，不使用阈值
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum CepOperator {
+    GT,
+    GTE,
+    LT,
+    LTE,
+    EQ,
+    NEQ,
+    RISING,
+    FALLING;
+
+    /**
+     * 判断取值是否满足条件
+     *
+     * @param value 当前值
+     * @param threshold 阈值
+     * @param previous 上一个值，不存在时为NaN
+     */
+    boolean test(double value, double threshold, double previous) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        switch (this) {
+            case GT:
+                return value > threshold;
+            case GTE:
+                return value >= threshold;
+            case LT:
+                return value < threshold;
+            case LTE:
+                return value <= threshold;
+            case EQ:
+                return value == threshold;
+            case NEQ:
+                return value != threshold;
+            case RISING:
+                return !Double.isNaN(previous) && value > previous;
+            default:
+                return !Double.isNaN(previous) && value < previous;
+        }
+    }
+}
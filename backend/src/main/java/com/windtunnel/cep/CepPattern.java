@@ -0,0 +1,57 @@
+package com.windtunnel.cep;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CEP模式定义
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class CepPattern {
+
+    /**
+     * 按数据来源分区
+     */
+    public static final String PARTITION_SOURCE = "source";
+
+    /**
+     * 按数据来源和设备分区
+     */
+    public static final String PARTITION_EQUIPMENT = "equipment";
+
+    /**
+     * 不分区，用于跨数据来源的关联
+     */
+    public static final String PARTITION_GLOBAL = "global";
+
+    /**
+     * 模式名称，唯一
+     */
+    private String name;
+
+    /**
+     * 模式描述
+     */
+    private String description;
+
+    /**
+     * 分区方式：source、equipment、global
+     */
+    private String partitionBy = PARTITION_SOURCE;
+
+    /**
+     * 时间窗口（毫秒）：从首个步骤命中开始，整个模式必须在窗口内完成；缺失步骤以窗口结束作为完成时间
+     */
+    private long withinMillis = 60000;
+
+    /**
+     * 步骤序列
+     */
+    private List<CepStep> steps = new ArrayList<>();
+}
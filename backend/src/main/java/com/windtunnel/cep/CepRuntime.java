@@ -0,0 +1,521 @@
+package com.windtunnel.cep;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * CEP运行时
+ *
+ * 模式编译为线性NFA：状态为（步骤，已命中次数），每个分区键维护若干部分匹配（run）。
+ * 所有模式共享同一张条件表，每个事件的每个不同条件只计算一次，各模式的NFA只查表推进。
+ * 条件按引用计数共享，模式被替换或删除后不再被引用的条件从表中移除，空出的位置供新条件复用。
+ * 同一分区键下同一NFA状态最多保留一个run（保留开始时间最晚、剩余窗口最长的），
+ * 分区键数量按LRU淘汰，内存上界为 模式数 × 分区键上限 × NFA状态数。
+ * 模式匹配成功后清空该分区键的所有run，匹配结果互不重叠。
+ * 非线程安全，由调用方串行访问
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class CepRuntime {
+
+    /**
+     * 通道字段之后依次为 status、riskLevel，再之后为条件引用的派生通道（扩展数据内容中的数值）
+     */
+    private static final int STATUS_FIELD = RealTimeDataChannel.count();
+
+    private static final int RISK_LEVEL_FIELD = STATUS_FIELD + 1;
+
+    private static final int FIELD_COUNT = STATUS_FIELD + 2;
+
+    private final int maxKeys;
+
+    private final int maxRuns;
+
+    private final List<Predicate> predicates = new ArrayList<>();
+
+    private final Map<String, Integer> predicateIndex = new HashMap<>();
+
+    private final Map<String, CompiledPattern> patterns = new LinkedHashMap<>();
+
+    private final Map<String, double[]> previousValues = new HashMap<>();
+
+    private boolean[] hits = new boolean[0];
+
+    /**
+     * 条件引用的派生通道名称，下标加 FIELD_COUNT 为字段下标
+     */
+    private final List<String> derivedFields = new ArrayList<>();
+
+    private double[] values = new double[FIELD_COUNT];
+
+    CepRuntime(int maxKeys, int maxRuns) {
+        this.maxKeys = maxKeys;
+        this.maxRuns = maxRuns;
+    }
+
+    /**
+     * 编译并注册模式，同名模式被替换
+     *
+     * @throws IllegalArgumentException 模式定义不合法时抛出
+     */
+    void addPattern(CepPattern pattern) {
+        CompiledPattern replaced = patterns.put(pattern.getName(), compile(pattern));
+        if (replaced != null) {
+            release(replaced.stepPredicates);
+        }
+        if (hits.length < predicates.size()) {
+            hits = new boolean[predicates.size()];
+        }
+        if (values.length < fieldCount()) {
+            values = new double[fieldCount()];
+        }
+    }
+
+    boolean removePattern(String name) {
+        CompiledPattern removed = patterns.remove(name);
+        if (removed == null) {
+            return false;
+        }
+        release(removed.stepPredicates);
+        return true;
+    }
+
+    List<CepPattern> getPatterns() {
+        List<CepPattern> result = new ArrayList<>();
+        for (CompiledPattern pattern : patterns.values()) {
+            result.add(pattern.definition);
+        }
+        return result;
+    }
+
+    int getPredicateCount() {
+        return predicateIndex.size();
+    }
+
+    /**
+     * 处理一个事件
+     *
+     * @param data 实时数据
+     * @param now 事件时间（毫秒）
+     * @param sink 匹配结果消费者
+     */
+    void process(RealTimeData data, long now, Consumer<CepMatch> sink) {
+        int fieldCount = fieldCount();
+        for (int field = 0; field < fieldCount; field++) {
+            values[field] = read(data, field);
+        }
+        double[] previous = data.getSource() != null
+                ? previousValues.computeIfAbsent(data.getSource(), key -> filledNaN(fieldCount))
+                : filledNaN(fieldCount);
+        if (previous.length < fieldCount) {
+            // 新模式引用了新的派生通道，扩展该来源的上一取值
+            int length = previous.length;
+            previous = Arrays.copyOf(previous, fieldCount);
+            Arrays.fill(previous, length, fieldCount, Double.NaN);
+            previousValues.put(data.getSource(), previous);
+        }
+        for (int i = 0; i < predicates.size(); i++) {
+            Predicate predicate = predicates.get(i);
+            hits[i] = predicate != null && predicate.test(data.getSource(), values, previous);
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            if (!Double.isNaN(values[field])) {
+                previous[field] = values[field];
+            }
+        }
+        for (CompiledPattern pattern : patterns.values()) {
+            pattern.onEvent(data, now, sink);
+        }
+    }
+
+    /**
+     * 推进时间：清理超出时间窗口的run，缺失步骤在窗口结束时完成匹配
+     *
+     * @param now 当前时间（毫秒）
+     * @param sink 匹配结果消费者
+     */
+    void advanceTime(long now, Consumer<CepMatch> sink) {
+        for (CompiledPattern pattern : patterns.values()) {
+            pattern.expire(now, sink);
+        }
+    }
+
+    private CompiledPattern compile(CepPattern pattern) {
+        if (pattern.getName() == null || pattern.getName().isBlank()) {
+            throw new IllegalArgumentException("模式名称不能为空");
+        }
+        List<CepStep> steps = pattern.getSteps();
+        if (steps == null || steps.isEmpty()) {
+            throw new IllegalArgumentException("模式 " + pattern.getName() + " 至少需要一个步骤");
+        }
+        if (pattern.getWithinMillis() <= 0) {
+            throw new IllegalArgumentException("模式 " + pattern.getName() + " 的时间窗口必须大于0");
+        }
+        int[][] stepPredicates = new int[steps.size()][];
+        int[] times = new int[steps.size()];
+        try {
+            compileSteps(steps, stepPredicates, times);
+        } catch (IllegalArgumentException e) {
+            // 编译失败时释放已引用的条件
+            release(stepPredicates);
+            throw e;
+        }
+        return new CompiledPattern(pattern, stepPredicates, times, steps.get(steps.size() - 1).isAbsent());
+    }
+
+    private void compileSteps(List<CepStep> steps, int[][] stepPredicates, int[] times) {
+        for (int i = 0; i < steps.size(); i++) {
+            CepStep step = steps.get(i);
+            if (step.isAbsent() && (i == 0 || i != steps.size() - 1)) {
+                throw new IllegalArgumentException("缺失步骤只能作为最后一步且不能是第一步");
+            }
+            if (step.getConditions() == null || step.getConditions().isEmpty()) {
+                throw new IllegalArgumentException("步骤 " + step.getName() + " 至少需要一个条件");
+            }
+            if (step.getTimes() < 1) {
+                throw new IllegalArgumentException("步骤 " + step.getName() + " 的命中次数必须大于0");
+            }
+            int[] ids = new int[step.getConditions().size()];
+            Arrays.fill(ids, -1);
+            stepPredicates[i] = ids;
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = predicateId(step.getConditions().get(j));
+            }
+            times[i] = step.isAbsent() ? 1 : step.getTimes();
+        }
+    }
+
+    /**
+     * 释放模式对条件的引用，引用计数归零的条件从条件表中移除
+     */
+    private void release(int[][] stepPredicates) {
+        for (int[] ids : stepPredicates) {
+            if (ids == null) {
+                continue;
+            }
+            for (int id : ids) {
+                if (id < 0) {
+                    continue;
+                }
+                Predicate predicate = predicates.get(id);
+                if (--predicate.references == 0) {
+                    predicates.set(id, null);
+                    predicateIndex.remove(predicate.key);
+                }
+            }
+        }
+    }
+
+    private int predicateId(CepCondition condition) {
+        int field = fieldIndex(condition.getField());
+        CepOperator operator = condition.getOperator();
+        if (operator == null) {
+            throw new IllegalArgumentException("条件运算符不能为空: " + condition.getField());
+        }
+        boolean relative = operator == CepOperator.RISING || operator == CepOperator.FALLING;
+        if (!relative && condition.getValue() == null) {
+            throw new IllegalArgumentException("条件阈值不能为空: " + condition.getField());
+        }
+        double threshold = relative ? Double.NaN : condition.getValue();
+        String key = field + "|" + operator + "|" + threshold + "|" + condition.getSource();
+        Integer id = predicateIndex.get(key);
+        if (id == null) {
+            Predicate predicate = new Predicate(key, field, operator, threshold, condition.getSource());
+            id = predicates.indexOf(null);
+            if (id < 0) {
+                predicates.add(predicate);
+                id = predicates.size() - 1;
+            } else {
+                predicates.set(id, predicate);
+            }
+            predicateIndex.put(key, id);
+        }
+        predicates.get(id).references++;
+        return id;
+    }
+
+    private int fieldCount() {
+        return FIELD_COUNT + derivedFields.size();
+    }
+
+    /**
+     * 字段下标：原始通道、status、riskLevel，其他名称视为派生通道（含频谱特征，如 vibration.rms）
+     */
+    private int fieldIndex(String field) {
+        if (field == null || field.isBlank()) {
+            throw new IllegalArgumentException("条件字段不能为空");
+        }
+        if ("status".equalsIgnoreCase(field)) {
+            return STATUS_FIELD;
+        }
+        if ("riskLevel".equalsIgnoreCase(field)) {
+            return RISK_LEVEL_FIELD;
+        }
+        RealTimeDataChannel channel = RealTimeDataChannel.fromFieldName(field);
+        if (channel != null) {
+            return channel.ordinal();
+        }
+        int index = derivedFields.indexOf(field);
+        if (index < 0) {
+            derivedFields.add(field);
+            index = derivedFields.size() - 1;
+        }
+        return FIELD_COUNT + index;
+    }
+
+    private double read(RealTimeData data, int field) {
+        if (field < STATUS_FIELD) {
+            return RealTimeDataChannel.of(field).read(data);
+        }
+        if (field >= FIELD_COUNT) {
+            Object value = data.getDataContent() != null
+                    ? data.getDataContent().get(derivedFields.get(field - FIELD_COUNT)) : null;
+            return value instanceof Number number ? number.doubleValue() : Double.NaN;
+        }
+        Integer value = field == STATUS_FIELD ? data.getStatus() : data.getRiskLevel();
+        return value != null ? value : Double.NaN;
+    }
+
+    private static double[] filledNaN(int fieldCount) {
+        double[] array = new double[fieldCount];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+
+    /**
+     * 共享条件
+     */
+    private static final class Predicate {
+
+        private final String key;
+
+        private final int field;
+
+        private final CepOperator operator;
+
+        private final double threshold;
+
+        private final String source;
+
+        /**
+         * 引用该条件的模式条件数
+         */
+        private int references;
+
+        Predicate(String key, int field, CepOperator operator, double threshold, String source) {
+            this.key = key;
+            this.field = field;
+            this.operator = operator;
+            this.threshold = threshold;
+            this.source = source;
+        }
+
+        boolean test(String eventSource, double[] values, double[] previous) {
+            if (source != null && !source.equals(eventSource)) {
+                return false;
+            }
+            return operator.test(values[field], threshold, previous[field]);
+        }
+    }
+
+    /**
+     * 部分匹配
+     */
+    private static final class Run {
+
+        private final long start;
+
+        private int step;
+
+        private int count;
+
+        private final List<RealTimeData> captured = new ArrayList<>(2);
+
+        Run(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * 编译后的模式
+     */
+    private final class CompiledPattern {
+
+        private final CepPattern definition;
+
+        private final int[][] stepPredicates;
+
+        private final int[] times;
+
+        private final boolean lastAbsent;
+
+        private final int absentStep;
+
+        private final Map<String, List<Run>> runsByKey;
+
+        CompiledPattern(CepPattern definition, int[][] stepPredicates, int[] times, boolean lastAbsent) {
+            this.definition = definition;
+            this.stepPredicates = stepPredicates;
+            this.times = times;
+            this.lastAbsent = lastAbsent;
+            this.absentStep = lastAbsent ? stepPredicates.length - 1 : -1;
+            this.runsByKey = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<Run>> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+
+        void onEvent(RealTimeData data, long now, Consumer<CepMatch> sink) {
+            boolean startsRun = matches(0);
+            String key = partitionKey(data);
+            List<Run> runs = runsByKey.get(key);
+            if (runs == null) {
+                if (!startsRun) {
+                    return;
+                }
+                runs = new ArrayList<>(2);
+                runsByKey.put(key, runs);
+            }
+
+            Iterator<Run> iterator = runs.iterator();
+            while (iterator.hasNext()) {
+                Run run = iterator.next();
+                if (now - run.start > definition.getWithinMillis()) {
+                    iterator.remove();
+                    if (run.step == absentStep) {
+                        emit(key, run, run.start + definition.getWithinMillis(), sink);
+                    }
+                    continue;
+                }
+                if (!matches(run.step)) {
+                    continue;
+                }
+                if (run.step == absentStep) {
+                    // 缺失步骤在窗口内出现，部分匹配失效
+                    iterator.remove();
+                    continue;
+                }
+                if (advance(run, data)) {
+                    emit(key, run, now, sink);
+                    runs.clear();
+                    runsByKey.remove(key);
+                    return;
+                }
+            }
+
+            if (startsRun) {
+                Run run = new Run(now);
+                if (advance(run, data)) {
+                    emit(key, run, now, sink);
+                    runs.clear();
+                } else {
+                    runs.add(run);
+                }
+            }
+            deduplicate(runs);
+            if (runs.isEmpty()) {
+                runsByKey.remove(key);
+            }
+        }
+
+        void expire(long now, Consumer<CepMatch> sink) {
+            Iterator<Map.Entry<String, List<Run>>> entries = runsByKey.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, List<Run>> entry = entries.next();
+                Iterator<Run> iterator = entry.getValue().iterator();
+                while (iterator.hasNext()) {
+                    Run run = iterator.next();
+                    if (now - run.start > definition.getWithinMillis()) {
+                        iterator.remove();
+                        if (run.step == absentStep) {
+                            emit(entry.getKey(), run, run.start + definition.getWithinMillis(), sink);
+                        }
+                    }
+                }
+                if (entry.getValue().isEmpty()) {
+                    entries.remove();
+                }
+            }
+        }
+
+        /**
+         * 当前事件命中run所在步骤后推进状态
+         *
+         * @return 模式是否已完整匹配
+         */
+        private boolean advance(Run run, RealTimeData data) {
+            if (run.count == 0) {
+                run.captured.add(data);
+            }
+            run.count++;
+            if (run.count < times[run.step]) {
+                return false;
+            }
+            run.step++;
+            run.count = 0;
+            return run.step == stepPredicates.length;
+        }
+
+        private boolean matches(int step) {
+            for (int predicate : stepPredicates[step]) {
+                if (!hits[predicate]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 同一NFA状态只保留开始时间最晚的run，并限制run数量
+         */
+        private void deduplicate(List<Run> runs) {
+            for (int i = runs.size() - 1; i > 0; i--) {
+                Run later = runs.get(i);
+                for (int j = i - 1; j >= 0; j--) {
+                    Run earlier = runs.get(j);
+                    if (earlier.step == later.step && earlier.count == later.count) {
+                        runs.remove(j);
+                        i--;
+                    }
+                }
+            }
+            while (runs.size() > maxRuns) {
+                runs.remove(0);
+            }
+        }
+
+        private String partitionKey(RealTimeData data) {
+            if (CepPattern.PARTITION_GLOBAL.equals(definition.getPartitionBy())) {
+                return "*";
+            }
+            if (CepPattern.PARTITION_EQUIPMENT.equals(definition.getPartitionBy())) {
+                return data.getSource() + "/" + data.getEquipmentId();
+            }
+            return String.valueOf(data.getSource());
+        }
+
+        private void emit(String key, Run run, long end, Consumer<CepMatch> sink) {
+            CepMatch match = new CepMatch();
+            match.setPatternName(definition.getName());
+            match.setPartitionKey(key);
+            match.setStartTime(EpochTimes.toLocalDateTime(run.start));
+            match.setEndTime(EpochTimes.toLocalDateTime(end));
+            match.setEvents(new ArrayList<>(run.captured));
+            sink.accept(match);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.windtunnel.cep;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CEP模式步骤
+ *
+ * 步骤的所有条件同时满足时视为一次命中；步骤之间允许夹杂不相关的事件
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class CepStep {
+
+    /**
+     * 步骤名称
+     */
+    private String name;
+
+    /**
+     * 条件列表（与关系）
+     */
+    private List<CepCondition> conditions = new ArrayList<>();
+
+    /**
+     * 需要命中的次数
+     */
+    private int times = 1;
+
+    /**
+     * 是否为缺失步骤：上一步骤完成后在时间窗口内未出现满足条件的事件即视为完成，只能作为最后一步
+     */
+    private boolean absent;
+}
@@ -0,0 +1,404 @@
+package com.windtunnel.codec;
+
+import com.windtunnel.entity.RealTimeData;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 实时数据二进制编解码器
+ *
+ * 按固定字段顺序编码RealTimeData，字段是否存在由头部位图标记，空字段不占空间。
+ * 整数使用ZigZag变长编码，BigDecimal编码为标度 + 非标度值，时间编码为不带时区的秒数 + 纳秒。
+ * dataContent中嵌套的Map和List按各自的类型标记递归编码，无法无损表示的取值类型在编码时拒绝，
+ * 由调用方改用其他格式，不会被转换为字符串。
+ *
+ * 格式：
+ * <pre>
+ * [魔数'W''T':2][版本:1][字段位图:变长]
+ * [字段1]...[字段N]
+ * </pre>
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class RealTimeDataBinaryCodec {
+
+    /**
+     * 当前编码版本
+     */
+    public static final int VERSION = 4;
+
+    private static final byte MAGIC_0 = 'W';
+
+    private static final byte MAGIC_1 = 'T';
+
+    private static final byte VALUE_NULL = 0;
+
+    private static final byte VALUE_STRING = 1;
+
+    private static final byte VALUE_LONG = 2;
+
+    private static final byte VALUE_INT = 3;
+
+    private static final byte VALUE_DOUBLE = 4;
+
+    private static final byte VALUE_BOOLEAN = 5;
+
+    private static final byte VALUE_DECIMAL = 6;
+
+    private static final byte VALUE_MAP = 7;
+
+    private static final byte VALUE_LIST = 8;
+
+    private static final byte DECIMAL_COMPACT = 0;
+
+    private static final byte DECIMAL_BIG = 1;
+
+    /**
+     * 字段编码顺序，新增字段只能追加到末尾
+     */
+    private static final Field[] FIELDS = {
+            new Field(RealTimeData::getId, (d, in) -> d.setId(in.readString()), (out, v) -> out.writeString((String) v)),
+            new Field(RealTimeData::getSource, (d, in) -> d.setSource(in.readString()), (out, v) -> out.writeString((String) v)),
+            new Field(RealTimeData::getEquipmentId, (d, in) -> d.setEquipmentId(in.readLong()), (out, v) -> out.writeLong((Long) v)),
+            new Field(RealTimeData::getDataTime, (d, in) -> d.setDataTime(in.readTime()), (out, v) -> out.writeTime((LocalDateTime) v)),
+            new Field(RealTimeData::getDataContent, (d, in) -> d.setDataContent(in.readMap()), (out, v) -> out.writeMap((Map<?, ?>) v)),
+            new Field(RealTimeData::getWindSpeed, (d, in) -> d.setWindSpeed(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getTemperature, (d, in) -> d.setTemperature(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getPressure, (d, in) -> d.setPressure(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getFlow, (d, in) -> d.setFlow(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getPower, (d, in) -> d.setPower(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getVibration, (d, in) -> d.setVibration(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getVoltage, (d, in) -> d.setVoltage(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getCurrent, (d, in) -> d.setCurrent(in.readDecimal()), Output::writeDecimalValue),
+            new Field(RealTimeData::getOtherParams, (d, in) -> d.setOtherParams(in.readString()), (out, v) -> out.writeString((String) v)),
+            new Field(RealTimeData::getLaboratoryId, (d, in) -> d.setLaboratoryId(in.readLong()), (out, v) -> out.writeLong((Long) v)),
+            new Field(RealTimeData::getStatus, (d, in) -> d.setStatus((int) in.readLong()), (out, v) -> out.writeLong((Integer) v)),
+            new Field(RealTimeData::getRiskLevel, (d, in) -> d.setRiskLevel((int) in.readLong()), (out, v) -> out.writeLong((Integer) v)),
+            new Field(RealTimeData::getAnomalyDescription, (d, in) -> d.setAnomalyDescription(in.readString()), (out, v) -> out.writeString((String) v)),
+            new Field(RealTimeData::getCreateTime, (d, in) -> d.setCreateTime(in.readTime()), (out, v) -> out.writeTime((LocalDateTime) v)),
+            // 版本2追加
+            new Field(RealTimeData::getSchemaId, (d, in) -> d.setSchemaId((int) in.readLong()), (out, v) -> out.writeLong((Integer) v)),
+            new Field(RealTimeData::getChannelValues, (d, in) -> d.setChannelValues(in.readDoubles()), (out, v) -> out.writeDoubles((double[]) v)),
+            // 版本3追加
+            new Field(RealTimeData::getDeviceTime, (d, in) -> d.setDeviceTime(in.readTime()), (out, v) -> out.writeTime((LocalDateTime) v))
+            // 版本4增加嵌套Map和List取值类型，字段不变
+    };
+
+    private RealTimeDataBinaryCodec() {
+    }
+
+    /**
+     * 编码实时数据
+     *
+     * @param data 实时数据
+     * @return 编码后的字节数组
+     * @throws IllegalArgumentException dataContent中包含无法无损编码的取值类型
+     */
+    public static byte[] encode(RealTimeData data) {
+        long mask = 0;
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].getter.apply(data) != null) {
+                mask |= 1L << i;
+            }
+        }
+        Output out = new Output();
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.writeVarLong(mask);
+        for (int i = 0; i < FIELDS.length; i++) {
+            if ((mask & (1L << i)) != 0) {
+                FIELDS[i].writer.accept(out, FIELDS[i].getter.apply(data));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码实时数据
+     *
+     * 未知的高位字段（更新版本追加的字段）会导致解码失败，因此版本号只在追加字段时递增
+     *
+     * @param bytes 编码后的字节数组
+     * @return 实时数据
+     * @throws IllegalArgumentException 格式或版本不支持时抛出
+     */
+    public static RealTimeData decode(byte[] bytes) {
+        if (bytes.length < 4 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            throw new IllegalArgumentException("不是有效的实时数据二进制消息");
+        }
+        int version = bytes[2];
+        // 低版本消息只是缺少追加的字段，可以直接解码
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("不支持的实时数据编码版本: " + version);
+        }
+        Input in = new Input(ByteBuffer.wrap(bytes, 3, bytes.length - 3));
+        long mask = in.readVarLong();
+        if ((mask >>> FIELDS.length) != 0) {
+            throw new IllegalArgumentException("实时数据消息包含未知字段");
+        }
+        RealTimeData data = new RealTimeData();
+        // 构造函数会填充创建时间，以消息中的值为准
+        data.setCreateTime(null);
+        for (int i = 0; i < FIELDS.length; i++) {
+            if ((mask & (1L << i)) != 0) {
+                FIELDS[i].reader.accept(data, in);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * 字段定义
+     */
+    private static final class Field {
+
+        private final Function<RealTimeData, Object> getter;
+
+        private final BiConsumer<RealTimeData, Input> reader;
+
+        private final BiConsumer<Output, Object> writer;
+
+        Field(Function<RealTimeData, Object> getter, BiConsumer<RealTimeData, Input> reader,
+              BiConsumer<Output, Object> writer) {
+            this.getter = getter;
+            this.reader = reader;
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * 编码输出
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(128);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeDoubles(double[] values) {
+            writeVarLong(values.length);
+            byte[] bytes = new byte[values.length * Double.BYTES];
+            ByteBuffer.wrap(bytes).asDoubleBuffer().put(values);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeTime(LocalDateTime value) {
+            writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(value.getNano());
+        }
+
+        void writeDecimalValue(Object value) {
+            writeDecimal((BigDecimal) value);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            writeLong(value.scale());
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < 64) {
+                write(DECIMAL_COMPACT);
+                writeLong(unscaled.longValue());
+            } else {
+                byte[] bytes = unscaled.toByteArray();
+                write(DECIMAL_BIG);
+                writeVarLong(bytes.length);
+                write(bytes, 0, bytes.length);
+            }
+        }
+
+        void writeMap(Map<?, ?> map) {
+            writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!(entry.getKey() instanceof String key)) {
+                    throw new IllegalArgumentException("不支持的Map键类型: " + typeName(entry.getKey()));
+                }
+                writeString(key);
+                writeValue(entry.getValue());
+            }
+        }
+
+        void writeList(Collection<?> list) {
+            writeVarLong(list.size());
+            for (Object value : list) {
+                writeValue(value);
+            }
+        }
+
+        void writeValue(Object value) {
+            if (value == null) {
+                write(VALUE_NULL);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                write(VALUE_INT);
+                writeLong(((Number) value).longValue());
+            } else if (value instanceof Long) {
+                write(VALUE_LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                write(VALUE_DOUBLE);
+                long bits = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    write((int) (bits >>> shift));
+                }
+            } else if (value instanceof Boolean) {
+                write(VALUE_BOOLEAN);
+                write((Boolean) value ? 1 : 0);
+            } else if (value instanceof BigDecimal) {
+                write(VALUE_DECIMAL);
+                writeDecimal((BigDecimal) value);
+            } else if (value instanceof String) {
+                write(VALUE_STRING);
+                writeString((String) value);
+            } else if (value instanceof Map<?, ?> map) {
+                write(VALUE_MAP);
+                writeMap(map);
+            } else if (value instanceof Collection<?> list) {
+                write(VALUE_LIST);
+                writeList(list);
+            } else {
+                throw new IllegalArgumentException("不支持的取值类型: " + typeName(value));
+            }
+        }
+
+        private static String typeName(Object value) {
+            return value != null ? value.getClass().getName() : "null";
+        }
+    }
+
+    /**
+     * 解码输入
+     */
+    private static final class Input {
+
+        private final ByteBuffer buffer;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("变长整数格式错误");
+        }
+
+        long readLong() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        double[] readDoubles() {
+            double[] values = new double[(int) readVarLong()];
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+            return values;
+        }
+
+        LocalDateTime readTime() {
+            long seconds = readLong();
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+
+        BigDecimal readDecimal() {
+            int scale = (int) readLong();
+            byte kind = buffer.get();
+            if (kind == DECIMAL_COMPACT) {
+                return BigDecimal.valueOf(readLong(), scale);
+            }
+            byte[] bytes = new byte[(int) readVarLong()];
+            buffer.get(bytes);
+            return new BigDecimal(new BigInteger(bytes), scale);
+        }
+
+        Map<String, Object> readMap() {
+            int size = (int) readVarLong();
+            Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        List<Object> readList() {
+            int size = (int) readVarLong();
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue());
+            }
+            return list;
+        }
+
+        Object readValue() {
+            byte type = buffer.get();
+            switch (type) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return readString();
+                case VALUE_LONG:
+                    return readLong();
+                case VALUE_INT:
+                    return (int) readLong();
+                case VALUE_DOUBLE:
+                    return Double.longBitsToDouble(buffer.getLong());
+                case VALUE_BOOLEAN:
+                    return buffer.get() != 0;
+                case VALUE_DECIMAL:
+                    return readDecimal();
+                case VALUE_MAP:
+                    return readMap();
+                case VALUE_LIST:
+                    return readList();
+                default:
+                    throw new IllegalArgumentException("未知的取值类型: " + type);
+            }
+        }
+    }
+}
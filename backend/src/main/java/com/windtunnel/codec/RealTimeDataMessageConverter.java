@@ -0,0 +1,80 @@
+package com.windtunnel.codec;
+
+import com.windtunnel.entity.RealTimeData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.lang.NonNull;
+
+/**
+ * 实时数据消息转换器
+ *
+ * 发送RealTimeData时使用二进制编码并标记专用的内容类型和编码版本，其他对象交给委托转换器，
+ * dataContent中含有二进制编码无法无损表示的取值时该条数据也交给委托转换器；
+ * 接收时按内容类型协商，二进制消息由本转换器解码，JSON等其他消息仍由委托转换器处理，
+ * 新旧格式的生产者和消费者可以共存
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+public class RealTimeDataMessageConverter implements MessageConverter {
+
+    /**
+     * 二进制实时数据内容类型
+     */
+    public static final String CONTENT_TYPE = "application/x-windtunnel-rtd";
+
+    /**
+     * 编码版本消息头
+     */
+    public static final String VERSION_HEADER = "x-codec-version";
+
+    private final MessageConverter delegate;
+
+    private final boolean binaryEnabled;
+
+    /**
+     * @param delegate 非二进制消息使用的委托转换器
+     * @param binaryEnabled 发送实时数据时是否使用二进制编码
+     */
+    public RealTimeDataMessageConverter(MessageConverter delegate, boolean binaryEnabled) {
+        this.delegate = delegate;
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    @Override
+    @NonNull
+    public Message toMessage(@NonNull Object object, @NonNull MessageProperties messageProperties) {
+        if (!binaryEnabled || !(object instanceof RealTimeData)) {
+            return delegate.toMessage(object, messageProperties);
+        }
+        byte[] body;
+        try {
+            body = RealTimeDataBinaryCodec.encode((RealTimeData) object);
+        } catch (IllegalArgumentException e) {
+            log.warn("实时数据无法二进制编码，改用委托转换器: {}", e.getMessage());
+            return delegate.toMessage(object, messageProperties);
+        }
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        messageProperties.setHeader(VERSION_HEADER, RealTimeDataBinaryCodec.VERSION);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    @NonNull
+    public Object fromMessage(@NonNull Message message) {
+        if (!CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+            return delegate.fromMessage(message);
+        }
+        try {
+            return RealTimeDataBinaryCodec.decode(message.getBody());
+        } catch (RuntimeException e) {
+            throw new MessageConversionException("解码二进制实时数据失败: " + e.getMessage(), e);
+        }
+    }
+}
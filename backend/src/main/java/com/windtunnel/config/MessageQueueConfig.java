@@ -1,16 +1,48 @@
 package com.windtunnel.config;
 
+import com.windtunnel.codec.RealTimeDataMessageConverter;
+import com.windtunnel.entity.RealTimeData;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 消息队列配置类
@@ -29,14 +61,54 @@ public class MessageQueueConfig {
     public static final String DATA_COLLECTION_EXCHANGE = "data.collection.exchange";
     public static final String DATA_COLLECTION_ROUTING_KEY = "data.collection.routing.key";
 
+    // 死信配置：无法解析或无法写入的毒消息转入死信队列，便于排查和人工重放
+    public static final String DATA_COLLECTION_DEAD_LETTER_EXCHANGE = "data.collection.dlx";
+    public static final String DATA_COLLECTION_DEAD_LETTER_QUEUE = "data.collection.dlq";
+    public static final String DATA_COLLECTION_DEAD_LETTER_ROUTING_KEY = "data.collection.dead";
+
+    // 批量消费配置
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchListenerContainerFactory";
+
+    // Kafka配置
+    public static final String TRANSPORT_PROPERTY = "wind-tunnel.data-collection.transport";
+    public static final String KAFKA_LISTENER_CONTAINER_FACTORY = "kafkaBatchListenerContainerFactory";
+    public static final String DEAD_LETTER_TOPIC_SUFFIX = ".DLT";
+
+    @Value("${wind-tunnel.mq.codec:binary}")
+    private String codec;
+
+    @Value("${wind-tunnel.mq.batch.size:500}")
+    private int batchSize;
+
+    @Value("${wind-tunnel.mq.batch.prefetch:1000}")
+    private int batchPrefetch;
+
+    @Value("${wind-tunnel.mq.batch.receive-timeout:200}")
+    private long batchReceiveTimeout;
+
+    @Value("${wind-tunnel.mq.batch.concurrency:5}")
+    private int batchConcurrency;
+
+    @Value("${wind-tunnel.mq.dead-letter.queue-arguments:false}")
+    private boolean deadLetterQueueArguments;
+
     /**
      * 创建数据收集队列
      * 
+     * 被拒绝且不重新入队的消息转入死信交换机。队列参数不能修改，已有的同名队列按原参数声明，
+     * 死信交换机默认由RabbitMQ策略设置；新部署可开启 queue-arguments 在声明队列时直接带上死信参数
+     * 
      * @return 队列实例
      */
     @Bean
     public Queue dataCollectionQueue() {
-        return new Queue(DATA_COLLECTION_QUEUE, true);
+        if (!deadLetterQueueArguments) {
+            return new Queue(DATA_COLLECTION_QUEUE, true);
+        }
+        return QueueBuilder.durable(DATA_COLLECTION_QUEUE)
+                .deadLetterExchange(DATA_COLLECTION_DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(DATA_COLLECTION_DEAD_LETTER_ROUTING_KEY)
+                .build();
     }
 
     /**
@@ -57,20 +129,54 @@ public class MessageQueueConfig {
      * @return 绑定实例
      */
     @Bean
-    public Binding dataCollectionBinding(Queue queue, DirectExchange exchange) {
-        return BindingBuilder.bind(queue)
-                .to(exchange)
+    public Binding dataCollectionBinding() {
+        return BindingBuilder.bind(dataCollectionQueue())
+                .to(dataCollectionExchange())
                 .with(DATA_COLLECTION_ROUTING_KEY);
     }
 
+    /**
+     * 创建数据收集死信交换机
+     * 
+     * @return 直连交换机实例
+     */
+    @Bean
+    public DirectExchange dataCollectionDeadLetterExchange() {
+        return new DirectExchange(DATA_COLLECTION_DEAD_LETTER_EXCHANGE);
+    }
+
+    /**
+     * 创建数据收集死信队列
+     * 
+     * @return 队列实例
+     */
+    @Bean
+    public Queue dataCollectionDeadLetterQueue() {
+        return QueueBuilder.durable(DATA_COLLECTION_DEAD_LETTER_QUEUE).build();
+    }
+
+    /**
+     * 绑定死信队列和死信交换机
+     * 
+     * @return 绑定实例
+     */
+    @Bean
+    public Binding dataCollectionDeadLetterBinding() {
+        return BindingBuilder.bind(dataCollectionDeadLetterQueue())
+                .to(dataCollectionDeadLetterExchange())
+                .with(DATA_COLLECTION_DEAD_LETTER_ROUTING_KEY);
+    }
+
     /**
      * 配置消息转换器
      * 
+     * 实时数据按配置使用二进制编码发送，接收时按内容类型协商，JSON消息仍可正常解析
+     * 
      * @return 消息转换器
      */
     @Bean
     public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+        return new RealTimeDataMessageConverter(new Jackson2JsonMessageConverter(), "binary".equals(codec));
     }
 
     /**
@@ -87,5 +193,206 @@ public class MessageQueueConfig {
         return template;
     }
 
-    // Kafka配置相关的Bean将在需要时添加
+    /**
+     * 配置批量消费监听容器工厂
+     * 
+     * 每个消费者一次接收一批原始消息，由监听器手动确认，批量写库成功后才确认
+     * 
+     * @param connectionFactory 连接工厂
+     * @return 监听容器工厂实例
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    @SuppressWarnings("null")
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(@NonNull ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchPrefetch);
+        factory.setReceiveTimeout(batchReceiveTimeout);
+        factory.setConcurrentConsumers(batchConcurrency);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Kafka数据采集通道配置
+     * 
+     * 仅在数据采集传输方式为kafka时启用。实时数据以数据来源为键发送，同一来源的数据
+     * 始终落在同一分区，分区内按顺序消费；消费者组按分区水平扩展到多个节点
+     */
+    @Configuration
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "kafka")
+    public static class KafkaTransportConfig {
+
+        @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+        private String bootstrapServers;
+
+        @Value("${wind-tunnel.kafka.topic:wind-tunnel.real-time-data}")
+        private String topic;
+
+        @Value("${wind-tunnel.kafka.partitions:12}")
+        private int partitions;
+
+        @Value("${wind-tunnel.kafka.replicas:1}")
+        private short replicas;
+
+        @Value("${wind-tunnel.kafka.group-id:wind-tunnel-data-collection}")
+        private String groupId;
+
+        @Value("${wind-tunnel.kafka.producer.linger-ms:20}")
+        private int lingerMs;
+
+        @Value("${wind-tunnel.kafka.producer.batch-size:65536}")
+        private int producerBatchSize;
+
+        @Value("${wind-tunnel.kafka.producer.compression:lz4}")
+        private String compression;
+
+        @Value("${wind-tunnel.kafka.consumer.max-poll-records:500}")
+        private int maxPollRecords;
+
+        @Value("${wind-tunnel.kafka.consumer.concurrency:3}")
+        private int concurrency;
+
+        @Value("${wind-tunnel.kafka.consumer.retry.initial-interval:1000}")
+        private long retryInitialInterval;
+
+        @Value("${wind-tunnel.kafka.consumer.retry.max-interval:30000}")
+        private long retryMaxInterval;
+
+        @Value("${wind-tunnel.kafka.consumer.retry.poison-attempts:3}")
+        private long poisonAttempts;
+
+        /**
+         * 创建实时数据主题
+         * 
+         * @return 主题定义
+         */
+        @Bean
+        public NewTopic realTimeDataTopic() {
+            return new NewTopic(topic, partitions, replicas);
+        }
+
+        /**
+         * 创建实时数据死信主题
+         * 
+         * 分区数与实时数据主题一致，毒消息转入同号分区
+         * 
+         * @return 主题定义
+         */
+        @Bean
+        public NewTopic realTimeDataDeadLetterTopic() {
+            return new NewTopic(topic + DEAD_LETTER_TOPIC_SUFFIX, partitions, replicas);
+        }
+
+        /**
+         * 配置实时数据生产者工厂
+         * 
+         * 开启幂等发送，重试时不会打乱同一分区内的消息顺序
+         * 
+         * @return 生产者工厂实例
+         */
+        @Bean
+        public ProducerFactory<String, RealTimeData> realTimeDataProducerFactory() {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+            props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+            return new DefaultKafkaProducerFactory<>(props);
+        }
+
+        /**
+         * 配置实时数据Kafka模板
+         * 
+         * @param realTimeDataProducerFactory 生产者工厂
+         * @return Kafka模板实例
+         */
+        @Bean
+        public KafkaTemplate<String, RealTimeData> realTimeDataKafkaTemplate(
+                ProducerFactory<String, RealTimeData> realTimeDataProducerFactory) {
+            KafkaTemplate<String, RealTimeData> template = new KafkaTemplate<>(realTimeDataProducerFactory);
+            template.setDefaultTopic(topic);
+            return template;
+        }
+
+        /**
+         * 配置死信原始报文Kafka模板
+         * 
+         * 无法反序列化的消息按原始字节转入死信主题
+         * 
+         * @return Kafka模板实例
+         */
+        @Bean
+        public KafkaTemplate<String, byte[]> deadLetterBytesKafkaTemplate() {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+        }
+
+        /**
+         * 配置实时数据消费者工厂
+         * 
+         * 反序列化失败的消息不会阻塞分区，以空值交给监听器，由错误处理器转入死信主题
+         * 
+         * @return 消费者工厂实例
+         */
+        @Bean
+        public ConsumerFactory<String, RealTimeData> realTimeDataConsumerFactory() {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+            return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                    new ErrorHandlingDeserializer<>(new JsonDeserializer<>(RealTimeData.class, false)));
+        }
+
+        /**
+         * 配置批量消费监听容器工厂
+         * 
+         * 每个消费线程独占若干分区并按批拉取，整批处理成功后提交偏移量。
+         * 数据库不可用等暂时性错误按指数退避无限重试整批，期间不提交偏移量，数据不会被跳过；
+         * 监听器指明的毒消息先提交其之前的偏移量，有限次重试后转入死信主题（主题名加 .DLT 后缀）
+         * 
+         * @param realTimeDataConsumerFactory 消费者工厂
+         * @param realTimeDataKafkaTemplate 实时数据Kafka模板
+         * @param deadLetterBytesKafkaTemplate 死信原始报文Kafka模板
+         * @return 监听容器工厂实例
+         */
+        @Bean(KAFKA_LISTENER_CONTAINER_FACTORY)
+        public ConcurrentKafkaListenerContainerFactory<String, RealTimeData> kafkaBatchListenerContainerFactory(
+                ConsumerFactory<String, RealTimeData> realTimeDataConsumerFactory,
+                KafkaTemplate<String, RealTimeData> realTimeDataKafkaTemplate,
+                KafkaTemplate<String, byte[]> deadLetterBytesKafkaTemplate) {
+            ConcurrentKafkaListenerContainerFactory<String, RealTimeData> factory = new ConcurrentKafkaListenerContainerFactory<>();
+            factory.setConsumerFactory(realTimeDataConsumerFactory);
+            factory.setBatchListener(true);
+            factory.setConcurrency(concurrency);
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+            Map<Class<?>, KafkaOperations<?, ?>> deadLetterTemplates = new LinkedHashMap<>();
+            deadLetterTemplates.put(byte[].class, deadLetterBytesKafkaTemplate);
+            deadLetterTemplates.put(RealTimeData.class, realTimeDataKafkaTemplate);
+            DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterTemplates);
+
+            // 整批重试（暂时性错误）不设上限；毒消息按单条退避，重试耗尽后转入死信主题
+            ExponentialBackOff batchBackOff = new ExponentialBackOff(retryInitialInterval, 2.0);
+            batchBackOff.setMaxInterval(retryMaxInterval);
+            DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, batchBackOff);
+            errorHandler.setBackOffFunction((record, e) -> new FixedBackOff(retryInitialInterval, poisonAttempts - 1));
+            factory.setCommonErrorHandler(errorHandler);
+            return factory;
+        }
+    }
 }
\ No newline at end of file
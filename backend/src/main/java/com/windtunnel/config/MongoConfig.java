@@ -0,0 +1,31 @@
+package com.windtunnel.config;
+
+import com.windtunnel.wide.PackedDoubleConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * MongoDB配置类
+ * 
+ * 注册自定义类型转换器
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Configuration
+public class MongoConfig {
+
+    /**
+     * 自定义类型转换，宽通道取值以紧凑二进制存储
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                PackedDoubleConverters.DoubleArrayToBinaryConverter.INSTANCE,
+                PackedDoubleConverters.BinaryToDoubleArrayConverter.INSTANCE));
+    }
+}
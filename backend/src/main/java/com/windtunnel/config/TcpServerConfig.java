@@ -6,6 +6,7 @@ import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -36,6 +37,12 @@ public class TcpServerConfig {
     @Value("${wind-tunnel.data-collection.tcp.write-timeout:30000}")
     private int writeTimeout;
 
+    /**
+     * 单行报文最大长度，宽通道帧可达数十KB
+     */
+    @Value("${wind-tunnel.data-collection.tcp.max-frame-length:1048576}")
+    private int maxFrameLength;
+
     /**
      * 创建TCP服务器
      * 
@@ -61,6 +68,8 @@ public class TcpServerConfig {
                      ChannelPipeline p = ch.pipeline();
                      // 添加心跳处理
                      p.addLast(new IdleStateHandler(readTimeout / 1000, writeTimeout / 1000, 0));
+                     // 按换行符拆分报文，避免宽通道帧跨多次读取被拆开或粘连
+                     p.addLast(new LineBasedFrameDecoder(maxFrameLength));
                      // 添加字符串解码器
                      p.addLast(new StringDecoder());
                      p.addLast(new StringEncoder());
@@ -0,0 +1,66 @@
+package com.windtunnel.controller;
+
+import com.windtunnel.common.Result;
+import com.windtunnel.wide.ChannelSchema;
+import com.windtunnel.wide.ChannelSchemaRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 宽通道模式控制器
+ *
+ * 宽通道帧只携带模式ID和按顺序排列的取值，通道名称列表由此处或TCP的SCHEMA报文注册
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/channel-schemas")
+@Tag(name = "宽通道模式", description = "宽通道帧的通道列表注册与查询")
+public class ChannelSchemaController {
+
+    @Autowired
+    private ChannelSchemaRegistry channelSchemaRegistry;
+
+    /**
+     * 注册通道列表
+     */
+    @PostMapping("/{source}")
+    @Operation(summary = "注册通道列表", description = "与已有版本相同的通道列表返回原模式，否则分配新的模式ID")
+    public Result<ChannelSchema> register(@PathVariable String source, @RequestBody List<String> channels) {
+        try {
+            return Result.success("通道列表注册成功", channelSchemaRegistry.register(source, channels));
+        } catch (IllegalArgumentException e) {
+            return Result.error("通道列表无效: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("注册通道列表失败: {}", e.getMessage(), e);
+            return Result.error("注册通道列表失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询数据来源的所有模式版本
+     */
+    @GetMapping("/{source}")
+    @Operation(summary = "模式版本列表", description = "按模式ID升序返回数据来源的所有通道列表版本")
+    public Result<List<ChannelSchema>> getVersions(@PathVariable String source) {
+        return Result.success(channelSchemaRegistry.getVersions(source));
+    }
+
+    /**
+     * 查询指定模式
+     */
+    @GetMapping("/{source}/{schemaId}")
+    @Operation(summary = "模式详情", description = "查询指定模式ID的通道列表")
+    public Result<ChannelSchema> getSchema(@PathVariable String source, @PathVariable Integer schemaId) {
+        ChannelSchema schema = channelSchemaRegistry.get(source, schemaId);
+        return schema != null ? Result.success(schema) : Result.error("宽通道模式不存在");
+    }
+}
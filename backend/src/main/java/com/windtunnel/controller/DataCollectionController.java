@@ -2,6 +2,7 @@ package com.windtunnel.controller;
 
 import com.windtunnel.common.Result;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.ingest.IngestLaneStatistics;
 import com.windtunnel.service.DataCollectionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据采集控制器
@@ -130,4 +132,70 @@ public class DataCollectionController {
         return dataCollectionService.checkForAnomalies(realTimeData);
     }
 
-}
\ No newline at end of file
+    /**
+     * 查询压缩归档的历史数据序列
+     * 
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 归档数据序列
+     */
+    @GetMapping("/archive/{source}/{channel}")
+    public Result<Map<String, Object>> getArchivedSeries(@PathVariable String source,
+                                                         @PathVariable String channel,
+                                                         @RequestParam LocalDateTime startTime,
+                                                         @RequestParam LocalDateTime endTime) {
+        log.info("查询归档数据序列请求，来源: {}, 通道: {}, 开始时间: {}, 结束时间: {}", source, channel, startTime, endTime);
+        return dataCollectionService.findArchivedSeries(source, channel, startTime, endTime);
+    }
+
+    /**
+     * 查询降采样后的通道序列
+     * 
+     * @param source 数据来源
+     * @param channels 通道名称列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param points 每个通道的目标点数（通常为图表宽度的像素数）
+     * @param method 降采样方法：lttb或minmax
+     * @return 每个通道的定长序列
+     */
+    @GetMapping("/downsample/{source}")
+    public Result<Map<String, Object>> getDownsampledSeries(@PathVariable String source,
+                                                            @RequestParam List<String> channels,
+                                                            @RequestParam LocalDateTime startTime,
+                                                            @RequestParam LocalDateTime endTime,
+                                                            @RequestParam(defaultValue = "2000") int points,
+                                                            @RequestParam(defaultValue = "lttb") String method) {
+        log.info("查询降采样序列请求，来源: {}, 通道: {}, 开始时间: {}, 结束时间: {}", source, channels, startTime, endTime);
+        return dataCollectionService.downsampleSeries(source, channels, startTime, endTime, points, method);
+    }
+
+    /**
+     * 查询近期通道数据
+     * 
+     * @param source 数据来源
+     * @param channels 通道名称列表，为空时返回全部缓冲的通道
+     * @param since 开始时间（毫秒时间戳，不含），实时图表增量拉取时传入上次收到的最后时间
+     * @return 每个通道内存中保留的数据
+     */
+    @GetMapping("/recent/{source}")
+    public Result<Map<String, Object>> getRecentSeries(@PathVariable String source,
+                                                       @RequestParam(required = false) List<String> channels,
+                                                       @RequestParam(required = false) Long since) {
+        log.debug("查询近期数据请求，来源: {}, 通道: {}, 开始时间: {}", source, channels, since);
+        return dataCollectionService.getRecentSeries(source, channels, since);
+    }
+
+    /**
+     * 查询TCP接入各优先级通道的统计
+     * 
+     * @return 各通道的排队、丢弃和排队时间
+     */
+    @GetMapping("/ingest/lanes")
+    public Result<List<IngestLaneStatistics>> getIngestLaneStatistics() {
+        return dataCollectionService.getIngestLaneStatistics();
+    }
+
+}
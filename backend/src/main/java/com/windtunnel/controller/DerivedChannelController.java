@@ -0,0 +1,71 @@
+package com.windtunnel.controller;
+
+import com.windtunnel.common.Result;
+import com.windtunnel.derived.DerivedChannel;
+import com.windtunnel.derived.DerivedChannelRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 派生通道控制器
+ * 
+ * 派生通道在系统参数中定义（参数分组 derived-channel），此处提供编译状态查询、重新加载和表达式校验接口
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/derived-channels")
+@Tag(name = "派生通道", description = "由原始通道表达式计算的派生通道")
+public class DerivedChannelController {
+
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+
+    /**
+     * 查询派生通道编译状态
+     */
+    @GetMapping
+    @Operation(summary = "派生通道列表", description = "查询当前派生通道的表达式、依赖和编译状态")
+    public Result<List<DerivedChannel>> getChannels() {
+        return Result.success(derivedChannelRegistry.getChannels());
+    }
+
+    /**
+     * 重新加载派生通道定义
+     */
+    @PostMapping("/reload")
+    @Operation(summary = "重新加载", description = "立即从系统参数重新加载并编译派生通道")
+    public Result<List<DerivedChannel>> reload() {
+        try {
+            return Result.success("派生通道已重新加载", derivedChannelRegistry.reload());
+        } catch (Exception e) {
+            log.error("重新加载派生通道失败: {}", e.getMessage(), e);
+            return Result.error("重新加载派生通道失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 校验表达式
+     */
+    @PostMapping("/validate")
+    @Operation(summary = "校验表达式", description = "编译表达式并可使用样例通道取值试算")
+    public Result<Double> validate(
+            @RequestParam String expression,
+            @RequestBody(required = false) Map<String, Double> sample) {
+        try {
+            double value = derivedChannelRegistry.validate(expression, sample);
+            return Result.success("表达式有效", Double.isNaN(value) ? null : value);
+        } catch (IllegalArgumentException e) {
+            return Result.error("表达式无效: " + e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.windtunnel.controller;
 
 import com.windtunnel.common.Result;
 import com.windtunnel.entity.Equipment;
+import com.windtunnel.entity.EquipmentCalibration;
+import com.windtunnel.service.CalibrationService;
 import com.windtunnel.service.EquipmentService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 设备控制器
@@ -27,6 +30,9 @@ public class EquipmentController {
     @Autowired
     private EquipmentService equipmentService;
 
+    @Autowired
+    private CalibrationService calibrationService;
+
     /**
      * 创建设备
      * 
@@ -174,4 +180,48 @@ public class EquipmentController {
         return equipmentService.updateCalibrationTime(equipmentId, lastCalibrationTime, nextCalibrationTime);
     }
 
+    /**
+     * 新增设备校准曲线版本
+     * 
+     * @param equipmentId 设备ID
+     * @param calibration 校准曲线
+     * @return 保存结果
+     */
+    @PostMapping("/{equipmentId}/calibrations")
+    public Result<EquipmentCalibration> saveCalibration(@PathVariable Long equipmentId,
+                                                        @RequestBody EquipmentCalibration calibration) {
+        log.info("新增设备校准曲线请求，设备ID: {}, 通道: {}", equipmentId, calibration.getChannel());
+        calibration.setEquipmentId(equipmentId);
+        return calibrationService.saveCalibration(calibration);
+    }
+
+    /**
+     * 查询设备校准曲线版本
+     * 
+     * @param equipmentId 设备ID
+     * @param channel 通道字段名
+     * @return 校准曲线列表
+     */
+    @GetMapping("/{equipmentId}/calibrations")
+    public Result<List<EquipmentCalibration>> getCalibrations(@PathVariable Long equipmentId,
+                                                              @RequestParam(required = false) String channel) {
+        return calibrationService.getCalibrations(equipmentId, channel);
+    }
+
+    /**
+     * 按当前校准曲线重新校准历史数据
+     * 
+     * @param equipmentId 设备ID
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 重新校准结果
+     */
+    @PostMapping("/{equipmentId}/calibrations/recalibrate")
+    public Result<Map<String, Object>> recalibrate(@PathVariable Long equipmentId,
+                                                   @RequestParam LocalDateTime startTime,
+                                                   @RequestParam LocalDateTime endTime) {
+        log.info("重新校准历史数据请求，设备ID: {}, 时间范围: {} - {}", equipmentId, startTime, endTime);
+        return calibrationService.recalibrate(equipmentId, startTime, endTime);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.windtunnel.controller;
+
+import com.windtunnel.common.Result;
+import com.windtunnel.event.EventBus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件总线控制器
+ * 
+ * 提供事件总线订阅状态查询接口
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RestController
+@RequestMapping("/api/event-bus")
+@Tag(name = "事件总线", description = "事件订阅状态与积压监控")
+public class EventBusController {
+
+    @Autowired
+    private EventBus eventBus;
+
+    /**
+     * 查询各订阅者的投递指标
+     */
+    @GetMapping("/subscriptions")
+    @Operation(summary = "订阅指标", description = "查询各订阅者的发布数、投递数、丢弃数、积压数量和投递延迟")
+    public Result<List<Map<String, Object>>> getSubscriptionMetrics() {
+        return Result.success(eventBus.getMetrics());
+    }
+}
@@ -1,8 +1,12 @@
 package com.windtunnel.controller;
 
+import com.windtunnel.cep.CepMatch;
+import com.windtunnel.cep.CepPattern;
 import com.windtunnel.common.Result;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.quality.DataQualitySnapshot;
 import com.windtunnel.service.StreamProcessingService;
+import com.windtunnel.spectrum.SpectrumFeatures;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -89,6 +93,81 @@ public class StreamProcessingController {
         return streamProcessingService.calculateMin(source, start, end);
     }
 
+    /**
+     * 计算分位数
+     */
+    @GetMapping("/calculate/percentiles")
+    @Operation(summary = "计算分位数", description = "合并时间范围内的分位数草图，计算通道的近似分位数")
+    public Result<Map<String, Object>> calculatePercentiles(
+            @RequestParam String source,
+            @RequestParam String channel,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "0.5,0.9,0.95,0.99") List<Double> quantiles) {
+        log.info("计算分位数请求，数据源: {}, 通道: {}, 时间范围: {} - {}", source, channel, startTime, endTime);
+        LocalDateTime start = LocalDateTime.parse(startTime);
+        LocalDateTime end = LocalDateTime.parse(endTime);
+        return streamProcessingService.calculatePercentiles(source, channel, start, end, quantiles);
+    }
+
+    /**
+     * 并行聚合
+     */
+    @GetMapping("/aggregate/parallel")
+    @Operation(summary = "并行聚合", description = "按数据来源和时间片切分分区并发聚合，返回各分区、各来源和总体的通道统计量")
+    public Result<Map<String, Object>> aggregateParallel(
+            @RequestParam List<String> sources,
+            @RequestParam(required = false) List<String> channels,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "day") String slice,
+            @RequestParam(required = false) List<Double> quantiles) {
+        log.info("并行聚合请求，数据源: {}, 时间范围: {} - {}, 时间片: {}", sources, startTime, endTime, slice);
+        LocalDateTime start = LocalDateTime.parse(startTime);
+        LocalDateTime end = LocalDateTime.parse(endTime);
+        return streamProcessingService.aggregateParallel(sources, channels, start, end, slice, quantiles);
+    }
+
+    /**
+     * 获取相关矩阵
+     */
+    @GetMapping("/correlation/{group}")
+    @Operation(summary = "获取相关矩阵", description = "查询分组（或数据来源）在线维护的跨通道相关系数矩阵，可直接用于实时热力图")
+    public Result<Map<String, Object>> getCorrelationMatrix(
+            @PathVariable String group,
+            @RequestParam(defaultValue = "window") String mode) {
+        return streamProcessingService.getCorrelationMatrix(group, mode);
+    }
+
+    /**
+     * 注册相关分析分组
+     */
+    @PostMapping("/correlation/groups/{name}")
+    @Operation(summary = "注册相关分析分组", description = "注册跨来源相关分析分组，成员格式为 数据来源.通道")
+    public Result<List<String>> registerCorrelationGroup(@PathVariable String name, @RequestBody List<String> members) {
+        log.info("注册相关分析分组请求，分组名称: {}", name);
+        return streamProcessingService.registerCorrelationGroup(name, members);
+    }
+
+    /**
+     * 移除相关分析分组
+     */
+    @DeleteMapping("/correlation/groups/{name}")
+    @Operation(summary = "移除相关分析分组", description = "移除已注册的跨来源相关分析分组")
+    public Result<Boolean> removeCorrelationGroup(@PathVariable String name) {
+        log.info("移除相关分析分组请求，分组名称: {}", name);
+        return streamProcessingService.removeCorrelationGroup(name);
+    }
+
+    /**
+     * 查询相关分析分组
+     */
+    @GetMapping("/correlation/groups")
+    @Operation(summary = "查询相关分析分组", description = "查询全部相关分析分组及其成员")
+    public Result<Map<String, List<String>>> getCorrelationGroups() {
+        return streamProcessingService.getCorrelationGroups();
+    }
+
     /**
      * 检测复杂事件
      */
@@ -99,6 +178,53 @@ public class StreamProcessingController {
         return streamProcessingService.detectComplexEvents(events);
     }
 
+    /**
+     * 注册CEP模式
+     */
+    @PostMapping("/cep/patterns")
+    @Operation(summary = "注册CEP模式", description = "注册在实时数据流上持续匹配的复杂事件模式，同名模式将被替换")
+    public Result<CepPattern> registerCepPattern(@RequestBody CepPattern pattern) {
+        log.info("注册CEP模式请求，模式名称: {}", pattern.getName());
+        return streamProcessingService.registerCepPattern(pattern);
+    }
+
+    /**
+     * 移除CEP模式
+     */
+    @DeleteMapping("/cep/patterns/{name}")
+    @Operation(summary = "移除CEP模式", description = "移除已注册的复杂事件模式")
+    public Result<Boolean> removeCepPattern(@PathVariable String name) {
+        log.info("移除CEP模式请求，模式名称: {}", name);
+        return streamProcessingService.removeCepPattern(name);
+    }
+
+    /**
+     * 查询CEP模式
+     */
+    @GetMapping("/cep/patterns")
+    @Operation(summary = "查询CEP模式", description = "查询已注册的复杂事件模式")
+    public Result<List<CepPattern>> getCepPatterns() {
+        return streamProcessingService.getCepPatterns();
+    }
+
+    /**
+     * 查询CEP匹配结果
+     */
+    @GetMapping("/cep/matches")
+    @Operation(summary = "查询CEP匹配结果", description = "查询实时数据流上最近的复杂事件匹配结果")
+    public Result<List<CepMatch>> getRecentCepMatches(@RequestParam(defaultValue = "100") int limit) {
+        return streamProcessingService.getRecentCepMatches(limit);
+    }
+
+    /**
+     * 查询数据来源质量指标
+     */
+    @GetMapping("/quality")
+    @Operation(summary = "数据来源质量指标", description = "查询各数据来源最近一个报告周期的采样率、完整率、断档、重复、乱序、到达抖动和通道空值比例")
+    public Result<List<DataQualitySnapshot>> getDataQualityMetrics(@RequestParam(required = false) String source) {
+        return streamProcessingService.getDataQualityMetrics(source);
+    }
+
     /**
      * 实时数据质量监控
      */
@@ -146,6 +272,76 @@ public class StreamProcessingController {
         return streamProcessingService.trendAnalysis(source, dataPoints);
     }
 
+    /**
+     * 通道取值预测
+     */
+    @GetMapping("/forecast")
+    @Operation(summary = "通道预测", description = "基于在线预测模型预测通道在指定时长后的取值")
+    public Result<Map<String, Object>> forecast(
+            @RequestParam String source,
+            @RequestParam String channel,
+            @RequestParam(defaultValue = "60") long horizonSeconds) {
+        return streamProcessingService.forecast(source, channel, horizonSeconds);
+    }
+
+    /**
+     * 阈值到达时间预测
+     */
+    @GetMapping("/forecast/eta")
+    @Operation(summary = "阈值到达时间预测", description = "按当前趋势预测通道到达阈值所需的时间，用于提前预警")
+    public Result<Map<String, Object>> forecastThresholdEta(
+            @RequestParam String source,
+            @RequestParam String channel,
+            @RequestParam double threshold) {
+        return streamProcessingService.forecastThresholdEta(source, channel, threshold);
+    }
+
+    /**
+     * 获取频谱特征
+     */
+    @GetMapping("/spectrum/features")
+    @Operation(summary = "获取频谱特征", description = "获取数据来源各振动通道最新的均方根、峰值频率和频带能量")
+    public Result<List<SpectrumFeatures>> getSpectrumFeatures(@RequestParam String source) {
+        return streamProcessingService.getSpectrumFeatures(source);
+    }
+
+    /**
+     * 获取功率谱密度
+     */
+    @GetMapping("/spectrum")
+    @Operation(summary = "获取功率谱密度", description = "获取振动通道的平均功率谱密度")
+    public Result<Map<String, Object>> getVibrationSpectrum(
+            @RequestParam String source,
+            @RequestParam(defaultValue = "vibration") String channel) {
+        return streamProcessingService.getVibrationSpectrum(source, channel);
+    }
+
+    /**
+     * 多来源时间对齐
+     */
+    @GetMapping("/align")
+    @Operation(summary = "多来源时间对齐", description = "将多个数据来源的通道线性插值到公共时间网格，便于跨来源对比分析")
+    public Result<Map<String, Object>> alignSources(
+            @RequestParam List<String> sources,
+            @RequestParam List<String> channels,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "1000") long stepMillis,
+            @RequestParam(required = false) Long maxGapMillis) {
+        LocalDateTime start = LocalDateTime.parse(startTime);
+        LocalDateTime end = LocalDateTime.parse(endTime);
+        return streamProcessingService.alignSources(sources, channels, start, end, stepMillis, maxGapMillis);
+    }
+
+    /**
+     * 获取设备时钟偏差
+     */
+    @GetMapping("/clock-offsets")
+    @Operation(summary = "设备时钟偏差", description = "查询各数据来源设备时钟相对服务器时钟的偏差估计")
+    public Result<List<Map<String, Object>>> getClockOffsets() {
+        return streamProcessingService.getClockOffsets();
+    }
+
     /**
      * 处理实时数据流
      */
@@ -0,0 +1,159 @@
+package com.windtunnel.controller.experiment;
+
+import com.windtunnel.common.Result;
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.service.experiment.ExperimentRunService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 试验运行控制器
+ * 
+ * 提供试验运行索引的查询、运行数据加载和运行对比REST API接口
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/experiments/runs")
+@Tag(name = "试验运行管理", description = "试验运行索引相关的API接口")
+public class ExperimentRunController {
+
+    @Autowired
+    private ExperimentRunService experimentRunService;
+
+    /**
+     * 根据ID获取试验运行
+     * 
+     * @param id 运行ID
+     * @return 试验运行信息
+     */
+    @Operation(summary = "根据ID获取试验运行", description = "获取试验运行的时间范围、关联排期、统计摘要和存储块指针")
+    @GetMapping("/{id}")
+    public Result<ExperimentRun> getExperimentRunById(@PathVariable String id) {
+        log.info("获取试验运行请求，ID: {}", id);
+        try {
+            ExperimentRun run = experimentRunService.findById(id);
+            if (run != null) {
+                return Result.success("查询成功", run);
+            } else {
+                return Result.notFound("试验运行不存在");
+            }
+        } catch (Exception e) {
+            log.error("获取试验运行失败: {}", e.getMessage(), e);
+            return Result.error("获取试验运行失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据试验排期查询运行
+     * 
+     * @param experimentScheduleId 试验排期ID
+     * @return 试验运行列表
+     */
+    @Operation(summary = "根据试验排期查询运行", description = "根据试验排期ID获取运行列表")
+    @GetMapping("/schedule/{experimentScheduleId}")
+    public Result<List<ExperimentRun>> getExperimentRunsBySchedule(@PathVariable Long experimentScheduleId) {
+        log.info("根据试验排期查询运行请求，排期ID: {}", experimentScheduleId);
+        try {
+            return Result.success("查询成功", experimentRunService.findBySchedule(experimentScheduleId));
+        } catch (Exception e) {
+            log.error("根据试验排期查询运行失败: {}", e.getMessage(), e);
+            return Result.error("根据试验排期查询运行失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据试验项目查询运行
+     * 
+     * @param experimentProjectId 试验项目ID
+     * @return 试验运行列表
+     */
+    @Operation(summary = "根据试验项目查询运行", description = "根据试验项目ID获取运行列表")
+    @GetMapping("/project/{experimentProjectId}")
+    public Result<List<ExperimentRun>> getExperimentRunsByProject(@PathVariable Long experimentProjectId) {
+        log.info("根据试验项目查询运行请求，项目ID: {}", experimentProjectId);
+        try {
+            return Result.success("查询成功", experimentRunService.findByProject(experimentProjectId));
+        } catch (Exception e) {
+            log.error("根据试验项目查询运行失败: {}", e.getMessage(), e);
+            return Result.error("根据试验项目查询运行失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询数据来源在时间范围内的运行
+     * 
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 试验运行列表
+     */
+    @Operation(summary = "查询数据来源的运行", description = "查询数据来源在时间范围内的试验运行")
+    @GetMapping("/source/{source}")
+    public Result<List<ExperimentRun>> getExperimentRunsBySource(@PathVariable String source,
+                                                                 @RequestParam LocalDateTime startTime,
+                                                                 @RequestParam LocalDateTime endTime) {
+        log.info("查询数据来源的试验运行请求，来源: {}, 时间范围: {} - {}", source, startTime, endTime);
+        try {
+            return Result.success("查询成功", experimentRunService.findBySource(source, startTime, endTime));
+        } catch (Exception e) {
+            log.error("查询数据来源的试验运行失败: {}", e.getMessage(), e);
+            return Result.error("查询数据来源的试验运行失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 加载试验运行数据
+     * 
+     * @param id 运行ID
+     * @param channels 通道列表，为空时加载全部通道
+     * @param points 每个通道的目标点数
+     * @return 运行信息和各通道降采样序列
+     */
+    @Operation(summary = "加载试验运行数据", description = "按存储块指针加载试验运行的降采样序列")
+    @GetMapping("/{id}/series")
+    public Result<Map<String, Object>> loadExperimentRunSeries(@PathVariable String id,
+                                                               @RequestParam(required = false) List<String> channels,
+                                                               @RequestParam(defaultValue = "1000") int points) {
+        log.info("加载试验运行数据请求，ID: {}, 通道: {}, 目标点数: {}", id, channels, points);
+        try {
+            Map<String, Object> series = experimentRunService.loadRunSeries(id, channels, points);
+            if (series != null) {
+                return Result.success("查询成功", series);
+            } else {
+                return Result.notFound("试验运行不存在");
+            }
+        } catch (Exception e) {
+            log.error("加载试验运行数据失败: {}", e.getMessage(), e);
+            return Result.error("加载试验运行数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 对比试验运行
+     * 
+     * @param ids 运行ID列表
+     * @return 各运行的统计摘要对比
+     */
+    @Operation(summary = "对比试验运行", description = "按预先计算的统计摘要对比多个试验运行")
+    @GetMapping("/compare")
+    public Result<Map<String, Object>> compareExperimentRuns(@RequestParam List<String> ids) {
+        log.info("对比试验运行请求，ID: {}", ids);
+        try {
+            return Result.success("查询成功", experimentRunService.compareRuns(ids));
+        } catch (Exception e) {
+            log.error("对比试验运行失败: {}", e.getMessage(), e);
+            return Result.error("对比试验运行失败: " + e.getMessage());
+        }
+    }
+}
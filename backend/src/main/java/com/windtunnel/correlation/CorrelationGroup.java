@@ -0,0 +1,206 @@
+package com.windtunnel.correlation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 相关分析分组
+ *
+ * 分组由若干个 来源.通道 组成，每个成员保留最近一次取值（采样保持）。自上一个样本以来全部成员都已更新，
+ * 且最近取值都在允许的时效内时，组成一个样本向量（跨来源分组按最慢来源的节奏成样，避免新值与旧值配对），同时计入累计、衰减和滑动窗口三个累加器，每个样本O(k²)。
+ * 滑动窗口按固定时长切分为若干个分片，新分片覆盖环形数组中最旧的分片，查询时合并窗口内的分片。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class CorrelationGroup {
+
+    private final String name;
+
+    private final List<String> channels;
+
+    private final String[] sources;
+
+    private final String[] fields;
+
+    private final long maxStalenessMillis;
+
+    private final double decayPerMilli;
+
+    private final long paneMillis;
+
+    private final double[] lastValues;
+
+    private final long[] lastTimes;
+
+    /**
+     * 自上一个样本以来已更新的成员
+     */
+    private final boolean[] updatedSinceSample;
+
+    private int updatedCount;
+
+    private final double[] sample;
+
+    private final CovarianceAccumulator cumulative;
+
+    private final CovarianceAccumulator decaying;
+
+    private final CovarianceAccumulator[] panes;
+
+    private final long[] paneStarts;
+
+    private long lastSampleMillis = Long.MIN_VALUE;
+
+    /**
+     * @param members 成员，格式为 来源.通道
+     * @param windowMillis 滑动窗口长度
+     * @param paneCount 滑动窗口分片数量
+     * @param halfLifeMillis 衰减口径的半衰期
+     * @param maxStalenessMillis 成员最近取值的最长时效
+     */
+    CorrelationGroup(String name, List<String> members, long windowMillis, int paneCount,
+                     long halfLifeMillis, long maxStalenessMillis) {
+        int size = members.size();
+        this.name = name;
+        this.channels = List.copyOf(members);
+        this.sources = new String[size];
+        this.fields = new String[size];
+        for (int i = 0; i < size; i++) {
+            String member = members.get(i);
+            int separator = member.lastIndexOf('.');
+            if (separator <= 0 || separator == member.length() - 1) {
+                throw new IllegalArgumentException("分组成员格式应为 来源.通道: " + member);
+            }
+            sources[i] = member.substring(0, separator);
+            fields[i] = member.substring(separator + 1);
+        }
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        this.paneMillis = Math.max(1, windowMillis / paneCount);
+        this.lastValues = new double[size];
+        this.lastTimes = new long[size];
+        Arrays.fill(lastTimes, Long.MIN_VALUE);
+        this.updatedSinceSample = new boolean[size];
+        this.sample = new double[size];
+        this.cumulative = new CovarianceAccumulator(size);
+        this.decaying = new CovarianceAccumulator(size);
+        this.panes = new CovarianceAccumulator[paneCount];
+        this.paneStarts = new long[paneCount];
+        for (int i = 0; i < paneCount; i++) {
+            panes[i] = new CovarianceAccumulator(size);
+            paneStarts[i] = Long.MIN_VALUE;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getChannels() {
+        return channels;
+    }
+
+    /**
+     * 分组是否包含该来源的成员
+     */
+    boolean covers(String source) {
+        for (String memberSource : sources) {
+            if (memberSource.equals(source)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 更新来源的成员取值，条件满足时计入一个样本
+     *
+     * @param source 数据来源
+     * @param timestamp 数据时间
+     * @param reader 按通道名读取取值，无效时返回NaN
+     */
+    synchronized void update(String source, long timestamp, ChannelReader reader) {
+        boolean updated = false;
+        for (int i = 0; i < sources.length; i++) {
+            if (!sources[i].equals(source)) {
+                continue;
+            }
+            double value = reader.read(fields[i]);
+            if (Double.isFinite(value)) {
+                lastValues[i] = value;
+                lastTimes[i] = timestamp;
+                if (!updatedSinceSample[i]) {
+                    updatedSinceSample[i] = true;
+                    updatedCount++;
+                }
+                updated = true;
+            }
+        }
+        if (!updated || updatedCount < lastValues.length) {
+            return;
+        }
+        Arrays.fill(updatedSinceSample, false);
+        updatedCount = 0;
+        for (long lastTime : lastTimes) {
+            if (timestamp - lastTime > maxStalenessMillis) {
+                return;
+            }
+        }
+        System.arraycopy(lastValues, 0, sample, 0, sample.length);
+        cumulative.add(sample);
+
+        if (lastSampleMillis != Long.MIN_VALUE && timestamp > lastSampleMillis) {
+            decaying.decay(Math.exp(-(timestamp - lastSampleMillis) * decayPerMilli));
+        }
+        decaying.add(sample);
+
+        long paneIndex = Math.floorDiv(timestamp, paneMillis);
+        int slot = (int) Math.floorMod(paneIndex, (long) panes.length);
+        long paneStart = paneIndex * paneMillis;
+        if (paneStarts[slot] < paneStart) {
+            panes[slot].reset();
+            paneStarts[slot] = paneStart;
+        }
+        // 样本所在分片已被更新的分片覆盖时只计入累计和衰减口径
+        if (paneStarts[slot] == paneStart) {
+            panes[slot].add(sample);
+        }
+        lastSampleMillis = Math.max(lastSampleMillis, timestamp);
+    }
+
+    /**
+     * 生成指定口径的矩阵快照
+     */
+    synchronized CorrelationMatrix snapshot(CorrelationMode mode) {
+        CovarianceAccumulator copy = new CovarianceAccumulator(channels.size());
+        switch (mode) {
+            case CUMULATIVE -> copy.merge(cumulative);
+            case DECAY -> copy.merge(decaying);
+            case WINDOW -> {
+                if (lastSampleMillis != Long.MIN_VALUE) {
+                    // 窗口以最近样本所在分片为终点，覆盖最近 paneCount 个分片
+                    long latestPane = Math.floorDiv(lastSampleMillis, paneMillis) * paneMillis;
+                    long oldestPane = latestPane - (panes.length - 1) * paneMillis;
+                    for (int i = 0; i < panes.length; i++) {
+                        if (paneStarts[i] >= oldestPane && paneStarts[i] <= latestPane) {
+                            copy.merge(panes[i]);
+                        }
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("不支持的统计口径: " + mode);
+        }
+        return new CorrelationMatrix(name, mode, channels, copy, lastSampleMillis);
+    }
+
+    /**
+     * 按通道名读取取值
+     */
+    @FunctionalInterface
+    interface ChannelReader {
+
+        double read(String channel);
+    }
+}
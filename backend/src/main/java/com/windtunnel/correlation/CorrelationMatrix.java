@@ -0,0 +1,77 @@
+package com.windtunnel.correlation;
+
+import java.util.List;
+
+/**
+ * 相关矩阵快照
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class CorrelationMatrix {
+
+    private final String group;
+
+    private final CorrelationMode mode;
+
+    private final List<String> channels;
+
+    private final CovarianceAccumulator accumulator;
+
+    private final long lastSampleMillis;
+
+    CorrelationMatrix(String group, CorrelationMode mode, List<String> channels,
+                      CovarianceAccumulator accumulator, long lastSampleMillis) {
+        this.group = group;
+        this.mode = mode;
+        this.channels = channels;
+        this.accumulator = accumulator;
+        this.lastSampleMillis = lastSampleMillis;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public CorrelationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * 矩阵行列对应的通道，格式为 来源.通道
+     */
+    public List<String> getChannels() {
+        return channels;
+    }
+
+    /**
+     * 有效权重，衰减口径下小于样本数
+     */
+    public double getWeight() {
+        return accumulator.getWeight();
+    }
+
+    public long getSamples() {
+        return accumulator.getSamples();
+    }
+
+    /**
+     * 最近一次样本的时间，无样本时为 Long.MIN_VALUE
+     */
+    public long getLastSampleMillis() {
+        return lastSampleMillis;
+    }
+
+    public double mean(int channel) {
+        return accumulator.mean(channel);
+    }
+
+    public double covariance(int i, int j) {
+        return accumulator.covariance(i, j);
+    }
+
+    public double correlation(int i, int j) {
+        return accumulator.correlation(i, j);
+    }
+}
@@ -0,0 +1,40 @@
+package com.windtunnel.correlation;
+
+/**
+ * 相关矩阵统计口径
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum CorrelationMode {
+
+    /**
+     * 分组创建以来的全部样本
+     */
+    CUMULATIVE,
+
+    /**
+     * 最近一个滑动窗口内的样本
+     */
+    WINDOW,
+
+    /**
+     * 按半衰期指数衰减加权的样本
+     */
+    DECAY;
+
+    /**
+     * 按名称查找，忽略大小写
+     *
+     * @throws IllegalArgumentException 名称无效
+     */
+    public static CorrelationMode of(String name) {
+        for (CorrelationMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的统计口径: " + name);
+    }
+}
@@ -0,0 +1,201 @@
+package com.windtunnel.correlation;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 跨通道相关矩阵注册表
+ *
+ * 订阅实时数据，为每个数据来源自动维护一个由配置通道组成的分组，另外支持跨来源的自定义分组
+ * （配置或运行时注册）。每个分组在线维护协方差矩阵，查询只需O(k²)计算相关系数，可以直接驱动实时热力图。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class CorrelationRegistry {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.correlation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.correlation.channels:windSpeed,temperature,pressure,flow,power,vibration,voltage,current}")
+    private List<String> channels;
+
+    @Value("${wind-tunnel.correlation.groups:}")
+    private String groupDefinitions;
+
+    @Value("${wind-tunnel.correlation.window:60000}")
+    private long windowMillis;
+
+    @Value("${wind-tunnel.correlation.panes:12}")
+    private int paneCount;
+
+    @Value("${wind-tunnel.correlation.half-life:30000}")
+    private long halfLifeMillis;
+
+    @Value("${wind-tunnel.correlation.max-staleness:2000}")
+    private long maxStalenessMillis;
+
+    @Value("${wind-tunnel.correlation.max-group-channels:64}")
+    private int maxGroupChannels;
+
+    /**
+     * 按数据来源自动创建的分组
+     */
+    private final Map<String, CorrelationGroup> sourceGroups = new ConcurrentHashMap<>();
+
+    /**
+     * 自定义分组
+     */
+    private final Map<String, CorrelationGroup> customGroups = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // 多个分组以分号分隔，格式为 名称=来源.通道,来源.通道
+        for (String definition : groupDefinitions.split(";")) {
+            if (definition.isBlank()) {
+                continue;
+            }
+            int separator = definition.indexOf('=');
+            if (separator <= 0) {
+                log.warn("相关分析分组配置无效: {}", definition);
+                continue;
+            }
+            try {
+                register(definition.substring(0, separator).trim(),
+                        Arrays.stream(definition.substring(separator + 1).split(",")).map(String::trim).toList());
+            } catch (IllegalArgumentException e) {
+                log.warn("相关分析分组配置无效: {}, {}", definition, e.getMessage());
+            }
+        }
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "correlation", events -> events.forEach(this::onData));
+        log.info("跨通道相关矩阵已启用，通道: {}, 自定义分组: {}, 窗口: {}ms, 半衰期: {}ms",
+                channels, customGroups.keySet(), windowMillis, halfLifeMillis);
+    }
+
+    /**
+     * 处理一条实时数据
+     *
+     * @param data 实时数据
+     */
+    public void onData(RealTimeData data) {
+        String source = data.getSource();
+        if (source == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        CorrelationGroup.ChannelReader reader = channel -> read(data, channel);
+        CorrelationGroup sourceGroup = sourceGroups.computeIfAbsent(source, name -> newSourceGroup(name, reader));
+        if (sourceGroup != null) {
+            sourceGroup.update(source, timestamp, reader);
+        }
+        for (CorrelationGroup group : customGroups.values()) {
+            if (group.covers(source)) {
+                group.update(source, timestamp, reader);
+            }
+        }
+    }
+
+    /**
+     * 注册自定义分组，同名分组被替换并重新开始统计
+     *
+     * @param name 分组名称
+     * @param members 成员，格式为 来源.通道
+     * @throws IllegalArgumentException 分组定义无效
+     */
+    public void register(String name, List<String> members) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("分组名称不能为空");
+        }
+        if (members == null || members.size() < 2 || members.size() > maxGroupChannels) {
+            throw new IllegalArgumentException("分组成员数量应在2到" + maxGroupChannels + "之间");
+        }
+        if (members.stream().distinct().count() != members.size()) {
+            throw new IllegalArgumentException("分组成员不能重复");
+        }
+        customGroups.put(name, newGroup(name, members));
+    }
+
+    /**
+     * 删除自定义分组
+     *
+     * @return 分组是否存在
+     */
+    public boolean unregister(String name) {
+        return customGroups.remove(name) != null;
+    }
+
+    /**
+     * 查询分组的相关矩阵，自定义分组优先，其次为同名数据来源的自动分组
+     *
+     * @param group 分组名称或数据来源
+     * @param mode 统计口径
+     * @return 矩阵快照，分组不存在时返回null
+     */
+    public CorrelationMatrix snapshot(String group, CorrelationMode mode) {
+        CorrelationGroup target = customGroups.get(group);
+        if (target == null) {
+            target = sourceGroups.get(group);
+        }
+        return target != null ? target.snapshot(mode) : null;
+    }
+
+    /**
+     * 全部分组及其成员
+     */
+    public Map<String, List<String>> getGroups() {
+        Map<String, List<String>> groups = new TreeMap<>();
+        sourceGroups.forEach((name, group) -> groups.put(name, group.getChannels()));
+        customGroups.forEach((name, group) -> groups.put(name, group.getChannels()));
+        return groups;
+    }
+
+    /**
+     * 自动分组只包含首条数据中有取值的配置通道，避免来源不上报的通道使样本永远不完整
+     */
+    private CorrelationGroup newSourceGroup(String source, CorrelationGroup.ChannelReader reader) {
+        List<String> members = new ArrayList<>(channels.size());
+        for (String channel : channels) {
+            if (Double.isFinite(reader.read(channel))) {
+                members.add(source + "." + channel);
+            }
+        }
+        return members.size() >= 2 ? newGroup(source, members) : null;
+    }
+
+    private CorrelationGroup newGroup(String name, List<String> members) {
+        return new CorrelationGroup(name, members, windowMillis, paneCount, halfLifeMillis, maxStalenessMillis);
+    }
+
+    private double read(RealTimeData data, String channel) {
+        RealTimeDataChannel field = RealTimeDataChannel.fromFieldName(channel);
+        if (field != null) {
+            return field.read(data);
+        }
+        Object value = data.getDataContent() != null ? data.getDataContent().get(channel) : null;
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
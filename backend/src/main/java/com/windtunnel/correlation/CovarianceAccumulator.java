@@ -0,0 +1,169 @@
+package com.windtunnel.correlation;
+
+import java.util.Arrays;
+
+/**
+ * 在线协方差累加器
+ *
+ * 按加权Welford算法增量维护k个通道的均值和协方差矩阵（上三角，原始类型数组），每个样本O(k²)。
+ * 支持整体衰减（指数加权的时间衰减）和按Chan公式合并两个累加器（滑动窗口的分片合并）。
+ *
+ * 非线程安全。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class CovarianceAccumulator {
+
+    private final int size;
+
+    private double weight;
+
+    private long samples;
+
+    private final double[] mean;
+
+    /**
+     * 离差乘积和，下标 i * size + j（j >= i）
+     */
+    private final double[] comoment;
+
+    private final double[] delta;
+
+    public CovarianceAccumulator(int size) {
+        this.size = size;
+        this.mean = new double[size];
+        this.comoment = new double[size * size];
+        this.delta = new double[size];
+    }
+
+    /**
+     * 添加一个权重为1的样本
+     *
+     * @param values 各通道取值，长度等于通道数
+     */
+    public void add(double[] values) {
+        weight += 1;
+        samples++;
+        double inverseWeight = 1 / weight;
+        for (int i = 0; i < size; i++) {
+            delta[i] = values[i] - mean[i];
+            mean[i] += delta[i] * inverseWeight;
+        }
+        // C += δ_i * (x_j - 新均值_j)
+        for (int i = 0; i < size; i++) {
+            double di = delta[i];
+            int row = i * size;
+            for (int j = i; j < size; j++) {
+                comoment[row + j] += di * (values[j] - mean[j]);
+            }
+        }
+    }
+
+    /**
+     * 按因子衰减已有样本的权重
+     *
+     * @param factor 衰减因子（0到1）
+     */
+    public void decay(double factor) {
+        if (weight == 0 || factor >= 1) {
+            return;
+        }
+        weight *= factor;
+        for (int i = 0; i < size; i++) {
+            int row = i * size;
+            for (int j = i; j < size; j++) {
+                comoment[row + j] *= factor;
+            }
+        }
+    }
+
+    /**
+     * 合并另一个累加器
+     */
+    public void merge(CovarianceAccumulator other) {
+        if (other.weight == 0) {
+            return;
+        }
+        if (weight == 0) {
+            weight = other.weight;
+            samples = other.samples;
+            System.arraycopy(other.mean, 0, mean, 0, size);
+            System.arraycopy(other.comoment, 0, comoment, 0, comoment.length);
+            return;
+        }
+        double total = weight + other.weight;
+        double factor = weight * other.weight / total;
+        for (int i = 0; i < size; i++) {
+            delta[i] = other.mean[i] - mean[i];
+        }
+        for (int i = 0; i < size; i++) {
+            int row = i * size;
+            for (int j = i; j < size; j++) {
+                comoment[row + j] += other.comoment[row + j] + delta[i] * delta[j] * factor;
+            }
+            mean[i] += delta[i] * other.weight / total;
+        }
+        weight = total;
+        samples += other.samples;
+    }
+
+    /**
+     * 清空
+     */
+    public void reset() {
+        weight = 0;
+        samples = 0;
+        Arrays.fill(mean, 0);
+        Arrays.fill(comoment, 0);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 有效权重（未衰减时等于样本数）
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * 累计样本数
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    public double mean(int channel) {
+        return mean[channel];
+    }
+
+    /**
+     * 协方差
+     */
+    public double covariance(int i, int j) {
+        if (weight <= 1) {
+            return Double.NaN;
+        }
+        return comoment[Math.min(i, j) * size + Math.max(i, j)] / (weight - 1);
+    }
+
+    /**
+     * 皮尔逊相关系数，任一通道方差为0时返回NaN
+     */
+    public double correlation(int i, int j) {
+        double varianceI = comoment[i * size + i];
+        double varianceJ = comoment[j * size + j];
+        if (weight <= 1 || varianceI <= 0 || varianceJ <= 0) {
+            return Double.NaN;
+        }
+        if (i == j) {
+            return 1;
+        }
+        double value = comoment[Math.min(i, j) * size + Math.max(i, j)] / Math.sqrt(varianceI * varianceJ);
+        return Math.max(-1, Math.min(1, value));
+    }
+}
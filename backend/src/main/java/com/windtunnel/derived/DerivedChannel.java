@@ -0,0 +1,36 @@
+package com.windtunnel.derived;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 派生通道定义及编译状态
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class DerivedChannel {
+
+    /**
+     * 通道名称（系统参数键），计算结果写入实时数据扩展内容的同名键
+     */
+    private String name;
+
+    /**
+     * 表达式
+     */
+    private String expression;
+
+    /**
+     * 引用的其他派生通道
+     */
+    private List<String> dependencies;
+
+    /**
+     * 编译错误，为空表示编译成功
+     */
+    private String error;
+}
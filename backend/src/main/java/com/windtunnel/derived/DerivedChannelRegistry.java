@@ -0,0 +1,399 @@
+package com.windtunnel.derived;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.entity.system.SystemParameter;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.repository.system.SystemParameterRepository;
+import com.windtunnel.spectrum.SpectrumFeatures;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 派生通道注册表
+ *
+ * 从系统参数中加载派生通道定义（参数分组为 derived-channel，参数键为通道名，参数值为表达式），
+ * 编译一次后在采集链路上对每条数据求值，结果写入扩展数据内容，随原始通道一起入库和推送。
+ * 派生通道可引用原始通道和其他派生通道，按依赖顺序求值，循环引用的通道不会启用。
+ *
+ * 频谱分析发布的特征（{@link SpectrumFeatures#toDerivedChannels()}，如 vibration.rms）按数据来源保存最新一帧，
+ * 同一来源后续数据在采集链路上一并写入扩展数据内容，随数据入库并经事件总线送达告警、CEP等下游。
+ * 特征来自已入库的数据窗口，相对当前数据滞后不超过一个窗口步长；超过 spectrum-max-age 的特征不再写入。
+ *
+ * 编译结果整体替换，求值线程读取不可变快照，无需加锁
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class DerivedChannelRegistry {
+
+    private static final int NATIVE_SLOTS = RealTimeDataChannel.count();
+
+    @Autowired
+    private SystemParameterRepository systemParameterRepository;
+
+    @Value("${wind-tunnel.derived-channel.param-group:derived-channel}")
+    private String paramGroup;
+
+    @Value("${wind-tunnel.derived-channel.refresh-interval:60000}")
+    private long refreshInterval;
+
+    @Value("${wind-tunnel.derived-channel.spectrum-max-age:10000}")
+    private long spectrumMaxAge;
+
+    @Autowired
+    private EventBus eventBus;
+
+    /**
+     * 各数据来源各通道最新的频谱特征
+     */
+    private final Map<String, Map<String, SpectrumFeatures>> spectrumFeatures = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService refresher;
+
+    private volatile Compiled compiled = new Compiled(Map.of(), List.of(), new String[0], new int[0],
+            new DoubleExpression[0], NATIVE_SLOTS);
+
+    /**
+     * 每个采集线程复用的槽位数组
+     */
+    private final ThreadLocal<double[]> slotBuffer = ThreadLocal.withInitial(() -> new double[NATIVE_SLOTS]);
+
+    @PostConstruct
+    public void start() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 数据库暂不可用时不影响启动，由定时刷新重试
+            log.warn("加载派生通道定义失败: {}", e.getMessage());
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "derived-channel-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        eventBus.subscribe(EventTopics.SPECTRUM_FEATURES, "derived-spectrum",
+                events -> events.forEach(this::onSpectrumFeatures));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 定时检查系统参数变更，定义未变化时不重新编译
+     */
+    private void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("刷新派生通道定义失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从系统参数重新加载并编译派生通道
+     *
+     * @return 各通道的编译状态
+     */
+    public synchronized List<DerivedChannel> reload() {
+        QueryWrapper<SystemParameter> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("param_group", paramGroup).eq("enabled", 1).orderByAsc("param_sort");
+        Map<String, String> definitions = new LinkedHashMap<>();
+        for (SystemParameter parameter : systemParameterRepository.selectList(queryWrapper)) {
+            if (parameter.getParamKey() != null && parameter.getParamValue() != null) {
+                definitions.put(parameter.getParamKey().trim(), parameter.getParamValue().trim());
+            }
+        }
+        if (!definitions.equals(compiled.definitions)) {
+            compiled = compile(definitions);
+            log.info("派生通道已编译，启用: {}, 定义: {}", compiled.names.length, definitions.size());
+        }
+        return compiled.channels;
+    }
+
+    /**
+     * 当前派生通道的编译状态
+     */
+    public List<DerivedChannel> getChannels() {
+        return compiled.channels;
+    }
+
+    /**
+     * 保存数据来源通道的最新频谱特征
+     *
+     * @param features 频谱特征
+     */
+    public void onSpectrumFeatures(SpectrumFeatures features) {
+        if (features.getSource() != null && features.getChannel() != null) {
+            spectrumFeatures.computeIfAbsent(features.getSource(), source -> new ConcurrentHashMap<>())
+                    .put(features.getChannel(), features);
+        }
+    }
+
+    /**
+     * 对一条实时数据计算所有派生通道，结果为NaN或无穷的通道不写入；同一来源有最新频谱特征时一并写入
+     *
+     * 单个通道求值失败时按NaN处理，不影响原始数据和其他通道的接入
+     *
+     * @param data 实时数据
+     */
+    public void apply(RealTimeData data) {
+        applySpectrumFeatures(data);
+        Compiled snapshot = compiled;
+        if (snapshot.names.length == 0) {
+            return;
+        }
+        double[] slots = slotBuffer.get();
+        if (slots.length < snapshot.slotCount) {
+            slots = new double[snapshot.slotCount];
+            slotBuffer.set(slots);
+        }
+        for (int i = 0; i < NATIVE_SLOTS; i++) {
+            slots[i] = RealTimeDataChannel.of(i).read(data);
+        }
+        Map<String, Object> content = data.getDataContent();
+        for (int i = 0; i < snapshot.names.length; i++) {
+            double value;
+            try {
+                value = snapshot.expressions[i].evaluate(slots);
+            } catch (RuntimeException e) {
+                log.debug("派生通道 {} 求值失败: {}", snapshot.names[i], e.getMessage());
+                value = Double.NaN;
+            }
+            slots[snapshot.slots[i]] = value;
+            if (Double.isFinite(value)) {
+                if (content == null) {
+                    content = new HashMap<>();
+                    data.setDataContent(content);
+                }
+                content.put(snapshot.names[i], value);
+            }
+        }
+    }
+
+    private void applySpectrumFeatures(RealTimeData data) {
+        Map<String, SpectrumFeatures> latest = data.getSource() != null ? spectrumFeatures.get(data.getSource()) : null;
+        if (latest == null || data.getDataTime() == null) {
+            return;
+        }
+        for (SpectrumFeatures features : latest.values()) {
+            if (features.getTime() == null) {
+                continue;
+            }
+            long age = Duration.between(features.getTime(), data.getDataTime()).toMillis();
+            if (age < 0 || age > spectrumMaxAge) {
+                continue;
+            }
+            Map<String, Object> content = data.getDataContent();
+            if (content == null) {
+                content = new HashMap<>();
+                data.setDataContent(content);
+            }
+            for (Map.Entry<String, Double> channel : features.toDerivedChannels().entrySet()) {
+                if (Double.isFinite(channel.getValue())) {
+                    content.put(channel.getKey(), channel.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 对一批实时数据计算派生通道
+     *
+     * @param dataList 实时数据列表
+     */
+    public void apply(List<RealTimeData> dataList) {
+        for (RealTimeData data : dataList) {
+            apply(data);
+        }
+    }
+
+    /**
+     * 校验表达式，可引用原始通道和当前已定义的派生通道
+     *
+     * @param expression 表达式
+     * @param sample 用于试算的通道取值，可为空
+     * @return 试算结果，未提供样例时为NaN
+     * @throws IllegalArgumentException 表达式无效
+     */
+    public double validate(String expression, Map<String, Double> sample) {
+        Map<String, Integer> derivedSlots = new HashMap<>();
+        List<DerivedChannel> channels = compiled.channels;
+        for (int i = 0; i < channels.size(); i++) {
+            derivedSlots.put(channels.get(i).getName(), NATIVE_SLOTS + i);
+        }
+        DoubleExpression compiledExpression = ExpressionCompiler.compile(expression,
+                name -> resolve(name, derivedSlots, null));
+        if (sample == null || sample.isEmpty()) {
+            return Double.NaN;
+        }
+        double[] slots = new double[NATIVE_SLOTS + derivedSlots.size()];
+        Arrays.fill(slots, Double.NaN);
+        sample.forEach((name, value) -> {
+            Integer slot = RealTimeDataChannel.fromFieldName(name) != null
+                    ? Integer.valueOf(RealTimeDataChannel.fromFieldName(name).ordinal())
+                    : derivedSlots.get(name);
+            if (slot != null && value != null) {
+                slots[slot] = value;
+            }
+        });
+        return compiledExpression.evaluate(slots);
+    }
+
+    private Compiled compile(Map<String, String> definitions) {
+        // 每个定义的通道先分配固定槽位，编译时记录对其他派生通道的依赖；
+        // 编译失败的通道也占用槽位，槽位数组按全部定义分配
+        Map<String, Integer> derivedSlots = new HashMap<>();
+        for (String name : definitions.keySet()) {
+            derivedSlots.put(name, NATIVE_SLOTS + derivedSlots.size());
+        }
+        Map<String, DerivedChannel> channels = new LinkedHashMap<>();
+        Map<String, DoubleExpression> expressions = new HashMap<>();
+        definitions.forEach((name, expression) -> {
+            DerivedChannel channel = new DerivedChannel();
+            channel.setName(name);
+            channel.setExpression(expression);
+            Set<String> dependencies = new LinkedHashSet<>();
+            try {
+                if (RealTimeDataChannel.fromFieldName(name) != null) {
+                    throw new IllegalArgumentException("派生通道名称不能与原始通道重名");
+                }
+                expressions.put(name, ExpressionCompiler.compile(expression,
+                        variable -> resolve(variable, derivedSlots, dependencies)));
+            } catch (IllegalArgumentException e) {
+                channel.setError(e.getMessage());
+                log.warn("派生通道 {} 编译失败: {}", name, e.getMessage());
+            }
+            channel.setDependencies(new ArrayList<>(dependencies));
+            channels.put(name, channel);
+        });
+
+        // 按依赖拓扑排序，依赖失败或存在循环的通道不启用
+        List<String> order = new ArrayList<>();
+        Map<String, Boolean> visited = new HashMap<>();
+        for (String name : channels.keySet()) {
+            visit(name, channels, visited, order);
+        }
+
+        String[] names = order.toArray(new String[0]);
+        int[] slots = new int[names.length];
+        DoubleExpression[] compiledExpressions = new DoubleExpression[names.length];
+        for (int i = 0; i < names.length; i++) {
+            slots[i] = derivedSlots.get(names[i]);
+            compiledExpressions[i] = expressions.get(names[i]);
+        }
+        return new Compiled(definitions, List.copyOf(channels.values()), names, slots, compiledExpressions,
+                NATIVE_SLOTS + derivedSlots.size());
+    }
+
+    /**
+     * 深度优先拓扑排序，visited中false表示正在访问，true表示已完成
+     *
+     * @return 通道是否可用
+     */
+    private boolean visit(String name, Map<String, DerivedChannel> channels, Map<String, Boolean> visited,
+                          List<String> order) {
+        DerivedChannel channel = channels.get(name);
+        Boolean state = visited.get(name);
+        if (state != null) {
+            if (!state) {
+                channel.setError("存在循环引用");
+            }
+            return state && channel.getError() == null;
+        }
+        if (channel.getError() != null) {
+            visited.put(name, true);
+            return false;
+        }
+        visited.put(name, false);
+        boolean usable = true;
+        for (String dependency : channel.getDependencies()) {
+            if (!visit(dependency, channels, visited, order)) {
+                usable = false;
+                if (channel.getError() == null) {
+                    channel.setError("依赖的派生通道不可用: " + dependency);
+                }
+            }
+        }
+        visited.put(name, true);
+        usable = usable && channel.getError() == null;
+        if (usable) {
+            order.add(name);
+        }
+        return usable;
+    }
+
+    private static int resolve(String name, Map<String, Integer> derivedSlots, Set<String> dependencies) {
+        RealTimeDataChannel channel = RealTimeDataChannel.fromFieldName(name);
+        if (channel != null) {
+            return channel.ordinal();
+        }
+        Integer slot = derivedSlots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("未知的通道: " + name);
+        }
+        if (dependencies != null) {
+            dependencies.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * 一次编译的不可变结果，names/slots/expressions按求值顺序排列
+     */
+    private static final class Compiled {
+
+        final Map<String, String> definitions;
+
+        final List<DerivedChannel> channels;
+
+        final String[] names;
+
+        final int[] slots;
+
+        final DoubleExpression[] expressions;
+
+        /**
+         * 求值所需的槽位数，原始通道加全部派生通道定义
+         */
+        final int slotCount;
+
+        Compiled(Map<String, String> definitions, List<DerivedChannel> channels, String[] names, int[] slots,
+                 DoubleExpression[] expressions, int slotCount) {
+            this.definitions = definitions;
+            this.channels = channels;
+            this.names = names;
+            this.slots = slots;
+            this.expressions = expressions;
+            this.slotCount = slotCount;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.windtunnel.derived;
+
+/**
+ * 编译后的表达式节点，按槽位读取输入，求值过程不分配对象
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@FunctionalInterface
+public interface DoubleExpression {
+
+    /**
+     * 求值
+     *
+     * @param slots 输入槽位，缺失值为NaN
+     * @return 计算结果
+     */
+    double evaluate(double[] slots);
+}
@@ -0,0 +1,327 @@
+package com.windtunnel.derived;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToIntFunction;
+
+/**
+ * 派生通道表达式编译器
+ *
+ * 递归下降解析算术表达式，直接生成以槽位下标访问输入的闭包树，常量子表达式在编译期折叠。
+ * 支持 + - * / ^（右结合）、一元负号、括号、常量 pi/e，以及函数
+ * sqrt abs exp ln log10 sin cos tan atan min max pow
+ *
+ * 例如动压：0.5 * pressure / (287.05 * (temperature + 273.15)) * windSpeed ^ 2
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class ExpressionCompiler {
+
+    private final String text;
+
+    private final ToIntFunction<String> resolver;
+
+    private int position;
+
+    private ExpressionCompiler(String text, ToIntFunction<String> resolver) {
+        this.text = text;
+        this.resolver = resolver;
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 表达式文本
+     * @param resolver 变量名到槽位下标的解析器，未知变量应抛出IllegalArgumentException
+     * @return 编译结果
+     * @throws IllegalArgumentException 表达式语法错误或引用未知变量
+     */
+    public static DoubleExpression compile(String expression, ToIntFunction<String> resolver) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("表达式不能为空");
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler(expression, resolver);
+        Node node = compiler.parseExpression();
+        compiler.skipWhitespace();
+        if (compiler.position < expression.length()) {
+            throw compiler.error("无法识别的字符 '" + expression.charAt(compiler.position) + "'");
+        }
+        return node.expression;
+    }
+
+    private Node parseExpression() {
+        Node left = parseTerm();
+        while (true) {
+            if (accept('+')) {
+                left = binary(left, parseTerm(), '+');
+            } else if (accept('-')) {
+                left = binary(left, parseTerm(), '-');
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseTerm() {
+        Node left = parseUnary();
+        while (true) {
+            if (accept('*')) {
+                left = binary(left, parseUnary(), '*');
+            } else if (accept('/')) {
+                left = binary(left, parseUnary(), '/');
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseUnary() {
+        if (accept('-')) {
+            Node operand = parseUnary();
+            if (operand.constant) {
+                return Node.constant(-operand.value);
+            }
+            DoubleExpression e = operand.expression;
+            return new Node(slots -> -e.evaluate(slots));
+        }
+        if (accept('+')) {
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    private Node parsePower() {
+        Node base = parsePrimary();
+        if (accept('^')) {
+            return binary(base, parseUnary(), '^');
+        }
+        return base;
+    }
+
+    private Node parsePrimary() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("表达式不完整");
+        }
+        char c = text.charAt(position);
+        if (accept('(')) {
+            Node inner = parseExpression();
+            expect(')');
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return Node.constant(parseNumber());
+        }
+        if (Character.isLetter(c) || c == '_') {
+            String name = parseIdentifier();
+            if (accept('(')) {
+                return function(name, parseArguments());
+            }
+            if ("pi".equals(name)) {
+                return Node.constant(Math.PI);
+            }
+            if ("e".equals(name)) {
+                return Node.constant(Math.E);
+            }
+            int slot = resolver.applyAsInt(name);
+            return new Node(slots -> slots[slot]);
+        }
+        throw error("无法识别的字符 '" + c + "'");
+    }
+
+    private List<Node> parseArguments() {
+        List<Node> arguments = new ArrayList<>();
+        if (accept(')')) {
+            return arguments;
+        }
+        do {
+            arguments.add(parseExpression());
+        } while (accept(','));
+        expect(')');
+        return arguments;
+    }
+
+    private Node function(String name, List<Node> arguments) {
+        switch (name) {
+            case "sqrt":
+                return unary(arguments, name, Math::sqrt);
+            case "abs":
+                return unary(arguments, name, Math::abs);
+            case "exp":
+                return unary(arguments, name, Math::exp);
+            case "ln":
+                return unary(arguments, name, Math::log);
+            case "log10":
+                return unary(arguments, name, Math::log10);
+            case "sin":
+                return unary(arguments, name, Math::sin);
+            case "cos":
+                return unary(arguments, name, Math::cos);
+            case "tan":
+                return unary(arguments, name, Math::tan);
+            case "atan":
+                return unary(arguments, name, Math::atan);
+            case "min":
+                return binary(arity(arguments, name, 2).get(0), arguments.get(1), 'm');
+            case "max":
+                return binary(arity(arguments, name, 2).get(0), arguments.get(1), 'M');
+            case "pow":
+                return binary(arity(arguments, name, 2).get(0), arguments.get(1), '^');
+            default:
+                throw error("未知的函数: " + name);
+        }
+    }
+
+    private Node unary(List<Node> arguments, String name, DoubleUnaryOperator operator) {
+        Node operand = arity(arguments, name, 1).get(0);
+        if (operand.constant) {
+            return Node.constant(operator.applyAsDouble(operand.value));
+        }
+        DoubleExpression e = operand.expression;
+        return new Node(slots -> operator.applyAsDouble(e.evaluate(slots)));
+    }
+
+    private Node binary(Node left, Node right, char operator) {
+        if (left.constant && right.constant) {
+            return Node.constant(apply(operator, left.value, right.value));
+        }
+        DoubleExpression a = left.expression;
+        DoubleExpression b = right.expression;
+        // 按运算符生成专用闭包，避免求值时再分派
+        switch (operator) {
+            case '+':
+                return new Node(slots -> a.evaluate(slots) + b.evaluate(slots));
+            case '-':
+                return new Node(slots -> a.evaluate(slots) - b.evaluate(slots));
+            case '*':
+                return new Node(slots -> a.evaluate(slots) * b.evaluate(slots));
+            case '/':
+                return new Node(slots -> a.evaluate(slots) / b.evaluate(slots));
+            case 'm':
+                return new Node(slots -> Math.min(a.evaluate(slots), b.evaluate(slots)));
+            case 'M':
+                return new Node(slots -> Math.max(a.evaluate(slots), b.evaluate(slots)));
+            default:
+                if (right.constant && right.value == 2) {
+                    return new Node(slots -> {
+                        double x = a.evaluate(slots);
+                        return x * x;
+                    });
+                }
+                return new Node(slots -> Math.pow(a.evaluate(slots), b.evaluate(slots)));
+        }
+    }
+
+    private static double apply(char operator, double a, double b) {
+        switch (operator) {
+            case '+':
+                return a + b;
+            case '-':
+                return a - b;
+            case '*':
+                return a * b;
+            case '/':
+                return a / b;
+            case 'm':
+                return Math.min(a, b);
+            case 'M':
+                return Math.max(a, b);
+            default:
+                return Math.pow(a, b);
+        }
+    }
+
+    private List<Node> arity(List<Node> arguments, String name, int expected) {
+        if (arguments.size() != expected) {
+            throw error("函数 " + name + " 需要 " + expected + " 个参数");
+        }
+        return arguments;
+    }
+
+    private double parseNumber() {
+        int start = position;
+        while (position < text.length()
+                && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            int exponent = position + 1;
+            if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < text.length() && Character.isDigit(text.charAt(exponent))) {
+                position = exponent;
+                while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                    position++;
+                }
+            }
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("无效的数字: " + text.substring(start, position));
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = position;
+        while (position < text.length()
+                && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+            position++;
+        }
+        return text.substring(start, position);
+    }
+
+    private boolean accept(char expected) {
+        skipWhitespace();
+        if (position < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!accept(expected)) {
+            throw error("缺少 '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + "（位置 " + position + "）：" + text);
+    }
+
+    private static final class Node {
+
+        final DoubleExpression expression;
+
+        final boolean constant;
+
+        final double value;
+
+        Node(DoubleExpression expression) {
+            this.expression = expression;
+            this.constant = false;
+            this.value = Double.NaN;
+        }
+
+        private Node(double value) {
+            this.expression = slots -> value;
+            this.constant = true;
+            this.value = value;
+        }
+
+        static Node constant(double value) {
+            return new Node(value);
+        }
+    }
+}
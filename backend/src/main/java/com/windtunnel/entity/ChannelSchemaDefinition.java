@@ -0,0 +1,50 @@
+package com.windtunnel.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 宽通道模式定义实体类
+ *
+ * 保存数据来源每个版本的通道列表，宽通道帧按 数据来源 + 模式ID 引用，历史数据依赖该定义解码，定义写入后不再修改
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@Document(collection = "channel_schema")
+@CompoundIndex(name = "source_schema", def = "{'source': 1, 'schemaId': 1}", unique = true)
+public class ChannelSchemaDefinition {
+
+    /**
+     * 主键ID（数据来源:模式ID）
+     */
+    @Id
+    private String id;
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 模式ID，同一数据来源内递增
+     */
+    private Integer schemaId;
+
+    /**
+     * 通道名称列表，下标即通道序号
+     */
+    private List<String> channels;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,74 @@
+package com.windtunnel.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通道分位数草图汇总实体类
+ *
+ * 每个数据来源、通道和时间桶保存一个可合并的分位数草图，任意时间范围的分位数由各时间桶的草图合并得到
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@Document(collection = "channel_sketch_rollup")
+@CompoundIndex(name = "source_channel_bucket", def = "{'source': 1, 'channel': 1, 'bucketStart': 1}", unique = true)
+public class ChannelSketchRollup {
+
+    /**
+     * 主键ID（数据来源:通道:时间桶起始毫秒）
+     */
+    @Id
+    private String id;
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 通道名称
+     */
+    private String channel;
+
+    /**
+     * 时间桶起始时间
+     */
+    private LocalDateTime bucketStart;
+
+    /**
+     * 时间桶长度（毫秒）
+     */
+    private Long bucketMillis;
+
+    /**
+     * 样本数
+     */
+    private Long count;
+
+    /**
+     * 最小值
+     */
+    private Double minValue;
+
+    /**
+     * 最大值
+     */
+    private Double maxValue;
+
+    /**
+     * 序列化的分位数草图
+     */
+    private byte[] sketch;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
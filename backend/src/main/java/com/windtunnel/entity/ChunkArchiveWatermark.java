@@ -0,0 +1,43 @@
+package com.windtunnel.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 压缩块归档水位实体类
+ *
+ * 每个数据来源一条，在该来源的压缩块全部写入后提交。数据时间早于 archivedBefore 且创建时间不晚于
+ * createdUntil 的实时数据都已写入压缩块，可以从热数据中删除；createdUntil 晚于水位的压缩块来自未完成的归档
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@Document(collection = "real_time_data_chunk_watermark")
+public class ChunkArchiveWatermark {
+
+    /**
+     * 主键ID（数据来源）
+     */
+    @Id
+    private String source;
+
+    /**
+     * 已归档数据的数据时间上界（不含）
+     */
+    private LocalDateTime archivedBefore;
+
+    /**
+     * 已归档数据的创建时间上界（含）
+     */
+    private LocalDateTime createdUntil;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
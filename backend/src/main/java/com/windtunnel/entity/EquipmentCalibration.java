@@ -0,0 +1,76 @@
+package com.windtunnel.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备校准曲线实体类
+ * 
+ * 按设备和通道保存带版本的校准曲线，每次校准新增一个版本，
+ * 采集时间不早于生效时间的数据使用该版本校准
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("wt_equipment_calibration")
+public class EquipmentCalibration extends BaseEntity {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 设备ID
+     */
+    private Long equipmentId;
+
+    /**
+     * 通道字段名（如 windSpeed、pressure）
+     */
+    private String channel;
+
+    /**
+     * 版本号，同一设备通道内递增
+     */
+    private Integer version;
+
+    /**
+     * 曲线类型：1-多项式，2-查找表
+     */
+    private Integer curveType;
+
+    /**
+     * 多项式系数，逗号分隔，依次为常数项、一次项、二次项……
+     */
+    private String coefficients;
+
+    /**
+     * 查找表，逗号分隔的 原始值:校准值 对，按原始值升序，表内线性插值、表外按端点线段外推
+     */
+    private String lookupTable;
+
+    /**
+     * 生效时间
+     */
+    private LocalDateTime effectiveTime;
+
+    /**
+     * 是否启用：0-禁用，1-启用
+     */
+    private Integer enabled;
+
+    /**
+     * 备注
+     */
+    private String remark;
+}
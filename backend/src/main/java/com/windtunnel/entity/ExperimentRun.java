@@ -0,0 +1,188 @@
+package com.windtunnel.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 试验运行实体类
+ *
+ * 一次试验运行是一个数据来源上连续的有效采集区间，由实时数据流（激活通道超过阈值）或试验排期状态变化识别。
+ * 运行记录关联试验项目和排期，保存预先计算的通道统计摘要和数据所在存储块的指针，
+ * 加载运行数据时按指针直接定位，无需猜测时间范围。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@Document(collection = "experiment_run")
+@CompoundIndexes({
+        @CompoundIndex(name = "source_start", def = "{'source': 1, 'startTime': 1}"),
+        @CompoundIndex(name = "schedule_start", def = "{'experimentScheduleId': 1, 'startTime': 1}"),
+        @CompoundIndex(name = "project_start", def = "{'experimentProjectId': 1, 'startTime': 1}")
+})
+public class ExperimentRun {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    private String id;
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 设备ID
+     */
+    private Long equipmentId;
+
+    /**
+     * 试验项目ID
+     */
+    private Long experimentProjectId;
+
+    /**
+     * 试验排期ID
+     */
+    private Long experimentScheduleId;
+
+    /**
+     * 触发方式（STREAM-数据流识别，SCHEDULE-排期开始）
+     */
+    private String trigger;
+
+    /**
+     * 运行状态（0-进行中，1-已结束）
+     */
+    private Integer status;
+
+    /**
+     * 结束原因（STREAM-激活通道回落，SCHEDULE-排期结束，SILENT-数据中断，RESTART-服务重启）
+     */
+    private String stopReason;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间（进行中时为最近一次样本时间）
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 样本数
+     */
+    private Long sampleCount;
+
+    /**
+     * 各通道统计摘要，键为通道名称
+     */
+    private Map<String, ChannelSummary> channels = new LinkedHashMap<>();
+
+    /**
+     * 数据所在存储块的指针
+     */
+    private List<BlockPointer> blocks = new ArrayList<>();
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+
+    /**
+     * 通道统计摘要
+     */
+    @Data
+    public static class ChannelSummary {
+
+        /**
+         * 样本数
+         */
+        private Long count;
+
+        /**
+         * 最小值
+         */
+        private Double min;
+
+        /**
+         * 最大值
+         */
+        private Double max;
+
+        /**
+         * 平均值
+         */
+        private Double mean;
+
+        /**
+         * 标准差
+         */
+        private Double std;
+
+        /**
+         * 首个取值
+         */
+        private Double first;
+
+        /**
+         * 最后一个取值
+         */
+        private Double last;
+    }
+
+    /**
+     * 存储块指针
+     */
+    @Data
+    public static class BlockPointer {
+
+        public static final String TIER_CHUNK = "chunk";
+
+        public static final String TIER_COLUMNAR = "columnar";
+
+        /**
+         * 存储层（chunk-Gorilla压缩块，columnar-列式归档分区文件）
+         */
+        private String tier;
+
+        /**
+         * 通道名称，列式分区包含全部通道时为空
+         */
+        private String channel;
+
+        /**
+         * 块标识（压缩块ID或分区文件名）
+         */
+        private String ref;
+
+        /**
+         * 块内起始时间
+         */
+        private LocalDateTime startTime;
+
+        /**
+         * 块内结束时间
+         */
+        private LocalDateTime endTime;
+    }
+}
@@ -2,6 +2,7 @@ package com.windtunnel.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -41,16 +42,31 @@ public class RealTimeData {
     private Long equipmentId;
 
     /**
-     * 数据时间戳
+     * 数据时间戳，携带设备时间时为按时钟偏差校正后的采集时间，否则为接收时间
      */
     @Indexed
     private LocalDateTime dataTime;
 
+    /**
+     * 设备上报的原始采集时间（设备时钟），为空表示设备未上报时间戳
+     */
+    private LocalDateTime deviceTime;
+
     /**
      * 数据内容（JSON格式存储具体参数值）
      */
     private Map<String, Object> dataContent;
 
+    /**
+     * 宽通道模式ID，对应数据来源的通道模式版本，为空表示不含宽通道数据
+     */
+    private Integer schemaId;
+
+    /**
+     * 宽通道取值，按通道模式中的通道序号排列，NaN表示缺失（以二进制形式存储）
+     */
+    private double[] channelValues;
+
     /**
      * 风速值
      */
@@ -119,6 +135,13 @@ public class RealTimeData {
      */
     private String anomalyDescription;
 
+    /**
+     * 接入时各异常检测策略的结论，键为策略名称，值为异常描述，未检测到异常时值为null；
+     * 为空表示未经过异常检测。只在进程内随数据传递给告警等下游，不入库
+     */
+    @Transient
+    private Map<String, String> anomalyVerdicts;
+
     /**
      * 创建时间
      */
@@ -128,8 +151,9 @@ public class RealTimeData {
      * 构造函数
      */
     public RealTimeData() {
-        this.createTime = LocalDateTime.now();
-        this.dataTime = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now();
+        this.createTime = now;
+        this.dataTime = now;
     }
 
 }
\ No newline at end of file
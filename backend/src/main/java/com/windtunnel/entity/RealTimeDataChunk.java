@@ -0,0 +1,97 @@
+package com.windtunnel.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 实时数据压缩块实体类
+ *
+ * 按数据来源、设备和通道将历史实时数据压缩为Gorilla编码块，用于冷数据长期在线存储
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@Document(collection = "real_time_data_chunk")
+@CompoundIndex(name = "source_channel_time", def = "{'source': 1, 'channel': 1, 'startTime': 1}")
+public class RealTimeDataChunk {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    private String id;
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 设备ID
+     */
+    private Long equipmentId;
+
+    /**
+     * 通道名称（windSpeed、temperature等）
+     */
+    private String channel;
+
+    /**
+     * 块内第一个采样点时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 块内最后一个采样点时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 采样点数量
+     */
+    private Integer pointCount;
+
+    /**
+     * 块内最小值
+     */
+    private Double minValue;
+
+    /**
+     * 块内最大值
+     */
+    private Double maxValue;
+
+    /**
+     * 编码格式（GORILLA_V1）
+     */
+    private String encoding;
+
+    /**
+     * 压缩后的二进制数据
+     */
+    private byte[] payload;
+
+    /**
+     * 归档快照时间，块内数据的创建时间均不晚于该时间；旧版本生成的块为空
+     */
+    private LocalDateTime createdUntil;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 构造函数
+     */
+    public RealTimeDataChunk() {
+        this.createTime = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.windtunnel.event;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 异步事件总线
+ *
+ * 按类型化主题发布事件。订阅者列表为写时复制，发布时无需加锁；每个订阅者拥有独立的有界队列和投递线程，
+ * 事件按批投递，发布方只做非阻塞入队，不受订阅者处理速度影响
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class EventBus {
+
+    @Value("${wind-tunnel.event-bus.capacity:8192}")
+    private int defaultCapacity;
+
+    @Value("${wind-tunnel.event-bus.batch-size:100}")
+    private int defaultBatchSize;
+
+    private final Map<EventTopic<?>, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * 使用默认队列容量和批次大小订阅主题
+     *
+     * @param topic 主题
+     * @param name 订阅者名称
+     * @param subscriber 订阅者
+     * @return 订阅
+     */
+    public <T> Subscription<T> subscribe(EventTopic<T> topic, String name, EventSubscriber<T> subscriber) {
+        return subscribe(topic, name, defaultCapacity, defaultBatchSize, subscriber);
+    }
+
+    /**
+     * 订阅主题
+     *
+     * @param topic 主题
+     * @param name 订阅者名称
+     * @param capacity 订阅队列容量
+     * @param batchSize 单批最大事件数
+     * @param subscriber 订阅者
+     * @return 订阅
+     */
+    public <T> Subscription<T> subscribe(EventTopic<T> topic, String name, int capacity, int batchSize,
+                                         EventSubscriber<T> subscriber) {
+        Subscription<T> subscription = new Subscription<>(topic, name, capacity, batchSize, subscriber);
+        subscriptions.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(subscription);
+        log.info("事件订阅已注册，主题: {}, 订阅者: {}", topic, name);
+        return subscription;
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param subscription 订阅
+     */
+    public void unsubscribe(Subscription<?> subscription) {
+        List<Subscription<?>> topicSubscriptions = subscriptions.get(subscription.getTopic());
+        if (topicSubscriptions != null && topicSubscriptions.remove(subscription)) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * 发布事件，不阻塞调用线程
+     *
+     * @param topic 主题
+     * @param event 事件
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void publish(EventTopic<T> topic, T event) {
+        List<Subscription<?>> topicSubscriptions = subscriptions.get(topic);
+        if (topicSubscriptions == null) {
+            return;
+        }
+        for (Subscription<?> subscription : topicSubscriptions) {
+            if (!((Subscription<T>) subscription).offer(event)) {
+                log.debug("订阅队列已满，事件被丢弃，主题: {}, 订阅者: {}", topic, subscription.getName());
+            }
+        }
+    }
+
+    /**
+     * 所有订阅的状态指标
+     *
+     * @return 指标列表
+     */
+    public List<Map<String, Object>> getMetrics() {
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        for (List<Subscription<?>> topicSubscriptions : subscriptions.values()) {
+            for (Subscription<?> subscription : topicSubscriptions) {
+                metrics.add(subscription.getMetrics());
+            }
+        }
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (List<Subscription<?>> topicSubscriptions : subscriptions.values()) {
+            topicSubscriptions.forEach(Subscription::close);
+        }
+        subscriptions.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package com.windtunnel.event;
+
+import java.util.List;
+
+/**
+ * 事件订阅者
+ *
+ * 事件按批投递，同一订阅者的回调始终在其专属线程上串行执行
+ *
+ * @param <T> 事件类型
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@FunctionalInterface
+public interface EventSubscriber<T> {
+
+    /**
+     * 处理一批事件
+     *
+     * @param events 事件列表，按发布顺序排列
+     */
+    void onEvents(List<T> events);
+}
@@ -0,0 +1,66 @@
+package com.windtunnel.event;
+
+import java.util.Objects;
+
+/**
+ * 事件主题
+ *
+ * 主题由名称和事件类型组成，发布和订阅在编译期按事件类型校验
+ *
+ * @param <T> 事件类型
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class EventTopic<T> {
+
+    private final String name;
+
+    private final Class<T> eventType;
+
+    private EventTopic(String name, Class<T> eventType) {
+        this.name = name;
+        this.eventType = eventType;
+    }
+
+    /**
+     * 创建主题
+     *
+     * @param name 主题名称
+     * @param eventType 事件类型
+     * @return 主题
+     */
+    public static <T> EventTopic<T> of(String name, Class<T> eventType) {
+        return new EventTopic<>(name, eventType);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EventTopic)) {
+            return false;
+        }
+        EventTopic<?> other = (EventTopic<?>) o;
+        return name.equals(other.name) && eventType.equals(other.eventType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, eventType);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,39 @@
+package com.windtunnel.event;
+
+import com.windtunnel.cep.CepMatch;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.quality.DataQualitySnapshot;
+import com.windtunnel.spectrum.SpectrumFeatures;
+
+/**
+ * 事件主题定义
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class EventTopics {
+
+    /**
+     * 实时数据已处理（已完成异常检测并写入）
+     */
+    public static final EventTopic<RealTimeData> REAL_TIME_DATA = EventTopic.of("real-time-data", RealTimeData.class);
+
+    /**
+     * CEP模式匹配
+     */
+    public static final EventTopic<CepMatch> CEP_MATCH = EventTopic.of("cep-match", CepMatch.class);
+
+    /**
+     * 振动通道频谱特征
+     */
+    public static final EventTopic<SpectrumFeatures> SPECTRUM_FEATURES = EventTopic.of("spectrum-features", SpectrumFeatures.class);
+
+    /**
+     * 数据来源的周期性数据质量快照
+     */
+    public static final EventTopic<DataQualitySnapshot> DATA_QUALITY = EventTopic.of("data-quality", DataQualitySnapshot.class);
+
+    private EventTopics() {
+    }
+}
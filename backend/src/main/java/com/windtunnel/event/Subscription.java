@@ -0,0 +1,199 @@
+package com.windtunnel.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 事件订阅
+ *
+ * 每个订阅拥有独立的有界队列和投递线程，发布方只做非阻塞入队，队列满时丢弃事件并计数，
+ * 慢订阅者只会积压自己的队列，不会拖慢发布方和其他订阅者
+ *
+ * @param <T> 事件类型
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+public class Subscription<T> {
+
+    private final EventTopic<T> topic;
+
+    private final String name;
+
+    private final EventSubscriber<T> subscriber;
+
+    private final BlockingQueue<Envelope<T>> queue;
+
+    private final int batchSize;
+
+    private final Thread worker;
+
+    private volatile boolean active = true;
+
+    private volatile Consumer<T> dropListener;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong failedBatchCount = new AtomicLong();
+
+    private volatile long lastLagNanos;
+
+    private volatile long maxLagNanos;
+
+    Subscription(EventTopic<T> topic, String name, int capacity, int batchSize, EventSubscriber<T> subscriber) {
+        this.topic = topic;
+        this.name = name;
+        this.subscriber = subscriber;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.worker = new Thread(this::deliverLoop, "event-bus-" + topic.getName() + "-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 非阻塞入队
+     *
+     * @return 队列已满时返回false
+     */
+    boolean offer(T event) {
+        publishedCount.incrementAndGet();
+        if (queue.offer(new Envelope<>(event, System.nanoTime()))) {
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        Consumer<T> listener = dropListener;
+        if (listener != null) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.error("事件丢弃回调失败，主题: {}, 订阅者: {}, 错误: {}", topic, name, e.getMessage(), e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 设置事件丢弃回调，队列满时在发布线程上以被丢弃的事件调用，回调应尽快返回
+     *
+     * @param dropListener 丢弃回调
+     */
+    public void setDropListener(Consumer<T> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * 停止投递，队列中剩余的事件在停止前投递完成
+     */
+    void close() {
+        active = false;
+        worker.interrupt();
+    }
+
+    public EventTopic<T> getTopic() {
+        return topic;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 队列已满被丢弃的事件数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 订阅状态指标
+     *
+     * @return 指标数据，lag为队列积压数量，lagMillis为最近一批最早事件从发布到投递的延迟
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("topic", topic.getName());
+        metrics.put("subscriber", name);
+        metrics.put("published", publishedCount.get());
+        metrics.put("delivered", deliveredCount.get());
+        metrics.put("dropped", droppedCount.get());
+        metrics.put("failedBatches", failedBatchCount.get());
+        metrics.put("lag", queue.size());
+        metrics.put("capacity", queue.size() + queue.remainingCapacity());
+        metrics.put("lagMillis", TimeUnit.NANOSECONDS.toMillis(lastLagNanos));
+        metrics.put("maxLagMillis", TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        return metrics;
+    }
+
+    private void deliverLoop() {
+        List<Envelope<T>> batch = new ArrayList<>(batchSize);
+        List<T> events = new ArrayList<>(batchSize);
+        while (active || !queue.isEmpty()) {
+            try {
+                Envelope<T> first = active ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch, events);
+            } catch (InterruptedException e) {
+                if (active) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                batch.clear();
+                events.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Envelope<T>> batch, List<T> events) {
+        long lag = System.nanoTime() - batch.get(0).publishNanos;
+        lastLagNanos = lag;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+        for (Envelope<T> envelope : batch) {
+            events.add(envelope.event);
+        }
+        try {
+            subscriber.onEvents(events);
+            deliveredCount.addAndGet(events.size());
+        } catch (Exception e) {
+            failedBatchCount.incrementAndGet();
+            log.error("事件订阅者处理失败，主题: {}, 订阅者: {}, 批次大小: {}, 错误: {}",
+                    topic, name, events.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 事件信封，记录发布时间用于计算延迟
+     */
+    private static final class Envelope<T> {
+
+        private final T event;
+
+        private final long publishNanos;
+
+        Envelope(T event, long publishNanos) {
+            this.event = event;
+            this.publishNanos = publishNanos;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.windtunnel.factory;
 
+import com.windtunnel.entity.RealTimeData;
 import com.windtunnel.strategy.AnomalyDetectionStrategy;
 import com.windtunnel.strategy.impl.*;
+import com.windtunnel.timeseries.RealTimeDataChannel;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 异常检测策略工厂
@@ -12,21 +17,65 @@ import java.util.List;
  */
 public class AnomalyDetectionStrategyFactory {
     
-    private static final List<AnomalyDetectionStrategy> strategies = new ArrayList<>();
+    private static final List<AnomalyDetectionStrategy> strategies = new CopyOnWriteArrayList<>();
     
     static {
         // 注册所有异常检测策略
         strategies.add(new WindSpeedAnomalyDetectionStrategy());
         strategies.add(new TemperatureAnomalyDetectionStrategy());
         strategies.add(new PressureAnomalyDetectionStrategy());
+        // 自适应统计检测策略，按 (数据来源, 通道) 维护O(1)状态
+        RealTimeDataChannel[] channels = RealTimeDataChannel.values();
+        strategies.add(new EwmaAnomalyDetectionStrategy(0.05, 5, 50, channels));
+        strategies.add(new ZScoreAnomalyDetectionStrategy(500, 5, 50, channels));
+        strategies.add(new CusumAnomalyDetectionStrategy(0.002, 0.5, 10, 200, channels));
+        strategies.add(new RateOfChangeAnomalyDetectionStrategy(0.05, 10, 50, channels));
     }
     
     /**
      * 获取所有异常检测策略
-     * @return 所有策略列表
+     * @return 所有策略列表（只读，遍历时为注册时刻的快照，不在每个样本上复制列表）
      */
     public static List<AnomalyDetectionStrategy> getAllStrategies() {
-        return new ArrayList<>(strategies);
+        return Collections.unmodifiableList(strategies);
+    }
+    
+    /**
+     * 对一条数据执行所有异常检测策略，每条数据只应在接入时检测一次
+     * 
+     * 各策略的结论写入 anomalyVerdicts 供告警等下游直接读取；存在异常时设置异常状态和汇总描述
+     * @param realTimeData 实时数据
+     * @return 是否检测到异常
+     */
+    public static boolean detect(RealTimeData realTimeData) {
+        Map<String, String> verdicts = new LinkedHashMap<>();
+        StringBuilder anomalyDescription = new StringBuilder();
+        for (AnomalyDetectionStrategy strategy : strategies) {
+            String description = strategy.evaluate(realTimeData);
+            verdicts.put(strategy.getStrategyName(), description);
+            if (description != null) {
+                anomalyDescription.append(description).append(";");
+            }
+        }
+        realTimeData.setAnomalyVerdicts(verdicts);
+        if (anomalyDescription.length() == 0) {
+            return false;
+        }
+        realTimeData.setStatus(1); // 设置为异常状态
+        realTimeData.setAnomalyDescription(anomalyDescription.toString());
+        return true;
+    }
+    
+    /**
+     * 注册异常检测策略，同名策略被替换
+     * @param strategy 异常检测策略
+     */
+    public static synchronized void registerStrategy(AnomalyDetectionStrategy strategy) {
+        AnomalyDetectionStrategy existing = getStrategyByName(strategy.getStrategyName());
+        if (existing != null) {
+            strategies.remove(existing);
+        }
+        strategies.add(strategy);
     }
     
     /**
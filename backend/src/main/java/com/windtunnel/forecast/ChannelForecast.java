@@ -0,0 +1,157 @@
+package com.windtunnel.forecast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个数据来源单个通道的在线预测状态
+ *
+ * 同时维护线性回归、EWMA和Holt(-Winters)模型，由采集线程更新、查询线程读取，方法级同步
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ChannelForecast {
+
+    private final List<OnlineForecaster> models;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private double lastValue = Double.NaN;
+
+    private long sampleCount;
+
+    ChannelForecast(List<OnlineForecaster> models) {
+        this.models = models;
+    }
+
+    /**
+     * 更新所有模型，时间不晚于上一采样点的数据忽略
+     *
+     * @return 是否已更新
+     */
+    synchronized boolean update(long timestamp, double value) {
+        if (Double.isNaN(value) || timestamp <= lastTimestamp) {
+            return false;
+        }
+        for (OnlineForecaster model : models) {
+            model.update(timestamp, value);
+        }
+        lastTimestamp = timestamp;
+        lastValue = value;
+        sampleCount++;
+        return true;
+    }
+
+    /**
+     * 写出全部模型的状态
+     */
+    synchronized void writeState(DataOutput out) throws IOException {
+        out.writeLong(lastTimestamp);
+        out.writeDouble(lastValue);
+        out.writeLong(sampleCount);
+        out.writeInt(models.size());
+        for (OnlineForecaster model : models) {
+            out.writeUTF(model.getName());
+            model.writeState(out);
+        }
+    }
+
+    /**
+     * 恢复模型状态，模型组合与快照不一致时抛出异常，调用方应丢弃该通道状态
+     *
+     * @throws IOException 读取失败
+     */
+    synchronized void readState(DataInput in) throws IOException {
+        long timestamp = in.readLong();
+        double value = in.readDouble();
+        long count = in.readLong();
+        int size = in.readInt();
+        if (size != models.size()) {
+            throw new IOException("预测模型数量与快照不一致: " + size);
+        }
+        for (OnlineForecaster model : models) {
+            String name = in.readUTF();
+            if (!model.getName().equals(name)) {
+                // 模型状态的序列化长度由模型自身决定，不一致时无法继续解析
+                throw new IOException("预测模型与快照不一致: " + name);
+            }
+            model.readState(in);
+        }
+        lastTimestamp = timestamp;
+        lastValue = value;
+        sampleCount = count;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public synchronized double getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * 主模型（第一个带趋势的模型）的每秒变化量
+     */
+    public synchronized double slopePerSecond() {
+        return models.get(0).slopePerSecond();
+    }
+
+    /**
+     * 主模型的当前估计值
+     */
+    public synchronized double level() {
+        return models.get(0).level();
+    }
+
+    /**
+     * 各模型的预测值
+     *
+     * @param horizonMillis 预测时长（毫秒）
+     * @return 模型名称 -> 预测值
+     */
+    public synchronized Map<String, Double> forecast(long horizonMillis) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (OnlineForecaster model : models) {
+            result.put(model.getName(), model.forecast(horizonMillis));
+        }
+        return result;
+    }
+
+    /**
+     * 各模型的当前趋势
+     *
+     * @return 模型名称 -> 每秒变化量
+     */
+    public synchronized Map<String, Double> slopes() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (OnlineForecaster model : models) {
+            result.put(model.getName(), model.slopePerSecond());
+        }
+        return result;
+    }
+
+    /**
+     * 各模型到达阈值的时间
+     *
+     * @param threshold 阈值
+     * @return 模型名称 -> 毫秒数（-1表示不会到达）
+     */
+    public synchronized Map<String, Long> etaToThreshold(double threshold) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (OnlineForecaster model : models) {
+            result.put(model.getName(), model.etaToThreshold(threshold));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.windtunnel.forecast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 指数加权移动平均
+ *
+ * 平滑当前水平并估计波动，预测值为平滑后的水平，不外推趋势
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class EwmaForecaster implements OnlineForecaster {
+
+    private final double alpha;
+
+    private double mean = Double.NaN;
+
+    private double variance;
+
+    /**
+     * @param alpha 平滑系数（0-1），越大越重视新样本
+     */
+    public EwmaForecaster(double alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "ewma";
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(mean);
+        out.writeDouble(variance);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        mean = in.readDouble();
+        variance = in.readDouble();
+    }
+
+    @Override
+    public void update(long timestamp, double value) {
+        if (Double.isNaN(mean)) {
+            mean = value;
+            return;
+        }
+        double diff = value - mean;
+        mean += alpha * diff;
+        variance = (1 - alpha) * (variance + alpha * diff * diff);
+    }
+
+    @Override
+    public double level() {
+        return mean;
+    }
+
+    @Override
+    public double slopePerSecond() {
+        return Double.isNaN(mean) ? Double.NaN : 0;
+    }
+
+    @Override
+    public double forecast(long horizonMillis) {
+        return mean;
+    }
+
+    /**
+     * 波动标准差
+     */
+    public double stdDev() {
+        return Math.sqrt(variance);
+    }
+}
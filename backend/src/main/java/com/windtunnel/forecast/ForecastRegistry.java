@@ -0,0 +1,207 @@
+package com.windtunnel.forecast;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.state.StreamingStateParticipant;
+import com.windtunnel.state.StreamingStateStore;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在线预测注册表
+ *
+ * 为每个数据来源的每个通道维护一组在线预测模型，订阅事件总线上的实时数据逐点增量更新，
+ * 查询时直接读取模型状态，无需回查数据库。模型状态参与流式状态快照，重启后从快照恢复。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class ForecastRegistry implements StreamingStateParticipant {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private StreamingStateStore streamingStateStore;
+
+    @Value("${wind-tunnel.forecast.regression-half-life:200}")
+    private double regressionHalfLife;
+
+    @Value("${wind-tunnel.forecast.ewma-alpha:0.1}")
+    private double ewmaAlpha;
+
+    @Value("${wind-tunnel.forecast.holt-alpha:0.3}")
+    private double holtAlpha;
+
+    @Value("${wind-tunnel.forecast.holt-beta:0.1}")
+    private double holtBeta;
+
+    @Value("${wind-tunnel.forecast.holt-gamma:0.1}")
+    private double holtGamma;
+
+    @Value("${wind-tunnel.forecast.season-length:0}")
+    private int seasonLength;
+
+    private final Map<String, ChannelForecast[]> forecasts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        // 先恢复状态并重放差距数据，再开始接收实时数据
+        streamingStateStore.restore(this);
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "forecast", events -> events.forEach(this::update));
+    }
+
+    /**
+     * 使用一条实时数据更新该数据来源所有通道的模型
+     *
+     * @param data 实时数据
+     */
+    public void update(RealTimeData data) {
+        if (data.getSource() == null) {
+            return;
+        }
+        long timestamp = data.getDataTime() != null
+                ? EpochTimes.toEpochMilli(data.getDataTime())
+                : System.currentTimeMillis();
+        ChannelForecast[] channels = forecasts.computeIfAbsent(data.getSource(), source -> newChannels());
+        for (RealTimeDataChannel channel : RealTimeDataChannel.values()) {
+            channels[channel.ordinal()].update(timestamp, channel.read(data));
+        }
+    }
+
+    /**
+     * 使用历史数据初始化尚无模型的数据来源
+     *
+     * @param source 数据来源
+     * @param history 按时间升序排列的历史数据
+     * @return 是否执行了初始化
+     */
+    public boolean seedIfAbsent(String source, List<RealTimeData> history) {
+        if (forecasts.containsKey(source)) {
+            return false;
+        }
+        history.forEach(this::update);
+        return true;
+    }
+
+    /**
+     * 获取通道的预测状态
+     *
+     * @param source 数据来源
+     * @param channel 通道
+     * @return 预测状态，无数据时返回null
+     */
+    public ChannelForecast get(String source, RealTimeDataChannel channel) {
+        ChannelForecast[] channels = forecasts.get(source);
+        if (channels == null || channels[channel.ordinal()].getSampleCount() == 0) {
+            return null;
+        }
+        return channels[channel.ordinal()];
+    }
+
+    @Override
+    public String getStateName() {
+        return "forecast";
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        Map<String, ChannelForecast[]> current = new HashMap<>(forecasts);
+        out.writeInt(current.size());
+        for (Map.Entry<String, ChannelForecast[]> entry : current.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (ChannelForecast forecast : entry.getValue()) {
+                // 每个通道带长度前缀，模型组合变化后可以跳过无法解析的通道
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                forecast.writeState(new DataOutputStream(bytes));
+                out.writeInt(bytes.size());
+                out.write(bytes.toByteArray());
+            }
+        }
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        int sources = in.readInt();
+        Map<String, ChannelForecast[]> restored = new HashMap<>();
+        for (int n = 0; n < sources; n++) {
+            String source = in.readUTF();
+            int count = in.readInt();
+            ChannelForecast[] channels = newChannels();
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                if (i >= channels.length) {
+                    continue;
+                }
+                try {
+                    channels[i].readState(new DataInputStream(new ByteArrayInputStream(bytes)));
+                } catch (IOException e) {
+                    channels[i] = newChannel();
+                }
+            }
+            restored.put(source, channels);
+        }
+        forecasts.putAll(restored);
+    }
+
+    /**
+     * 各数据来源所有通道中最早的最后采样时间，重放时更早的样本被通道自身忽略
+     */
+    @Override
+    public Map<String, Long> getWatermarks() {
+        Map<String, Long> watermarks = new HashMap<>();
+        forecasts.forEach((source, channels) -> {
+            long watermark = Long.MAX_VALUE;
+            for (ChannelForecast forecast : channels) {
+                if (forecast.getSampleCount() > 0) {
+                    watermark = Math.min(watermark, forecast.getLastTimestamp());
+                }
+            }
+            if (watermark != Long.MAX_VALUE) {
+                watermarks.put(source, watermark);
+            }
+        });
+        return watermarks;
+    }
+
+    @Override
+    public void replay(RealTimeData data) {
+        update(data);
+    }
+
+    private ChannelForecast[] newChannels() {
+        ChannelForecast[] channels = new ChannelForecast[RealTimeDataChannel.count()];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = newChannel();
+        }
+        return channels;
+    }
+
+    private ChannelForecast newChannel() {
+        return new ChannelForecast(List.of(
+                new LinearRegressionForecaster(regressionHalfLife),
+                new HoltWintersForecaster(holtAlpha, holtBeta, holtGamma, seasonLength),
+                new EwmaForecaster(ewmaAlpha)));
+    }
+}
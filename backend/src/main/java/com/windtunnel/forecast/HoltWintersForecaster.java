@@ -0,0 +1,133 @@
+package com.windtunnel.forecast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Holt-Winters指数平滑
+ *
+ * 平滑水平和趋势，季节长度大于0时叠加加法季节项（季节按样本序号计），否则退化为Holt线性趋势。
+ * 采样间隔不均匀时趋势按实际时间间隔归一化为每秒变化量
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class HoltWintersForecaster implements OnlineForecaster {
+
+    private final double alpha;
+
+    private final double beta;
+
+    private final double gamma;
+
+    private final double[] seasonal;
+
+    private double level = Double.NaN;
+
+    private double trend;
+
+    private long lastTimestamp;
+
+    private double meanIntervalSeconds;
+
+    private long count;
+
+    /**
+     * @param alpha 水平平滑系数
+     * @param beta 趋势平滑系数
+     * @param gamma 季节平滑系数
+     * @param seasonLength 季节长度（样本数），0表示不使用季节项
+     */
+    public HoltWintersForecaster(double alpha, double beta, double gamma, int seasonLength) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonal = new double[Math.max(0, seasonLength)];
+    }
+
+    @Override
+    public String getName() {
+        return seasonal.length > 0 ? "holt-winters" : "holt";
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(level);
+        out.writeDouble(trend);
+        out.writeLong(lastTimestamp);
+        out.writeDouble(meanIntervalSeconds);
+        out.writeLong(count);
+        out.writeInt(seasonal.length);
+        for (double value : seasonal) {
+            out.writeDouble(value);
+        }
+    }
+
+    /**
+     * 季节长度与快照不一致时季节项从零重新学习
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        level = in.readDouble();
+        trend = in.readDouble();
+        lastTimestamp = in.readLong();
+        meanIntervalSeconds = in.readDouble();
+        count = in.readLong();
+        int length = in.readInt();
+        for (int i = 0; i < length; i++) {
+            double value = in.readDouble();
+            if (length == seasonal.length) {
+                seasonal[i] = value;
+            }
+        }
+    }
+
+    @Override
+    public void update(long timestamp, double value) {
+        if (count == 0) {
+            level = value;
+            lastTimestamp = timestamp;
+            count++;
+            return;
+        }
+        double dt = Math.max(1, timestamp - lastTimestamp) / 1000.0;
+        meanIntervalSeconds = meanIntervalSeconds == 0 ? dt : 0.9 * meanIntervalSeconds + 0.1 * dt;
+
+        int season = seasonal.length > 0 ? (int) (count % seasonal.length) : -1;
+        double seasonalValue = season >= 0 ? seasonal[season] : 0;
+        double previousLevel = level;
+        level = alpha * (value - seasonalValue) + (1 - alpha) * (level + trend * dt);
+        trend = beta * (level - previousLevel) / dt + (1 - beta) * trend;
+        if (season >= 0) {
+            seasonal[season] = gamma * (value - level) + (1 - gamma) * seasonalValue;
+        }
+        lastTimestamp = timestamp;
+        count++;
+    }
+
+    @Override
+    public double level() {
+        return level;
+    }
+
+    @Override
+    public double slopePerSecond() {
+        return count < 2 ? Double.NaN : trend;
+    }
+
+    @Override
+    public double forecast(long horizonMillis) {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double horizonSeconds = horizonMillis / 1000.0;
+        double value = level + trend * horizonSeconds;
+        if (seasonal.length > 0 && meanIntervalSeconds > 0) {
+            long steps = Math.round(horizonSeconds / meanIntervalSeconds);
+            value += seasonal[(int) ((count - 1 + steps) % seasonal.length)];
+        }
+        return value;
+    }
+}
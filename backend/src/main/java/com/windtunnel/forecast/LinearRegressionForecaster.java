@@ -0,0 +1,133 @@
+package com.windtunnel.forecast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 指数遗忘的增量线性回归
+ *
+ * 维护加权累加量 Σw、Σw·t、Σw·v、Σw·t²、Σw·t·v，每个新样本先将旧权重乘以遗忘因子。
+ * 时间以秒为单位相对于原点，原点定期平移以避免大数相减造成的精度损失
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LinearRegressionForecaster implements OnlineForecaster {
+
+    private static final double RECENTER_SECONDS = 3600;
+
+    private final double lambda;
+
+    private long originMillis = Long.MIN_VALUE;
+
+    private double lastT;
+
+    private double sumW;
+
+    private double sumT;
+
+    private double sumV;
+
+    private double sumTT;
+
+    private double sumTV;
+
+    private long count;
+
+    /**
+     * @param halfLife 样本权重衰减一半所经过的样本数
+     */
+    public LinearRegressionForecaster(double halfLife) {
+        this.lambda = Math.pow(0.5, 1.0 / halfLife);
+    }
+
+    @Override
+    public String getName() {
+        return "linear";
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(originMillis);
+        out.writeDouble(lastT);
+        out.writeDouble(sumW);
+        out.writeDouble(sumT);
+        out.writeDouble(sumV);
+        out.writeDouble(sumTT);
+        out.writeDouble(sumTV);
+        out.writeLong(count);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        originMillis = in.readLong();
+        lastT = in.readDouble();
+        sumW = in.readDouble();
+        sumT = in.readDouble();
+        sumV = in.readDouble();
+        sumTT = in.readDouble();
+        sumTV = in.readDouble();
+        count = in.readLong();
+    }
+
+    @Override
+    public void update(long timestamp, double value) {
+        if (originMillis == Long.MIN_VALUE) {
+            originMillis = timestamp;
+        }
+        double t = (timestamp - originMillis) / 1000.0;
+        if (t > RECENTER_SECONDS) {
+            recenter(t);
+            t = 0;
+        }
+        sumW = lambda * sumW + 1;
+        sumT = lambda * sumT + t;
+        sumV = lambda * sumV + value;
+        sumTT = lambda * sumTT + t * t;
+        sumTV = lambda * sumTV + t * value;
+        lastT = t;
+        count++;
+    }
+
+    @Override
+    public double level() {
+        return count == 0 ? Double.NaN : valueAt(lastT);
+    }
+
+    @Override
+    public double slopePerSecond() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double denominator = sumW * sumTT - sumT * sumT;
+        if (Math.abs(denominator) < 1e-12) {
+            return 0;
+        }
+        return (sumW * sumTV - sumT * sumV) / denominator;
+    }
+
+    @Override
+    public double forecast(long horizonMillis) {
+        return count < 2 ? Double.NaN : valueAt(lastT + horizonMillis / 1000.0);
+    }
+
+    private double valueAt(double t) {
+        double slope = count < 2 ? 0 : slopePerSecond();
+        double meanT = sumT / sumW;
+        double meanV = sumV / sumW;
+        return meanV + slope * (t - meanT);
+    }
+
+    /**
+     * 将时间原点平移到t，累加量按 t' = t - shift 换算
+     */
+    private void recenter(double shift) {
+        sumTT = sumTT - 2 * shift * sumT + shift * shift * sumW;
+        sumTV = sumTV - shift * sumV;
+        sumT = sumT - shift * sumW;
+        lastT -= shift;
+        originMillis += (long) (shift * 1000);
+    }
+}
@@ -0,0 +1,80 @@
+package com.windtunnel.forecast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 在线预测模型
+ *
+ * 每个采样点O(1)增量更新，不保留历史数据。时间单位为毫秒，斜率单位为每秒
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface OnlineForecaster {
+
+    /**
+     * 模型名称
+     */
+    String getName();
+
+    /**
+     * 更新模型，时间早于已处理采样点的数据由调用方过滤
+     *
+     * @param timestamp 采样时间（毫秒）
+     * @param value 采样值
+     */
+    void update(long timestamp, double value);
+
+    /**
+     * 当前估计值（最近采样时刻的拟合值）
+     */
+    double level();
+
+    /**
+     * 当前趋势（每秒变化量）
+     */
+    double slopePerSecond();
+
+    /**
+     * 预测最近采样时刻之后的取值
+     *
+     * @param horizonMillis 预测时长（毫秒）
+     * @return 预测值，样本不足时返回NaN
+     */
+    double forecast(long horizonMillis);
+
+    /**
+     * 写出模型状态
+     */
+    void writeState(DataOutput out) throws IOException;
+
+    /**
+     * 恢复模型状态
+     */
+    void readState(DataInput in) throws IOException;
+
+    /**
+     * 按当前趋势到达阈值所需时间
+     *
+     * @param threshold 阈值
+     * @return 距最近采样时刻的毫秒数，趋势不指向阈值或样本不足时返回-1，已越过时返回0
+     */
+    default long etaToThreshold(double threshold) {
+        double level = level();
+        double slope = slopePerSecond();
+        if (Double.isNaN(level) || Double.isNaN(slope)) {
+            return -1;
+        }
+        double gap = threshold - level;
+        if (gap == 0) {
+            return 0;
+        }
+        if (slope == 0 || Math.signum(gap) != Math.signum(slope)) {
+            return -1;
+        }
+        return (long) (gap / slope * 1000);
+    }
+}
@@ -0,0 +1,143 @@
+package com.windtunnel.history;
+
+import com.windtunnel.timeseries.SampleBuffer;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 堆外采样点环形缓冲区
+ *
+ * 每个槽位16字节（毫秒时间戳 + 取值），存放在直接内存中，写入和读取都不产生堆对象。
+ * 单线程写入、多线程无锁读取：写入方先写槽位再发布写入总数，读取方读完槽位后重新读取写入总数，
+ * 读取期间被覆盖的槽位视为无效。时间戳只增不减，早于最近写入时间的迟到采样点不写入，
+ * 以覆盖下界记录内存中可能缺失的时间范围，保证覆盖范围内的读取结果与写入的数据一致。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class OffHeapSampleRing {
+
+    static final int SLOT_BYTES = 16;
+
+    private final ByteBuffer slots;
+
+    private final int capacity;
+
+    /**
+     * 已写入的采样点总数，槽位下标为 head % capacity
+     */
+    private volatile long head;
+
+    /**
+     * 写入方记录的覆盖下界：不晚于该时间的采样点可能缺失（首个采样点之前、已被覆盖或迟到丢弃）
+     */
+    private volatile long writerGapUpTo = Long.MAX_VALUE;
+
+    /**
+     * 外部失效的覆盖下界，例如历史数据被重新校准
+     */
+    private volatile long invalidatedUpTo = Long.MIN_VALUE;
+
+    /**
+     * 最近写入的时间戳，只由写入线程访问
+     */
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    OffHeapSampleRing(int capacity) {
+        this.capacity = capacity;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 写入一个采样点，只允许单个线程调用
+     */
+    void append(long timestamp, double value) {
+        if (timestamp < lastTimestamp) {
+            writerGapUpTo = Math.max(writerGapUpTo, timestamp);
+            return;
+        }
+        long index = head;
+        int offset = (int) (index % capacity) * SLOT_BYTES;
+        if (index == 0) {
+            writerGapUpTo = timestamp - 1;
+        } else if (index >= capacity) {
+            // 被覆盖槽位的时间戳计入覆盖下界，读取期间的覆盖由写入总数检测
+            writerGapUpTo = Math.max(writerGapUpTo, slots.getLong(offset));
+        }
+        slots.putLong(offset, timestamp);
+        slots.putDouble(offset + 8, value);
+        lastTimestamp = timestamp;
+        head = index + 1;
+    }
+
+    /**
+     * 使不晚于指定时间的数据失效
+     */
+    synchronized void invalidate(long upToMillis) {
+        invalidatedUpTo = Math.max(invalidatedUpTo, upToMillis);
+    }
+
+    /**
+     * 内存中完整保留的最早时间（不含），早于等于该时间的数据需要从存储读取
+     */
+    long coveredAfter() {
+        return Math.max(writerGapUpTo, invalidatedUpTo);
+    }
+
+    /**
+     * 读取时间范围内的采样点
+     *
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param target 输出缓冲区，返回false时内容无效
+     * @return 开始时间在覆盖范围内且读取期间没有被覆盖时返回true
+     */
+    boolean read(long startMillis, long endMillis, SampleBuffer target) {
+        if (startMillis <= coveredAfter()) {
+            return false;
+        }
+        long end = head;
+        long begin = Math.max(0, end - capacity);
+        long first = lowerBound(begin, end, startMillis);
+        for (long index = first; index < end; index++) {
+            int offset = (int) (index % capacity) * SLOT_BYTES;
+            long timestamp = slots.getLong(offset);
+            if (timestamp > endMillis) {
+                break;
+            }
+            target.accept(timestamp, slots.getDouble(offset + 8));
+        }
+        // 槽位读取不能重排到写入总数的重新读取之后
+        VarHandle.acquireFence();
+        long firstValid = head - capacity + 1;
+        return first >= firstValid && startMillis > coveredAfter();
+    }
+
+    /**
+     * 第一个时间戳不早于startMillis的下标
+     */
+    private long lowerBound(long begin, long end, long startMillis) {
+        long low = begin;
+        long high = end;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (slots.getLong((int) (middle % capacity) * SLOT_BYTES) < startMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    long getHead() {
+        return head;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
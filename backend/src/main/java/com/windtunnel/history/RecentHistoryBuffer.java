@@ -0,0 +1,274 @@
+package com.windtunnel.history;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.event.Subscription;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleBuffer;
+import com.windtunnel.timeseries.SampleConsumer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 近期历史数据缓冲区
+ *
+ * 订阅实时数据，为每个数据来源和通道维护一个堆外环形缓冲区，按全采样率保留最近一段时间的数据。
+ * 打开实时图表时的回填和增量拉取直接从内存读取，不再对MongoDB发起范围查询；
+ * 查询范围超出内存覆盖范围时返回未覆盖，由调用方回退到存储读取。
+ * 订阅队列满而丢弃的数据和不经事件总线的写入、修改、删除都会使对应数据来源此前的内存数据失效。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class RecentHistoryBuffer {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.recent-history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.recent-history.channels:windSpeed,temperature,pressure,flow,power,vibration,voltage,current}")
+    private List<String> channels;
+
+    @Value("${wind-tunnel.recent-history.window:300000}")
+    private long windowMillis;
+
+    @Value("${wind-tunnel.recent-history.max-rate:100}")
+    private int maxRate;
+
+    @Value("${wind-tunnel.recent-history.max-rings:4096}")
+    private int maxRings;
+
+    /**
+     * 每个数据来源按配置的通道顺序排列的环形缓冲区，未出现过取值的通道为空
+     */
+    private final Map<String, OffHeapSampleRing[]> rings = new ConcurrentHashMap<>();
+
+    private final AtomicInteger ringCount = new AtomicInteger();
+
+    /**
+     * 数据来源 -> 内存数据失效截止时间（含），对尚未分配缓冲区的数据来源同样有效
+     */
+    private final Map<String, Long> invalidatedUpTo = new ConcurrentHashMap<>();
+
+    private RealTimeDataChannel[] fields;
+
+    private int capacity;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        fields = new RealTimeDataChannel[channels.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = RealTimeDataChannel.fromFieldName(channels.get(i));
+        }
+        capacity = (int) Math.min(Integer.MAX_VALUE / OffHeapSampleRing.SLOT_BYTES,
+                Math.max(1, windowMillis * maxRate / 1000));
+        Subscription<RealTimeData> subscription = eventBus.subscribe(EventTopics.REAL_TIME_DATA, "recent-history",
+                events -> events.forEach(this::onData));
+        subscription.setDropListener(this::onDropped);
+        log.info("近期历史缓冲区已启用，通道: {}, 每通道容量: {} 个采样点（{}KB堆外内存）, 最大缓冲区数: {}",
+                channels, capacity, (long) capacity * OffHeapSampleRing.SLOT_BYTES / 1024, maxRings);
+    }
+
+    /**
+     * 写入一条实时数据，只由订阅投递线程调用
+     *
+     * @param data 实时数据
+     */
+    public void onData(RealTimeData data) {
+        if (data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        OffHeapSampleRing[] sourceRings = rings.computeIfAbsent(data.getSource(),
+                source -> new OffHeapSampleRing[fields.length]);
+        for (int i = 0; i < fields.length; i++) {
+            double value = read(data, i);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            OffHeapSampleRing ring = sourceRings[i];
+            if (ring == null) {
+                if (ringCount.incrementAndGet() > maxRings) {
+                    ringCount.decrementAndGet();
+                    continue;
+                }
+                ring = new OffHeapSampleRing(capacity);
+                sourceRings[i] = ring;
+            }
+            ring.append(timestamp, value);
+        }
+    }
+
+    /**
+     * 从内存读取时间范围内的通道数据，全部通道都在覆盖范围内时才回调
+     *
+     * @param source 数据来源
+     * @param channelNames 通道列表
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param consumers 与通道一一对应的采样点消费者
+     * @return 回调的最大单通道采样点数，任一通道未覆盖时返回-1且不回调
+     */
+    public long read(String source, List<String> channelNames, long startMillis, long endMillis,
+                     SampleConsumer[] consumers) {
+        OffHeapSampleRing[] sourceRings = enabled ? rings.get(source) : null;
+        if (sourceRings == null || startMillis <= invalidatedUpTo.getOrDefault(source, Long.MIN_VALUE)) {
+            return -1;
+        }
+        SampleBuffer[] buffers = new SampleBuffer[channelNames.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            int index = channels.indexOf(channelNames.get(i));
+            OffHeapSampleRing ring = index >= 0 ? sourceRings[index] : null;
+            buffers[i] = new SampleBuffer();
+            if (ring == null || !ring.read(startMillis, endMillis, buffers[i])) {
+                return -1;
+            }
+        }
+        long emitted = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            SampleBuffer buffer = buffers[i];
+            for (int j = 0; j < buffer.size(); j++) {
+                consumers[i].accept(buffer.timestampAt(j), buffer.valueAt(j));
+            }
+            emitted = Math.max(emitted, buffer.size());
+        }
+        return emitted;
+    }
+
+    /**
+     * 读取单个通道内存中保留的数据，开始时间早于覆盖范围时从覆盖范围起点开始
+     *
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param sinceMillis 开始时间（不含）
+     * @param target 输出缓冲区
+     * @return 实际读取的开始时间（不含），通道没有缓冲区时返回null
+     */
+    public Long readSince(String source, String channel, long sinceMillis, SampleBuffer target) {
+        OffHeapSampleRing[] sourceRings = enabled ? rings.get(source) : null;
+        int index = channels.indexOf(channel);
+        OffHeapSampleRing ring = sourceRings != null && index >= 0 ? sourceRings[index] : null;
+        if (ring == null) {
+            return null;
+        }
+        // 从最早的槽位开始读取时可能与写入方竞争，失败后按新的覆盖范围重试
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long after = Math.max(sinceMillis, coveredAfter(source, ring));
+            target.clear();
+            if (ring.read(after + 1, Long.MAX_VALUE, target)) {
+                return after;
+            }
+        }
+        target.clear();
+        return coveredAfter(source, ring);
+    }
+
+    /**
+     * 使数据来源不晚于指定时间的内存数据失效，之后的查询回退到存储读取
+     *
+     * @param source 数据来源
+     * @param upToMillis 失效截止时间（含）
+     */
+    public void invalidate(String source, long upToMillis) {
+        invalidatedUpTo.merge(source, upToMillis, Math::max);
+        OffHeapSampleRing[] sourceRings = rings.get(source);
+        if (sourceRings == null) {
+            return;
+        }
+        for (OffHeapSampleRing ring : sourceRings) {
+            if (ring != null) {
+                ring.invalidate(upToMillis);
+            }
+        }
+    }
+
+    /**
+     * 按数据来源使不晚于各自最大数据时间的内存数据失效，用于不经事件总线写入或修改的数据
+     *
+     * @param dataList 实时数据列表
+     */
+    public void invalidate(List<RealTimeData> dataList) {
+        Map<String, Long> upTo = new HashMap<>();
+        for (RealTimeData data : dataList) {
+            if (data.getSource() != null && data.getDataTime() != null) {
+                upTo.merge(data.getSource(), EpochTimes.toEpochMilli(data.getDataTime()), Math::max);
+            }
+        }
+        upTo.forEach(this::invalidate);
+    }
+
+    /**
+     * 使所有数据来源不晚于指定时间的内存数据失效，用于无法确定数据来源的删除
+     *
+     * @param upToMillis 失效截止时间（含）
+     */
+    public void invalidateAll(long upToMillis) {
+        for (String source : rings.keySet()) {
+            invalidate(source, upToMillis);
+        }
+    }
+
+    /**
+     * 缓冲的通道列表
+     */
+    public List<String> getChannels() {
+        return channels;
+    }
+
+    /**
+     * 已分配的缓冲区数量
+     */
+    public int getRingCount() {
+        return ringCount.get();
+    }
+
+    /**
+     * 已分配的堆外内存字节数
+     */
+    public long getAllocatedBytes() {
+        return (long) ringCount.get() * capacity * OffHeapSampleRing.SLOT_BYTES;
+    }
+
+    /**
+     * 订阅队列满时丢弃的数据不在内存中，在发布线程上使该数据来源不晚于其数据时间的内存数据失效
+     */
+    private void onDropped(RealTimeData data) {
+        if (data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        log.debug("近期历史缓冲区订阅丢弃数据，数据来源: {}, 内存数据失效至 {}", data.getSource(), timestamp);
+        invalidate(data.getSource(), timestamp);
+    }
+
+    private long coveredAfter(String source, OffHeapSampleRing ring) {
+        return Math.max(ring.coveredAfter(), invalidatedUpTo.getOrDefault(source, Long.MIN_VALUE));
+    }
+
+    private double read(RealTimeData data, int index) {
+        if (fields[index] != null) {
+            return fields[index].read(data);
+        }
+        Object value = data.getDataContent() != null ? data.getDataContent().get(channels.get(index)) : null;
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,28 @@
+package com.windtunnel.ingest;
+
+import lombok.Data;
+
+/**
+ * 数据采集主机配置，对应 wind-tunnel.data-collection.tcp.hosts 中的一项
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class IngestHostProperties {
+
+    /**
+     * 数据来源名称
+     */
+    private String name;
+
+    private String ip;
+
+    private int port;
+
+    /**
+     * 接入优先级：critical、normal、bulk，未配置时使用默认优先级
+     */
+    private String priority;
+}
@@ -0,0 +1,66 @@
+package com.windtunnel.ingest;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * 单个优先级的接入通道，所有状态由调度器的锁保护
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class IngestLane {
+
+    final IngestPriority priority;
+
+    final IngestLaneProperties properties;
+
+    /**
+     * 有待处理报文且未被处理的连接
+     */
+    final ArrayDeque<IngestMailbox> ready = new ArrayDeque<>();
+
+    /**
+     * 专用线程的等待条件，没有专用线程时为null
+     */
+    final Condition dedicated;
+
+    /**
+     * 平滑加权轮询的当前权重
+     */
+    long currentWeight;
+
+    int pending;
+
+    int inflight;
+
+    long submitted;
+
+    long processed;
+
+    long shed;
+
+    long expired;
+
+    long discarded;
+
+    long totalWaitNanos;
+
+    long maxWaitNanos;
+
+    long lastShedLog;
+
+    IngestLane(IngestPriority priority, IngestLaneProperties properties, Condition dedicated) {
+        this.priority = priority;
+        this.properties = properties;
+        this.dedicated = dedicated;
+    }
+
+    /**
+     * 共享线程是否可以处理本通道
+     */
+    boolean eligible() {
+        return !ready.isEmpty() && (properties.getMaxWorkers() <= 0 || inflight < properties.getMaxWorkers());
+    }
+}
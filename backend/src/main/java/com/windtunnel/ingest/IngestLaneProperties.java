@@ -0,0 +1,44 @@
+package com.windtunnel.ingest;
+
+import lombok.Data;
+
+/**
+ * 接入通道参数
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class IngestLaneProperties {
+
+    /**
+     * 共享线程调度权重，有排队数据的通道按权重轮流获得处理机会
+     */
+    private int weight;
+
+    /**
+     * 只处理本通道数据的专用线程数
+     */
+    private int reservedWorkers;
+
+    /**
+     * 本通道同时占用的最大线程数，0表示不限制
+     */
+    private int maxWorkers;
+
+    /**
+     * 本通道最大排队报文数，超过后拒绝新报文
+     */
+    private int capacity;
+
+    /**
+     * 报文最大排队时间（毫秒），超时的报文丢弃不处理，0表示不限制
+     */
+    private long maxWait;
+
+    /**
+     * 所有通道排队总数达到该值时本通道拒绝新报文，0表示不因过载拒绝
+     */
+    private int shedBacklog;
+}
@@ -0,0 +1,349 @@
+package com.windtunnel.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按优先级分通道的接入调度器
+ *
+ * 每个客户端按 hosts 配置中的优先级进入对应通道，每条通道独立排队。共享线程在有排队数据的通道之间
+ * 按权重做平滑加权轮询，单条通道占用的共享线程数受上限约束，高优先级通道另有只为其服务的专用线程，
+ * 突发的批量数据最多占满自己的线程预算，不会让安全告警相关的数据排在其后。
+ * 过载时按通道逐级拒绝新报文，排队超时的报文直接丢弃，低优先级数据先降级，关键数据的排队时间保持有界。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class IngestLaneScheduler {
+
+    private static final String CONFIG_PREFIX = "wind-tunnel.data-collection.tcp";
+
+    private static final long SHED_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${wind-tunnel.data-collection.tcp.lanes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.data-collection.tcp.lanes.workers:8}")
+    private int workers;
+
+    @Value("${wind-tunnel.data-collection.tcp.lanes.default-priority:normal}")
+    private String defaultPriority;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition shared = lock.newCondition();
+
+    private final Map<IngestPriority, IngestLane> lanes = new EnumMap<>(IngestPriority.class);
+
+    /**
+     * 客户端IP到优先级的映射
+     */
+    private final Map<String, IngestPriority> hostPriorities = new HashMap<>();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private IngestPriority fallback;
+
+    private int backlog;
+
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Binder binder = Binder.get(environment);
+        for (IngestPriority priority : IngestPriority.values()) {
+            IngestLaneProperties properties = binder.bind(CONFIG_PREFIX + ".lanes." + priority.name().toLowerCase(),
+                    Bindable.ofInstance(priority.defaults())).orElseGet(priority::defaults);
+            Condition dedicated = properties.getReservedWorkers() > 0 ? lock.newCondition() : null;
+            IngestLane lane = new IngestLane(priority, properties, dedicated);
+            lane.lastShedLog = System.nanoTime() - SHED_LOG_INTERVAL;
+            lanes.put(priority, lane);
+        }
+        fallback = IngestPriority.of(defaultPriority);
+        if (fallback == null) {
+            log.warn("默认接入优先级配置无效: {}，使用NORMAL", defaultPriority);
+            fallback = IngestPriority.NORMAL;
+        }
+        for (IngestHostProperties host : binder.bind(CONFIG_PREFIX + ".hosts",
+                Bindable.listOf(IngestHostProperties.class)).orElseGet(List::of)) {
+            IngestPriority priority = IngestPriority.of(host.getPriority());
+            if (host.getIp() != null && priority != null) {
+                hostPriorities.put(host.getIp(), priority);
+            }
+        }
+
+        for (int i = 0; i < workers; i++) {
+            startThread("ingest-worker-" + i, null);
+        }
+        for (IngestLane lane : lanes.values()) {
+            for (int i = 0; i < lane.properties.getReservedWorkers(); i++) {
+                startThread("ingest-" + lane.priority.name().toLowerCase() + "-" + i, lane);
+            }
+        }
+        log.info("接入优先级通道已启用，共享线程数: {}, 主机优先级: {}, 默认优先级: {}",
+                workers, hostPriorities, fallback);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        threads.forEach(Thread::interrupt);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为新连接创建报文队列
+     *
+     * @param remoteAddress 客户端地址
+     * @return 报文队列
+     */
+    public IngestMailbox open(SocketAddress remoteAddress) {
+        String client = remoteAddress instanceof InetSocketAddress address && address.getAddress() != null
+                ? address.getAddress().getHostAddress()
+                : String.valueOf(remoteAddress);
+        IngestPriority priority = hostPriorities.getOrDefault(client, fallback);
+        return new IngestMailbox(lanes.get(priority), client);
+    }
+
+    /**
+     * 提交一条报文的处理任务
+     *
+     * 同一连接的任务按提交顺序执行；被拒绝或排队超时的任务不执行，改为调用丢弃回调
+     *
+     * @param mailbox 连接的报文队列
+     * @param work 处理任务
+     * @param onShed 丢弃回调
+     * @return 是否已接收
+     */
+    public boolean submit(IngestMailbox mailbox, Runnable work, Runnable onShed) {
+        IngestLane lane = mailbox.lane;
+        IngestLaneProperties properties = lane.properties;
+        boolean accepted;
+        lock.lock();
+        try {
+            lane.submitted++;
+            accepted = lane.pending < properties.getCapacity()
+                    && (properties.getShedBacklog() <= 0 || backlog < properties.getShedBacklog());
+            if (accepted) {
+                mailbox.tasks.add(new IngestMailbox.Task(work, onShed, System.nanoTime()));
+                lane.pending++;
+                backlog++;
+                if (!mailbox.scheduled) {
+                    mailbox.scheduled = true;
+                    lane.ready.add(mailbox);
+                    if (lane.dedicated != null) {
+                        lane.dedicated.signal();
+                    }
+                    shared.signal();
+                }
+            } else {
+                lane.shed++;
+                logShed(lane);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!accepted) {
+            onShed.run();
+        }
+        return accepted;
+    }
+
+    /**
+     * 丢弃连接尚未处理的报文，连接关闭时调用
+     *
+     * 正在处理的报文不受影响；被丢弃的报文不执行处理任务，也不调用丢弃回调
+     *
+     * @param mailbox 连接的报文队列
+     * @return 丢弃的报文数
+     */
+    public int discard(IngestMailbox mailbox) {
+        IngestLane lane = mailbox.lane;
+        lock.lock();
+        try {
+            int count = mailbox.tasks.size();
+            mailbox.tasks.clear();
+            lane.pending -= count;
+            lane.discarded += count;
+            backlog -= count;
+            // 仍在就绪队列中说明没有线程在处理，移出后可以重新调度；正在处理时由处理线程结束后复位
+            if (lane.ready.remove(mailbox)) {
+                mailbox.scheduled = false;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各通道统计
+     */
+    public List<IngestLaneStatistics> getStatistics() {
+        List<IngestLaneStatistics> statistics = new ArrayList<>();
+        lock.lock();
+        try {
+            for (IngestLane lane : lanes.values()) {
+                IngestLaneStatistics item = new IngestLaneStatistics();
+                item.setPriority(lane.priority.name());
+                item.setWeight(lane.properties.getWeight());
+                item.setPending(lane.pending);
+                item.setInflight(lane.inflight);
+                item.setSubmitted(lane.submitted);
+                item.setProcessed(lane.processed);
+                item.setShed(lane.shed);
+                item.setExpired(lane.expired);
+                item.setDiscarded(lane.discarded);
+                long waited = lane.processed + lane.expired;
+                item.setMeanWaitMillis(waited > 0 ? lane.totalWaitNanos / 1e6 / waited : 0);
+                item.setMaxWaitMillis(lane.maxWaitNanos / 1e6);
+                statistics.add(item);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return statistics;
+    }
+
+    private void startThread(String name, IngestLane dedicatedLane) {
+        Thread thread = new Thread(() -> runWorker(dedicatedLane), name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * @param dedicatedLane 专用线程服务的通道，共享线程为null
+     */
+    private void runWorker(IngestLane dedicatedLane) {
+        while (!stopped) {
+            IngestMailbox mailbox;
+            IngestMailbox.Task task;
+            lock.lock();
+            try {
+                IngestLane lane = dedicatedLane != null ? awaitDedicated(dedicatedLane) : awaitShared();
+                mailbox = lane.ready.poll();
+                task = mailbox.tasks.poll();
+                lane.pending--;
+                lane.inflight++;
+                backlog--;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            process(mailbox, task);
+        }
+    }
+
+    private IngestLane awaitDedicated(IngestLane lane) throws InterruptedException {
+        while (lane.ready.isEmpty()) {
+            lane.dedicated.await();
+        }
+        return lane;
+    }
+
+    /**
+     * 在可处理的通道中按平滑加权轮询选择一条
+     */
+    private IngestLane awaitShared() throws InterruptedException {
+        while (true) {
+            IngestLane selected = null;
+            long totalWeight = 0;
+            for (IngestLane lane : lanes.values()) {
+                if (lane.eligible()) {
+                    lane.currentWeight += lane.properties.getWeight();
+                    totalWeight += lane.properties.getWeight();
+                    if (selected == null || lane.currentWeight > selected.currentWeight) {
+                        selected = lane;
+                    }
+                }
+            }
+            if (selected != null) {
+                selected.currentWeight -= totalWeight;
+                return selected;
+            }
+            shared.await();
+        }
+    }
+
+    private void process(IngestMailbox mailbox, IngestMailbox.Task task) {
+        IngestLane lane = mailbox.lane;
+        long waitNanos = System.nanoTime() - task.enqueuedAt;
+        long maxWait = lane.properties.getMaxWait();
+        boolean expired = maxWait > 0 && waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWait);
+        try {
+            if (expired) {
+                task.onShed.run();
+            } else {
+                task.work.run();
+            }
+        } catch (RuntimeException e) {
+            log.error("处理接入报文失败，客户端: {}, 错误: {}", mailbox.client, e.getMessage(), e);
+        } finally {
+            lock.lock();
+            try {
+                lane.inflight--;
+                if (expired) {
+                    lane.expired++;
+                    logShed(lane);
+                } else {
+                    lane.processed++;
+                }
+                lane.totalWaitNanos += waitNanos;
+                lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waitNanos);
+                if (mailbox.tasks.isEmpty()) {
+                    mailbox.scheduled = false;
+                } else {
+                    lane.ready.add(mailbox);
+                    if (lane.dedicated != null) {
+                        lane.dedicated.signal();
+                    }
+                }
+                // 通道占用的线程数下降或有新的就绪连接，唤醒一个共享线程重新选择
+                shared.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void logShed(IngestLane lane) {
+        long now = System.nanoTime();
+        if (now - lane.lastShedLog >= SHED_LOG_INTERVAL) {
+            lane.lastShedLog = now;
+            log.warn("接入通道 {} 过载，累计拒绝 {} 条、超时丢弃 {} 条，当前排队 {} 条，总排队 {} 条",
+                    lane.priority, lane.shed, lane.expired, lane.pending, backlog);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.windtunnel.ingest;
+
+import lombok.Data;
+
+/**
+ * 接入通道统计，计数为调度器启动以来的累计值
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class IngestLaneStatistics {
+
+    /**
+     * 优先级
+     */
+    private String priority;
+
+    /**
+     * 共享线程调度权重
+     */
+    private int weight;
+
+    /**
+     * 当前排队报文数
+     */
+    private int pending;
+
+    /**
+     * 正在处理的报文数
+     */
+    private int inflight;
+
+    /**
+     * 提交的报文数，含被拒绝的报文
+     */
+    private long submitted;
+
+    /**
+     * 处理完成的报文数
+     */
+    private long processed;
+
+    /**
+     * 因队列已满或过载被拒绝的报文数
+     */
+    private long shed;
+
+    /**
+     * 排队超时被丢弃的报文数
+     */
+    private long expired;
+
+    /**
+     * 连接关闭时未处理而丢弃的报文数
+     */
+    private long discarded;
+
+    /**
+     * 平均排队时间（毫秒）
+     */
+    private double meanWaitMillis;
+
+    /**
+     * 最大排队时间（毫秒）
+     */
+    private double maxWaitMillis;
+}
@@ -0,0 +1,51 @@
+package com.windtunnel.ingest;
+
+import java.util.ArrayDeque;
+
+/**
+ * 单个连接的待处理报文队列
+ *
+ * 同一连接的报文按到达顺序逐条处理，同一时刻最多由一个线程处理，保证数据来源内的时间顺序；
+ * 不同连接之间并行处理。所有状态由调度器的锁保护。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class IngestMailbox {
+
+    final IngestLane lane;
+
+    final String client;
+
+    final ArrayDeque<Task> tasks = new ArrayDeque<>();
+
+    /**
+     * 已在通道就绪队列中或正在被处理
+     */
+    boolean scheduled;
+
+    IngestMailbox(IngestLane lane, String client) {
+        this.lane = lane;
+        this.client = client;
+    }
+
+    public IngestPriority getPriority() {
+        return lane.priority;
+    }
+
+    static final class Task {
+
+        final Runnable work;
+
+        final Runnable onShed;
+
+        final long enqueuedAt;
+
+        Task(Runnable work, Runnable onShed, long enqueuedAt) {
+            this.work = work;
+            this.onShed = onShed;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.windtunnel.ingest;
+
+/**
+ * 接入优先级
+ *
+ * 每个优先级对应一条独立排队和调度的接入通道，默认参数可以在配置中按优先级覆盖
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum IngestPriority {
+
+    /**
+     * 驱动安全告警的数据，例如公共动力系统的功率数据，保留专用线程且不因过载丢弃
+     */
+    CRITICAL(8, 1, 0, 10000, 0, 0),
+
+    /**
+     * 一般试验数据
+     */
+    NORMAL(4, 0, 6, 20000, 5000, 30000),
+
+    /**
+     * 高速率批量数据，过载时最先丢弃
+     */
+    BULK(1, 0, 4, 20000, 2000, 10000);
+
+    private final int weight;
+
+    private final int reservedWorkers;
+
+    private final int maxWorkers;
+
+    private final int capacity;
+
+    private final long maxWait;
+
+    private final int shedBacklog;
+
+    IngestPriority(int weight, int reservedWorkers, int maxWorkers, int capacity, long maxWait, int shedBacklog) {
+        this.weight = weight;
+        this.reservedWorkers = reservedWorkers;
+        this.maxWorkers = maxWorkers;
+        this.capacity = capacity;
+        this.maxWait = maxWait;
+        this.shedBacklog = shedBacklog;
+    }
+
+    /**
+     * 默认通道参数
+     */
+    public IngestLaneProperties defaults() {
+        IngestLaneProperties properties = new IngestLaneProperties();
+        properties.setWeight(weight);
+        properties.setReservedWorkers(reservedWorkers);
+        properties.setMaxWorkers(maxWorkers);
+        properties.setCapacity(capacity);
+        properties.setMaxWait(maxWait);
+        properties.setShedBacklog(shedBacklog);
+        return properties;
+    }
+
+    /**
+     * 按名称查找优先级，忽略大小写
+     *
+     * @param name 优先级名称
+     * @return 优先级，未知名称返回null
+     */
+    public static IngestPriority of(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (IngestPriority priority : values()) {
+            if (priority.name().equalsIgnoreCase(name.trim())) {
+                return priority;
+            }
+        }
+        return null;
+    }
+}
@@ -1,6 +1,6 @@
 package com.windtunnel.job;
 
-import com.windtunnel.service.RealTimeDataService;
+import com.windtunnel.service.RealTimeDataArchiveService;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 /**
  * 数据清理定时任务
  * 
- * 定期清理过期的实时数据，释放数据库空间
+ * 定期将过期的实时数据压缩归档后清理，释放数据库空间
  * 
  * @author windtunnel team
  * @version 1.0.0
@@ -24,7 +24,7 @@ import java.time.LocalDateTime;
 public class DataCleanupJob implements Job {
 
     @Autowired
-    private RealTimeDataService realTimeDataService;
+    private RealTimeDataArchiveService realTimeDataArchiveService;
 
     /**
      * 执行数据清理任务
@@ -41,8 +41,12 @@ public class DataCleanupJob implements Job {
             // 计算过期时间（例如：30天前的数据）
             LocalDateTime expiredTime = LocalDateTime.now().minusDays(30);
             
-            // 调用服务层清理过期数据，确保类型安全
-            int deletedCount = realTimeDataService.deleteExpiredData(expiredTime != null ? expiredTime : LocalDateTime.now());
+            // 删除前先压缩归档，归档失败时抛出异常，不删除原始数据
+            int archivedCount = realTimeDataArchiveService.archiveBefore(expiredTime);
+            log.info("过期数据压缩归档完成，共归档 {} 条数据", archivedCount);
+            
+            // 只删除归档水位覆盖的数据，两次操作之间到达的迟到数据留到下次归档
+            long deletedCount = realTimeDataArchiveService.deleteArchived();
             
             log.info("数据清理任务完成，共删除 {} 条过期数据，截止时间: {}", deletedCount, expiredTime);
         } catch (Exception e) {
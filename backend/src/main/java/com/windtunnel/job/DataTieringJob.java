@@ -0,0 +1,166 @@
+package com.windtunnel.job;
+
+import com.windtunnel.archive.ColumnarArchiveStore;
+import com.windtunnel.archive.ColumnarArchiveWriter;
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.run.ExperimentRunIndexer;
+import com.windtunnel.timeseries.EpochTimes;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 数据分层定时任务
+ *
+ * 将超过热数据保留期的实时数据按数据来源和日期迁移到本地列式归档文件，
+ * 每个分区文件写入完成后再删除MongoDB中对应的原始数据。分区文件保存全部字段，
+ * 并记录迁移时的数据快照时间，任务中断后重跑只会补删已归档的数据，不会重复写入。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class DataTieringJob implements Job {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private ExperimentRunIndexer experimentRunIndexer;
+
+    @Value("${wind-tunnel.archive.hot-days:30}")
+    private int hotDays;
+
+    /**
+     * 执行数据分层任务
+     *
+     * @param context 任务执行上下文
+     * @throws JobExecutionException 任务执行异常
+     */
+    @Override
+    @SuppressWarnings("null")
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        log.info("开始执行数据分层任务");
+
+        try {
+            // 只迁移完整的自然日，保证每个分区文件覆盖一整天
+            LocalDateTime cutoffTime = LocalDate.now().minusDays(hotDays).atStartOfDay();
+
+            Query sourceQuery = new Query(Criteria.where("dataTime").lt(cutoffTime));
+            List<String> sources = mongoTemplate.findDistinct(sourceQuery, "source", RealTimeData.class, String.class);
+
+            long tieredCount = 0;
+            for (String source : sources) {
+                tieredCount += tierSource(source, cutoffTime);
+            }
+
+            log.info("数据分层任务完成，共迁移 {} 条数据，截止时间: {}", tieredCount, cutoffTime);
+        } catch (Exception e) {
+            log.error("执行数据分层任务失败", e);
+            throw new JobExecutionException("数据分层任务执行失败", e);
+        }
+    }
+
+    /**
+     * 迁移单个数据来源截止时间之前的数据
+     */
+    @SuppressWarnings("null")
+    private long tierSource(String source, LocalDateTime cutoffTime) throws Exception {
+        Query firstQuery = new Query(Criteria.where("source").is(source).and("dataTime").lt(cutoffTime));
+        firstQuery.with(Sort.by(Sort.Direction.ASC, "dataTime")).limit(1);
+        RealTimeData first = mongoTemplate.findOne(firstQuery, RealTimeData.class);
+        if (first == null) {
+            return 0;
+        }
+
+        // 只处理本次任务开始前写入的数据，避免删除迁移过程中新到达的迟到数据
+        LocalDateTime snapshotTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        long tieredCount = 0;
+        for (LocalDate day = first.getDataTime().toLocalDate(); day.atStartOfDay().isBefore(cutoffTime); day = day.plusDays(1)) {
+            Criteria sourceDay = Criteria.where("source").is(source)
+                    .and("dataTime").gte(day.atStartOfDay()).lt(day.plusDays(1).atStartOfDay());
+
+            // 已有分区的快照时间之前创建的数据都已归档，上次任务在写完分区后、删除热数据前中断时，
+            // 先补删这部分数据，本次只迁移之后创建的数据，重跑不会重复归档
+            Long tieredUntil = columnarArchiveStore.tieredUntil(source, day);
+            if (tieredUntil != null) {
+                LocalDateTime tieredTime = EpochTimes.toLocalDateTime(tieredUntil);
+                long completedCount = mongoTemplate.remove(new Query(Criteria.where("source").is(source)
+                        .and("dataTime").gte(day.atStartOfDay()).lt(day.plusDays(1).atStartOfDay())
+                        .and("createTime").lte(tieredTime)), RealTimeData.class).getDeletedCount();
+                if (completedCount > 0) {
+                    log.info("数据来源 {} 日期 {} 补删已归档的热数据 {} 条", source, day, completedCount);
+                }
+                sourceDay.and("createTime").gt(tieredTime).lte(snapshotTime);
+            } else {
+                sourceDay.and("createTime").lte(snapshotTime);
+            }
+            Query dayQuery = new Query(sourceDay).with(Sort.by(Sort.Direction.ASC, "dataTime"));
+
+            ColumnarArchiveWriter writer = columnarArchiveStore.openWriter(source, day,
+                    EpochTimes.toEpochMilli(snapshotTime));
+            try (Stream<RealTimeData> stream = mongoTemplate.stream(dayQuery, RealTimeData.class)) {
+                for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                    writer.append(data);
+                }
+            } catch (IllegalArgumentException e) {
+                // 数据内容无法无损写入归档时保留热数据，不影响其他日期的迁移
+                writer.abort();
+                log.error("数据来源 {} 日期 {} 包含无法归档的数据，保留在热数据中: {}", source, day, e.getMessage());
+                continue;
+            } catch (Exception e) {
+                writer.abort();
+                throw e;
+            }
+
+            if (writer.getTotalRows() == 0) {
+                writer.abort();
+                continue;
+            }
+            writer.close();
+            attachPartition(source, day, writer.getFileName());
+
+            // 分区文件落盘后再删除热数据，删除前中断时由下次任务按分区的快照时间补删
+            long deletedCount = mongoTemplate.remove(new Query(sourceDay), RealTimeData.class).getDeletedCount();
+            tieredCount += writer.getTotalRows();
+            log.info("数据来源 {} 日期 {} 迁移完成，写入 {} 条，删除 {} 条", source, day, writer.getTotalRows(), deletedCount);
+        }
+        return tieredCount;
+    }
+
+    /**
+     * 把分区文件登记到当天的试验运行，登记失败不影响迁移
+     */
+    private void attachPartition(String source, LocalDate day, String fileName) {
+        ExperimentRun.BlockPointer pointer = new ExperimentRun.BlockPointer();
+        pointer.setTier(ExperimentRun.BlockPointer.TIER_COLUMNAR);
+        pointer.setRef(fileName);
+        pointer.setStartTime(day.atStartOfDay());
+        pointer.setEndTime(day.plusDays(1).atStartOfDay().minusNanos(1));
+        try {
+            experimentRunIndexer.attachBlocks(source, List.of(pointer));
+        } catch (Exception e) {
+            log.warn("登记试验运行分区文件失败，数据来源: {}, 文件: {}, 原因: {}", source, fileName, e.getMessage());
+        }
+    }
+}
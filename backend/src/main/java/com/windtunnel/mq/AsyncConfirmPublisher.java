@@ -0,0 +1,258 @@
+package com.windtunnel.mq;
+
+import com.windtunnel.config.MessageQueueConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步确认发布器
+ *
+ * 调用线程只负责消息转换和入队，不等待Broker；后台发送线程按批从队列取出消息，
+ * 在同一通道上连续发送并通过关联确认（publisher confirm）异步获知结果。
+ * 未确认的消息数量受在途窗口限制；发送队列已满、发送失败、被Broker拒绝或确认超时的消息
+ * 写入本地溢写文件，Broker恢复后由回放线程重新入队
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class AsyncConfirmPublisher {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Value("${wind-tunnel.mq.publisher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${wind-tunnel.mq.publisher.batch-size:200}")
+    private int batchSize;
+
+    @Value("${wind-tunnel.mq.publisher.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${wind-tunnel.mq.publisher.confirm-timeout:5000}")
+    private long confirmTimeout;
+
+    @Value("${wind-tunnel.mq.publisher.spill-dir:data/spill}")
+    private String spillDir;
+
+    @Value("${wind-tunnel.mq.publisher.spill-max-bytes:1073741824}")
+    private long spillMaxBytes;
+
+    @Value("${wind-tunnel.mq.publisher.replay-interval:5000}")
+    private long replayInterval;
+
+    private BlockingQueue<Message> queue;
+
+    private Semaphore inFlight;
+
+    private SpillBuffer spillBuffer;
+
+    private Thread sender;
+
+    private ScheduledExecutorService replayer;
+
+    private volatile boolean running;
+
+    private final AtomicLong confirmedCount = new AtomicLong();
+
+    private final AtomicLong spilledCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() throws Exception {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        inFlight = new Semaphore(maxInFlight);
+        spillBuffer = new SpillBuffer(Paths.get(spillDir), spillMaxBytes);
+        running = true;
+
+        sender = new Thread(this::sendLoop, "mq-async-publisher");
+        sender.setDaemon(true);
+        sender.start();
+
+        replayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mq-spill-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replaySpilled, replayInterval, replayInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步发布消息，从不阻塞调用线程
+     *
+     * @param exchangeMessage 消息对象
+     */
+    public void publish(Object exchangeMessage) {
+        Message message = messageConverter.toMessage(exchangeMessage, new MessageProperties());
+        if (!running || !queue.offer(message)) {
+            spill(message);
+        }
+    }
+
+    /**
+     * 已确认的消息数量
+     */
+    public long getConfirmedCount() {
+        return confirmedCount.get();
+    }
+
+    /**
+     * 溢写到本地的消息数量
+     */
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * 因溢写容量不足而丢弃的消息数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 停止发布，等待在途确认并将队列中剩余的消息溢写到本地
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        replayer.shutdownNow();
+        sender.join(confirmTimeout);
+        if (inFlight.tryAcquire(maxInFlight, confirmTimeout, TimeUnit.MILLISECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+        List<Message> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(this::spill);
+        spillBuffer.close();
+        log.info("异步发布器已停止，已确认: {}, 已溢写: {}, 已丢弃: {}",
+                confirmedCount.get(), spilledCount.get(), droppedCount.get());
+    }
+
+    private void sendLoop() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Message first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("异步发送消息批次失败: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在同一通道上连续发送一批消息，确认结果异步处理
+     */
+    private void sendBatch(List<Message> batch) throws InterruptedException {
+        if (!inFlight.tryAcquire(batch.size(), confirmTimeout, TimeUnit.MILLISECONDS)) {
+            log.warn("在途未确认消息达到上限，批次溢写到本地，数量: {}", batch.size());
+            batch.forEach(this::spill);
+            return;
+        }
+        int[] sent = {0};
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Message message : batch) {
+                    CorrelationData correlation = new CorrelationData();
+                    operations.send(MessageQueueConfig.DATA_COLLECTION_EXCHANGE,
+                            MessageQueueConfig.DATA_COLLECTION_ROUTING_KEY, message, correlation);
+                    // 发送成功后才登记确认回调，之后许可和溢写只由确认回调处理；
+                    // 发送失败的消息没有回调，由下面的异常处理释放许可并溢写
+                    sent[0]++;
+                    correlation.getFuture()
+                            .orTimeout(confirmTimeout, TimeUnit.MILLISECONDS)
+                            .whenComplete((confirm, ex) -> onConfirm(message, confirm, ex));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("发送消息失败，未发送的消息溢写到本地，数量: {}, 原因: {}", batch.size() - sent[0], e.getMessage());
+            for (int i = sent[0]; i < batch.size(); i++) {
+                inFlight.release();
+                spill(batch.get(i));
+            }
+        }
+    }
+
+    private void onConfirm(Message message, CorrelationData.Confirm confirm, Throwable ex) {
+        inFlight.release();
+        if (ex == null && confirm.isAck()) {
+            confirmedCount.incrementAndGet();
+            return;
+        }
+        log.debug("消息未被确认，溢写到本地: {}", ex != null ? ex.toString() : confirm.getReason());
+        spill(message);
+    }
+
+    private void spill(Message message) {
+        if (spillBuffer.append(message)) {
+            spilledCount.incrementAndGet();
+        } else if (droppedCount.incrementAndGet() % 1000 == 1) {
+            log.error("消息溢写容量已满，消息被丢弃，累计丢弃: {}", droppedCount.get());
+        }
+    }
+
+    /**
+     * Broker可达时将溢写的消息重新放入发送队列
+     */
+    private void replaySpilled() {
+        if (!running || !spillBuffer.hasPending()) {
+            return;
+        }
+        try {
+            rabbitTemplate.execute(channel -> channel.isOpen());
+            long replayed = spillBuffer.replay(message -> {
+                try {
+                    queue.put(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(message);
+                }
+            });
+            log.info("溢写消息回放完成，数量: {}", replayed);
+        } catch (AmqpException e) {
+            log.debug("Broker仍不可用，暂不回放溢写消息: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("回放溢写消息失败: {}", e.getMessage(), e);
+        }
+    }
+}
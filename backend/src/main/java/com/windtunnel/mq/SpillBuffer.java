@@ -0,0 +1,196 @@
+package com.windtunnel.mq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 消息溢写缓冲区
+ *
+ * Broker不可用或发送队列已满时，将已转换的消息追加写入本地分段文件，Broker恢复后按写入顺序回放。
+ * 每条记录格式为 [内容类型][头数量:2][键 值]...[消息体长度:4][消息体]，
+ * 进程在写入过程中退出导致的不完整尾记录在回放时忽略。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+class SpillBuffer {
+
+    private static final String SEGMENT_PREFIX = "spill-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private DataOutputStream current;
+
+    private Path currentPath;
+
+    private long sequence;
+
+    private long totalBytes;
+
+    SpillBuffer(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        for (Path segment : listSegments()) {
+            totalBytes += Files.size(segment);
+        }
+    }
+
+    /**
+     * 追加一条消息
+     *
+     * @return 超过容量上限而丢弃时返回false
+     */
+    synchronized boolean append(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        byte[] body = message.getBody();
+        if (totalBytes + body.length > maxBytes) {
+            return false;
+        }
+        try {
+            if (current == null) {
+                currentPath = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + "-" + (sequence++) + SEGMENT_SUFFIX);
+                OutputStream output = Files.newOutputStream(currentPath);
+                current = new DataOutputStream(new BufferedOutputStream(output));
+            }
+            int start = current.size();
+            current.writeUTF(properties.getContentType() != null ? properties.getContentType() : "");
+            Map<String, Object> headers = properties.getHeaders();
+            current.writeShort(headers.size());
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                current.writeUTF(header.getKey());
+                current.writeUTF(String.valueOf(header.getValue()));
+            }
+            current.writeInt(body.length);
+            current.write(body);
+            current.flush();
+            totalBytes += current.size() - start;
+            return true;
+        } catch (IOException e) {
+            log.error("写入消息溢写文件失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 是否存在待回放的消息
+     */
+    synchronized boolean hasPending() {
+        return totalBytes > 0;
+    }
+
+    /**
+     * 按写入顺序回放所有已溢写的消息，每个分段回放完成后删除
+     *
+     * @param consumer 消息消费者
+     * @return 回放的消息数量
+     */
+    long replay(Consumer<Message> consumer) throws IOException {
+        List<Path> segments;
+        synchronized (this) {
+            closeCurrent();
+            segments = listSegments();
+        }
+        long replayed = 0;
+        for (Path segment : segments) {
+            long segmentBytes = Files.size(segment);
+            try (InputStream input = Files.newInputStream(segment);
+                 DataInputStream data = new DataInputStream(new BufferedInputStream(input))) {
+                while (true) {
+                    Message message = readRecord(data);
+                    if (message == null) {
+                        break;
+                    }
+                    consumer.accept(message);
+                    replayed++;
+                }
+            }
+            Files.delete(segment);
+            synchronized (this) {
+                totalBytes = Math.max(0, totalBytes - segmentBytes);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 关闭当前分段
+     */
+    synchronized void close() {
+        closeCurrent();
+    }
+
+    private Message readRecord(DataInputStream data) throws IOException {
+        try {
+            MessageProperties properties = new MessageProperties();
+            String contentType = data.readUTF();
+            if (!contentType.isEmpty()) {
+                properties.setContentType(contentType);
+            }
+            int headerCount = data.readUnsignedShort();
+            for (int i = 0; i < headerCount; i++) {
+                properties.setHeader(data.readUTF(), data.readUTF());
+            }
+            byte[] body = new byte[data.readInt()];
+            data.readFully(body);
+            properties.setContentLength(body.length);
+            return new Message(body, properties);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void closeCurrent() {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("关闭消息溢写文件失败: {}", currentPath, e);
+        }
+        current = null;
+        currentPath = null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                                && !path.equals(currentPath);
+                    })
+                    .sorted((a, b) -> compareSegments(a.getFileName().toString(), b.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    private int compareSegments(String a, String b) {
+        String[] partsA = a.substring(SEGMENT_PREFIX.length(), a.length() - SEGMENT_SUFFIX.length()).split("-");
+        String[] partsB = b.substring(SEGMENT_PREFIX.length(), b.length() - SEGMENT_SUFFIX.length()).split("-");
+        int timeCompare = Long.compare(Long.parseLong(partsA[0]), Long.parseLong(partsB[0]));
+        return timeCompare != 0 ? timeCompare : Long.compare(Long.parseLong(partsA[1]), Long.parseLong(partsB[1]));
+    }
+}
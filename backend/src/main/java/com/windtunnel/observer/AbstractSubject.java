@@ -1,15 +1,16 @@
 package com.windtunnel.observer;
 
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 被观察者抽象实现类
- * 提供被观察者的基本实现
+ * 提供被观察者的基本实现，观察者列表为写时复制，可在通知过程中并发增删观察者
+ * 跨线程、需要异步投递的场景使用 {@link com.windtunnel.event.EventBus}
  */
 public abstract class AbstractSubject implements Subject {
     
-    protected List<Observer> observers = new ArrayList<>();
+    protected final List<Observer> observers = new CopyOnWriteArrayList<>();
     
     @Override
     public void addObserver(Observer observer) {
@@ -1,17 +1,31 @@
 package com.windtunnel.observer.impl;
 
+import com.windtunnel.alert.AlertManager;
 import com.windtunnel.entity.RealTimeData;
 import com.windtunnel.entity.notification.Notification;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
 import com.windtunnel.observer.Observer;
 import com.windtunnel.observer.Subject;
 import com.windtunnel.service.notification.NotificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 通知观察者
  * 当实时数据更新时，发送通知
+ * 启动时订阅事件总线的实时数据主题，在独立线程上按批处理；数据经告警管理器去重、
+ * 滞回和限流后，只有告警触发、恢复和周期摘要才写入通知
  */
 @Slf4j
 @Component
@@ -20,54 +34,78 @@ public class NotificationObserver implements Observer {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private EventBus eventBus;
+    
+    @Autowired
+    private AlertManager alertManager;
+    
+    @Value("${wind-tunnel.alert.sweep-interval:1000}")
+    private long sweepInterval;
+    
+    private ScheduledExecutorService sweeper;
+    
+    /**
+     * 订阅实时数据事件，并定时推进告警的恢复确认和周期摘要
+     */
+    @PostConstruct
+    public void subscribe() {
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "notification", this::onRealTimeData);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+    
     @Override
     public void update(Subject subject, Object data) {
         if (data instanceof RealTimeData) {
-            RealTimeData realTimeData = (RealTimeData) data;
-            
-            // 检查是否需要发送通知（例如，数据异常时）
-            if (isNotificationRequired(realTimeData)) {
-                sendNotification(realTimeData);
-            }
+            onRealTimeData(List.of((RealTimeData) data));
+        }
+    }
+    
+    /**
+     * 批量处理实时数据事件
+     * @param events 实时数据列表
+     */
+    private void onRealTimeData(List<RealTimeData> events) {
+        long now = System.currentTimeMillis();
+        List<Notification> notifications = new ArrayList<>();
+        for (RealTimeData realTimeData : events) {
+            notifications.addAll(alertManager.onSample(realTimeData, now));
         }
+        send(notifications);
     }
     
     /**
-     * 判断是否需要发送通知
-     * @param realTimeData 实时数据
-     * @return 是否需要发送通知
+     * 推进与时间相关的告警状态
      */
-    private boolean isNotificationRequired(RealTimeData realTimeData) {
-        // 如果数据状态为异常，则需要发送通知
-        return realTimeData.getStatus() != null && realTimeData.getStatus() == 1;
+    private void sweep() {
+        try {
+            send(alertManager.sweep(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("推进告警状态失败: {}", e.getMessage(), e);
+        }
     }
     
     /**
      * 发送通知
-     * @param realTimeData 实时数据
+     * @param notifications 通知列表
      */
-    private void sendNotification(RealTimeData realTimeData) {
-        log.info("发送通知: 检测到数据异常，设备: {}", realTimeData.getSource());
-        
-        // 创建通知对象
-        Notification notification = new Notification();
-        notification.setTitle("系统告警");
-        notification.setContent("检测到设备 " + realTimeData.getSource() + " 数据异常: " + realTimeData.getAnomalyDescription());
-        notification.setSenderId(0L); // 系统发送者ID
-        notification.setSenderName("SYSTEM"); // 系统发送者名称
-        notification.setNotificationType(1); // 系统通知
-        notification.setSendStatus(0); // 待发送
-        
-        // 发送通知
-        if (notificationService != null) {
-            try {
-                Long notificationId = notificationService.sendNotification(notification);
-                log.info("通知发送成功，通知ID: {}", notificationId);
-            } catch (Exception e) {
-                log.error("发送通知失败: {}", e.getMessage(), e);
-            }
-        } else {
-            log.warn("通知服务未初始化");
+    private void send(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
         }
+        int sent = notificationService.sendNotificationBatch(notifications);
+        log.info("发送告警通知完成，成功: {}, 总数: {}", sent, notifications.size());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.windtunnel.quality;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.timeseries.EpochTimes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据质量监控
+ *
+ * 在接入边缘逐条记录样本，按数据来源增量统计采样率、断档、重复、乱序、到达抖动和通道空值比例。
+ * 每个报告周期生成各来源的质量快照并发布到 {@link EventTopics#DATA_QUALITY}，
+ * 停止上报的采集机在一个报告周期内即表现为静默状态。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class DataQualityMonitor {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.quality.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.quality.report-interval:5000}")
+    private long reportInterval;
+
+    @Value("${wind-tunnel.quality.expected-rates:}")
+    private List<String> expectedRates;
+
+    @Value("${wind-tunnel.quality.gap-factor:3.0}")
+    private double gapFactor;
+
+    @Value("${wind-tunnel.quality.silent-timeout:5000}")
+    private long silentTimeout;
+
+    @Value("${wind-tunnel.quality.degraded-completeness:0.95}")
+    private double degradedCompleteness;
+
+    /**
+     * 期望采样间隔（毫秒），键为数据来源
+     */
+    private final Map<String, Double> expectedIntervals = new HashMap<>();
+
+    private final Map<String, SourceQualityTracker> trackers = new ConcurrentHashMap<>();
+
+    private final Map<String, DataQualitySnapshot> latest = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reporter;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // 格式为 数据来源:采样率（Hz）
+        for (String entry : expectedRates) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                double rate = Double.parseDouble(entry.substring(separator + 1).trim());
+                if (rate > 0) {
+                    expectedIntervals.put(entry.substring(0, separator).trim(), 1000 / rate);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("期望采样率配置无效: {}", entry);
+            }
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-quality-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleWithFixedDelay(this::reportQuietly, reportInterval, reportInterval, TimeUnit.MILLISECONDS);
+        log.info("数据质量监控已启用，报告周期: {}ms, 期望采样间隔: {}", reportInterval, expectedIntervals);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录接入的一条数据，应在时钟校正之后调用
+     *
+     * @param data 实时数据
+     */
+    public void record(RealTimeData data) {
+        if (!enabled || data == null || data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long arrivalMillis = System.currentTimeMillis();
+        long dataMillis = EpochTimes.toEpochMilli(data.getDataTime());
+        SourceQualityTracker tracker = trackers.computeIfAbsent(data.getSource(), source ->
+                new SourceQualityTracker(source, expectedIntervals.getOrDefault(source, 0.0), gapFactor, arrivalMillis));
+        synchronized (tracker) {
+            tracker.record(dataMillis, arrivalMillis, data);
+        }
+    }
+
+    /**
+     * 批量记录
+     */
+    public void record(List<RealTimeData> dataList) {
+        for (RealTimeData data : dataList) {
+            record(data);
+        }
+    }
+
+    /**
+     * 生成并发布各来源的质量快照
+     */
+    public void report() {
+        long now = System.currentTimeMillis();
+        for (SourceQualityTracker tracker : trackers.values()) {
+            DataQualitySnapshot snapshot;
+            synchronized (tracker) {
+                snapshot = tracker.snapshot(now, silentTimeout, degradedCompleteness);
+            }
+            DataQualitySnapshot previous = latest.put(snapshot.getSource(), snapshot);
+            if (!"OK".equals(snapshot.getStatus()) && (previous == null || !snapshot.getStatus().equals(previous.getStatus()))) {
+                log.warn("数据来源质量状态变为 {}，来源: {}, 采样率: {}/{}Hz, 断档: {}, 空闲: {}ms",
+                        snapshot.getStatus(), snapshot.getSource(), String.format("%.1f", snapshot.getActualRate()),
+                        String.format("%.1f", snapshot.getExpectedRate()), snapshot.getGaps(), snapshot.getIdleMillis());
+            }
+            eventBus.publish(EventTopics.DATA_QUALITY, snapshot);
+        }
+    }
+
+    /**
+     * 获取最近一次报告的质量快照
+     *
+     * @param source 数据来源，为空时返回全部来源
+     * @return 质量快照，按数据来源排序
+     */
+    public List<DataQualitySnapshot> getLatest(String source) {
+        if (source != null && !source.isEmpty()) {
+            DataQualitySnapshot snapshot = latest.get(source);
+            return snapshot != null ? List.of(snapshot) : List.of();
+        }
+        List<DataQualitySnapshot> snapshots = new ArrayList<>(latest.values());
+        snapshots.sort(Comparator.comparing(DataQualitySnapshot::getSource));
+        return snapshots;
+    }
+
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (Exception e) {
+            log.warn("生成数据质量快照失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.windtunnel.quality;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 数据来源的数据质量快照
+ *
+ * 窗口指标统计上一个报告周期内的数据，累计指标统计监控开始以来的数据
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class DataQualitySnapshot {
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 快照生成时间
+     */
+    private LocalDateTime time;
+
+    /**
+     * 质量状态：OK、DEGRADED、SILENT
+     */
+    private String status;
+
+    /**
+     * 统计窗口长度（毫秒）
+     */
+    private long windowMillis;
+
+    /**
+     * 窗口内接收的样本数
+     */
+    private long samples;
+
+    /**
+     * 期望采样率（Hz），未配置时由采样间隔的中位数估计
+     */
+    private double expectedRate;
+
+    /**
+     * 实际采样率（Hz）
+     */
+    private double actualRate;
+
+    /**
+     * 完整率（实际样本数 / 期望样本数，不超过1）
+     */
+    private double completeness;
+
+    /**
+     * 窗口内的断档次数
+     */
+    private long gaps;
+
+    /**
+     * 断档期间估计缺失的样本数
+     */
+    private long missingSamples;
+
+    /**
+     * 窗口内最长的采样间隔（毫秒）
+     */
+    private long maxGapMillis;
+
+    /**
+     * 窗口内的重复样本数（数据时间重复）
+     */
+    private long duplicates;
+
+    /**
+     * 窗口内的乱序样本数
+     */
+    private long outOfOrder;
+
+    /**
+     * 到达抖动（毫秒），按RFC 3550方式平滑的传输时间差
+     */
+    private double jitterMillis;
+
+    /**
+     * 最近一次样本的数据时间
+     */
+    private LocalDateTime lastSampleTime;
+
+    /**
+     * 距最近一次接收的时长（毫秒）
+     */
+    private long idleMillis;
+
+    /**
+     * 各通道的空值比例，只包含该来源上报过的通道
+     */
+    private Map<String, Double> nullRatios;
+
+    /**
+     * 到达间隔直方图，键为间隔区间
+     */
+    private Map<String, Long> interArrivalHistogram;
+
+    /**
+     * 累计样本数
+     */
+    private long totalSamples;
+
+    /**
+     * 累计断档次数
+     */
+    private long totalGaps;
+
+    /**
+     * 累计重复样本数
+     */
+    private long totalDuplicates;
+
+    /**
+     * 累计乱序样本数
+     */
+    private long totalOutOfOrder;
+}
@@ -0,0 +1,286 @@
+package com.windtunnel.quality;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个数据来源的数据质量跟踪器
+ *
+ * 每个样本O(1)更新计数器：按数据时间判断重复、乱序和断档，按到达时间统计到达间隔直方图和抖动，
+ * 按通道统计空值数量。未配置期望采样间隔时用随机逼近的方式在线估计采样间隔的中位数，不受断档影响。
+ * 窗口计数器在每次生成快照后清零，累计计数器一直保留。
+ *
+ * 非线程安全，由调用方加锁。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class SourceQualityTracker {
+
+    /**
+     * 到达间隔直方图桶数：[0,1ms)、[1,2ms)、[2,4ms) …… 最后一个桶为溢出桶
+     */
+    private static final int HISTOGRAM_BUCKETS = 18;
+
+    /**
+     * 判断乱序样本是否重复时回看的最近数据时间数量
+     */
+    private static final int RECENT_TIMES = 32;
+
+    /**
+     * 在线估计采样间隔时，开始判断断档前需要观测的间隔数
+     */
+    private static final int ESTIMATE_WARMUP = 32;
+
+    private static final int CHANNELS = RealTimeDataChannel.count();
+
+    private final String source;
+
+    private final double configuredInterval;
+
+    private final double gapFactor;
+
+    /**
+     * 采样间隔中位数估计（毫秒），0表示尚未估计
+     */
+    private double nominalInterval;
+
+    private long intervalsSeen;
+
+    private long lastDataMillis = Long.MIN_VALUE;
+
+    private long lastArrivalMillis = Long.MIN_VALUE;
+
+    private long lastTransit;
+
+    private double jitter;
+
+    private final long[] recentTimes = new long[RECENT_TIMES];
+
+    private int recentCursor;
+
+    private long windowStartMillis;
+
+    private long samples;
+
+    private long gaps;
+
+    private long missingSamples;
+
+    private long maxGapMillis;
+
+    private long duplicates;
+
+    private long outOfOrder;
+
+    private final long[] nullCounts = new long[CHANNELS];
+
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+    /**
+     * 各通道是否上报过取值
+     */
+    private final boolean[] reported = new boolean[CHANNELS];
+
+    private long totalSamples;
+
+    private long totalGaps;
+
+    private long totalDuplicates;
+
+    private long totalOutOfOrder;
+
+    /**
+     * @param source 数据来源
+     * @param configuredInterval 期望采样间隔（毫秒），0表示在线估计
+     * @param gapFactor 采样间隔超过期望间隔的倍数时视为断档
+     * @param nowMillis 开始跟踪的时间
+     */
+    SourceQualityTracker(String source, double configuredInterval, double gapFactor, long nowMillis) {
+        this.source = source;
+        this.configuredInterval = configuredInterval;
+        this.gapFactor = gapFactor;
+        this.windowStartMillis = nowMillis;
+        Arrays.fill(recentTimes, Long.MIN_VALUE);
+    }
+
+    /**
+     * 记录一个样本
+     *
+     * @param dataMillis 数据时间
+     * @param arrivalMillis 到达时间
+     * @param data 实时数据，用于统计通道空值
+     */
+    void record(long dataMillis, long arrivalMillis, RealTimeData data) {
+        samples++;
+        totalSamples++;
+        for (int i = 0; i < CHANNELS; i++) {
+            if (Double.isNaN(RealTimeDataChannel.of(i).read(data))) {
+                nullCounts[i]++;
+            } else {
+                reported[i] = true;
+            }
+        }
+
+        if (lastArrivalMillis != Long.MIN_VALUE) {
+            long interArrival = Math.max(0, arrivalMillis - lastArrivalMillis);
+            histogram[Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(interArrival))]++;
+        }
+        lastArrivalMillis = arrivalMillis;
+
+        if (lastDataMillis == Long.MIN_VALUE) {
+            lastDataMillis = dataMillis;
+            lastTransit = arrivalMillis - dataMillis;
+            remember(dataMillis);
+            return;
+        }
+        if (dataMillis <= lastDataMillis) {
+            if (dataMillis == lastDataMillis || isRecent(dataMillis)) {
+                duplicates++;
+                totalDuplicates++;
+            } else {
+                outOfOrder++;
+                totalOutOfOrder++;
+                remember(dataMillis);
+            }
+            return;
+        }
+
+        // 传输时间差的平滑绝对值（RFC 3550），反映网络和队列造成的到达抖动
+        long transit = arrivalMillis - dataMillis;
+        jitter += (Math.abs(transit - lastTransit) - jitter) / 16;
+        lastTransit = transit;
+
+        long interval = dataMillis - lastDataMillis;
+        double expected = expectedInterval();
+        boolean estimated = configuredInterval > 0 || intervalsSeen >= ESTIMATE_WARMUP;
+        if (estimated && interval > gapFactor * expected) {
+            gaps++;
+            totalGaps++;
+            missingSamples += Math.max(0, Math.round(interval / expected) - 1);
+        }
+        if (configuredInterval <= 0) {
+            // 中位数估计不受少量断档影响，断档样本同样参与估计
+            estimateInterval(interval);
+        }
+        intervalsSeen++;
+        maxGapMillis = Math.max(maxGapMillis, interval);
+        lastDataMillis = dataMillis;
+        remember(dataMillis);
+    }
+
+    /**
+     * 生成快照并清零窗口计数器
+     *
+     * @param nowMillis 当前时间
+     * @param silentTimeout 超过该时长未收到数据视为静默
+     * @param degradedCompleteness 完整率低于该值视为降级
+     */
+    DataQualitySnapshot snapshot(long nowMillis, long silentTimeout, double degradedCompleteness) {
+        long windowMillis = Math.max(1, nowMillis - windowStartMillis);
+        double expected = expectedInterval();
+        DataQualitySnapshot snapshot = new DataQualitySnapshot();
+        snapshot.setSource(source);
+        snapshot.setTime(EpochTimes.toLocalDateTime(nowMillis));
+        snapshot.setWindowMillis(windowMillis);
+        snapshot.setSamples(samples);
+        snapshot.setExpectedRate(expected > 0 ? 1000 / expected : 0);
+        snapshot.setActualRate(samples * 1000.0 / windowMillis);
+        double completeness = expected > 0 ? Math.min(1, samples * expected / windowMillis) : (samples > 0 ? 1 : 0);
+        snapshot.setCompleteness(completeness);
+        snapshot.setGaps(gaps);
+        snapshot.setMissingSamples(missingSamples);
+        snapshot.setMaxGapMillis(maxGapMillis);
+        snapshot.setDuplicates(duplicates);
+        snapshot.setOutOfOrder(outOfOrder);
+        snapshot.setJitterMillis(jitter);
+        snapshot.setLastSampleTime(lastDataMillis != Long.MIN_VALUE ? EpochTimes.toLocalDateTime(lastDataMillis) : null);
+        long idleMillis = lastArrivalMillis != Long.MIN_VALUE ? nowMillis - lastArrivalMillis : windowMillis;
+        snapshot.setIdleMillis(idleMillis);
+
+        Map<String, Double> nullRatios = new LinkedHashMap<>();
+        for (int i = 0; i < CHANNELS; i++) {
+            if (reported[i]) {
+                nullRatios.put(RealTimeDataChannel.of(i).getFieldName(), samples > 0 ? (double) nullCounts[i] / samples : 0);
+            }
+        }
+        snapshot.setNullRatios(nullRatios);
+        Map<String, Long> interArrival = new LinkedHashMap<>();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            if (histogram[i] > 0) {
+                interArrival.put(bucketLabel(i), histogram[i]);
+            }
+        }
+        snapshot.setInterArrivalHistogram(interArrival);
+
+        snapshot.setTotalSamples(totalSamples);
+        snapshot.setTotalGaps(totalGaps);
+        snapshot.setTotalDuplicates(totalDuplicates);
+        snapshot.setTotalOutOfOrder(totalOutOfOrder);
+        if (idleMillis > silentTimeout) {
+            snapshot.setStatus("SILENT");
+        } else if (gaps > 0 || completeness < degradedCompleteness) {
+            snapshot.setStatus("DEGRADED");
+        } else {
+            snapshot.setStatus("OK");
+        }
+
+        windowStartMillis = nowMillis;
+        samples = 0;
+        gaps = 0;
+        missingSamples = 0;
+        maxGapMillis = 0;
+        duplicates = 0;
+        outOfOrder = 0;
+        Arrays.fill(nullCounts, 0);
+        Arrays.fill(histogram, 0);
+        return snapshot;
+    }
+
+    private double expectedInterval() {
+        return configuredInterval > 0 ? configuredInterval : nominalInterval;
+    }
+
+    /**
+     * 中位数的随机逼近：估计值按固定比例向样本方向移动，收敛到样本的中位数
+     */
+    private void estimateInterval(long interval) {
+        if (nominalInterval == 0) {
+            nominalInterval = Math.max(1, interval);
+            return;
+        }
+        double step = Math.max(0.001, nominalInterval * 0.02);
+        nominalInterval += interval > nominalInterval ? step : -step;
+        nominalInterval = Math.max(0.001, nominalInterval);
+    }
+
+    private void remember(long dataMillis) {
+        recentTimes[recentCursor] = dataMillis;
+        recentCursor = (recentCursor + 1) % RECENT_TIMES;
+    }
+
+    private boolean isRecent(long dataMillis) {
+        for (long recent : recentTimes) {
+            if (recent == dataMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String bucketLabel(int bucket) {
+        if (bucket == 0) {
+            return "<1ms";
+        }
+        if (bucket == HISTOGRAM_BUCKETS - 1) {
+            return ">=" + (1L << (bucket - 1)) + "ms";
+        }
+        return (1L << (bucket - 1)) + "-" + (1L << bucket) + "ms";
+    }
+}
@@ -0,0 +1,167 @@
+package com.windtunnel.quantile;
+
+import com.windtunnel.timeseries.QuantileSketch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 单个数据来源和通道的分位数草图时间窗口
+ *
+ * 按固定长度的时间桶维护草图，最近的若干个时间桶常驻内存，有新数据的时间桶标记为待持久化；
+ * 持久化后超出内存保留数量的旧时间桶被淘汰，之后到达的属于已淘汰时间桶的迟到数据直接丢弃，
+ * 避免覆盖已持久化的汇总结果。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class ChannelSketchWindow {
+
+    private final String source;
+
+    private final String channel;
+
+    private final long bucketMillis;
+
+    private final int memoryBuckets;
+
+    private final double relativeAccuracy;
+
+    private final int maxSketchBuckets;
+
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+
+    /**
+     * 早于该时间的时间桶已被淘汰
+     */
+    private long evictedBefore = Long.MIN_VALUE;
+
+    ChannelSketchWindow(String source, String channel, long bucketMillis, int memoryBuckets,
+                        double relativeAccuracy, int maxSketchBuckets) {
+        this.source = source;
+        this.channel = channel;
+        this.bucketMillis = bucketMillis;
+        this.memoryBuckets = memoryBuckets;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxSketchBuckets = maxSketchBuckets;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    String getChannel() {
+        return channel;
+    }
+
+    long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+    }
+
+    /**
+     * 添加一个取值
+     */
+    synchronized void add(long timestamp, double value) {
+        long start = bucketStart(timestamp);
+        if (start < evictedBefore) {
+            return;
+        }
+        Bucket bucket = buckets.get(start);
+        if (bucket == null) {
+            bucket = new Bucket(new QuantileSketch(relativeAccuracy, maxSketchBuckets));
+            buckets.put(start, bucket);
+        }
+        bucket.sketch.add(value);
+        bucket.dirty = true;
+    }
+
+    /**
+     * 取出待持久化的时间桶快照
+     *
+     * @return 时间桶快照
+     */
+    synchronized List<BucketSnapshot> drainDirty() {
+        List<BucketSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.dirty) {
+                QuantileSketch sketch = bucket.sketch;
+                snapshots.add(new BucketSnapshot(entry.getKey(), sketch.getCount(), sketch.getMin(),
+                        sketch.getMax(), sketch.toBytes()));
+                bucket.dirty = false;
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 淘汰超出保留数量且已持久化的旧时间桶
+     */
+    synchronized void evict() {
+        while (buckets.size() > memoryBuckets && !buckets.firstEntry().getValue().dirty) {
+            long start = buckets.pollFirstEntry().getKey();
+            evictedBefore = start + bucketMillis;
+        }
+    }
+
+    /**
+     * 持久化失败时重新标记时间桶，由下次刷新重试
+     */
+    synchronized void markDirty(long bucketStart) {
+        Bucket bucket = buckets.get(bucketStart);
+        if (bucket != null) {
+            bucket.dirty = true;
+        }
+    }
+
+    /**
+     * 把时间桶起始时间在 [startMillis, endMillis) 内的内存草图合并到目标草图
+     *
+     * @param covered 已合并的时间桶起始时间
+     */
+    synchronized void mergeInto(QuantileSketch target, long startMillis, long endMillis, Set<Long> covered) {
+        for (Map.Entry<Long, Bucket> entry : buckets.subMap(startMillis, true, endMillis, false).entrySet()) {
+            target.merge(entry.getValue().sketch);
+            covered.add(entry.getKey());
+        }
+    }
+
+    private static final class Bucket {
+
+        private final QuantileSketch sketch;
+
+        private boolean dirty;
+
+        Bucket(QuantileSketch sketch) {
+            this.sketch = sketch;
+        }
+    }
+
+    /**
+     * 时间桶快照
+     */
+    static final class BucketSnapshot {
+
+        final long bucketStart;
+
+        final long count;
+
+        final double min;
+
+        final double max;
+
+        final byte[] sketch;
+
+        BucketSnapshot(long bucketStart, long count, double min, double max, byte[] sketch) {
+            this.bucketStart = bucketStart;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sketch = sketch;
+        }
+    }
+}
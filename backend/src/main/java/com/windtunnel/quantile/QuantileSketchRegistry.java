@@ -0,0 +1,236 @@
+package com.windtunnel.quantile;
+
+import com.windtunnel.entity.ChannelSketchRollup;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.repository.ChannelSketchRollupRepository;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.QuantileSketch;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通道分位数草图注册表
+ *
+ * 订阅实时数据，为每个数据来源和通道按时间桶增量维护分位数草图，定期把有更新的时间桶写入汇总集合。
+ * 查询任意时间范围的分位数时只合并对应时间桶的草图，耗时与时间桶数量有关，与样本数无关。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class QuantileSketchRegistry {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChannelSketchRollupRepository channelSketchRollupRepository;
+
+    @Value("${wind-tunnel.quantile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.quantile.channels:windSpeed,temperature,pressure,flow,power,vibration,voltage,current}")
+    private List<String> channels;
+
+    @Value("${wind-tunnel.quantile.relative-accuracy:0.01}")
+    private double relativeAccuracy;
+
+    @Value("${wind-tunnel.quantile.max-sketch-buckets:2048}")
+    private int maxSketchBuckets;
+
+    @Value("${wind-tunnel.quantile.bucket-size:60000}")
+    private long bucketMillis;
+
+    @Value("${wind-tunnel.quantile.memory-buckets:60}")
+    private int memoryBuckets;
+
+    @Value("${wind-tunnel.quantile.flush-interval:10000}")
+    private long flushInterval;
+
+    private final Map<String, Map<String, ChannelSketchWindow>> windows = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "quantile-sketch", events -> events.forEach(this::onData));
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quantile-sketch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        log.info("通道分位数草图已启用，通道: {}, 相对误差: {}, 时间桶: {}ms", channels, relativeAccuracy, bucketMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            // 停止前写入最后一批更新
+            flushQuietly();
+        }
+    }
+
+    /**
+     * 处理一条实时数据
+     *
+     * @param data 实时数据
+     */
+    public void onData(RealTimeData data) {
+        if (data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        Map<String, ChannelSketchWindow> sourceWindows = windows.computeIfAbsent(data.getSource(),
+                source -> new ConcurrentHashMap<>());
+        for (String channel : channels) {
+            double value = read(data, channel);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            sourceWindows.computeIfAbsent(channel, name -> new ChannelSketchWindow(data.getSource(), name,
+                    bucketMillis, memoryBuckets, relativeAccuracy, maxSketchBuckets)).add(timestamp, value);
+        }
+    }
+
+    /**
+     * 合并时间范围内的草图
+     *
+     * 按时间桶粒度合并，时间桶起始时间落在 [开始时间所在时间桶, 结束时间) 内的时间桶全部计入；
+     * 内存中的时间桶比已持久化的版本新，优先使用
+     *
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 合并后的草图，无数据时样本数为0
+     */
+    public QuantileSketch merge(String source, String channel, LocalDateTime startTime, LocalDateTime endTime) {
+        long startMillis = Math.floorDiv(EpochTimes.toEpochMilli(startTime), bucketMillis) * bucketMillis;
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        QuantileSketch merged = newSketch();
+        Set<Long> covered = new HashSet<>();
+        Map<String, ChannelSketchWindow> sourceWindows = windows.get(source);
+        ChannelSketchWindow window = sourceWindows != null ? sourceWindows.get(channel) : null;
+        if (window != null) {
+            window.mergeInto(merged, startMillis, endMillis, covered);
+        }
+        for (ChannelSketchRollup rollup : channelSketchRollupRepository.findBuckets(source, channel,
+                EpochTimes.toLocalDateTime(startMillis), endTime)) {
+            long bucketStart = EpochTimes.toEpochMilli(rollup.getBucketStart());
+            if (!covered.contains(bucketStart) && rollup.getSketch() != null) {
+                QuantileSketch sketch = QuantileSketch.fromBytes(rollup.getSketch());
+                if (sketch.getRelativeAccuracy() == relativeAccuracy) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 创建与配置精度一致的空草图
+     */
+    public QuantileSketch newSketch() {
+        return new QuantileSketch(relativeAccuracy, maxSketchBuckets);
+    }
+
+    /**
+     * 把有更新的时间桶写入汇总集合
+     *
+     * @return 写入的时间桶数量
+     */
+    public int flush() {
+        int written = 0;
+        for (Map<String, ChannelSketchWindow> sourceWindows : windows.values()) {
+            for (ChannelSketchWindow window : sourceWindows.values()) {
+                List<ChannelSketchWindow.BucketSnapshot> snapshots = window.drainDirty();
+                if (!snapshots.isEmpty()) {
+                    try {
+                        written += write(window, snapshots);
+                    } catch (RuntimeException e) {
+                        for (ChannelSketchWindow.BucketSnapshot snapshot : snapshots) {
+                            window.markDirty(snapshot.bucketStart);
+                        }
+                        throw e;
+                    }
+                }
+                window.evict();
+            }
+        }
+        return written;
+    }
+
+    private void flushQuietly() {
+        try {
+            int written = flush();
+            if (written > 0) {
+                log.debug("分位数草图已写入 {} 个时间桶", written);
+            }
+        } catch (Exception e) {
+            log.warn("写入分位数草图失败: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("null")
+    private int write(ChannelSketchWindow window, List<ChannelSketchWindow.BucketSnapshot> snapshots) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChannelSketchRollup.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (ChannelSketchWindow.BucketSnapshot snapshot : snapshots) {
+            String id = window.getSource() + ":" + window.getChannel() + ":" + snapshot.bucketStart;
+            Update update = new Update()
+                    .set("source", window.getSource())
+                    .set("channel", window.getChannel())
+                    .set("bucketStart", EpochTimes.toLocalDateTime(snapshot.bucketStart))
+                    .set("bucketMillis", bucketMillis)
+                    .set("count", snapshot.count)
+                    .set("minValue", snapshot.min)
+                    .set("maxValue", snapshot.max)
+                    .set("sketch", snapshot.sketch)
+                    .set("updateTime", now);
+            bulkOperations.upsert(new Query(Criteria.where("_id").is(id)), update);
+        }
+        bulkOperations.execute();
+        return snapshots.size();
+    }
+
+    private double read(RealTimeData data, String channel) {
+        RealTimeDataChannel field = RealTimeDataChannel.fromFieldName(channel);
+        if (field != null) {
+            return field.read(data);
+        }
+        Object value = data.getDataContent() != null ? data.getDataContent().get(channel) : null;
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,26 @@
+package com.windtunnel.repository;
+
+import com.windtunnel.entity.ChannelSchemaDefinition;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 宽通道模式定义数据访问层
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Repository
+public interface ChannelSchemaRepository extends MongoRepository<ChannelSchemaDefinition, String> {
+
+    /**
+     * 查询数据来源的所有模式版本，按模式ID升序排列
+     *
+     * @param source 数据来源
+     * @return 模式定义列表
+     */
+    List<ChannelSchemaDefinition> findBySourceOrderBySchemaIdAsc(String source);
+}
@@ -0,0 +1,34 @@
+package com.windtunnel.repository;
+
+import com.windtunnel.entity.ChannelSketchRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通道分位数草图汇总数据访问层
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Repository
+public interface ChannelSketchRollupRepository extends MongoRepository<ChannelSketchRollup, String> {
+
+    /**
+     * 查询时间桶起始时间在范围内的草图，按时间桶升序排列
+     *
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @return 草图列表
+     */
+    @Query(value = "{'source': ?0, 'channel': ?1, 'bucketStart': {'$gte': ?2, '$lt': ?3}}",
+           sort = "{'bucketStart': 1}")
+    List<ChannelSketchRollup> findBuckets(String source, String channel, LocalDateTime startTime, LocalDateTime endTime);
+
+}
@@ -0,0 +1,16 @@
+package com.windtunnel.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.windtunnel.entity.EquipmentCalibration;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 设备校准曲线数据访问接口
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface EquipmentCalibrationRepository extends BaseMapper<EquipmentCalibration> {
+}
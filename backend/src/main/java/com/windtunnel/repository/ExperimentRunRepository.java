@@ -0,0 +1,57 @@
+package com.windtunnel.repository;
+
+import com.windtunnel.entity.ExperimentRun;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 试验运行数据访问层
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Repository
+public interface ExperimentRunRepository extends MongoRepository<ExperimentRun, String> {
+
+    /**
+     * 查询与时间范围相交的运行，按开始时间升序排列
+     *
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 运行列表
+     */
+    @Query(value = "{'source': ?0, 'startTime': {'$lte': ?2}, 'endTime': {'$gte': ?1}}",
+           sort = "{'startTime': 1}")
+    List<ExperimentRun> findOverlapping(String source, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 根据试验排期查询运行
+     *
+     * @param experimentScheduleId 试验排期ID
+     * @return 运行列表
+     */
+    List<ExperimentRun> findByExperimentScheduleIdOrderByStartTimeAsc(Long experimentScheduleId);
+
+    /**
+     * 根据试验项目查询运行
+     *
+     * @param experimentProjectId 试验项目ID
+     * @return 运行列表
+     */
+    List<ExperimentRun> findByExperimentProjectIdOrderByStartTimeAsc(Long experimentProjectId);
+
+    /**
+     * 根据状态查询运行
+     *
+     * @param status 运行状态
+     * @return 运行列表
+     */
+    List<ExperimentRun> findByStatus(Integer status);
+
+}
@@ -0,0 +1,44 @@
+package com.windtunnel.repository;
+
+import com.windtunnel.entity.RealTimeDataChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 实时数据压缩块数据访问层
+ *
+ * 提供实时数据压缩块相关的MongoDB操作方法
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Repository
+public interface RealTimeDataChunkRepository extends MongoRepository<RealTimeDataChunk, String> {
+
+    /**
+     * 查询与时间范围相交的压缩块，按起始时间升序排列
+     *
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 压缩块列表
+     */
+    @Query(value = "{'source': ?0, 'channel': ?1, 'startTime': {'$lte': ?3}, 'endTime': {'$gte': ?2}}",
+           sort = "{'startTime': 1}")
+    List<RealTimeDataChunk> findOverlapping(String source, String channel, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 根据数据来源删除压缩块
+     *
+     * @param source 数据来源
+     * @return 删除记录数
+     */
+    long deleteBySource(String source);
+
+}
@@ -0,0 +1,374 @@
+package com.windtunnel.run;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.entity.experiment.ExperimentSchedule;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.repository.ExperimentRunRepository;
+import com.windtunnel.repository.experiment.ExperimentScheduleRepository;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 试验运行索引器
+ *
+ * 订阅实时数据，按数据来源识别试验运行的开始和结束，开始时写入运行记录并关联进行中的排期和试验项目，
+ * 运行期间定期写入统计摘要，结束时写入最终摘要。排期状态变化时同步开始或结束对应设备的运行。
+ * 归档任务把数据迁移到压缩块或列式分区后，把块指针追加到时间上相交的运行记录。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ExperimentRunIndexer {
+
+    /**
+     * 排期状态：进行中
+     */
+    private static final int SCHEDULE_IN_PROGRESS = 1;
+
+    private static final int RUN_IN_PROGRESS = 0;
+
+    private static final int RUN_FINISHED = 1;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ExperimentRunRepository experimentRunRepository;
+
+    @Autowired
+    private ExperimentScheduleRepository experimentScheduleRepository;
+
+    @Value("${wind-tunnel.experiment-run.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.experiment-run.activation-channel:windSpeed}")
+    private String activationChannelName;
+
+    @Value("${wind-tunnel.experiment-run.activation-threshold:1.0}")
+    private double activationThreshold;
+
+    @Value("${wind-tunnel.experiment-run.start-hold:2000}")
+    private long startHoldMillis;
+
+    @Value("${wind-tunnel.experiment-run.stop-hold:10000}")
+    private long stopHoldMillis;
+
+    @Value("${wind-tunnel.experiment-run.idle-timeout:30000}")
+    private long idleTimeoutMillis;
+
+    @Value("${wind-tunnel.experiment-run.checkpoint-interval:10000}")
+    private long checkpointInterval;
+
+    private RealTimeDataChannel activationChannel;
+
+    private final Map<String, RunSegmentTracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * 进行中的排期，键为设备ID
+     */
+    private final Map<Long, ExperimentSchedule> activeSchedules = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService checkpointer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        activationChannel = RealTimeDataChannel.fromFieldName(activationChannelName);
+        if (activationChannel == null) {
+            log.warn("试验运行激活通道无效: {}，使用windSpeed", activationChannelName);
+            activationChannel = RealTimeDataChannel.WIND_SPEED;
+        }
+        try {
+            closeStaleRuns();
+            QueryWrapper<ExperimentSchedule> wrapper = new QueryWrapper<>();
+            wrapper.eq("status", SCHEDULE_IN_PROGRESS);
+            for (ExperimentSchedule schedule : experimentScheduleRepository.selectList(wrapper)) {
+                if (schedule.getEquipmentId() != null) {
+                    activeSchedules.put(schedule.getEquipmentId(), schedule);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("加载试验运行状态失败: {}", e.getMessage());
+        }
+        eventBus.subscribe(EventTopics.REAL_TIME_DATA, "experiment-run", events -> events.forEach(this::onData));
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "experiment-run-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointQuietly, checkpointInterval, checkpointInterval,
+                TimeUnit.MILLISECONDS);
+        log.info("试验运行索引已启用，激活通道: {} > {}, 进行中的排期: {}", activationChannel.getFieldName(),
+                activationThreshold, activeSchedules.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            checkpointQuietly();
+        }
+    }
+
+    /**
+     * 处理一条实时数据
+     *
+     * @param data 实时数据
+     */
+    public void onData(RealTimeData data) {
+        if (data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        RunSegmentTracker tracker = trackers.computeIfAbsent(data.getSource(), source ->
+                new RunSegmentTracker(source, activationChannel, activationThreshold, startHoldMillis, stopHoldMillis));
+        boolean scheduled = data.getEquipmentId() != null && activeSchedules.containsKey(data.getEquipmentId());
+        synchronized (tracker) {
+            switch (tracker.onSample(data, timestamp, scheduled, System.currentTimeMillis())) {
+                case STARTED -> persistStart(tracker);
+                case STOPPED -> persistFinish(tracker, "STREAM");
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * 排期状态变化：进行中时设备的数据开始计入运行，结束或取消时结束设备上不再有激活信号的运行
+     *
+     * @param schedule 状态已更新的排期
+     */
+    public void onScheduleChanged(ExperimentSchedule schedule) {
+        if (!enabled || schedule == null || schedule.getEquipmentId() == null) {
+            return;
+        }
+        Long equipmentId = schedule.getEquipmentId();
+        if (Integer.valueOf(SCHEDULE_IN_PROGRESS).equals(schedule.getStatus())) {
+            activeSchedules.put(equipmentId, schedule);
+            // 已在运行的设备补充关联排期
+            for (RunSegmentTracker tracker : trackers.values()) {
+                synchronized (tracker) {
+                    if (tracker.isActive() && equipmentId.equals(tracker.getEquipmentId()) && tracker.getRunId() != null) {
+                        linkSchedule(tracker.getRunId(), schedule);
+                    }
+                }
+            }
+            return;
+        }
+        ExperimentSchedule active = activeSchedules.get(equipmentId);
+        if (active == null || !active.getId().equals(schedule.getId())) {
+            return;
+        }
+        activeSchedules.remove(equipmentId);
+        for (RunSegmentTracker tracker : trackers.values()) {
+            synchronized (tracker) {
+                if (tracker.isActive() && equipmentId.equals(tracker.getEquipmentId()) && !tracker.isStreamActive()) {
+                    tracker.stop();
+                    persistFinish(tracker, "SCHEDULE");
+                }
+            }
+        }
+    }
+
+    /**
+     * 把存储块指针追加到时间上相交的运行记录
+     *
+     * @param source 数据来源
+     * @param blocks 存储块指针
+     * @return 更新的运行数量
+     */
+    @SuppressWarnings("null")
+    public int attachBlocks(String source, List<ExperimentRun.BlockPointer> blocks) {
+        if (!enabled || blocks.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime first = blocks.get(0).getStartTime();
+        LocalDateTime last = blocks.get(0).getEndTime();
+        for (ExperimentRun.BlockPointer block : blocks) {
+            first = block.getStartTime().isBefore(first) ? block.getStartTime() : first;
+            last = block.getEndTime().isAfter(last) ? block.getEndTime() : last;
+        }
+        int updated = 0;
+        for (ExperimentRun run : experimentRunRepository.findOverlapping(source, first, last)) {
+            List<ExperimentRun.BlockPointer> overlapping = new ArrayList<>();
+            for (ExperimentRun.BlockPointer block : blocks) {
+                if (!block.getStartTime().isAfter(run.getEndTime()) && !block.getEndTime().isBefore(run.getStartTime())) {
+                    overlapping.add(block);
+                }
+            }
+            if (!overlapping.isEmpty()) {
+                Update update = new Update().addToSet("blocks").each(overlapping.toArray())
+                        .set("updateTime", LocalDateTime.now());
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(run.getId())), update, ExperimentRun.class);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 写入进行中运行的统计摘要，结束长时间没有数据的运行
+     */
+    public void checkpoint() {
+        long now = System.currentTimeMillis();
+        for (RunSegmentTracker tracker : trackers.values()) {
+            synchronized (tracker) {
+                if (!tracker.isActive()) {
+                    continue;
+                }
+                if (tracker.isIdleSince(now, idleTimeoutMillis)) {
+                    tracker.stop();
+                    persistFinish(tracker, "SILENT");
+                } else if (tracker.drainDirty() && tracker.getRunId() != null) {
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(tracker.getRunId())),
+                            summaryUpdate(tracker), ExperimentRun.class);
+                }
+            }
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            log.warn("写入试验运行摘要失败: {}", e.getMessage());
+        }
+    }
+
+    private void persistStart(RunSegmentTracker tracker) {
+        ExperimentRun run = new ExperimentRun();
+        run.setId(new ObjectId().toHexString());
+        run.setSource(tracker.getSource());
+        run.setEquipmentId(tracker.getEquipmentId());
+        run.setTrigger(tracker.getTrigger());
+        run.setStatus(RUN_IN_PROGRESS);
+        run.setStartTime(EpochTimes.toLocalDateTime(tracker.getStartMillis()));
+        run.setEndTime(EpochTimes.toLocalDateTime(tracker.getLastDataMillis()));
+        run.setSampleCount(tracker.getSampleCount());
+        run.setChannels(tracker.summaries());
+        ExperimentSchedule schedule = findSchedule(tracker.getEquipmentId(), run.getStartTime());
+        if (schedule != null) {
+            run.setExperimentScheduleId(schedule.getId());
+            run.setExperimentProjectId(schedule.getExperimentProjectId());
+        }
+        run.setCreateTime(LocalDateTime.now());
+        run.setUpdateTime(run.getCreateTime());
+        try {
+            mongoTemplate.insert(run);
+            tracker.setRunId(run.getId());
+            tracker.drainDirty();
+            log.info("试验运行开始，数据来源: {}, 运行ID: {}, 触发方式: {}, 排期: {}", run.getSource(), run.getId(),
+                    run.getTrigger(), run.getExperimentScheduleId());
+        } catch (Exception e) {
+            log.warn("写入试验运行记录失败，数据来源: {}, 原因: {}", tracker.getSource(), e.getMessage());
+        }
+    }
+
+    private void persistFinish(RunSegmentTracker tracker, String stopReason) {
+        if (tracker.getRunId() == null) {
+            return;
+        }
+        Update update = summaryUpdate(tracker).set("status", RUN_FINISHED).set("stopReason", stopReason);
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(tracker.getRunId())), update, ExperimentRun.class);
+            log.info("试验运行结束，数据来源: {}, 运行ID: {}, 样本数: {}, 原因: {}", tracker.getSource(),
+                    tracker.getRunId(), tracker.getSampleCount(), stopReason);
+        } catch (Exception e) {
+            log.warn("写入试验运行结束状态失败，运行ID: {}, 原因: {}", tracker.getRunId(), e.getMessage());
+        }
+        tracker.setRunId(null);
+    }
+
+    private Update summaryUpdate(RunSegmentTracker tracker) {
+        return new Update()
+                .set("endTime", EpochTimes.toLocalDateTime(tracker.getLastDataMillis()))
+                .set("sampleCount", tracker.getSampleCount())
+                .set("channels", tracker.summaries())
+                .set("updateTime", LocalDateTime.now());
+    }
+
+    private void linkSchedule(String runId, ExperimentSchedule schedule) {
+        Update update = new Update()
+                .set("experimentScheduleId", schedule.getId())
+                .set("experimentProjectId", schedule.getExperimentProjectId());
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(runId).and("experimentScheduleId").is(null)),
+                    update, ExperimentRun.class);
+        } catch (Exception e) {
+            log.warn("关联试验排期失败，运行ID: {}, 原因: {}", runId, e.getMessage());
+        }
+    }
+
+    /**
+     * 查找设备在运行开始时对应的排期：优先进行中的排期，其次计划时间覆盖开始时间且未取消的排期
+     */
+    private ExperimentSchedule findSchedule(Long equipmentId, LocalDateTime startTime) {
+        if (equipmentId == null) {
+            return null;
+        }
+        ExperimentSchedule active = activeSchedules.get(equipmentId);
+        if (active != null) {
+            return active;
+        }
+        try {
+            QueryWrapper<ExperimentSchedule> wrapper = new QueryWrapper<>();
+            wrapper.eq("equipment_id", equipmentId)
+                   .le("start_time", startTime)
+                   .ge("end_time", startTime)
+                   .ne("status", 3)
+                   .orderByDesc("start_time")
+                   .last("limit 1");
+            List<ExperimentSchedule> schedules = experimentScheduleRepository.selectList(wrapper);
+            return schedules.isEmpty() ? null : schedules.get(0);
+        } catch (Exception e) {
+            log.warn("查询试验排期失败，设备: {}, 原因: {}", equipmentId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 服务重启前未结束的运行无法继续累计，按最后写入的摘要结束
+     */
+    private void closeStaleRuns() {
+        Update update = new Update()
+                .set("status", RUN_FINISHED)
+                .set("stopReason", "RESTART")
+                .set("updateTime", LocalDateTime.now());
+        long closed = mongoTemplate.updateMulti(new Query(Criteria.where("status").is(RUN_IN_PROGRESS)), update,
+                ExperimentRun.class).getModifiedCount();
+        if (closed > 0) {
+            log.info("结束服务重启前未结束的试验运行: {} 个", closed);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.windtunnel.run;
+
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个数据来源的试验运行分段状态机
+ *
+ * 空闲状态下激活通道持续高于阈值达到起始保持时间，或设备有进行中的排期时进入运行状态；
+ * 激活通道持续不高于阈值达到结束保持时间且没有进行中的排期时结束运行。
+ * 激活通道越过阈值时即开始累计统计量，确认开始后运行的起始时间回溯到越过阈值的时刻。
+ * 各通道的统计量（Welford均值和方差、极值、首末值）保存在原始类型数组中，每个样本O(通道数)。
+ *
+ * 非线程安全，由调用方加锁。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class RunSegmentTracker {
+
+    /**
+     * 样本处理结果
+     */
+    enum Transition {
+        NONE,
+        STARTED,
+        STOPPED
+    }
+
+    private static final int CHANNELS = RealTimeDataChannel.count();
+
+    private final String source;
+
+    private final RealTimeDataChannel activationChannel;
+
+    private final double activationThreshold;
+
+    private final long startHoldMillis;
+
+    private final long stopHoldMillis;
+
+    private Long equipmentId;
+
+    private boolean active;
+
+    private long aboveSince = Long.MIN_VALUE;
+
+    private long belowSince = Long.MIN_VALUE;
+
+    private long lastArrivalMillis;
+
+    private String runId;
+
+    private String trigger;
+
+    private long startMillis;
+
+    private long lastDataMillis;
+
+    private long sampleCount;
+
+    private boolean dirty;
+
+    private final long[] counts = new long[CHANNELS];
+
+    private final double[] means = new double[CHANNELS];
+
+    private final double[] m2 = new double[CHANNELS];
+
+    private final double[] mins = new double[CHANNELS];
+
+    private final double[] maxs = new double[CHANNELS];
+
+    private final double[] firsts = new double[CHANNELS];
+
+    private final double[] lasts = new double[CHANNELS];
+
+    RunSegmentTracker(String source, RealTimeDataChannel activationChannel, double activationThreshold,
+                      long startHoldMillis, long stopHoldMillis) {
+        this.source = source;
+        this.activationChannel = activationChannel;
+        this.activationThreshold = activationThreshold;
+        this.startHoldMillis = startHoldMillis;
+        this.stopHoldMillis = stopHoldMillis;
+    }
+
+    /**
+     * 处理一个样本
+     *
+     * @param data 实时数据
+     * @param timestamp 数据时间（毫秒）
+     * @param scheduled 设备是否有进行中的排期
+     * @param arrivalMillis 接收时间
+     * @return 状态变化
+     */
+    Transition onSample(RealTimeData data, long timestamp, boolean scheduled, long arrivalMillis) {
+        lastArrivalMillis = arrivalMillis;
+        if (data.getEquipmentId() != null) {
+            equipmentId = data.getEquipmentId();
+        }
+        boolean above = activationChannel.read(data) > activationThreshold;
+        if (above) {
+            belowSince = Long.MIN_VALUE;
+            if (aboveSince == Long.MIN_VALUE) {
+                aboveSince = timestamp;
+                if (!active) {
+                    // 越过阈值时开始累计，未确认开始前回落则在下次越过阈值时重新累计
+                    resetStatistics(timestamp);
+                }
+            }
+        } else {
+            aboveSince = Long.MIN_VALUE;
+            if (belowSince == Long.MIN_VALUE) {
+                belowSince = timestamp;
+            }
+        }
+
+        if (!active) {
+            if (above) {
+                accumulate(data, timestamp);
+            }
+            if (above && timestamp - aboveSince >= startHoldMillis) {
+                start("STREAM", data, timestamp);
+                return Transition.STARTED;
+            }
+            if (scheduled) {
+                if (!above) {
+                    resetStatistics(timestamp);
+                }
+                start("SCHEDULE", data, timestamp);
+                return Transition.STARTED;
+            }
+            return Transition.NONE;
+        }
+
+        accumulate(data, timestamp);
+        if (!scheduled && belowSince != Long.MIN_VALUE && timestamp - belowSince >= stopHoldMillis) {
+            active = false;
+            return Transition.STOPPED;
+        }
+        return Transition.NONE;
+    }
+
+    /**
+     * 结束当前运行（排期结束或数据中断）
+     */
+    void stop() {
+        active = false;
+        aboveSince = Long.MIN_VALUE;
+        belowSince = Long.MIN_VALUE;
+    }
+
+    /**
+     * 激活通道当前是否高于阈值
+     */
+    boolean isStreamActive() {
+        return aboveSince != Long.MIN_VALUE;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    boolean isIdleSince(long nowMillis, long timeoutMillis) {
+        return nowMillis - lastArrivalMillis > timeoutMillis;
+    }
+
+    /**
+     * 取出并清除有更新标记
+     */
+    boolean drainDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    String getRunId() {
+        return runId;
+    }
+
+    void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    String getTrigger() {
+        return trigger;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    long getLastDataMillis() {
+        return lastDataMillis;
+    }
+
+    long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 生成各通道统计摘要，只包含有样本的通道
+     */
+    Map<String, ExperimentRun.ChannelSummary> summaries() {
+        Map<String, ExperimentRun.ChannelSummary> summaries = new LinkedHashMap<>();
+        for (int i = 0; i < CHANNELS; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            ExperimentRun.ChannelSummary summary = new ExperimentRun.ChannelSummary();
+            summary.setCount(counts[i]);
+            summary.setMin(mins[i]);
+            summary.setMax(maxs[i]);
+            summary.setMean(means[i]);
+            summary.setStd(counts[i] > 1 ? Math.sqrt(m2[i] / (counts[i] - 1)) : 0.0);
+            summary.setFirst(firsts[i]);
+            summary.setLast(lasts[i]);
+            summaries.put(RealTimeDataChannel.of(i).getFieldName(), summary);
+        }
+        return summaries;
+    }
+
+    private void start(String runTrigger, RealTimeData data, long timestamp) {
+        active = true;
+        trigger = runTrigger;
+        runId = null;
+        if (sampleCount == 0) {
+            accumulate(data, timestamp);
+        }
+    }
+
+    private void resetStatistics(long timestamp) {
+        startMillis = timestamp;
+        lastDataMillis = timestamp;
+        sampleCount = 0;
+        Arrays.fill(counts, 0);
+        Arrays.fill(means, 0);
+        Arrays.fill(m2, 0);
+        dirty = false;
+    }
+
+    private void accumulate(RealTimeData data, long timestamp) {
+        sampleCount++;
+        lastDataMillis = Math.max(lastDataMillis, timestamp);
+        dirty = true;
+        for (int i = 0; i < CHANNELS; i++) {
+            double value = RealTimeDataChannel.of(i).read(data);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            long count = ++counts[i];
+            if (count == 1) {
+                mins[i] = value;
+                maxs[i] = value;
+                firsts[i] = value;
+            } else {
+                mins[i] = Math.min(mins[i], value);
+                maxs[i] = Math.max(maxs[i], value);
+            }
+            lasts[i] = value;
+            double delta = value - means[i];
+            means[i] += delta / count;
+            m2[i] += delta * (value - means[i]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.windtunnel.service;
+
+import com.windtunnel.common.Result;
+import com.windtunnel.entity.EquipmentCalibration;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 设备校准服务接口
+ * 
+ * 管理带版本的设备通道校准曲线，并支持对历史数据重新校准
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface CalibrationService {
+
+    /**
+     * 新增校准曲线版本
+     * 
+     * @param calibration 校准曲线，版本号自动递增，生效时间为空时立即生效
+     * @return 保存后的校准曲线
+     */
+    Result<EquipmentCalibration> saveCalibration(EquipmentCalibration calibration);
+
+    /**
+     * 查询设备的校准曲线版本
+     * 
+     * @param equipmentId 设备ID
+     * @param channel 通道字段名，为空时查询所有通道
+     * @return 校准曲线列表，按通道和版本排序
+     */
+    Result<List<EquipmentCalibration>> getCalibrations(Long equipmentId, String channel);
+
+    /**
+     * 按当前启用的校准曲线重新校准设备的历史数据
+     * 
+     * @param equipmentId 设备ID
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 扫描和更新的数据量
+     */
+    Result<Map<String, Object>> recalibrate(Long equipmentId, LocalDateTime startTime, LocalDateTime endTime);
+}
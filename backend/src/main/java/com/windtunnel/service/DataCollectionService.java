@@ -2,9 +2,11 @@ package com.windtunnel.service;
 
 import com.windtunnel.entity.RealTimeData;
 import com.windtunnel.common.Result;
+import com.windtunnel.ingest.IngestLaneStatistics;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据采集服务接口
@@ -101,4 +103,46 @@ public interface DataCollectionService {
      */
     Result<Boolean> triggerAlert(RealTimeData realTimeData);
 
-}
\ No newline at end of file
+    /**
+     * 查询压缩归档的历史数据序列
+     * 
+     * @param source 数据来源
+     * @param channel 通道名称（windSpeed、temperature等）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 归档数据序列
+     */
+    Result<Map<String, Object>> findArchivedSeries(String source, String channel, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 查询降采样后的通道序列，用于长时间范围的图表展示
+     * 
+     * @param source 数据来源
+     * @param channels 通道名称列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param points 每个通道的目标点数
+     * @param method 降采样方法：lttb-最大三角形三桶，minmax-每桶最小最大值
+     * @return 每个通道的时间戳和取值数组
+     */
+    Result<Map<String, Object>> downsampleSeries(String source, List<String> channels, LocalDateTime startTime,
+                                                 LocalDateTime endTime, int points, String method);
+
+    /**
+     * 从近期历史缓冲区读取通道数据，用于实时图表的回填和增量拉取
+     * 
+     * @param source 数据来源
+     * @param channels 通道名称列表，为空时返回全部缓冲的通道
+     * @param since 开始时间（毫秒时间戳，不含），为空时返回内存中保留的全部数据
+     * @return 每个通道的时间戳和取值数组，以及实际读取的开始时间
+     */
+    Result<Map<String, Object>> getRecentSeries(String source, List<String> channels, Long since);
+
+    /**
+     * 获取TCP接入各优先级通道的排队、丢弃和排队时间统计
+     * 
+     * @return 各通道统计
+     */
+    Result<List<IngestLaneStatistics>> getIngestLaneStatistics();
+
+}
@@ -0,0 +1,140 @@
+package com.windtunnel.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.windtunnel.calibration.CalibrationRegistry;
+import com.windtunnel.config.MessageQueueConfig;
+import com.windtunnel.derived.DerivedChannelRegistry;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kafka实时数据消费者服务
+ * 
+ * 按分区批量消费实时数据，先执行异常检测再批量写入MongoDB。每个消费线程独占若干分区，
+ * 同一数据来源的数据在分区内按发送顺序处理
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = MessageQueueConfig.TRANSPORT_PROPERTY, havingValue = "kafka")
+public class KafkaDataConsumerService {
+
+    /**
+     * MongoDB重复键错误码
+     */
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+
+    /**
+     * 批量消费实时数据
+     * 
+     * 文档ID由分区和偏移量确定，整批重试时已写入的数据以重复键形式被忽略。
+     * 无法解析或被数据库拒绝的单条消息以 {@link BatchListenerFailedException} 指明，由错误处理器转入死信主题；
+     * 其他错误（数据库不可用等）原样抛出，整批退避重试
+     * 
+     * @param records 消息记录列表
+     */
+    @KafkaListener(topics = "${wind-tunnel.kafka.topic:wind-tunnel.real-time-data}",
+                   groupId = "${wind-tunnel.kafka.group-id:wind-tunnel-data-collection}",
+                   containerFactory = MessageQueueConfig.KAFKA_LISTENER_CONTAINER_FACTORY)
+    @SuppressWarnings("null")
+    public void consumeRealTimeData(List<ConsumerRecord<String, RealTimeData>> records) {
+        List<RealTimeData> documents = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, RealTimeData> record : records) {
+            RealTimeData realTimeData = record.value();
+            if (realTimeData == null) {
+                // 反序列化失败的消息以空值到达，原始报文由错误处理器转入死信主题
+                throw new BatchListenerFailedException("无法解析的实时数据消息，分区: " + record.partition()
+                        + ", 偏移量: " + record.offset(), record);
+            }
+            realTimeData.setId(recordId(record));
+            documents.add(realTimeData);
+        }
+        
+        // 整批校准并计算派生通道，异常检测基于校准后的取值
+        calibrationRegistry.apply(documents);
+        derivedChannelRegistry.apply(documents);
+        for (RealTimeData realTimeData : documents) {
+            checkForAnomalies(realTimeData);
+        }
+        
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RealTimeData.class)
+                    .insert(documents)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // 无序写入时其余文档已写入，从最早被拒绝的文档处重试，之前的偏移量可以提交
+            int firstRejected = e.getErrors().stream()
+                    .filter(error -> error.getCode() != DUPLICATE_KEY_ERROR)
+                    .mapToInt(BulkWriteError::getIndex)
+                    .min()
+                    .orElse(-1);
+            if (firstRejected >= 0) {
+                throw new BatchListenerFailedException("实时数据被数据库拒绝", e, records.get(firstRejected));
+            }
+            log.debug("实时数据批次存在已写入的数据，重复数量: {}", e.getErrors().size());
+        }
+        for (RealTimeData document : documents) {
+            eventBus.publish(EventTopics.REAL_TIME_DATA, document);
+        }
+        log.debug("Kafka实时数据批次处理完成，数量: {}", documents.size());
+    }
+
+    /**
+     * 根据消息时间、分区和偏移量生成确定的文档ID
+     * 
+     * @param record 消息记录
+     * @return 文档ID
+     */
+    private String recordId(ConsumerRecord<String, RealTimeData> record) {
+        ByteBuffer bytes = ByteBuffer.allocate(12);
+        bytes.putInt((int) (record.timestamp() / 1000));
+        bytes.putShort((short) record.partition());
+        bytes.putShort((short) (record.offset() >>> 32));
+        bytes.putInt((int) record.offset());
+        return new ObjectId(bytes.array()).toHexString();
+    }
+
+    /**
+     * 检查数据中的异常
+     * 
+     * @param realTimeData 实时数据
+     */
+    private void checkForAnomalies(RealTimeData realTimeData) {
+        if (AnomalyDetectionStrategyFactory.detect(realTimeData)) {
+            log.warn("检测到数据异常，设备: {}, 异常: {}", realTimeData.getSource(), realTimeData.getAnomalyDescription());
+        }
+    }
+
+}
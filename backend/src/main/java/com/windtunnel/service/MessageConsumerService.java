@@ -1,14 +1,35 @@
 package com.windtunnel.service;
 
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.rabbitmq.client.Channel;
+import com.windtunnel.calibration.CalibrationRegistry;
 import com.windtunnel.config.MessageQueueConfig;
+import com.windtunnel.derived.DerivedChannelRegistry;
 import com.windtunnel.entity.RealTimeData;
-import com.windtunnel.repository.RealTimeDataRepository;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import com.windtunnel.quality.DataQualityMonitor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 消息消费者服务
  * 
@@ -22,28 +43,242 @@ import org.springframework.stereotype.Service;
 @Service
 public class MessageConsumerService {
 
+    /**
+     * MongoDB重复键错误码
+     */
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    /**
+     * 数据库不可用时原地重试的初始间隔（毫秒）
+     */
+    @Value("${wind-tunnel.mq.retry.initial-interval:1000}")
+    private long retryInitialInterval;
+
+    /**
+     * 数据库不可用时原地重试的最大间隔（毫秒）
+     */
+    @Value("${wind-tunnel.mq.retry.max-interval:30000}")
+    private long retryMaxInterval;
+
+    /**
+     * 单批原地重试的最长时间（毫秒），超过后整批重新入队
+     */
+    @Value("${wind-tunnel.mq.retry.max-wait:300000}")
+    private long retryMaxWait;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Autowired
+    private EventBus eventBus;
+    
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+    
     @Autowired
-    private RealTimeDataRepository realTimeDataRepository;
+    private DerivedChannelRegistry derivedChannelRegistry;
+    
+    @Autowired
+    private DataQualityMonitor dataQualityMonitor;
 
     /**
-     * 消费实时数据消息
+     * 批量消费实时数据消息
      * 
-     * @param realTimeData 实时数据
+     * 一批消息一次批量写入MongoDB，写入成功后一次性确认；写入失败时二分拆批重试，
+     * 仍然失败的单条消息和无法解析的消息拒绝且不重新入队，由死信交换机转入死信队列，避免毒消息阻塞队列。
+     * 数据库连接失败、超时等暂时性错误不属于毒消息：整批按指数退避原地重试，期间消费者不再拉取新消息，
+     * 超过最长重试时间后整批重新入队，数据不会丢弃
+     * 
+     * @param messages 原始消息列表
+     * @param channel RabbitMQ通道
      */
-    @RabbitListener(queues = MessageQueueConfig.DATA_COLLECTION_QUEUE)
-    public void consumeRealTimeData(@NonNull RealTimeData realTimeData) {
-        log.info("接收到实时数据消息: {}", realTimeData);
+    @RabbitListener(queues = MessageQueueConfig.DATA_COLLECTION_QUEUE,
+                    containerFactory = MessageQueueConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void consumeRealTimeData(List<Message> messages, Channel channel) throws IOException {
+        log.debug("接收到实时数据消息批次，数量: {}", messages.size());
+        
+        List<PendingMessage> batch = new ArrayList<>(messages.size());
+        long lastDeliveryTag = 0;
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            lastDeliveryTag = Math.max(lastDeliveryTag, deliveryTag);
+            RealTimeData realTimeData = convert(message);
+            if (realTimeData == null) {
+                channel.basicNack(deliveryTag, false, false);
+                continue;
+            }
+            // 预先分配ID，保证拆批重试时已写入的文档以重复键形式被识别，不会重复写入
+            if (realTimeData.getId() == null) {
+                realTimeData.setId(new ObjectId().toHexString());
+            }
+            batch.add(new PendingMessage(deliveryTag, realTimeData));
+        }
         
+        // 整批校准后再计算派生通道，保存前执行异常检测，异常状态和描述随数据一起保存
+        List<RealTimeData> batchData = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            batchData.add(pending.realTimeData);
+        }
+        calibrationRegistry.apply(batchData);
+        derivedChannelRegistry.apply(batchData);
+        for (RealTimeData realTimeData : batchData) {
+            if (AnomalyDetectionStrategyFactory.detect(realTimeData)) {
+                log.warn("检测到数据异常，设备: {}, 异常: {}", realTimeData.getSource(), realTimeData.getAnomalyDescription());
+            }
+        }
+        
+        int failedCount;
         try {
-            // 保存实时数据到数据库
-            realTimeDataRepository.save(realTimeData);
-            log.info("实时数据已保存到数据库，ID: {}", realTimeData.getId());
-            
-            // 进行数据处理和分析
-            processData(realTimeData);
+            failedCount = saveWithRetry(batch);
+        } catch (InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("实时数据写入暂时失败，整批重新入队，批次大小: {}, 原因: {}", batch.size(), e.getMessage());
+            for (PendingMessage pending : batch) {
+                channel.basicNack(pending.deliveryTag, false, true);
+            }
+            return;
+        }
+        
+        if (failedCount == 0 && batch.size() == messages.size()) {
+            channel.basicAck(lastDeliveryTag, true);
+        } else {
+            for (PendingMessage pending : batch) {
+                if (pending.failed) {
+                    channel.basicNack(pending.deliveryTag, false, false);
+                } else {
+                    channel.basicAck(pending.deliveryTag, false);
+                }
+            }
+        }
+        log.debug("实时数据消息批次处理完成，成功: {}, 失败: {}", batch.size() - failedCount, messages.size() - batch.size() + failedCount);
+        
+        // 质量统计只记录已确认的消息，重新入队后再次投递的消息不会重复计数
+        for (PendingMessage pending : batch) {
+            if (!pending.failed) {
+                dataQualityMonitor.record(pending.realTimeData);
+                processData(pending.realTimeData);
+            }
+        }
+    }
+
+    /**
+     * 批量写入，暂时性错误按指数退避重试
+     * 
+     * 已写入的文档在重试时以重复键形式被识别，不会重复写入
+     * 
+     * @param batch 待写入批次
+     * @return 最终写入失败的消息数量
+     * @throws InterruptedException 等待重试时线程被中断
+     * @throws RuntimeException 超过最长重试时间仍为暂时性错误
+     */
+    private int saveWithRetry(List<PendingMessage> batch) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + retryMaxWait;
+        long interval = retryInitialInterval;
+        while (true) {
+            for (PendingMessage pending : batch) {
+                pending.failed = false;
+            }
+            try {
+                return saveWithSplit(batch);
+            } catch (RuntimeException e) {
+                if (!isTransient(e) || System.currentTimeMillis() + interval > deadline) {
+                    throw e;
+                }
+                log.warn("实时数据写入暂时失败，{} 毫秒后重试，批次大小: {}, 原因: {}", interval, batch.size(), e.getMessage());
+                Thread.sleep(interval);
+                interval = Math.min(interval * 2, retryMaxInterval);
+            }
+        }
+    }
+
+    /**
+     * 批量写入，失败时二分拆批重试
+     * 
+     * @param batch 待写入批次
+     * @return 最终写入失败的消息数量
+     * @throws RuntimeException 暂时性错误直接抛出，不拆批
+     */
+    private int saveWithSplit(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            bulkInsert(batch);
+            return 0;
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            if (batch.size() == 1) {
+                log.error("实时数据写入失败，消息将被拒绝: {}", e.getMessage(), e);
+                batch.get(0).failed = true;
+                return 1;
+            }
+            log.warn("实时数据批量写入失败，拆分重试，批次大小: {}, 原因: {}", batch.size(), e.getMessage());
+            int middle = batch.size() / 2;
+            return saveWithSplit(batch.subList(0, middle)) + saveWithSplit(batch.subList(middle, batch.size()));
+        }
+    }
+
+    /**
+     * 是否为数据库连接失败、超时等暂时性错误，与消息内容无关，重试可能成功
+     */
+    private boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof MongoSocketException
+                    || cause instanceof MongoTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 无序批量插入，重复键错误视为已写入
+     */
+    @SuppressWarnings("null")
+    private void bulkInsert(List<PendingMessage> batch) {
+        List<RealTimeData> documents = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            documents.add(pending.realTimeData);
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RealTimeData.class)
+                    .insert(documents)
+                    .execute();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY_ERROR);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 将原始消息转换为实时数据
+     * 
+     * @param message 原始消息
+     * @return 实时数据，无法解析时返回null
+     */
+    private RealTimeData convert(Message message) {
+        try {
+            message.getMessageProperties().setInferredArgumentType(RealTimeData.class);
+            Object payload = messageConverter.fromMessage(message);
+            if (payload instanceof RealTimeData) {
+                return (RealTimeData) payload;
+            }
+            log.warn("无法识别的实时数据消息类型: {}", payload != null ? payload.getClass() : null);
         } catch (Exception e) {
-            log.error("处理实时数据消息失败: {}", e.getMessage(), e);
+            log.error("解析实时数据消息失败: {}", e.getMessage(), e);
         }
+        return null;
     }
 
     /**
@@ -53,12 +288,14 @@ public class MessageConsumerService {
      */
     private void processData(@NonNull RealTimeData realTimeData) {
         // 在这里可以添加数据验证、异常检测等逻辑
-        log.info("正在处理实时数据，来源: {}, 时间: {}", realTimeData.getSource(), realTimeData.getDataTime());
+        log.debug("正在处理实时数据，来源: {}, 时间: {}", realTimeData.getSource(), realTimeData.getDataTime());
         
         // 示例：检查数据异常
         if (realTimeData.getWindSpeed() != null && realTimeData.getWindSpeed().compareTo(new java.math.BigDecimal("150")) > 0) {
             log.warn("检测到异常数据: 风速过高 - {}", realTimeData.getWindSpeed());
         }
+        
+        eventBus.publish(EventTopics.REAL_TIME_DATA, realTimeData);
     }
 
     /**
@@ -72,4 +309,21 @@ public class MessageConsumerService {
         // 处理通知消息的逻辑
     }
 
+    /**
+     * 待确认的消息
+     */
+    private static class PendingMessage {
+
+        private final long deliveryTag;
+
+        private final RealTimeData realTimeData;
+
+        private boolean failed;
+
+        PendingMessage(long deliveryTag, RealTimeData realTimeData) {
+            this.deliveryTag = deliveryTag;
+            this.realTimeData = realTimeData;
+        }
+    }
+
 }
\ No newline at end of file
@@ -1,11 +1,20 @@
 package com.windtunnel.service;
 
 import com.windtunnel.config.MessageQueueConfig;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.mq.AsyncConfirmPublisher;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 消息生产者服务
  * 
@@ -22,19 +31,61 @@ public class MessageProducerService {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private AsyncConfirmPublisher asyncConfirmPublisher;
+
+    /**
+     * 实时数据发送方式：async-异步确认批量发送，sync-同步发送
+     */
+    @Value("${wind-tunnel.mq.publisher.mode:async}")
+    private String publishMode;
+
+    @Autowired
+    private ObjectProvider<KafkaTemplate<String, RealTimeData>> realTimeDataKafkaTemplate;
+
     /**
      * 发送实时数据到消息队列
      * 
+     * 异步模式下只入队即返回，由发布器批量发送并处理确认；失败的消息溢写到本地后重发，
+     * 因此实时数据在发送前预先分配ID，消费端据此识别重复消息
+     * 
      * @param data 要发送的数据
      */
     public void sendRealTimeData(Object data) {
-        log.info("发送实时数据到消息队列: {}", data);
+        log.debug("发送实时数据到消息队列: {}", data);
+        if (data instanceof RealTimeData && ((RealTimeData) data).getId() == null) {
+            ((RealTimeData) data).setId(new ObjectId().toHexString());
+        }
+        if ("async".equals(publishMode)) {
+            asyncConfirmPublisher.publish(data);
+            return;
+        }
         rabbitTemplate.convertAndSend(
             MessageQueueConfig.DATA_COLLECTION_EXCHANGE,
             MessageQueueConfig.DATA_COLLECTION_ROUTING_KEY,
             data
         );
-        log.info("实时数据已发送到消息队列");
+    }
+
+    /**
+     * 发送实时数据到Kafka
+     * 
+     * 以数据来源为消息键，同一来源的数据进入同一分区以保证顺序；发送为异步批量，
+     * 调用方应在发送结果完成后再向数据源确认
+     * 
+     * @param data 实时数据
+     * @return 发送结果，Broker确认写入后完成，发送失败时异常完成
+     */
+    public CompletableFuture<SendResult<String, RealTimeData>> sendRealTimeDataToKafka(RealTimeData data) {
+        KafkaTemplate<String, RealTimeData> template = realTimeDataKafkaTemplate.getIfAvailable();
+        if (template == null) {
+            throw new IllegalStateException("Kafka数据采集通道未启用");
+        }
+        return template.sendDefault(data.getSource(), data).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("实时数据发送到Kafka失败，来源: {}, 错误: {}", data.getSource(), ex.getMessage(), ex);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,84 @@
+package com.windtunnel.service;
+
+import com.windtunnel.entity.ChunkArchiveWatermark;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleConsumer;
+import org.springframework.lang.NonNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实时数据归档服务接口
+ *
+ * 将过期的实时数据按通道压缩为Gorilla编码块，并提供流式解码查询
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface RealTimeDataArchiveService {
+
+    /**
+     * 将指定时间点之前、本次归档开始前写入的实时数据压缩归档，完成后提交各数据来源的归档水位
+     *
+     * @param expiredTime 过期时间点
+     * @return 归档的数据条数
+     */
+    int archiveBefore(@NonNull LocalDateTime expiredTime);
+
+    /**
+     * 删除已提交归档水位覆盖的热数据，归档之后写入的迟到数据保留到下次归档
+     *
+     * @return 删除的数据条数
+     */
+    long deleteArchived();
+
+    /**
+     * 查询数据来源的归档水位
+     *
+     * @param source 数据来源
+     * @return 归档水位，未归档过时返回null
+     */
+    ChunkArchiveWatermark getWatermark(@NonNull String source);
+
+    /**
+     * 流式读取归档数据，按压缩块起始时间顺序回调每个采样点
+     *
+     * @param source 数据来源
+     * @param channel 通道
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param consumer 采样点消费者
+     * @return 回调的采样点数量
+     */
+    long readArchivedSeries(@NonNull String source, @NonNull RealTimeDataChannel channel,
+                            @NonNull LocalDateTime startTime, @NonNull LocalDateTime endTime,
+                            @NonNull SampleConsumer consumer);
+
+    /**
+     * 按ID流式读取压缩块，按压缩块起始时间顺序回调时间范围内的采样点，不存在的ID跳过
+     *
+     * @param chunkIds 压缩块ID
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param consumer 采样点消费者
+     * @return 回调的采样点数量
+     */
+    long readChunks(@NonNull List<String> chunkIds, @NonNull LocalDateTime startTime,
+                    @NonNull LocalDateTime endTime, @NonNull SampleConsumer consumer);
+
+    /**
+     * 查询归档数据序列
+     *
+     * @param source 数据来源
+     * @param channel 通道
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 序列结果（times: 毫秒时间戳数组，values: 数值数组）
+     */
+    Map<String, Object> getArchivedSeries(@NonNull String source, @NonNull RealTimeDataChannel channel,
+                                          @NonNull LocalDateTime startTime, @NonNull LocalDateTime endTime);
+
+}
@@ -1,9 +1,11 @@
 package com.windtunnel.service;
 
 import com.windtunnel.job.DataCleanupJob;
+import com.windtunnel.job.DataTieringJob;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
@@ -24,6 +26,12 @@ public class ScheduledTaskService {
     @Autowired
     private QuartzJobService quartzJobService;
 
+    /**
+     * 冷数据存储方式（local-本地列式归档文件，mongo-MongoDB压缩块）
+     */
+    @Value("${wind-tunnel.archive.cold-storage:local}")
+    private String coldStorage;
+
     /**
      * 初始化定时任务
      * 
@@ -34,8 +42,12 @@ public class ScheduledTaskService {
         log.info("开始初始化定时任务");
         
         try {
-            // 添加数据清理任务 - 每天凌晨2点执行
-            addDataCleanupJob();
+            // 添加冷数据处理任务 - 每天凌晨2点执行
+            if ("local".equalsIgnoreCase(coldStorage)) {
+                addDataTieringJob();
+            } else {
+                addDataCleanupJob();
+            }
             
             // 启动调度器
             quartzJobService.startScheduler();
@@ -61,6 +73,21 @@ public class ScheduledTaskService {
                                DataCleanupJob.class, jobDataMap);
     }
 
+    /**
+     * 添加数据分层任务
+     * 
+     * @throws SchedulerException 调度器异常
+     */
+    private void addDataTieringJob() throws SchedulerException {
+        // 创建任务数据
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("description", "数据分层任务");
+        
+        // 每天凌晨2点执行: 0 0 2 * * ?
+        quartzJobService.addJob("dataTieringJob", "default", "0 0 2 * * ?", 
+                               DataTieringJob.class, jobDataMap);
+    }
+
     /**
      * 添加其他定时任务的方法可以在这里定义
      * 
@@ -1,6 +1,10 @@
 package com.windtunnel.service;
 
+import com.windtunnel.cep.CepMatch;
+import com.windtunnel.cep.CepPattern;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.quality.DataQualitySnapshot;
+import com.windtunnel.spectrum.SpectrumFeatures;
 import com.windtunnel.common.Result;
 
 import java.time.LocalDateTime;
@@ -58,14 +62,113 @@ public interface StreamProcessingService {
      */
     Result<Map<String, Object>> calculateMin(String source, LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 计算通道分位数
+     * 
+     * 合并时间范围内各时间桶的分位数草图，结果的相对误差不超过草图精度
+     * 
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param quantiles 分位数列表（0到1）
+     * @return 各分位数的估计值、样本数、最小值和最大值
+     */
+    Result<Map<String, Object>> calculatePercentiles(String source, String channel, LocalDateTime startTime,
+                                                     LocalDateTime endTime, List<Double> quantiles);
+
+    /**
+     * 跨数据来源和时间片并行聚合
+     * 
+     * 按（数据来源, 时间片）切分为分区并发计算，合并各分区的计数、和、最小值、最大值和分位数草图
+     * 
+     * @param sources 数据来源列表
+     * @param channels 通道列表（实时数据字段名）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param slice 时间片粒度：hour、day或none
+     * @param quantiles 分位数列表（0到1），为空时不计算分位数
+     * @return 各分区、各数据来源和全部分区的通道统计量
+     */
+    Result<Map<String, Object>> aggregateParallel(List<String> sources, List<String> channels, LocalDateTime startTime,
+                                                  LocalDateTime endTime, String slice, List<Double> quantiles);
+
+    /**
+     * 获取相关矩阵
+     * 
+     * 返回在线维护的协方差累加器当前的相关系数矩阵，不扫描历史数据
+     * 
+     * @param group 分组名称，或数据来源（使用该来源的自动分组）
+     * @param mode 统计口径：cumulative、window或decay
+     * @return 通道列表、相关系数矩阵、协方差矩阵、均值和样本数，无法计算的系数为null
+     */
+    Result<Map<String, Object>> getCorrelationMatrix(String group, String mode);
+
+    /**
+     * 注册跨来源相关分析分组
+     * 
+     * @param name 分组名称
+     * @param members 成员列表，格式为 {数据来源}.{通道}
+     * @return 分组成员
+     */
+    Result<List<String>> registerCorrelationGroup(String name, List<String> members);
+
+    /**
+     * 移除相关分析分组
+     * 
+     * @param name 分组名称
+     * @return 是否移除成功
+     */
+    Result<Boolean> removeCorrelationGroup(String name);
+
+    /**
+     * 获取全部相关分析分组
+     * 
+     * @return 分组名称和成员
+     */
+    Result<Map<String, List<String>>> getCorrelationGroups();
+
     /**
      * 检测复杂事件（CEP）
      * 
+     * 使用已注册的CEP模式离线评估事件序列
+     * 
      * @param events 事件序列
-     * @return 事件检测结果
+     * @return 参与模式匹配的事件
      */
     Result<List<RealTimeData>> detectComplexEvents(List<RealTimeData> events);
 
+    /**
+     * 注册CEP模式，模式在实时数据流上持续匹配
+     * 
+     * @param pattern 模式定义
+     * @return 注册结果
+     */
+    Result<CepPattern> registerCepPattern(CepPattern pattern);
+
+    /**
+     * 移除CEP模式
+     * 
+     * @param name 模式名称
+     * @return 是否移除成功
+     */
+    Result<Boolean> removeCepPattern(String name);
+
+    /**
+     * 获取已注册的CEP模式
+     * 
+     * @return 模式列表
+     */
+    Result<List<CepPattern>> getCepPatterns();
+
+    /**
+     * 获取最近的CEP模式匹配结果
+     * 
+     * @param limit 最大数量
+     * @return 匹配结果列表，最新的在前
+     */
+    Result<List<CepMatch>> getRecentCepMatches(int limit);
+
     /**
      * 实时数据质量监控
      * 
@@ -74,6 +177,16 @@ public interface StreamProcessingService {
      */
     Result<Map<String, Object>> monitorDataQuality(RealTimeData realTimeData);
 
+    /**
+     * 获取数据来源的持续数据质量指标
+     * 
+     * 指标在接入时逐条增量统计，按报告周期生成快照
+     * 
+     * @param source 数据来源，为空时返回全部来源
+     * @return 最近一个报告周期的采样率、完整率、断档、重复、乱序、抖动和通道空值比例
+     */
+    Result<List<DataQualitySnapshot>> getDataQualityMetrics(String source);
+
     /**
      * 基于规则的异常检测
      * 
@@ -100,6 +213,65 @@ public interface StreamProcessingService {
      */
     Result<Map<String, Object>> trendAnalysis(String source, int dataPoints);
 
+    /**
+     * 基于在线模型预测通道取值
+     * 
+     * @param source 数据源
+     * @param channel 通道字段名
+     * @param horizonSeconds 预测时长（秒）
+     * @return 各模型的趋势和预测值
+     */
+    Result<Map<String, Object>> forecast(String source, String channel, long horizonSeconds);
+
+    /**
+     * 基于在线模型预测通道到达阈值的时间
+     * 
+     * @param source 数据源
+     * @param channel 通道字段名
+     * @param threshold 阈值
+     * @return 各模型的预计到达时间
+     */
+    Result<Map<String, Object>> forecastThresholdEta(String source, String channel, double threshold);
+
+    /**
+     * 获取数据来源振动通道最新的频谱特征
+     * 
+     * @param source 数据来源
+     * @return 各通道的频谱特征
+     */
+    Result<List<SpectrumFeatures>> getSpectrumFeatures(String source);
+
+    /**
+     * 获取振动通道的平均功率谱密度
+     * 
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @return 频率、功率谱密度和最新特征
+     */
+    Result<Map<String, Object>> getVibrationSpectrum(String source, String channel);
+
+    /**
+     * 将多个数据来源的通道重采样到公共时间网格
+     * 
+     * @param sources 数据来源列表
+     * @param channels 通道列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param stepMillis 网格步长（毫秒）
+     * @param maxGapMillis 允许插值的最大采样间隔（毫秒），为空时使用默认值
+     * @return 网格时间和按 {数据来源}.{通道} 命名的对齐序列，缺失点为null
+     */
+    Result<Map<String, Object>> alignSources(List<String> sources, List<String> channels,
+                                             LocalDateTime startTime, LocalDateTime endTime,
+                                             long stepMillis, Long maxGapMillis);
+
+    /**
+     * 获取各数据来源的设备时钟偏差估计
+     * 
+     * @return 时钟偏差列表
+     */
+    Result<List<Map<String, Object>>> getClockOffsets();
+
     /**
      * 处理实时数据流
      * 
@@ -0,0 +1,71 @@
+package com.windtunnel.service.experiment;
+
+import com.windtunnel.entity.ExperimentRun;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 试验运行服务接口
+ * 
+ * 定义试验运行索引的查询、运行数据加载和运行对比方法
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ExperimentRunService {
+
+    /**
+     * 根据ID查询试验运行
+     * 
+     * @param id 运行ID
+     * @return 试验运行，不存在时返回null
+     */
+    ExperimentRun findById(String id);
+
+    /**
+     * 根据试验排期查询运行
+     * 
+     * @param experimentScheduleId 试验排期ID
+     * @return 按开始时间升序排列的运行列表
+     */
+    List<ExperimentRun> findBySchedule(Long experimentScheduleId);
+
+    /**
+     * 根据试验项目查询运行
+     * 
+     * @param experimentProjectId 试验项目ID
+     * @return 按开始时间升序排列的运行列表
+     */
+    List<ExperimentRun> findByProject(Long experimentProjectId);
+
+    /**
+     * 查询数据来源在时间范围内的运行
+     * 
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 与时间范围相交的运行列表
+     */
+    List<ExperimentRun> findBySource(String source, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 加载试验运行的降采样序列
+     * 
+     * @param id 运行ID
+     * @param channels 通道列表，为空时加载运行摘要中的全部通道
+     * @param points 每个通道的目标点数
+     * @return 运行信息和各通道序列，运行不存在时返回null
+     */
+    Map<String, Object> loadRunSeries(String id, List<String> channels, int points);
+
+    /**
+     * 按预先计算的统计摘要对比多个试验运行
+     * 
+     * @param ids 运行ID列表
+     * @return 按通道组织的各运行统计摘要
+     */
+    Map<String, Object> compareRuns(List<String> ids);
+}
@@ -1,9 +1,16 @@
 package com.windtunnel.service.impl;
 
+import com.windtunnel.calibration.CalibrationRegistry;
 import com.windtunnel.common.Result;
+import com.windtunnel.derived.DerivedChannelRegistry;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import com.windtunnel.history.RecentHistoryBuffer;
 import com.windtunnel.repository.RealTimeDataRepository;
 import com.windtunnel.service.BatchProcessingService;
+import com.windtunnel.timeseries.EpochTimes;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -33,6 +40,18 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
     
     @Autowired
     private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+    
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+    
+    @Autowired
+    private EventBus eventBus;
+    
+    @Autowired
+    private RecentHistoryBuffer recentHistoryBuffer;
 
     @Override
     public Result<Integer> batchSaveRealTimeData(@NonNull List<RealTimeData> realTimeDataList) {
@@ -50,9 +69,21 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
                 }
             }
             
+            // 整批校准后计算派生通道
+            calibrationRegistry.apply(realTimeDataList);
+            derivedChannelRegistry.apply(realTimeDataList);
+            for (RealTimeData data : realTimeDataList) {
+                AnomalyDetectionStrategyFactory.detect(data);
+            }
+            
             // 批量保存
             List<RealTimeData> savedList = realTimeDataRepository.saveAll(realTimeDataList);
             
+            // 保存后通知订阅者
+            for (RealTimeData data : savedList) {
+                eventBus.publish(EventTopics.REAL_TIME_DATA, data);
+            }
+            
             log.info("批量保存完成，保存数量: {}", savedList.size());
             return Result.success("批量保存成功", savedList.size());
         } catch (Exception e) {
@@ -77,6 +108,8 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
                     updatedCount++;
                 }
             }
+            // 修改不经过事件总线，内存中的近期数据不再可信
+            recentHistoryBuffer.invalidate(realTimeDataList);
             
             log.info("批量更新完成，更新数量: {}", updatedCount);
             return Result.success("批量更新成功", updatedCount);
@@ -100,6 +133,8 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
             for (String id : ids) {
                 realTimeDataRepository.deleteById(id);
             }
+            // 按ID删除无法确定数据来源，使所有来源的内存数据失效
+            recentHistoryBuffer.invalidateAll(System.currentTimeMillis());
             
             log.info("批量删除完成，删除数量: {}", ids.size());
             return Result.success("批量删除成功", ids.size());
@@ -146,6 +181,7 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
             // 构建查询条件
             Query query = new Query(Criteria.where("dataTime").gte(startTime).lte(endTime));
             long deletedCount = mongoTemplate.remove(query, RealTimeData.class).getDeletedCount();
+            recentHistoryBuffer.invalidateAll(EpochTimes.toEpochMilli(endTime));
             
             log.info("批量按时间范围删除完成，删除数量: {}", deletedCount);
             return Result.success("批量删除完成", (int) deletedCount);
@@ -168,6 +204,10 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
             // 构建查询条件
             Query query = new Query(Criteria.where("source").in(sources));
             long deletedCount = mongoTemplate.remove(query, RealTimeData.class).getDeletedCount();
+            long now = System.currentTimeMillis();
+            for (String source : sources) {
+                recentHistoryBuffer.invalidate(source, now);
+            }
             
             log.info("批量按数据源删除完成，删除数量: {}", deletedCount);
             return Result.success("批量删除完成", (int) deletedCount);
@@ -207,6 +247,7 @@ public class BatchProcessingServiceImpl implements BatchProcessingService {
             
             // 保存处理后的数据
             List<RealTimeData> processedList = realTimeDataRepository.saveAll(realTimeDataList);
+            recentHistoryBuffer.invalidate(realTimeDataList);
             
             // 确保返回非null列表
             List<RealTimeData> result = processedList != null ? processedList : java.util.Collections.emptyList();
@@ -0,0 +1,255 @@
+package com.windtunnel.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.windtunnel.calibration.CalibrationCurve;
+import com.windtunnel.calibration.CalibrationRegistry;
+import com.windtunnel.common.Result;
+import com.windtunnel.derived.DerivedChannelRegistry;
+import com.windtunnel.entity.EquipmentCalibration;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.history.RecentHistoryBuffer;
+import com.windtunnel.repository.EquipmentCalibrationRepository;
+import com.windtunnel.service.CalibrationService;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 设备校准服务实现类
+ * 
+ * 历史重校准把时间范围切分为固定长度的时间片并行处理，每个时间片流式读取数据，
+ * 按批在内存中重新校准并重新计算派生通道后以无序批量替换写回
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class CalibrationServiceImpl implements CalibrationService {
+
+    @Autowired
+    private EquipmentCalibrationRepository equipmentCalibrationRepository;
+
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RecentHistoryBuffer recentHistoryBuffer;
+
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+
+    @Value("${wind-tunnel.calibration.recalibration-parallelism:4}")
+    private int recalibrationParallelism;
+
+    @Value("${wind-tunnel.calibration.recalibration-slice-minutes:60}")
+    private int recalibrationSliceMinutes;
+
+    @Value("${wind-tunnel.calibration.recalibration-batch-size:1000}")
+    private int recalibrationBatchSize;
+
+    private ExecutorService recalibrationExecutor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        recalibrationExecutor = Executors.newFixedThreadPool(recalibrationParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "recalibration-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        recalibrationExecutor.shutdownNow();
+    }
+
+    @Override
+    public Result<EquipmentCalibration> saveCalibration(EquipmentCalibration calibration) {
+        log.info("新增校准曲线，设备ID: {}, 通道: {}", calibration.getEquipmentId(), calibration.getChannel());
+        
+        try {
+            if (calibration.getEquipmentId() == null) {
+                return Result.error("设备ID不能为空");
+            }
+            RealTimeDataChannel channel = RealTimeDataChannel.fromFieldName(calibration.getChannel());
+            if (channel == null) {
+                return Result.error("未知的通道: " + calibration.getChannel());
+            }
+            calibration.setChannel(channel.getFieldName());
+            // 保存前先解析，保证入库的曲线都可用
+            CalibrationCurve.parse(calibration);
+            
+            QueryWrapper<EquipmentCalibration> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("equipment_id", calibration.getEquipmentId())
+                    .eq("channel", calibration.getChannel())
+                    .orderByDesc("version")
+                    .last("limit 1");
+            EquipmentCalibration latest = equipmentCalibrationRepository.selectOne(queryWrapper);
+            calibration.setId(null);
+            calibration.setVersion(latest != null ? latest.getVersion() + 1 : 1);
+            if (calibration.getEffectiveTime() == null) {
+                calibration.setEffectiveTime(LocalDateTime.now());
+            }
+            if (calibration.getEnabled() == null) {
+                calibration.setEnabled(1);
+            }
+            equipmentCalibrationRepository.insert(calibration);
+            calibrationRegistry.invalidate(calibration.getEquipmentId());
+            
+            log.info("校准曲线保存成功，设备ID: {}, 通道: {}, 版本: {}",
+                    calibration.getEquipmentId(), calibration.getChannel(), calibration.getVersion());
+            return Result.success("校准曲线保存成功", calibration);
+        } catch (IllegalArgumentException e) {
+            return Result.error("校准曲线无效: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("保存校准曲线失败: {}", e.getMessage(), e);
+            return Result.error("保存校准曲线失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<EquipmentCalibration>> getCalibrations(Long equipmentId, String channel) {
+        try {
+            QueryWrapper<EquipmentCalibration> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("equipment_id", equipmentId);
+            if (channel != null && !channel.isEmpty()) {
+                RealTimeDataChannel dataChannel = RealTimeDataChannel.fromFieldName(channel);
+                if (dataChannel == null) {
+                    return Result.error("未知的通道: " + channel);
+                }
+                queryWrapper.eq("channel", dataChannel.getFieldName());
+            }
+            queryWrapper.orderByAsc("channel").orderByAsc("version");
+            return Result.success(equipmentCalibrationRepository.selectList(queryWrapper));
+        } catch (Exception e) {
+            log.error("查询校准曲线失败: {}", e.getMessage(), e);
+            return Result.error("查询校准曲线失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> recalibrate(Long equipmentId, LocalDateTime startTime, LocalDateTime endTime) {
+        log.info("开始重新校准历史数据，设备ID: {}, 时间范围: {} - {}", equipmentId, startTime, endTime);
+        
+        try {
+            if (equipmentId == null || startTime == null || endTime == null || !startTime.isBefore(endTime)) {
+                return Result.error("设备ID和有效的时间范围不能为空");
+            }
+            long begin = System.currentTimeMillis();
+            calibrationRegistry.invalidate(equipmentId);
+            
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (LocalDateTime sliceStart = startTime; sliceStart.isBefore(endTime);
+                 sliceStart = sliceStart.plusMinutes(recalibrationSliceMinutes)) {
+                LocalDateTime from = sliceStart;
+                LocalDateTime to = sliceStart.plusMinutes(recalibrationSliceMinutes);
+                LocalDateTime sliceEnd = to.isBefore(endTime) ? to : endTime;
+                futures.add(recalibrationExecutor.submit(() -> recalibrateSlice(equipmentId, from, sliceEnd)));
+            }
+            
+            long scanned = 0;
+            long updated = 0;
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                scanned += counts[0];
+                updated += counts[1];
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("equipmentId", equipmentId);
+            result.put("slices", futures.size());
+            result.put("scanned", scanned);
+            result.put("updated", updated);
+            result.put("elapsedMillis", System.currentTimeMillis() - begin);
+            log.info("历史数据重新校准完成，设备ID: {}, 扫描: {}, 更新: {}", equipmentId, scanned, updated);
+            return Result.success("重新校准完成", result);
+        } catch (Exception e) {
+            log.error("重新校准历史数据失败: {}", e.getMessage(), e);
+            return Result.error("重新校准历史数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 重新校准一个时间片
+     * 
+     * @return {扫描数量, 更新数量}
+     */
+    @SuppressWarnings("null")
+    private long[] recalibrateSlice(Long equipmentId, LocalDateTime startTime, LocalDateTime endTime) {
+        Query query = new Query(Criteria.where("equipmentId").is(equipmentId)
+                .and("dataTime").gte(startTime).lt(endTime));
+        long scanned = 0;
+        long updated = 0;
+        List<RealTimeData> batch = new ArrayList<>(recalibrationBatchSize);
+        try (Stream<RealTimeData> stream = mongoTemplate.stream(query, RealTimeData.class)) {
+            for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                batch.add(data);
+                if (batch.size() >= recalibrationBatchSize) {
+                    updated += recalibrateBatch(batch);
+                    scanned += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += recalibrateBatch(batch);
+            scanned += batch.size();
+        }
+        return new long[]{scanned, updated};
+    }
+
+    /**
+     * 校准一批数据并写回校准值发生变化的文档，派生通道依赖校准值，写回前一并重新计算
+     */
+    @SuppressWarnings("null")
+    private long recalibrateBatch(List<RealTimeData> batch) {
+        BitSet changed = new BitSet(batch.size());
+        calibrationRegistry.apply(batch, changed);
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RealTimeData.class);
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            RealTimeData data = batch.get(i);
+            derivedChannelRegistry.apply(data);
+            bulkOperations.replaceOne(new Query(Criteria.where("_id").is(data.getId())), data);
+        }
+        bulkOperations.execute();
+        // 内存中的近期数据仍是旧校准值，使其失效后查询回退到存储读取
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            RealTimeData data = batch.get(i);
+            if (data.getSource() != null && data.getDataTime() != null) {
+                recentHistoryBuffer.invalidate(data.getSource(), EpochTimes.toEpochMilli(data.getDataTime()));
+            }
+        }
+        return changed.cardinality();
+    }
+}
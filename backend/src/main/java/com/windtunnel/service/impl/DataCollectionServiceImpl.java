@@ -1,16 +1,38 @@
 package com.windtunnel.service.impl;
 
+import com.windtunnel.alignment.ClockSyncRegistry;
+import com.windtunnel.archive.ColumnarArchiveStore;
+import com.windtunnel.archive.TieredSeriesReader;
+import com.windtunnel.calibration.CalibrationRegistry;
 import com.windtunnel.common.Result;
+import com.windtunnel.derived.DerivedChannelRegistry;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import com.windtunnel.history.RecentHistoryBuffer;
+import com.windtunnel.ingest.IngestLaneScheduler;
+import com.windtunnel.ingest.IngestLaneStatistics;
+import com.windtunnel.quality.DataQualityMonitor;
 import com.windtunnel.repository.RealTimeDataRepository;
 import com.windtunnel.service.DataCollectionService;
+import com.windtunnel.service.RealTimeDataArchiveService;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.Lttb;
+import com.windtunnel.timeseries.M4Aggregator;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleBuffer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据采集服务实现类
@@ -31,6 +53,39 @@ public class DataCollectionServiceImpl implements DataCollectionService {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private RealTimeDataArchiveService realTimeDataArchiveService;
+
+    @Autowired
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private TieredSeriesReader tieredSeriesReader;
+
+    @Autowired
+    private ClockSyncRegistry clockSyncRegistry;
+
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+
+    @Autowired
+    private DataQualityMonitor dataQualityMonitor;
+
+    @Autowired
+    private RecentHistoryBuffer recentHistoryBuffer;
+
+    @Autowired
+    private IngestLaneScheduler ingestLaneScheduler;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.downsample.max-points:10000}")
+    private int maxDownsamplePoints;
+
     @Override
     public Result<String> saveRealTimeData(RealTimeData realTimeData) {
         log.info("保存实时数据，数据来源: {}", realTimeData.getSource());
@@ -40,10 +95,25 @@ public class DataCollectionServiceImpl implements DataCollectionService {
             if (realTimeData.getDataTime() == null) {
                 realTimeData.setDataTime(LocalDateTime.now());
             }
+            // 上报了设备时间时校正为采集时间
+            clockSyncRegistry.apply(realTimeData);
+            dataQualityMonitor.record(realTimeData);
+            
+            // 校准并计算派生通道
+            calibrationRegistry.apply(realTimeData);
+            derivedChannelRegistry.apply(realTimeData);
+            
+            // 保存前检查数据中的异常，异常状态和描述随数据一起保存
+            if (AnomalyDetectionStrategyFactory.detect(realTimeData)) {
+                log.warn("检测到数据异常，设备: {}, 异常: {}", realTimeData.getSource(), realTimeData.getAnomalyDescription());
+            }
             
             // 保存数据
             RealTimeData savedData = realTimeDataRepository.save(realTimeData);
             
+            // 与其他接入方式一样通知订阅者，告警、草图、相关矩阵和近期历史等同样覆盖REST写入的数据
+            eventBus.publish(EventTopics.REAL_TIME_DATA, savedData);
+            
             log.info("实时数据保存成功，数据ID: {}", savedData.getId());
             return Result.success("数据保存成功", savedData.getId());
         } catch (Exception e) {
@@ -91,7 +161,9 @@ public class DataCollectionServiceImpl implements DataCollectionService {
                 new org.springframework.data.mongodb.core.query.Query();
             query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("dataTime")
                 .gte(startTime).lte(endTime));
-            List<RealTimeData> dataList = mongoTemplate.find(query, RealTimeData.class);
+            // 合并本地列式归档中的冷数据和MongoDB中的热数据
+            List<RealTimeData> dataList = new ArrayList<>(columnarArchiveStore.readRows(null, startTime, endTime));
+            dataList.addAll(mongoTemplate.find(query, RealTimeData.class));
             
             return Result.success("查询成功", dataList);
         } catch (Exception e) {
@@ -106,7 +178,9 @@ public class DataCollectionServiceImpl implements DataCollectionService {
         log.info("根据数据来源和时间范围查询实时数据，来源: {}, 开始时间: {}, 结束时间: {}", source, startTime, endTime);
         
         try {
-            List<RealTimeData> dataList = realTimeDataRepository.findBySourceAndDataTimeBetween(source, startTime, endTime);
+            // 合并本地列式归档中的冷数据和MongoDB中的热数据
+            List<RealTimeData> dataList = new ArrayList<>(columnarArchiveStore.readRows(source, startTime, endTime));
+            dataList.addAll(realTimeDataRepository.findBySourceAndDataTimeBetween(source, startTime, endTime));
             return Result.success("查询成功", dataList);
         } catch (Exception e) {
             log.error("查询实时数据失败: {}", e.getMessage(), e);
@@ -155,6 +229,7 @@ public class DataCollectionServiceImpl implements DataCollectionService {
         
         try {
             long deletedCount = realTimeDataRepository.deleteByDataTimeBetween(startTime, endTime);
+            recentHistoryBuffer.invalidateAll(EpochTimes.toEpochMilli(endTime));
             log.info("删除了 {} 条实时数据", deletedCount);
             return Result.success("删除成功", true);
         } catch (Exception e) {
@@ -255,4 +330,130 @@ public class DataCollectionServiceImpl implements DataCollectionService {
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    @SuppressWarnings("null")
+    public Result<Map<String, Object>> findArchivedSeries(String source, String channel, LocalDateTime startTime, LocalDateTime endTime) {
+        log.info("查询归档数据序列，来源: {}, 通道: {}, 开始时间: {}, 结束时间: {}", source, channel, startTime, endTime);
+        
+        RealTimeDataChannel dataChannel = RealTimeDataChannel.fromFieldName(channel);
+        if (dataChannel == null) {
+            return Result.error("不支持的通道: " + channel);
+        }
+        
+        try {
+            Map<String, Object> series = realTimeDataArchiveService.getArchivedSeries(source, dataChannel, startTime, endTime);
+            return Result.success("查询成功", series);
+        } catch (Exception e) {
+            log.error("查询归档数据失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> downsampleSeries(String source, List<String> channels, LocalDateTime startTime,
+                                                        LocalDateTime endTime, int points, String method) {
+        log.info("查询降采样序列，来源: {}, 通道: {}, 时间范围: {} - {}, 目标点数: {}, 方法: {}",
+                source, channels, startTime, endTime, points, method);
+        
+        boolean minMax = "minmax".equalsIgnoreCase(method);
+        if (!minMax && !"lttb".equalsIgnoreCase(method)) {
+            return Result.error("不支持的降采样方法: " + method);
+        }
+        if (channels == null || channels.isEmpty()) {
+            return Result.error("通道不能为空");
+        }
+        if (points < 4 || points > maxDownsamplePoints) {
+            return Result.error("目标点数必须在 4 到 " + maxDownsamplePoints + " 之间");
+        }
+        if (endTime.isBefore(startTime)) {
+            return Result.error("结束时间不能早于开始时间");
+        }
+        
+        try {
+            // 先按桶做顺序无关的M4预聚合，内存只与目标点数有关；minmax每桶输出2点，lttb在M4结果上再选点
+            long startMillis = EpochTimes.toEpochMilli(startTime);
+            long endMillis = EpochTimes.toEpochMilli(endTime);
+            M4Aggregator[] aggregators = new M4Aggregator[channels.size()];
+            for (int i = 0; i < aggregators.length; i++) {
+                aggregators[i] = new M4Aggregator(startMillis, endMillis, minMax ? points / 2 : points);
+            }
+            tieredSeriesReader.read(source, channels, startTime, endTime, aggregators);
+            
+            Map<String, Object> series = new LinkedHashMap<>();
+            for (int i = 0; i < aggregators.length; i++) {
+                SampleBuffer buffer = new SampleBuffer(points * 2);
+                if (minMax) {
+                    aggregators[i].writeMinMax(buffer);
+                } else {
+                    SampleBuffer candidates = new SampleBuffer(points * 4);
+                    aggregators[i].writeM4(candidates);
+                    Lttb.downsample(candidates, points, buffer);
+                }
+                Map<String, Object> channelSeries = new LinkedHashMap<>();
+                channelSeries.put("rawCount", aggregators[i].getAccepted());
+                channelSeries.put("count", buffer.size());
+                channelSeries.put("times", buffer.toTimestampArray());
+                channelSeries.put("values", buffer.toValueArray());
+                series.put(channels.get(i), channelSeries);
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("method", minMax ? "minmax" : "lttb");
+            result.put("points", points);
+            result.put("series", series);
+            return Result.success("查询成功", result);
+        } catch (Exception e) {
+            log.error("查询降采样序列失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> getRecentSeries(String source, List<String> channels, Long since) {
+        log.debug("查询近期数据，来源: {}, 通道: {}, 开始时间: {}", source, channels, since);
+        
+        try {
+            List<String> names = channels == null || channels.isEmpty() ? recentHistoryBuffer.getChannels() : channels;
+            Map<String, Object> series = new LinkedHashMap<>();
+            for (String channel : names) {
+                SampleBuffer buffer = new SampleBuffer();
+                Long after = recentHistoryBuffer.readSince(source, channel, since != null ? since : Long.MIN_VALUE, buffer);
+                if (after == null) {
+                    continue;
+                }
+                Map<String, Object> channelSeries = new LinkedHashMap<>();
+                channelSeries.put("after", after);
+                channelSeries.put("count", buffer.size());
+                channelSeries.put("times", buffer.toTimestampArray());
+                channelSeries.put("values", buffer.toValueArray());
+                series.put(channel, channelSeries);
+            }
+            if (series.isEmpty()) {
+                return Result.notFound("数据来源没有近期数据: " + source);
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("series", series);
+            return Result.success("查询成功", result);
+        } catch (Exception e) {
+            log.error("查询近期数据失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<IngestLaneStatistics>> getIngestLaneStatistics() {
+        try {
+            if (!ingestLaneScheduler.isEnabled()) {
+                return Result.notFound("接入优先级通道未启用");
+            }
+            return Result.success(ingestLaneScheduler.getStatistics());
+        } catch (Exception e) {
+            log.error("获取接入通道统计失败: {}", e.getMessage(), e);
+            return Result.error("获取接入通道统计失败: " + e.getMessage());
+        }
+    }
+
+}
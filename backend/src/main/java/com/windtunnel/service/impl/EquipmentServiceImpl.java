@@ -2,6 +2,7 @@ package com.windtunnel.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.windtunnel.calibration.CalibrationRegistry;
 import com.windtunnel.common.Constants;
 import com.windtunnel.common.Result;
 import com.windtunnel.entity.Equipment;
@@ -31,6 +32,9 @@ public class EquipmentServiceImpl extends ServiceImpl<EquipmentRepository, Equip
     @Autowired
     private EquipmentRepository equipmentRepository;
 
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+
     @Override
     public Equipment findByName(String name) {
         if (!StringUtils.hasText(name)) {
@@ -269,6 +273,8 @@ public class EquipmentServiceImpl extends ServiceImpl<EquipmentRepository, Equip
 
         int result = equipmentRepository.updateCalibrationTime(equipmentId, lastCalibrationTime, nextCalibrationTime);
         if (result > 0) {
+            // 设备重新校准后可能已录入新的校准曲线，使缓存失效以便下一批数据重新加载
+            calibrationRegistry.invalidate(equipmentId);
             log.info("设备校准时间更新成功，设备ID: {}", equipmentId);
             return Result.success("校准时间更新成功", true);
         } else {
@@ -0,0 +1,368 @@
+package com.windtunnel.service.impl;
+
+import com.windtunnel.entity.ChunkArchiveWatermark;
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.entity.RealTimeDataChunk;
+import com.windtunnel.repository.RealTimeDataChunkRepository;
+import com.windtunnel.run.ExperimentRunIndexer;
+import com.windtunnel.service.RealTimeDataArchiveService;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.GorillaDecoder;
+import com.windtunnel.timeseries.GorillaEncoder;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleBuffer;
+import com.windtunnel.timeseries.SampleConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 实时数据归档服务实现类
+ *
+ * 按数据来源逐个流式读取过期数据，为每个（设备, 通道）维护一个Gorilla编码器，
+ * 达到单块采样点上限或数据来源切换时落盘为一个压缩块。
+ * 每次归档只处理归档开始前写入的数据，压缩块记录该快照时间，数据来源的压缩块全部写入后再提交归档水位，
+ * 删除热数据以水位为上界，归档之后写入的迟到数据留到下次归档。
+ * 归档开始时先补删上次已提交但未删除的热数据，并删除上次中断留下的未提交压缩块，重复执行不会产生重复数据。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class RealTimeDataArchiveServiceImpl implements RealTimeDataArchiveService {
+
+    /**
+     * 压缩块编码格式
+     */
+    private static final String ENCODING = "GORILLA_V1";
+
+    /**
+     * 批量写入压缩块的数量
+     */
+    private static final int SAVE_BATCH_SIZE = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RealTimeDataChunkRepository realTimeDataChunkRepository;
+
+    @Autowired
+    private ExperimentRunIndexer experimentRunIndexer;
+
+    @Value("${wind-tunnel.archive.chunk-points:7200}")
+    private int chunkPoints;
+
+    @Override
+    @SuppressWarnings("null")
+    public int archiveBefore(@NonNull LocalDateTime expiredTime) {
+        log.info("开始压缩归档实时数据，截止时间: {}", expiredTime);
+
+        Query sourceQuery = new Query(Criteria.where("dataTime").lt(expiredTime));
+        List<String> sources = mongoTemplate.findDistinct(sourceQuery, "source", RealTimeData.class, String.class);
+
+        // 快照时间取在读取之前，之后写入的数据不归档也不删除
+        LocalDateTime createdUntil = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        int archivedCount = 0;
+        int chunkCount = 0;
+        for (String source : sources) {
+            ChunkArchiveWatermark watermark = getWatermark(source);
+            if (watermark != null) {
+                long completedCount = removeArchivedRows(watermark);
+                if (completedCount > 0) {
+                    log.info("数据来源 {} 补删已归档的热数据 {} 条", source, completedCount);
+                }
+            }
+            removeUncommitted(source, watermark);
+
+            // 水位只前移，数据时间上界不小于已提交的水位
+            LocalDateTime archivedBefore = watermark != null && watermark.getArchivedBefore().isAfter(expiredTime)
+                    ? watermark.getArchivedBefore() : expiredTime;
+            Query query = new Query(Criteria.where("source").is(source).and("dataTime").lt(archivedBefore)
+                    .and("createTime").lte(createdUntil));
+            query.with(Sort.by(Sort.Direction.ASC, "dataTime"));
+
+            Map<Long, ChunkBuilder[]> builders = new HashMap<>();
+            List<RealTimeDataChunk> pending = new ArrayList<>();
+            try (Stream<RealTimeData> stream = mongoTemplate.stream(query, RealTimeData.class)) {
+                for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                    if (data.getDataTime() == null) {
+                        continue;
+                    }
+                    long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+                    ChunkBuilder[] channelBuilders = builders.computeIfAbsent(
+                            data.getEquipmentId() != null ? data.getEquipmentId() : -1L,
+                            key -> new ChunkBuilder[RealTimeDataChannel.count()]);
+                    for (int i = 0; i < channelBuilders.length; i++) {
+                        RealTimeDataChannel channel = RealTimeDataChannel.of(i);
+                        double value = channel.read(data);
+                        if (Double.isNaN(value)) {
+                            continue;
+                        }
+                        ChunkBuilder builder = channelBuilders[i];
+                        if (builder == null) {
+                            builder = new ChunkBuilder(source, data.getEquipmentId(), channel, chunkPoints,
+                                    createdUntil);
+                            channelBuilders[i] = builder;
+                        }
+                        builder.encoder.append(timestamp, value);
+                        if (builder.encoder.getCount() >= chunkPoints) {
+                            pending.add(builder.build());
+                            channelBuilders[i] = null;
+                        }
+                    }
+                    archivedCount++;
+                    if (pending.size() >= SAVE_BATCH_SIZE) {
+                        chunkCount += savePending(pending);
+                    }
+                }
+            }
+
+            for (ChunkBuilder[] channelBuilders : builders.values()) {
+                for (ChunkBuilder builder : channelBuilders) {
+                    if (builder != null && builder.encoder.getCount() > 0) {
+                        pending.add(builder.build());
+                    }
+                }
+            }
+            chunkCount += savePending(pending);
+
+            // 压缩块全部写入后提交水位，提交前中断时本次的压缩块视为未提交
+            ChunkArchiveWatermark committed = new ChunkArchiveWatermark();
+            committed.setSource(source);
+            committed.setArchivedBefore(archivedBefore);
+            committed.setCreatedUntil(createdUntil);
+            committed.setUpdateTime(LocalDateTime.now());
+            mongoTemplate.save(committed);
+        }
+
+        log.info("压缩归档完成，共归档 {} 条数据，生成 {} 个压缩块", archivedCount, chunkCount);
+        return archivedCount;
+    }
+
+    @Override
+    @SuppressWarnings("null")
+    public long deleteArchived() {
+        long deletedCount = 0;
+        for (ChunkArchiveWatermark watermark : mongoTemplate.findAll(ChunkArchiveWatermark.class)) {
+            deletedCount += removeArchivedRows(watermark);
+        }
+        log.info("删除已归档的热数据 {} 条", deletedCount);
+        return deletedCount;
+    }
+
+    @Override
+    @SuppressWarnings("null")
+    public ChunkArchiveWatermark getWatermark(@NonNull String source) {
+        return mongoTemplate.findById(source, ChunkArchiveWatermark.class);
+    }
+
+    @Override
+    public long readArchivedSeries(@NonNull String source, @NonNull RealTimeDataChannel channel,
+                                   @NonNull LocalDateTime startTime, @NonNull LocalDateTime endTime,
+                                   @NonNull SampleConsumer consumer) {
+        log.debug("读取归档数据，来源: {}, 通道: {}, 时间范围: {} - {}", source, channel.getFieldName(), startTime, endTime);
+
+        List<RealTimeDataChunk> chunks = realTimeDataChunkRepository.findOverlapping(
+                source, channel.getFieldName(), startTime, endTime);
+        return decode(committed(chunks), startTime, endTime, consumer);
+    }
+
+    @Override
+    public long readChunks(@NonNull List<String> chunkIds, @NonNull LocalDateTime startTime,
+                           @NonNull LocalDateTime endTime, @NonNull SampleConsumer consumer) {
+        List<RealTimeDataChunk> chunks = new ArrayList<>();
+        realTimeDataChunkRepository.findAllById(chunkIds).forEach(chunks::add);
+        chunks.sort(Comparator.comparing(RealTimeDataChunk::getStartTime));
+        return decode(committed(chunks), startTime, endTime, consumer);
+    }
+
+    private long decode(List<RealTimeDataChunk> chunks, LocalDateTime startTime, LocalDateTime endTime,
+                        SampleConsumer consumer) {
+        long startMillis = EpochTimes.toEpochMilli(startTime);
+        long endMillis = EpochTimes.toEpochMilli(endTime);
+        long emitted = 0;
+        for (RealTimeDataChunk chunk : chunks) {
+            GorillaDecoder decoder = new GorillaDecoder(chunk.getPayload());
+            while (decoder.next()) {
+                long timestamp = decoder.timestamp();
+                if (timestamp > endMillis) {
+                    break;
+                }
+                if (timestamp >= startMillis) {
+                    consumer.accept(timestamp, decoder.value());
+                    emitted++;
+                }
+            }
+        }
+        return emitted;
+    }
+
+    @Override
+    public Map<String, Object> getArchivedSeries(@NonNull String source, @NonNull RealTimeDataChannel channel,
+                                                 @NonNull LocalDateTime startTime, @NonNull LocalDateTime endTime) {
+        SampleBuffer buffer = new SampleBuffer();
+        readArchivedSeries(source, channel, startTime, endTime, buffer);
+
+        Map<String, Object> series = new HashMap<>();
+        series.put("source", source);
+        series.put("channel", channel.getFieldName());
+        series.put("count", buffer.size());
+        series.put("times", buffer.toTimestampArray());
+        series.put("values", buffer.toValueArray());
+        return series;
+    }
+
+    /**
+     * 过滤未提交的压缩块，旧版本生成的块视为已提交
+     */
+    private List<RealTimeDataChunk> committed(List<RealTimeDataChunk> chunks) {
+        Map<String, Optional<ChunkArchiveWatermark>> watermarks = new HashMap<>();
+        List<RealTimeDataChunk> result = new ArrayList<>(chunks.size());
+        for (RealTimeDataChunk chunk : chunks) {
+            if (chunk.getCreatedUntil() != null) {
+                ChunkArchiveWatermark watermark = watermarks.computeIfAbsent(chunk.getSource(),
+                        source -> Optional.ofNullable(getWatermark(source))).orElse(null);
+                if (watermark == null || chunk.getCreatedUntil().isAfter(watermark.getCreatedUntil())) {
+                    continue;
+                }
+            }
+            result.add(chunk);
+        }
+        return result;
+    }
+
+    /**
+     * 写入待保存的压缩块并清空列表
+     */
+    @SuppressWarnings("null")
+    private int savePending(List<RealTimeDataChunk> pending) {
+        int size = pending.size();
+        if (size > 0) {
+            realTimeDataChunkRepository.saveAll(pending);
+            attachChunks(pending);
+            pending.clear();
+        }
+        return size;
+    }
+
+    /**
+     * 删除归档水位覆盖的热数据
+     */
+    private long removeArchivedRows(ChunkArchiveWatermark watermark) {
+        Query query = new Query(Criteria.where("source").is(watermark.getSource())
+                .and("dataTime").lt(watermark.getArchivedBefore())
+                .and("createTime").lte(watermark.getCreatedUntil()));
+        return mongoTemplate.remove(query, RealTimeData.class).getDeletedCount();
+    }
+
+    /**
+     * 删除上次中断的归档留下的未提交压缩块，这部分数据仍在热数据中，本次重新归档
+     */
+    private void removeUncommitted(String source, ChunkArchiveWatermark watermark) {
+        Criteria criteria = Criteria.where("source").is(source);
+        if (watermark != null) {
+            criteria.and("createdUntil").gt(watermark.getCreatedUntil());
+        } else {
+            criteria.and("createdUntil").ne(null);
+        }
+        long removed = mongoTemplate.remove(new Query(criteria), RealTimeDataChunk.class).getDeletedCount();
+        if (removed > 0) {
+            log.info("数据来源 {} 删除未提交的压缩块 {} 个", source, removed);
+        }
+    }
+
+    /**
+     * 把已保存的压缩块登记到时间上相交的试验运行，登记失败不影响归档
+     */
+    private void attachChunks(List<RealTimeDataChunk> chunks) {
+        Map<String, List<ExperimentRun.BlockPointer>> pointers = new HashMap<>();
+        for (RealTimeDataChunk chunk : chunks) {
+            ExperimentRun.BlockPointer pointer = new ExperimentRun.BlockPointer();
+            pointer.setTier(ExperimentRun.BlockPointer.TIER_CHUNK);
+            pointer.setChannel(chunk.getChannel());
+            pointer.setRef(chunk.getId());
+            pointer.setStartTime(chunk.getStartTime());
+            pointer.setEndTime(chunk.getEndTime());
+            pointers.computeIfAbsent(chunk.getSource(), source -> new ArrayList<>()).add(pointer);
+        }
+        for (Map.Entry<String, List<ExperimentRun.BlockPointer>> entry : pointers.entrySet()) {
+            try {
+                experimentRunIndexer.attachBlocks(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn("登记试验运行压缩块失败，数据来源: {}, 原因: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个（来源, 设备, 通道）的压缩块构建器
+     */
+    private static class ChunkBuilder {
+
+        private final String source;
+
+        private final Long equipmentId;
+
+        private final RealTimeDataChannel channel;
+
+        private final GorillaEncoder encoder;
+
+        private final LocalDateTime createdUntil;
+
+        ChunkBuilder(String source, Long equipmentId, RealTimeDataChannel channel, int expectedPoints,
+                     LocalDateTime createdUntil) {
+            this.source = source;
+            this.equipmentId = equipmentId;
+            this.channel = channel;
+            this.encoder = new GorillaEncoder(expectedPoints);
+            this.createdUntil = createdUntil;
+        }
+
+        RealTimeDataChunk build() {
+            RealTimeDataChunk chunk = new RealTimeDataChunk();
+            chunk.setId(chunkId(source, equipmentId, channel, encoder.getFirstTimestamp(),
+                    EpochTimes.toEpochMilli(createdUntil)));
+            chunk.setSource(source);
+            chunk.setEquipmentId(equipmentId);
+            chunk.setChannel(channel.getFieldName());
+            chunk.setStartTime(EpochTimes.toLocalDateTime(encoder.getFirstTimestamp()));
+            chunk.setEndTime(EpochTimes.toLocalDateTime(encoder.getLastTimestamp()));
+            chunk.setPointCount(encoder.getCount());
+            chunk.setMinValue(encoder.getMinValue());
+            chunk.setMaxValue(encoder.getMaxValue());
+            chunk.setEncoding(ENCODING);
+            chunk.setPayload(encoder.finish());
+            chunk.setCreatedUntil(createdUntil);
+            return chunk;
+        }
+
+        /**
+         * 同一次归档内ID唯一；不同归档批次的数据互不重叠，ID带上快照时间，迟到数据生成的块不会覆盖已有的块
+         */
+        static String chunkId(String source, Long equipmentId, RealTimeDataChannel channel, long startMillis,
+                              long createdUntilMillis) {
+            return source + "|" + (equipmentId != null ? equipmentId : "-") + "|" + channel.getFieldName() + "|"
+                    + startMillis + "|" + createdUntilMillis;
+        }
+    }
+}
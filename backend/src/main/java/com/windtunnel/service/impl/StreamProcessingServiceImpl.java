@@ -1,11 +1,39 @@
 package com.windtunnel.service.impl;
 
+import com.windtunnel.aggregation.AggregationResult;
+import com.windtunnel.aggregation.ParallelAggregationExecutor;
+import com.windtunnel.aggregation.PartitionAggregate;
+import com.windtunnel.aggregation.TimeSlice;
+import com.windtunnel.alignment.AlignedSeries;
+import com.windtunnel.alignment.ClockSyncRegistry;
+import com.windtunnel.alignment.TimeAligner;
+import com.windtunnel.archive.ColumnarArchiveStore;
+import com.windtunnel.archive.HotTierBoundary;
+import com.windtunnel.archive.TieredSeriesReader;
+import com.windtunnel.cep.CepEngine;
+import com.windtunnel.cep.CepMatch;
+import com.windtunnel.cep.CepPattern;
 import com.windtunnel.common.Result;
+import com.windtunnel.correlation.CorrelationMatrix;
+import com.windtunnel.correlation.CorrelationMode;
+import com.windtunnel.correlation.CorrelationRegistry;
 import com.windtunnel.entity.RealTimeData;
-import com.windtunnel.repository.RealTimeDataRepository;
+import com.windtunnel.forecast.ChannelForecast;
+import com.windtunnel.forecast.ForecastRegistry;
+import com.windtunnel.quality.DataQualityMonitor;
+import com.windtunnel.quality.DataQualitySnapshot;
+import com.windtunnel.quantile.QuantileSketchRegistry;
 import com.windtunnel.service.StreamProcessingService;
+import com.windtunnel.spectrum.SpectrumAnalyzer;
+import com.windtunnel.spectrum.SpectrumFeatures;
+import com.windtunnel.timeseries.ChannelAggregate;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.QuantileSketch;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import com.windtunnel.timeseries.SampleConsumer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -33,10 +61,46 @@ import org.springframework.lang.NonNull;
 public class StreamProcessingServiceImpl implements StreamProcessingService {
 
     @Autowired
-    private RealTimeDataRepository realTimeDataRepository;
+    private MongoTemplate mongoTemplate;
     
     @Autowired
-    private MongoTemplate mongoTemplate;
+    private ColumnarArchiveStore columnarArchiveStore;
+
+    @Autowired
+    private HotTierBoundary hotTierBoundary;
+    
+    @Autowired
+    private CepEngine cepEngine;
+    
+    @Autowired
+    private ForecastRegistry forecastRegistry;
+    
+    @Autowired
+    private SpectrumAnalyzer spectrumAnalyzer;
+
+    @Autowired
+    private TimeAligner timeAligner;
+
+    @Autowired
+    private ClockSyncRegistry clockSyncRegistry;
+
+    @Autowired
+    private QuantileSketchRegistry quantileSketchRegistry;
+
+    @Autowired
+    private TieredSeriesReader tieredSeriesReader;
+
+    @Autowired
+    private CorrelationRegistry correlationRegistry;
+
+    @Autowired
+    private DataQualityMonitor dataQualityMonitor;
+
+    @Autowired
+    private ParallelAggregationExecutor parallelAggregationExecutor;
+    
+    @Value("${wind-tunnel.forecast.default-horizon:60000}")
+    private long forecastHorizonMillis;
     
     @Override
     @SuppressWarnings("null")
@@ -70,10 +134,12 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         log.info("计算平均值，数据源: {}, 时间范围: {} - {}", source, startTime, endTime);
         
         try {
-            List<RealTimeData> dataList = realTimeDataRepository.findBySourceAndDataTimeBetween(
-                    source, startTime, endTime);
+            List<RealTimeData> dataList = findHotData(source, startTime, endTime);
             
-            Map<String, Object> avgResult = calculateAverageValues(dataList);
+            ChannelAggregate[] archived = columnarArchiveStore.aggregate(source, startTime, endTime);
+            Map<String, Object> avgResult = hasArchivedData(archived)
+                    ? calculateWithArchive(dataList, archived, "average")
+                    : calculateAverageValues(dataList);
             
             return Result.success("平均值计算完成", avgResult);
         } catch (Exception e) {
@@ -88,10 +154,12 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         log.info("计算最大值，数据源: {}, 时间范围: {} - {}", source, startTime, endTime);
         
         try {
-            List<RealTimeData> dataList = realTimeDataRepository.findBySourceAndDataTimeBetween(
-                    source, startTime, endTime);
+            List<RealTimeData> dataList = findHotData(source, startTime, endTime);
             
-            Map<String, Object> maxResult = calculateMaxValues(dataList);
+            ChannelAggregate[] archived = columnarArchiveStore.aggregate(source, startTime, endTime);
+            Map<String, Object> maxResult = hasArchivedData(archived)
+                    ? calculateWithArchive(dataList, archived, "max")
+                    : calculateMaxValues(dataList);
             
             return Result.success("最大值计算完成", maxResult);
         } catch (Exception e) {
@@ -106,10 +174,12 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         log.info("计算最小值，数据源: {}, 时间范围: {} - {}", source, startTime, endTime);
         
         try {
-            List<RealTimeData> dataList = realTimeDataRepository.findBySourceAndDataTimeBetween(
-                    source, startTime, endTime);
+            List<RealTimeData> dataList = findHotData(source, startTime, endTime);
             
-            Map<String, Object> minResult = calculateMinValues(dataList);
+            ChannelAggregate[] archived = columnarArchiveStore.aggregate(source, startTime, endTime);
+            Map<String, Object> minResult = hasArchivedData(archived)
+                    ? calculateWithArchive(dataList, archived, "min")
+                    : calculateMinValues(dataList);
             
             return Result.success("最小值计算完成", minResult);
         } catch (Exception e) {
@@ -118,6 +188,178 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         }
     }
 
+    @Override
+    public Result<Map<String, Object>> calculatePercentiles(String source, String channel, LocalDateTime startTime,
+                                                            LocalDateTime endTime, List<Double> quantiles) {
+        log.info("计算分位数，数据源: {}, 通道: {}, 时间范围: {} - {}", source, channel, startTime, endTime);
+        
+        try {
+            QuantileSketch sketch = quantileSketchRegistry.merge(source, channel, startTime, endTime);
+            String origin = "rollup";
+            if (sketch.getCount() == 0) {
+                // 草图启用之前的历史数据没有汇总，流式扫描原始数据构建草图，内存仍然有界
+                sketch = quantileSketchRegistry.newSketch();
+                QuantileSketch target = sketch;
+                tieredSeriesReader.read(source, List.of(channel), startTime, endTime,
+                        new SampleConsumer[]{(timestamp, value) -> target.add(value)});
+                origin = "scan";
+            }
+            
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            for (Double quantile : quantiles) {
+                double value = sketch.quantile(quantile);
+                percentiles.put("p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString(),
+                        Double.isNaN(value) ? null : value);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("channel", channel);
+            result.put("count", sketch.getCount());
+            result.put("min", sketch.getCount() > 0 ? sketch.getMin() : null);
+            result.put("max", sketch.getCount() > 0 ? sketch.getMax() : null);
+            result.put("relativeAccuracy", sketch.getRelativeAccuracy());
+            result.put("origin", origin);
+            result.put("percentiles", percentiles);
+            return Result.success("分位数计算完成", result);
+        } catch (Exception e) {
+            log.error("分位数计算失败: {}", e.getMessage(), e);
+            return Result.error("分位数计算失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> aggregateParallel(List<String> sources, List<String> channels,
+                                                         LocalDateTime startTime, LocalDateTime endTime,
+                                                         String slice, List<Double> quantiles) {
+        log.info("并行聚合，数据源: {}, 通道: {}, 时间范围: {} - {}, 时间片: {}", sources, channels, startTime, endTime, slice);
+        
+        if (sources == null || sources.isEmpty()) {
+            return Result.error("数据来源不能为空");
+        }
+        if (endTime.isBefore(startTime)) {
+            return Result.error("结束时间不能早于开始时间");
+        }
+        List<RealTimeDataChannel> fields = new ArrayList<>();
+        for (String channel : channels == null || channels.isEmpty() ? allChannelNames() : channels) {
+            RealTimeDataChannel field = RealTimeDataChannel.fromFieldName(channel);
+            if (field == null) {
+                // 冷数据只存储字段通道，扩展通道无法跨存储层聚合
+                return Result.error("只支持实时数据字段通道: " + channel);
+            }
+            fields.add(field);
+        }
+        List<Double> requested = quantiles != null ? quantiles : List.of();
+        
+        try {
+            AggregationResult aggregation = parallelAggregationExecutor.aggregate(sources, fields, startTime, endTime,
+                    TimeSlice.of(slice), !requested.isEmpty());
+            
+            List<Map<String, Object>> partitions = new ArrayList<>();
+            for (PartitionAggregate partition : aggregation.getPartitions()) {
+                partitions.add(describePartition(partition, fields, requested));
+            }
+            List<Map<String, Object>> bySource = new ArrayList<>();
+            for (PartitionAggregate partition : aggregation.getBySource().values()) {
+                bySource.add(describePartition(partition, fields, requested));
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("slice", slice.toLowerCase());
+            result.put("partitionCount", partitions.size());
+            result.put("parallelism", aggregation.getParallelism());
+            result.put("elapsedMillis", aggregation.getElapsedMillis());
+            result.put("partitions", partitions);
+            result.put("sources", bySource);
+            result.put("total", describePartition(aggregation.getTotal(), fields, requested));
+            return Result.success("并行聚合完成", result);
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("并行聚合失败: {}", e.getMessage(), e);
+            return Result.error("并行聚合失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> getCorrelationMatrix(String group, String mode) {
+        try {
+            CorrelationMatrix matrix = correlationRegistry.snapshot(group, CorrelationMode.of(mode));
+            if (matrix == null) {
+                return Result.notFound("相关分析分组不存在: " + group);
+            }
+            int size = matrix.getChannels().size();
+            // 无法计算的系数（样本不足或方差为0）输出为null，避免NaN出现在JSON中
+            Double[][] correlation = new Double[size][size];
+            Double[][] covariance = new Double[size][size];
+            Double[] means = new Double[size];
+            for (int i = 0; i < size; i++) {
+                means[i] = matrix.getSamples() > 0 ? matrix.mean(i) : null;
+                for (int j = 0; j < size; j++) {
+                    double r = matrix.correlation(i, j);
+                    double c = matrix.covariance(i, j);
+                    correlation[i][j] = Double.isNaN(r) ? null : r;
+                    covariance[i][j] = Double.isNaN(c) ? null : c;
+                }
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("group", matrix.getGroup());
+            result.put("mode", matrix.getMode().name().toLowerCase());
+            result.put("channels", matrix.getChannels());
+            result.put("samples", matrix.getSamples());
+            result.put("weight", matrix.getWeight());
+            result.put("lastSampleTime", matrix.getSamples() > 0
+                    ? EpochTimes.toLocalDateTime(matrix.getLastSampleMillis()) : null);
+            result.put("means", means);
+            result.put("correlation", correlation);
+            result.put("covariance", covariance);
+            return Result.success(result);
+        } catch (IllegalArgumentException e) {
+            return Result.error("相关矩阵参数无效: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("获取相关矩阵失败: {}", e.getMessage(), e);
+            return Result.error("获取相关矩阵失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<String>> registerCorrelationGroup(String name, List<String> members) {
+        log.info("注册相关分析分组: {}, 成员: {}", name, members);
+        
+        try {
+            correlationRegistry.register(name, members);
+            return Result.success("相关分析分组注册成功", members);
+        } catch (IllegalArgumentException e) {
+            log.warn("相关分析分组定义不合法: {}", e.getMessage());
+            return Result.error("相关分析分组定义不合法: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("相关分析分组注册失败: {}", e.getMessage(), e);
+            return Result.error("相关分析分组注册失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Boolean> removeCorrelationGroup(String name) {
+        log.info("移除相关分析分组: {}", name);
+        
+        try {
+            boolean removed = correlationRegistry.unregister(name);
+            return removed ? Result.success("相关分析分组移除成功", Boolean.TRUE) : Result.notFound("相关分析分组不存在: " + name);
+        } catch (Exception e) {
+            log.error("相关分析分组移除失败: {}", e.getMessage(), e);
+            return Result.error("相关分析分组移除失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, List<String>>> getCorrelationGroups() {
+        try {
+            return Result.success(correlationRegistry.getGroups());
+        } catch (Exception e) {
+            log.error("获取相关分析分组失败: {}", e.getMessage(), e);
+            return Result.error("获取相关分析分组失败: " + e.getMessage());
+        }
+    }
+
     @Override
     public Result<List<RealTimeData>> detectComplexEvents(List<RealTimeData> events) {
         log.info("检测复杂事件，事件数量: {}", events != null ? events.size() : 0);
@@ -125,18 +367,14 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         try {
             List<RealTimeData> detectedEvents = new ArrayList<>();
             
-            if (events != null && events.size() > 1) {
-                // 示例：检测连续异常事件
-                for (int i = 0; i < events.size() - 1; i++) {
-                    RealTimeData current = events.get(i);
-                    RealTimeData next = events.get(i + 1);
-                    
-                    // 检测连续异常（如温度持续升高）
-                    if (current.getTemperature() != null && next.getTemperature() != null &&
-                        current.getTemperature().compareTo(next.getTemperature()) < 0 &&
-                        current.getStatus() != 0 && next.getStatus() != 0) {
-                        detectedEvents.add(current);
-                        detectedEvents.add(next);
+            if (events != null && !events.isEmpty()) {
+                // 使用已注册的CEP模式评估，同一事件参与多个匹配时只返回一次
+                Set<RealTimeData> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (CepMatch match : cepEngine.evaluate(events)) {
+                    for (RealTimeData event : match.getEvents()) {
+                        if (seen.add(event)) {
+                            detectedEvents.add(event);
+                        }
                     }
                 }
             }
@@ -148,6 +386,55 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         }
     }
 
+    @Override
+    public Result<CepPattern> registerCepPattern(CepPattern pattern) {
+        log.info("注册CEP模式: {}", pattern.getName());
+        
+        try {
+            cepEngine.registerPattern(pattern);
+            return Result.success("CEP模式注册成功", pattern);
+        } catch (IllegalArgumentException e) {
+            log.warn("CEP模式定义不合法: {}", e.getMessage());
+            return Result.error("CEP模式定义不合法: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("CEP模式注册失败: {}", e.getMessage(), e);
+            return Result.error("CEP模式注册失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Boolean> removeCepPattern(String name) {
+        log.info("移除CEP模式: {}", name);
+        
+        try {
+            boolean removed = cepEngine.removePattern(name);
+            return removed ? Result.success("CEP模式移除成功", Boolean.TRUE) : Result.notFound("CEP模式不存在: " + name);
+        } catch (Exception e) {
+            log.error("CEP模式移除失败: {}", e.getMessage(), e);
+            return Result.error("CEP模式移除失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<CepPattern>> getCepPatterns() {
+        try {
+            return Result.success(cepEngine.getPatterns());
+        } catch (Exception e) {
+            log.error("获取CEP模式失败: {}", e.getMessage(), e);
+            return Result.error("获取CEP模式失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<CepMatch>> getRecentCepMatches(int limit) {
+        try {
+            return Result.success(cepEngine.getRecentMatches(limit));
+        } catch (Exception e) {
+            log.error("获取CEP匹配结果失败: {}", e.getMessage(), e);
+            return Result.error("获取CEP匹配结果失败: " + e.getMessage());
+        }
+    }
+
     @Override
     public Result<Map<String, Object>> monitorDataQuality(RealTimeData realTimeData) {
         log.info("实时数据质量监控，数据ID: {}", realTimeData.getId());
@@ -174,6 +461,16 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         }
     }
 
+    @Override
+    public Result<List<DataQualitySnapshot>> getDataQualityMetrics(String source) {
+        try {
+            return Result.success(dataQualityMonitor.getLatest(source));
+        } catch (Exception e) {
+            log.error("获取数据质量指标失败: {}", e.getMessage(), e);
+            return Result.error("获取数据质量指标失败: " + e.getMessage());
+        }
+    }
+
     @Override
     public Result<Boolean> detectAnomalyByRules(RealTimeData realTimeData) {
         log.info("基于规则的异常检测，数据ID: {}", realTimeData.getId());
@@ -305,19 +602,25 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         log.info("趋势分析与预测，数据源: {}, 数据点数量: {}", source, dataPoints);
         
         try {
-            // 获取最新的数据点
-            Query query = new Query();
-            query.addCriteria(Criteria.where("source").is(source));
-            query.with(org.springframework.data.domain.Sort.by(
-                    org.springframework.data.domain.Sort.Direction.DESC, "dataTime"));
-            query.limit(dataPoints);
-            
-            List<RealTimeData> recentData = mongoTemplate.find(query, RealTimeData.class);
-            
-            // 反转列表以获得时间顺序
-            Collections.reverse(recentData);
+            // 在线模型由实时数据逐点更新；服务重启后首次查询时用最近的数据点初始化
+            if (forecastRegistry.get(source, RealTimeDataChannel.WIND_SPEED) == null) {
+                Query query = new Query();
+                query.addCriteria(Criteria.where("source").is(source));
+                query.with(org.springframework.data.domain.Sort.by(
+                        org.springframework.data.domain.Sort.Direction.DESC, "dataTime"));
+                query.limit(dataPoints);
+                
+                List<RealTimeData> recentData = mongoTemplate.find(query, RealTimeData.class);
+                
+                // 反转列表以获得时间顺序
+                Collections.reverse(recentData);
+                forecastRegistry.seedIfAbsent(source, recentData);
+            }
             
-            Map<String, Object> trendResult = performTrendAnalysis(recentData);
+            Map<String, Object> trendResult = new HashMap<>();
+            trendResult.put("windSpeedTrend", buildTrend(forecastRegistry.get(source, RealTimeDataChannel.WIND_SPEED)));
+            trendResult.put("temperatureTrend", buildTrend(forecastRegistry.get(source, RealTimeDataChannel.TEMPERATURE)));
+            trendResult.put("pressureTrend", buildTrend(forecastRegistry.get(source, RealTimeDataChannel.PRESSURE)));
             
             return Result.success("趋势分析完成", trendResult);
         } catch (Exception e) {
@@ -326,6 +629,143 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         }
     }
 
+    @Override
+    public Result<Map<String, Object>> forecast(String source, String channel, long horizonSeconds) {
+        log.info("通道预测，数据源: {}, 通道: {}, 预测时长: {}秒", source, channel, horizonSeconds);
+        
+        try {
+            RealTimeDataChannel dataChannel = RealTimeDataChannel.fromFieldName(channel);
+            if (dataChannel == null) {
+                return Result.error("未知的通道: " + channel);
+            }
+            ChannelForecast forecast = forecastRegistry.get(source, dataChannel);
+            if (forecast == null) {
+                return Result.notFound("暂无该通道的实时数据: " + source + "/" + channel);
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("channel", dataChannel.getFieldName());
+            result.put("lastTime", EpochTimes.toLocalDateTime(forecast.getLastTimestamp()));
+            result.put("lastValue", forecast.getLastValue());
+            result.put("horizonSeconds", horizonSeconds);
+            result.put("slopes", forecast.slopes());
+            result.put("forecasts", forecast.forecast(horizonSeconds * 1000));
+            return Result.success("预测完成", result);
+        } catch (Exception e) {
+            log.error("通道预测失败: {}", e.getMessage(), e);
+            return Result.error("通道预测失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> forecastThresholdEta(String source, String channel, double threshold) {
+        log.info("阈值到达时间预测，数据源: {}, 通道: {}, 阈值: {}", source, channel, threshold);
+        
+        try {
+            RealTimeDataChannel dataChannel = RealTimeDataChannel.fromFieldName(channel);
+            if (dataChannel == null) {
+                return Result.error("未知的通道: " + channel);
+            }
+            ChannelForecast forecast = forecastRegistry.get(source, dataChannel);
+            if (forecast == null) {
+                return Result.notFound("暂无该通道的实时数据: " + source + "/" + channel);
+            }
+            
+            Map<String, Long> etaMillis = forecast.etaToThreshold(threshold);
+            Map<String, Object> etaSeconds = new LinkedHashMap<>();
+            long earliest = -1;
+            for (Map.Entry<String, Long> entry : etaMillis.entrySet()) {
+                long eta = entry.getValue();
+                etaSeconds.put(entry.getKey(), eta >= 0 ? Double.valueOf(eta / 1000.0) : null);
+                if (eta >= 0 && (earliest < 0 || eta < earliest)) {
+                    earliest = eta;
+                }
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("channel", dataChannel.getFieldName());
+            result.put("threshold", threshold);
+            result.put("lastTime", EpochTimes.toLocalDateTime(forecast.getLastTimestamp()));
+            result.put("lastValue", forecast.getLastValue());
+            result.put("etaSeconds", etaSeconds);
+            result.put("earliestEtaSeconds", earliest >= 0 ? Double.valueOf(earliest / 1000.0) : null);
+            result.put("earliestTime", earliest >= 0 ? EpochTimes.toLocalDateTime(forecast.getLastTimestamp() + earliest) : null);
+            return Result.success("阈值到达时间预测完成", result);
+        } catch (Exception e) {
+            log.error("阈值到达时间预测失败: {}", e.getMessage(), e);
+            return Result.error("阈值到达时间预测失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<SpectrumFeatures>> getSpectrumFeatures(String source) {
+        try {
+            return Result.success(spectrumAnalyzer.getFeatures(source));
+        } catch (Exception e) {
+            log.error("获取频谱特征失败: {}", e.getMessage(), e);
+            return Result.error("获取频谱特征失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> getVibrationSpectrum(String source, String channel) {
+        try {
+            Map<String, Object> spectrum = spectrumAnalyzer.getSpectrum(source, channel);
+            if (spectrum == null) {
+                return Result.notFound("暂无完整窗口的频谱数据: " + source + "/" + channel);
+            }
+            return Result.success(spectrum);
+        } catch (Exception e) {
+            log.error("获取功率谱密度失败: {}", e.getMessage(), e);
+            return Result.error("获取功率谱密度失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<Map<String, Object>> alignSources(List<String> sources, List<String> channels,
+                                                    LocalDateTime startTime, LocalDateTime endTime,
+                                                    long stepMillis, Long maxGapMillis) {
+        log.info("多来源时间对齐，数据源: {}, 通道: {}, 时间范围: {} - {}, 步长: {}ms",
+                sources, channels, startTime, endTime, stepMillis);
+        
+        try {
+            AlignedSeries aligned = timeAligner.align(sources, channels, startTime, endTime, stepMillis, maxGapMillis);
+            long[] timestamps = new long[aligned.getPoints()];
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamps[i] = aligned.timeAt(i);
+            }
+            // 缺失点输出为null，避免NaN出现在JSON中
+            Map<String, Double[]> series = new LinkedHashMap<>();
+            aligned.getSeries().forEach((key, values) -> {
+                Double[] boxed = new Double[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    boxed[i] = Double.isNaN(values[i]) ? null : values[i];
+                }
+                series.put(key, boxed);
+            });
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("startTime", startTime);
+            result.put("stepMillis", stepMillis);
+            result.put("points", aligned.getPoints());
+            result.put("timestamps", timestamps);
+            result.put("series", series);
+            return Result.success("时间对齐完成", result);
+        } catch (IllegalArgumentException e) {
+            return Result.error("时间对齐参数无效: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("时间对齐失败: {}", e.getMessage(), e);
+            return Result.error("时间对齐失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Result<List<Map<String, Object>>> getClockOffsets() {
+        return Result.success(clockSyncRegistry.getOffsets());
+    }
+
     @Override
     public Result<RealTimeData> processRealTimeDataStream(RealTimeData realTimeData) {
         log.info("处理实时数据流，数据ID: {}", realTimeData.getId());
@@ -392,9 +832,41 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         Map<String, Object> stdDevValues = calculateStandardDeviation(dataList, avgValues);
         result.put("stdDev", stdDevValues);
         
+        // 计算分位数
+        result.put("percentiles", calculatePercentileValues(dataList));
+        
         return result;
     }
     
+    /**
+     * 用分位数草图计算各通道的p50、p90、p95和p99，无需排序
+     */
+    private Map<String, Object> calculatePercentileValues(List<RealTimeData> dataList) {
+        QuantileSketch[] sketches = new QuantileSketch[RealTimeDataChannel.count()];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = quantileSketchRegistry.newSketch();
+        }
+        for (RealTimeData data : dataList) {
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i].add(RealTimeDataChannel.of(i).read(data));
+            }
+        }
+        
+        Map<String, Object> percentiles = new HashMap<>();
+        for (int i = 0; i < sketches.length; i++) {
+            if (sketches[i].getCount() == 0) {
+                continue;
+            }
+            Map<String, Object> channelPercentiles = new LinkedHashMap<>();
+            channelPercentiles.put("p50", sketches[i].quantile(0.5));
+            channelPercentiles.put("p90", sketches[i].quantile(0.9));
+            channelPercentiles.put("p95", sketches[i].quantile(0.95));
+            channelPercentiles.put("p99", sketches[i].quantile(0.99));
+            percentiles.put(RealTimeDataChannel.of(i).getFieldName(), channelPercentiles);
+        }
+        return percentiles;
+    }
+    
     /**
      * 计算平均值
      */
@@ -594,6 +1066,109 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
         return minValues;
     }
     
+    /**
+     * 所有原始通道的字段名，按通道序号排列
+     */
+    private List<String> allChannelNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < RealTimeDataChannel.count(); i++) {
+            names.add(RealTimeDataChannel.of(i).getFieldName());
+        }
+        return names;
+    }
+
+    /**
+     * 把分区部分状态转换为各通道的统计量
+     */
+    private Map<String, Object> describePartition(PartitionAggregate partition, List<RealTimeDataChannel> fields,
+                                                  List<Double> quantiles) {
+        Map<String, Object> channels = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            ChannelAggregate aggregate = partition.getAggregate(i);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", aggregate.getCount());
+            stats.put("mean", aggregate.isEmpty() ? null : aggregate.mean());
+            stats.put("min", aggregate.isEmpty() ? null : aggregate.getMin());
+            stats.put("max", aggregate.isEmpty() ? null : aggregate.getMax());
+            double stdDev = aggregate.stdDev();
+            stats.put("stdDev", Double.isNaN(stdDev) ? null : stdDev);
+            QuantileSketch sketch = partition.getSketch(i);
+            if (sketch != null) {
+                Map<String, Object> percentiles = new LinkedHashMap<>();
+                for (Double quantile : quantiles) {
+                    double value = sketch.quantile(quantile);
+                    percentiles.put("p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString(),
+                            Double.isNaN(value) ? null : value);
+                }
+                stats.put("percentiles", percentiles);
+            }
+            channels.put(fields.get(i).getFieldName(), stats);
+        }
+        Map<String, Object> description = new LinkedHashMap<>();
+        if (partition.getSource() != null) {
+            description.put("source", partition.getSource());
+        }
+        description.put("startTime", partition.getStartTime());
+        description.put("endTime", partition.getEndTime());
+        description.put("channels", channels);
+        return description;
+    }
+
+    /**
+     * 查询尚未写入冷数据层的热数据，与归档数据合并时每条数据只计入一次
+     */
+    @SuppressWarnings("null")
+    private List<RealTimeData> findHotData(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        return mongoTemplate.find(new Query(hotTierBoundary.criteria(source, startTime, endTime)), RealTimeData.class);
+    }
+
+    /**
+     * 判断归档冷数据中是否有数据
+     */
+    private boolean hasArchivedData(ChannelAggregate[] archived) {
+        for (ChannelAggregate aggregate : archived) {
+            if (!aggregate.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 合并归档冷数据后计算统计值
+     * 
+     * @param hotData MongoDB中的热数据
+     * @param archived 归档冷数据按通道的聚合结果
+     * @param statistic 统计类型（average、max、min）
+     */
+    private Map<String, Object> calculateWithArchive(List<RealTimeData> hotData, ChannelAggregate[] archived, String statistic) {
+        Map<String, Object> result = new HashMap<>();
+        
+        for (int i = 0; i < archived.length; i++) {
+            RealTimeDataChannel channel = RealTimeDataChannel.of(i);
+            ChannelAggregate aggregate = new ChannelAggregate();
+            for (RealTimeData data : hotData) {
+                aggregate.add(channel.read(data));
+            }
+            aggregate.merge(archived[i]);
+            if (aggregate.isEmpty()) {
+                continue;
+            }
+            
+            BigDecimal value;
+            if ("max".equals(statistic)) {
+                value = BigDecimal.valueOf(aggregate.getMax());
+            } else if ("min".equals(statistic)) {
+                value = BigDecimal.valueOf(aggregate.getMin());
+            } else {
+                value = BigDecimal.valueOf(aggregate.mean()).setScale(4, RoundingMode.HALF_UP);
+            }
+            result.put(channel.getFieldName(), value);
+        }
+        
+        return result;
+    }
+    
     /**
      * 计算标准差
      */
@@ -780,70 +1355,35 @@ public class StreamProcessingServiceImpl implements StreamProcessingService {
     }
     
     /**
-     * 执行趋势分析
+     * 根据在线预测模型生成单个通道的趋势
      */
-    @SuppressWarnings("null")
-    private Map<String, Object> performTrendAnalysis(List<RealTimeData> dataList) {
-        Map<String, Object> trendAnalysis = new HashMap<>();
-        
-        if (dataList.size() < 2) {
-            return trendAnalysis;
-        }
-        
-        // 计算各参数的趋势
-        Map<String, Object> windSpeedTrend = calculateTrend(
-            dataList.stream().map(RealTimeData::getWindSpeed).collect(Collectors.toList()));
-        trendAnalysis.put("windSpeedTrend", windSpeedTrend);
-        
-        Map<String, Object> temperatureTrend = calculateTrend(
-            dataList.stream().map(RealTimeData::getTemperature).collect(Collectors.toList()));
-        trendAnalysis.put("temperatureTrend", temperatureTrend);
-        
-        Map<String, Object> pressureTrend = calculateTrend(
-            dataList.stream().map(RealTimeData::getPressure).collect(Collectors.toList()));
-        trendAnalysis.put("pressureTrend", pressureTrend);
-        
-        return trendAnalysis;
-    }
-    
-    /**
-     * 计算趋势
-     */
-    @SuppressWarnings("null")
-    private Map<String, Object> calculateTrend(List<BigDecimal> values) {
-        Map<String, Object> trend = new HashMap<>();
-        
-        // 过滤掉空值
-        List<BigDecimal> nonNullValues = values.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        
-        if (nonNullValues.size() < 2) {
+    private Map<String, Object> buildTrend(ChannelForecast forecast) {
+        Map<String, Object> trend = new LinkedHashMap<>();
+        if (forecast == null || forecast.getSampleCount() < 2) {
             trend.put("direction", "insufficient_data");
             trend.put("rate", Double.valueOf(0));
             return trend;
         }
         
-        // 简单线性趋势计算（使用首尾值）
-        BigDecimal firstValue = nonNullValues.get(0);
-        BigDecimal lastValue = nonNullValues.get(nonNullValues.size() - 1);
-        
-        BigDecimal change = lastValue.subtract(firstValue);
-        double rate = change.doubleValue() / firstValue.doubleValue() * 100;
-        
+        double level = forecast.level();
+        double slope = forecast.slopePerSecond();
+        // 一个预测时长内的变化不足水平值的千分之一视为平稳
+        double horizonSeconds = forecastHorizonMillis / 1000.0;
         String direction;
-        if (change.compareTo(BigDecimal.ZERO) > 0) {
-            direction = "increasing";
-        } else if (change.compareTo(BigDecimal.ZERO) < 0) {
-            direction = "decreasing";
-        } else {
+        if (Math.abs(slope) * horizonSeconds < 1e-3 * Math.max(Math.abs(level), 1)) {
             direction = "stable";
+        } else {
+            direction = slope > 0 ? "increasing" : "decreasing";
         }
         
         trend.put("direction", direction);
-        trend.put("rate", rate);
-        trend.put("change", change);
-        
+        trend.put("rate", level != 0 ? slope / Math.abs(level) * 100 : Double.valueOf(0));
+        trend.put("slopePerSecond", slope);
+        trend.put("level", level);
+        trend.put("lastValue", forecast.getLastValue());
+        trend.put("sampleCount", forecast.getSampleCount());
+        trend.put("horizonSeconds", horizonSeconds);
+        trend.put("forecast", forecast.forecast(forecastHorizonMillis));
         return trend;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.windtunnel.service.impl.experiment;
+
+import com.windtunnel.archive.TieredSeriesReader;
+import com.windtunnel.entity.ExperimentRun;
+import com.windtunnel.repository.ExperimentRunRepository;
+import com.windtunnel.service.experiment.ExperimentRunService;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.Lttb;
+import com.windtunnel.timeseries.M4Aggregator;
+import com.windtunnel.timeseries.SampleBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 试验运行服务实现类
+ * 
+ * 运行记录在采集时已写入统计摘要和存储块指针，加载运行数据时按ID读取压缩块、只打开登记的分区文件，
+ * 热数据按运行时间范围读取；运行对比直接使用统计摘要，不扫描原始数据
+ * 
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class ExperimentRunServiceImpl implements ExperimentRunService {
+
+    @Autowired
+    private ExperimentRunRepository experimentRunRepository;
+
+    @Autowired
+    private TieredSeriesReader tieredSeriesReader;
+
+    @Value("${wind-tunnel.downsample.max-points:10000}")
+    private int maxDownsamplePoints;
+
+    /**
+     * 根据ID查询试验运行
+     * 
+     * @param id 运行ID
+     * @return 试验运行，不存在时返回null
+     */
+    @Override
+    public ExperimentRun findById(String id) {
+        log.debug("查询试验运行: {}", id);
+        return experimentRunRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * 根据试验排期查询运行
+     * 
+     * @param experimentScheduleId 试验排期ID
+     * @return 按开始时间升序排列的运行列表
+     */
+    @Override
+    public List<ExperimentRun> findBySchedule(Long experimentScheduleId) {
+        log.debug("根据排期查询试验运行: {}", experimentScheduleId);
+        return experimentRunRepository.findByExperimentScheduleIdOrderByStartTimeAsc(experimentScheduleId);
+    }
+
+    /**
+     * 根据试验项目查询运行
+     * 
+     * @param experimentProjectId 试验项目ID
+     * @return 按开始时间升序排列的运行列表
+     */
+    @Override
+    public List<ExperimentRun> findByProject(Long experimentProjectId) {
+        log.debug("根据项目查询试验运行: {}", experimentProjectId);
+        return experimentRunRepository.findByExperimentProjectIdOrderByStartTimeAsc(experimentProjectId);
+    }
+
+    /**
+     * 查询数据来源在时间范围内的运行
+     * 
+     * @param source 数据来源
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 与时间范围相交的运行列表
+     */
+    @Override
+    public List<ExperimentRun> findBySource(String source, LocalDateTime startTime, LocalDateTime endTime) {
+        log.debug("查询数据来源的试验运行: {}, 时间范围: {} - {}", source, startTime, endTime);
+        return experimentRunRepository.findOverlapping(source, startTime, endTime);
+    }
+
+    /**
+     * 加载试验运行的降采样序列
+     * 
+     * @param id 运行ID
+     * @param channels 通道列表，为空时加载运行摘要中的全部通道
+     * @param points 每个通道的目标点数
+     * @return 运行信息和各通道序列，运行不存在时返回null
+     */
+    @Override
+    public Map<String, Object> loadRunSeries(String id, List<String> channels, int points) {
+        log.info("加载试验运行数据: {}, 通道: {}, 目标点数: {}", id, channels, points);
+        if (points < 4 || points > maxDownsamplePoints) {
+            throw new IllegalArgumentException("目标点数必须在 4 到 " + maxDownsamplePoints + " 之间");
+        }
+        ExperimentRun run = findById(id);
+        if (run == null) {
+            return null;
+        }
+        List<String> loadChannels = channels != null && !channels.isEmpty() ? channels
+                : run.getChannels() != null ? new ArrayList<>(run.getChannels().keySet()) : List.of();
+
+        Map<String, List<String>> chunkIds = new HashMap<>();
+        List<String> partitionFiles = new ArrayList<>();
+        if (run.getBlocks() != null) {
+            for (ExperimentRun.BlockPointer block : run.getBlocks()) {
+                if (ExperimentRun.BlockPointer.TIER_CHUNK.equals(block.getTier())) {
+                    chunkIds.computeIfAbsent(block.getChannel(), channel -> new ArrayList<>()).add(block.getRef());
+                } else if (ExperimentRun.BlockPointer.TIER_COLUMNAR.equals(block.getTier())) {
+                    partitionFiles.add(block.getRef());
+                }
+            }
+        }
+
+        long startMillis = EpochTimes.toEpochMilli(run.getStartTime());
+        long endMillis = EpochTimes.toEpochMilli(run.getEndTime());
+        M4Aggregator[] aggregators = new M4Aggregator[loadChannels.size()];
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregators[i] = new M4Aggregator(startMillis, endMillis, points);
+        }
+        tieredSeriesReader.readIndexed(run.getSource(), loadChannels, run.getStartTime(), run.getEndTime(),
+                chunkIds, partitionFiles, aggregators);
+
+        Map<String, Object> series = new LinkedHashMap<>();
+        for (int i = 0; i < aggregators.length; i++) {
+            SampleBuffer candidates = new SampleBuffer(points * 4);
+            aggregators[i].writeM4(candidates);
+            SampleBuffer buffer = new SampleBuffer(points);
+            Lttb.downsample(candidates, points, buffer);
+            Map<String, Object> channelSeries = new LinkedHashMap<>();
+            channelSeries.put("rawCount", aggregators[i].getAccepted());
+            channelSeries.put("count", buffer.size());
+            channelSeries.put("times", buffer.toTimestampArray());
+            channelSeries.put("values", buffer.toValueArray());
+            series.put(loadChannels.get(i), channelSeries);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("run", run);
+        result.put("points", points);
+        result.put("series", series);
+        return result;
+    }
+
+    /**
+     * 按预先计算的统计摘要对比多个试验运行
+     * 
+     * @param ids 运行ID列表
+     * @return 按通道组织的各运行统计摘要
+     */
+    @Override
+    public Map<String, Object> compareRuns(List<String> ids) {
+        log.info("对比试验运行: {}", ids);
+        Map<String, ExperimentRun> runs = new LinkedHashMap<>();
+        experimentRunRepository.findAllById(ids).forEach(run -> runs.put(run.getId(), run));
+
+        List<Map<String, Object>> runInfos = new ArrayList<>();
+        TreeSet<String> channelNames = new TreeSet<>();
+        for (String id : ids) {
+            ExperimentRun run = runs.get(id);
+            if (run == null) {
+                continue;
+            }
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("id", run.getId());
+            info.put("source", run.getSource());
+            info.put("experimentProjectId", run.getExperimentProjectId());
+            info.put("experimentScheduleId", run.getExperimentScheduleId());
+            info.put("startTime", run.getStartTime());
+            info.put("endTime", run.getEndTime());
+            info.put("sampleCount", run.getSampleCount());
+            runInfos.add(info);
+            if (run.getChannels() != null) {
+                channelNames.addAll(run.getChannels().keySet());
+            }
+        }
+
+        // 每个通道按运行顺序排列摘要，运行中没有该通道时为null
+        Map<String, List<ExperimentRun.ChannelSummary>> channels = new LinkedHashMap<>();
+        for (String channel : channelNames) {
+            List<ExperimentRun.ChannelSummary> summaries = new ArrayList<>();
+            for (String id : ids) {
+                ExperimentRun run = runs.get(id);
+                if (run != null) {
+                    summaries.add(run.getChannels() != null ? run.getChannels().get(channel) : null);
+                }
+            }
+            channels.put(channel, summaries);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runs", runInfos);
+        result.put("channels", channels);
+        result.put("missing", ids.stream().filter(id -> !runs.containsKey(id)).toList());
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.windtunnel.entity.experiment.ExperimentSchedule;
 import com.windtunnel.repository.experiment.ExperimentScheduleRepository;
+import com.windtunnel.run.ExperimentRunIndexer;
 import com.windtunnel.service.experiment.ExperimentScheduleService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,9 @@ public class ExperimentScheduleServiceImpl implements ExperimentScheduleService
     @Autowired
     private ExperimentScheduleRepository experimentScheduleRepository;
 
+    @Autowired
+    private ExperimentRunIndexer experimentRunIndexer;
+
     /**
      * 保存试验排期
      * 
@@ -217,7 +221,8 @@ public class ExperimentScheduleServiceImpl implements ExperimentScheduleService
             schedule.setStatus(1); // 1-进行中
             schedule.setConfirmerId(confirmerId);
             schedule.setConfirmationTime(LocalDateTime.now());
-            return experimentScheduleRepository.updateById(schedule) > 0;
+            schedule.setActualStartTime(LocalDateTime.now());
+            return updateAndNotify(schedule);
         }
         return false;
     }
@@ -237,7 +242,7 @@ public class ExperimentScheduleServiceImpl implements ExperimentScheduleService
             schedule.setStatus(3); // 3-已取消
             schedule.setCancellationReason(cancellationReason);
             schedule.setCancellationTime(LocalDateTime.now());
-            return experimentScheduleRepository.updateById(schedule) > 0;
+            return updateAndNotify(schedule);
         }
         return false;
     }
@@ -256,7 +261,12 @@ public class ExperimentScheduleServiceImpl implements ExperimentScheduleService
         if (schedule != null) {
             schedule.setStatus(status);
             schedule.setUpdateTime(LocalDateTime.now());
-            return experimentScheduleRepository.updateById(schedule) > 0;
+            if (status != null && status == 1 && schedule.getActualStartTime() == null) {
+                schedule.setActualStartTime(LocalDateTime.now());
+            } else if (status != null && status == 2) {
+                schedule.setActualEndTime(LocalDateTime.now());
+            }
+            return updateAndNotify(schedule);
         }
         return false;
     }
@@ -285,4 +295,14 @@ public class ExperimentScheduleServiceImpl implements ExperimentScheduleService
         return conflictingSchedules.isEmpty();
     }
 
-}
\ No newline at end of file
+    /**
+     * 保存排期并通知试验运行索引状态变化
+     */
+    private boolean updateAndNotify(ExperimentSchedule schedule) {
+        if (experimentScheduleRepository.updateById(schedule) > 0) {
+            experimentRunIndexer.onScheduleChanged(schedule);
+            return true;
+        }
+        return false;
+    }
+}
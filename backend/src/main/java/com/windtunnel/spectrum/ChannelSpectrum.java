@@ -0,0 +1,184 @@
+package com.windtunnel.spectrum;
+
+import com.windtunnel.timeseries.EpochTimes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个数据来源单个通道的流式频谱状态
+ *
+ * 采样点写入预分配的环形缓冲区，每累积一个跳步长度计算一次加窗FFT，
+ * 功率谱密度按指数加权平均（Welch平均的流式形式）以降低方差
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class ChannelSpectrum {
+
+    private final String source;
+
+    private final String channel;
+
+    private final int size;
+
+    private final int hop;
+
+    private final double averaging;
+
+    private final double[] values;
+
+    private final long[] timestamps;
+
+    private final double[] averagePsd;
+
+    private int head;
+
+    private int filled;
+
+    private int sinceLastFrame;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private long frames;
+
+    private double sampleRate;
+
+    private SpectrumFeatures latest;
+
+    ChannelSpectrum(String source, String channel, int size, int hop, double averaging) {
+        this.source = source;
+        this.channel = channel;
+        this.size = size;
+        this.hop = hop;
+        this.averaging = averaging;
+        this.values = new double[size];
+        this.timestamps = new long[size];
+        this.averagePsd = new double[size / 2 + 1];
+    }
+
+    /**
+     * 追加采样点
+     *
+     * @return 是否已累积满一个跳步，需要计算新的一帧
+     */
+    synchronized boolean add(long timestamp, double value) {
+        if (Double.isNaN(value) || timestamp <= lastTimestamp) {
+            return false;
+        }
+        lastTimestamp = timestamp;
+        values[head] = value;
+        timestamps[head] = timestamp;
+        head = (head + 1) % size;
+        if (filled < size) {
+            filled++;
+        }
+        sinceLastFrame++;
+        return filled == size && sinceLastFrame >= hop;
+    }
+
+    /**
+     * 计算一帧频谱并更新平均功率谱密度和特征
+     *
+     * @param fft 变换
+     * @param window 窗函数系数
+     * @param windowPower 窗函数系数平方和
+     * @param bands 频带边界，每项为 {下限, 上限}
+     * @param bandNames 频带名称
+     * @param workspace 工作区
+     * @param equipmentId 设备ID
+     * @return 特征，采样时间异常无法估计采样率时返回null
+     */
+    synchronized SpectrumFeatures computeFrame(Fft fft, double[] window, double windowPower, double[][] bands,
+                                               String[] bandNames, SpectrumWorkspace workspace, Long equipmentId) {
+        sinceLastFrame = 0;
+        long first = timestamps[head];
+        long last = timestamps[(head + size - 1) % size];
+        if (last <= first) {
+            return null;
+        }
+        double rate = (size - 1) * 1000.0 / (last - first);
+
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= size;
+
+        double[] re = workspace.re;
+        double[] im = workspace.im;
+        double sumSquares = 0;
+        for (int i = 0; i < size; i++) {
+            double centered = values[(head + i) % size] - mean;
+            sumSquares += centered * centered;
+            re[i] = centered * window[i];
+            im[i] = 0;
+        }
+        fft.transform(re, im);
+
+        double[] psd = workspace.psd;
+        double scale = 1.0 / (rate * windowPower);
+        int half = size / 2;
+        for (int k = 0; k <= half; k++) {
+            double density = (re[k] * re[k] + im[k] * im[k]) * scale;
+            psd[k] = (k == 0 || k == half) ? density : 2 * density;
+        }
+
+        // 采样率变化较大时之前的平均谱已不可比，重新开始平均
+        boolean reset = frames == 0 || Math.abs(rate - sampleRate) > 0.05 * sampleRate;
+        for (int k = 0; k <= half; k++) {
+            averagePsd[k] = reset ? psd[k] : averagePsd[k] + averaging * (psd[k] - averagePsd[k]);
+        }
+        sampleRate = reset ? rate : sampleRate + averaging * (rate - sampleRate);
+        frames++;
+
+        double resolution = sampleRate / size;
+        int peak = 1;
+        for (int k = 2; k <= half; k++) {
+            if (averagePsd[k] > averagePsd[peak]) {
+                peak = k;
+            }
+        }
+        Map<String, Double> bandEnergies = new LinkedHashMap<>();
+        for (int b = 0; b < bands.length; b++) {
+            int from = Math.max(1, (int) Math.ceil(bands[b][0] / resolution));
+            int to = Math.min(half, (int) Math.ceil(bands[b][1] / resolution) - 1);
+            double energy = 0;
+            for (int k = from; k <= to; k++) {
+                energy += averagePsd[k];
+            }
+            bandEnergies.put(bandNames[b], energy * resolution);
+        }
+
+        SpectrumFeatures features = new SpectrumFeatures();
+        features.setSource(source);
+        features.setEquipmentId(equipmentId);
+        features.setChannel(channel);
+        features.setTime(EpochTimes.toLocalDateTime(last));
+        features.setSampleRate(sampleRate);
+        features.setWindowSize(size);
+        features.setFrequencyResolution(resolution);
+        features.setRms(Math.sqrt(sumSquares / size));
+        features.setPeakFrequency(peak * resolution);
+        features.setPeakDensity(averagePsd[peak]);
+        features.setBandEnergies(bandEnergies);
+        latest = features;
+        return features;
+    }
+
+    synchronized SpectrumFeatures getLatest() {
+        return latest;
+    }
+
+    /**
+     * 平均功率谱密度的副本，尚未计算任何帧时返回null
+     */
+    synchronized double[] copyAveragePsd() {
+        return frames > 0 ? averagePsd.clone() : null;
+    }
+
+    synchronized double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,188 @@
+package com.windtunnel.spectrum;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式频谱分析器
+ *
+ * 订阅事件总线上的实时数据，对配置的振动通道按数据来源计算加窗FFT和功率谱密度，
+ * 提取均方根、峰值频率和频带能量。每帧的特征发布到 {@link EventTopics#SPECTRUM_FEATURES}，
+ * 供告警、CEP等下游作为派生通道使用。变换缓冲区取自预分配的工作区池，稳态下不产生数组分配。
+ *
+ * 通道名称优先匹配实时数据的数值字段（如 vibration），否则从扩展数据内容中读取同名数值
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class SpectrumAnalyzer {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Value("${wind-tunnel.spectrum.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.spectrum.channels:vibration}")
+    private List<String> channels;
+
+    @Value("${wind-tunnel.spectrum.window-size:256}")
+    private int windowSize;
+
+    @Value("${wind-tunnel.spectrum.overlap:0.5}")
+    private double overlap;
+
+    @Value("${wind-tunnel.spectrum.averaging:0.3}")
+    private double averaging;
+
+    @Value("${wind-tunnel.spectrum.bands:0-10,10-100,100-1000}")
+    private List<String> bandDefinitions;
+
+    @Value("${wind-tunnel.spectrum.workspace-pool-size:4}")
+    private int workspacePoolSize;
+
+    private final Map<String, Map<String, ChannelSpectrum>> spectra = new ConcurrentHashMap<>();
+
+    private Fft fft;
+
+    private double[] window;
+
+    private double windowPower;
+
+    private double[][] bands;
+
+    private String[] bandNames;
+
+    private SpectrumWorkspacePool workspacePool;
+
+    @PostConstruct
+    public void init() {
+        fft = new Fft(windowSize);
+        window = new double[windowSize];
+        windowPower = 0;
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / windowSize);
+            windowPower += window[i] * window[i];
+        }
+        bands = new double[bandDefinitions.size()][];
+        bandNames = new String[bandDefinitions.size()];
+        for (int i = 0; i < bands.length; i++) {
+            String[] bounds = bandDefinitions.get(i).trim().split("-");
+            bands[i] = new double[]{Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1])};
+            bandNames[i] = bandDefinitions.get(i).trim() + "Hz";
+        }
+        workspacePool = new SpectrumWorkspacePool(windowSize, workspacePoolSize);
+
+        if (enabled) {
+            eventBus.subscribe(EventTopics.REAL_TIME_DATA, "spectrum", events -> events.forEach(this::onData));
+            log.info("流式频谱分析已启用，通道: {}, 窗口长度: {}, 重叠率: {}", channels, windowSize, overlap);
+        }
+    }
+
+    /**
+     * 处理一条实时数据
+     *
+     * @param data 实时数据
+     */
+    public void onData(RealTimeData data) {
+        if (data.getSource() == null || data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        for (String channel : channels) {
+            double value = read(data, channel);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            ChannelSpectrum spectrum = spectra
+                    .computeIfAbsent(data.getSource(), source -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(channel, name -> new ChannelSpectrum(data.getSource(), name, windowSize,
+                            Math.max(1, (int) Math.round(windowSize * (1 - overlap))), averaging));
+            if (!spectrum.add(timestamp, value)) {
+                continue;
+            }
+            SpectrumWorkspace workspace = workspacePool.borrow();
+            try {
+                SpectrumFeatures features = spectrum.computeFrame(fft, window, windowPower, bands, bandNames,
+                        workspace, data.getEquipmentId());
+                if (features != null) {
+                    eventBus.publish(EventTopics.SPECTRUM_FEATURES, features);
+                }
+            } finally {
+                workspacePool.giveBack(workspace);
+            }
+        }
+    }
+
+    /**
+     * 获取数据来源各通道最新的频谱特征
+     *
+     * @param source 数据来源
+     * @return 频谱特征列表
+     */
+    public List<SpectrumFeatures> getFeatures(String source) {
+        List<SpectrumFeatures> result = new ArrayList<>();
+        Map<String, ChannelSpectrum> sourceSpectra = spectra.get(source);
+        if (sourceSpectra != null) {
+            for (ChannelSpectrum spectrum : sourceSpectra.values()) {
+                SpectrumFeatures features = spectrum.getLatest();
+                if (features != null) {
+                    result.add(features);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取通道的平均功率谱密度
+     *
+     * @param source 数据来源
+     * @param channel 通道名称
+     * @return 频率、功率谱密度和最新特征，尚无完整窗口时返回null
+     */
+    public Map<String, Object> getSpectrum(String source, String channel) {
+        Map<String, ChannelSpectrum> sourceSpectra = spectra.get(source);
+        ChannelSpectrum spectrum = sourceSpectra != null ? sourceSpectra.get(channel) : null;
+        double[] psd = spectrum != null ? spectrum.copyAveragePsd() : null;
+        if (psd == null) {
+            return null;
+        }
+        double resolution = spectrum.getSampleRate() / windowSize;
+        double[] frequencies = new double[psd.length];
+        for (int k = 0; k < frequencies.length; k++) {
+            frequencies[k] = k * resolution;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("features", spectrum.getLatest());
+        result.put("frequencies", frequencies);
+        result.put("psd", psd);
+        return result;
+    }
+
+    private double read(RealTimeData data, String channel) {
+        RealTimeDataChannel field = RealTimeDataChannel.fromFieldName(channel);
+        if (field != null) {
+            return field.read(data);
+        }
+        Object value = data.getDataContent() != null ? data.getDataContent().get(channel) : null;
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
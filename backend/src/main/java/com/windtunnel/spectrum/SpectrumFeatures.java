@@ -0,0 +1,89 @@
+package com.windtunnel.spectrum;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 振动通道频谱特征
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class SpectrumFeatures {
+
+    /**
+     * 数据来源
+     */
+    private String source;
+
+    /**
+     * 设备ID
+     */
+    private Long equipmentId;
+
+    /**
+     * 通道名称
+     */
+    private String channel;
+
+    /**
+     * 窗口内最后一个采样点的时间
+     */
+    private LocalDateTime time;
+
+    /**
+     * 由窗口时间戳估计的采样率（Hz）
+     */
+    private double sampleRate;
+
+    /**
+     * 窗口长度（采样点数）
+     */
+    private int windowSize;
+
+    /**
+     * 频率分辨率（Hz）
+     */
+    private double frequencyResolution;
+
+    /**
+     * 去直流后的均方根值
+     */
+    private double rms;
+
+    /**
+     * 峰值频率（Hz）
+     */
+    private double peakFrequency;
+
+    /**
+     * 峰值频率处的功率谱密度
+     */
+    private double peakDensity;
+
+    /**
+     * 各频带能量，键为频带名称（如 10-100Hz）
+     */
+    private Map<String, Double> bandEnergies;
+
+    /**
+     * 以派生通道形式展开的特征，键为 {通道}.{特征}，由派生通道注册表写入后续实时数据的扩展数据内容
+     *
+     * @return 派生通道取值
+     */
+    public Map<String, Double> toDerivedChannels() {
+        Map<String, Double> channels = new LinkedHashMap<>();
+        channels.put(channel + ".rms", rms);
+        channels.put(channel + ".peakFrequency", peakFrequency);
+        channels.put(channel + ".peakDensity", peakDensity);
+        if (bandEnergies != null) {
+            bandEnergies.forEach((band, energy) -> channels.put(channel + ".band." + band, energy));
+        }
+        return channels;
+    }
+}
@@ -0,0 +1,23 @@
+package com.windtunnel.spectrum;
+
+/**
+ * 频谱计算工作区，预分配一次变换所需的全部缓冲区
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class SpectrumWorkspace {
+
+    final double[] re;
+
+    final double[] im;
+
+    final double[] psd;
+
+    SpectrumWorkspace(int size) {
+        this.re = new double[size];
+        this.im = new double[size];
+        this.psd = new double[size / 2 + 1];
+    }
+}
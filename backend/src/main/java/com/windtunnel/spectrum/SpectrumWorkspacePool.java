@@ -0,0 +1,37 @@
+package com.windtunnel.spectrum;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 频谱工作区池
+ *
+ * 稳态下每次变换都复用池中的缓冲区；池为空时临时分配，归还时超出容量的工作区直接丢弃
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class SpectrumWorkspacePool {
+
+    private final int size;
+
+    private final BlockingQueue<SpectrumWorkspace> idle;
+
+    SpectrumWorkspacePool(int size, int capacity) {
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            idle.offer(new SpectrumWorkspace(size));
+        }
+    }
+
+    SpectrumWorkspace borrow() {
+        SpectrumWorkspace workspace = idle.poll();
+        return workspace != null ? workspace : new SpectrumWorkspace(size);
+    }
+
+    void giveBack(SpectrumWorkspace workspace) {
+        idle.offer(workspace);
+    }
+}
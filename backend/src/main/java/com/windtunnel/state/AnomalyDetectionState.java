@@ -0,0 +1,123 @@
+package com.windtunnel.state;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import com.windtunnel.strategy.AnomalyDetectionStrategy;
+import com.windtunnel.strategy.StatisticalAnomalyDetectionStrategy;
+import com.windtunnel.timeseries.EpochTimes;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计异常检测策略的状态快照
+ *
+ * 把已注册的统计检测策略的通道状态写入快照，重启后恢复，避免检测器重新经历预热期。
+ * 各策略的水位不同，重放时每条数据只交给尚未处理过该时间的策略。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class AnomalyDetectionState implements StreamingStateParticipant {
+
+    @Autowired
+    private StreamingStateStore streamingStateStore;
+
+    /**
+     * 恢复时各策略的水位，重放结束后清空
+     */
+    private final Map<StatisticalAnomalyDetectionStrategy, Map<String, Long>> replayWatermarks = new HashMap<>();
+
+    @PostConstruct
+    public void restore() {
+        streamingStateStore.restore(this);
+        replayWatermarks.clear();
+    }
+
+    @Override
+    public String getStateName() {
+        return "anomaly-detection";
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        List<StatisticalAnomalyDetectionStrategy> strategies = strategies();
+        out.writeInt(strategies.size());
+        for (StatisticalAnomalyDetectionStrategy strategy : strategies) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            strategy.writeState(new DataOutputStream(bytes));
+            out.writeUTF(strategy.getStrategyName());
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        }
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            // 快照之后被移除或替换为其他实现的策略不恢复
+            if (AnomalyDetectionStrategyFactory.getStrategyByName(name)
+                    instanceof StatisticalAnomalyDetectionStrategy strategy) {
+                strategy.readState(new DataInputStream(new ByteArrayInputStream(bytes)));
+            }
+        }
+        for (StatisticalAnomalyDetectionStrategy strategy : strategies()) {
+            replayWatermarks.put(strategy, strategy.watermarks());
+        }
+    }
+
+    /**
+     * 各数据来源在所有策略中最早的水位
+     */
+    @Override
+    public Map<String, Long> getWatermarks() {
+        Map<String, Long> watermarks = new HashMap<>();
+        for (StatisticalAnomalyDetectionStrategy strategy : strategies()) {
+            strategy.watermarks().forEach((source, time) -> watermarks.merge(source, time, Math::min));
+        }
+        return watermarks;
+    }
+
+    @Override
+    public void replay(RealTimeData data) {
+        if (data.getDataTime() == null) {
+            return;
+        }
+        long timestamp = EpochTimes.toEpochMilli(data.getDataTime());
+        for (StatisticalAnomalyDetectionStrategy strategy : strategies()) {
+            Map<String, Long> watermarks = replayWatermarks.get(strategy);
+            Long watermark = watermarks != null ? watermarks.get(data.getSource()) : null;
+            if (watermark == null || timestamp > watermark) {
+                strategy.detectAnomaly(data);
+            }
+        }
+    }
+
+    private static List<StatisticalAnomalyDetectionStrategy> strategies() {
+        List<StatisticalAnomalyDetectionStrategy> strategies = new ArrayList<>();
+        for (AnomalyDetectionStrategy strategy : AnomalyDetectionStrategyFactory.getAllStrategies()) {
+            if (strategy instanceof StatisticalAnomalyDetectionStrategy statistical) {
+                strategies.add(statistical);
+            }
+        }
+        return strategies;
+    }
+}
@@ -0,0 +1,50 @@
+package com.windtunnel.state;
+
+import com.windtunnel.entity.RealTimeData;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 参与状态快照的流式计算组件
+ *
+ * 组件定期把内存状态写入快照，启动时先从快照恢复状态，再重放快照之后入库的实时数据补齐差距，
+ * 无需从头重放历史数据即可回到停机前的状态。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface StreamingStateParticipant {
+
+    /**
+     * 快照中的状态名称，同一快照内唯一
+     */
+    String getStateName();
+
+    /**
+     * 写出当前状态
+     */
+    void writeState(DataOutput out) throws IOException;
+
+    /**
+     * 从快照恢复状态
+     *
+     * @throws IOException 状态格式不支持
+     */
+    void readState(DataInput in) throws IOException;
+
+    /**
+     * 各数据来源已处理到的样本时间（毫秒），早于等于该时间的数据不再重放
+     */
+    Map<String, Long> getWatermarks();
+
+    /**
+     * 重放一条快照之后的实时数据，同一数据来源按时间升序调用
+     *
+     * @param data 实时数据
+     */
+    void replay(RealTimeData data);
+}
@@ -0,0 +1,82 @@
+package com.windtunnel.state;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式计算状态定时快照
+ *
+ * 按固定间隔把所有状态组件的状态写入快照，正常停机时再写入最后一份快照
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class StreamingStateSnapshotter {
+
+    @Autowired
+    private StreamingStateStore streamingStateStore;
+
+    @Autowired
+    private List<StreamingStateParticipant> participants;
+
+    @Value("${wind-tunnel.streaming-state.interval:60000}")
+    private long interval;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        if (!streamingStateStore.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "streaming-state-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("流式状态快照已启用，状态: {}, 间隔: {}ms",
+                participants.stream().map(StreamingStateParticipant::getStateName).toList(), interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            snapshotQuietly();
+        }
+    }
+
+    /**
+     * 立即写入一份快照
+     *
+     * @return 快照文件字节数
+     */
+    public long snapshot() throws IOException {
+        long started = System.currentTimeMillis();
+        long bytes = streamingStateStore.write(participants);
+        log.debug("流式状态快照已写入，{} 字节, 耗时 {}ms", bytes, System.currentTimeMillis() - started);
+        return bytes;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("写入流式状态快照失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.windtunnel.state;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 流式计算状态快照存储
+ *
+ * 快照为单个本地文件，按状态名称分段保存各组件的状态，每段带CRC32校验，先写临时文件再原子替换，
+ * 写入过程中停机不会损坏上一份快照。恢复时只解析一次快照文件，各组件分别读取自己的分段，
+ * 再从数据库按数据来源重放该组件自身水位之后的数据。重放范围只由组件的水位决定，与设备时钟和服务器时钟
+ * 的偏差无关；组件状态中没有的数据来源不做重放，从实时数据开始建立状态。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class StreamingStateStore {
+
+    private static final int MAGIC = 0x57545353;
+
+    private static final short FORMAT_VERSION = 1;
+
+    private static final String FILE_NAME = "streaming-state.bin";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${wind-tunnel.streaming-state.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wind-tunnel.streaming-state.dir:data/state}")
+    private String dir;
+
+    @Value("${wind-tunnel.streaming-state.max-age:21600000}")
+    private long maxAge;
+
+    @Value("${wind-tunnel.streaming-state.max-replay:1000000}")
+    private long maxReplay;
+
+    /**
+     * 启动时读取的快照，写入新快照后释放
+     */
+    private Snapshot snapshot;
+
+    private boolean loaded;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 从快照恢复组件状态并重放快照之后的数据，应在组件订阅实时数据之前调用
+     *
+     * @param participant 状态组件
+     * @return 是否从快照恢复
+     */
+    public boolean restore(StreamingStateParticipant participant) {
+        if (!enabled) {
+            return false;
+        }
+        long started = System.currentTimeMillis();
+        Snapshot current = snapshot();
+        byte[] section = current != null ? current.sections.get(participant.getStateName()) : null;
+        if (section == null) {
+            return false;
+        }
+        try {
+            participant.readState(new DataInputStream(new ByteArrayInputStream(section)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("恢复流式状态 {} 失败，从空状态开始: {}", participant.getStateName(), e.getMessage());
+            return false;
+        }
+        long replayed = replay(participant);
+        log.info("流式状态 {} 已从快照恢复，快照时间: {}, 重放 {} 条记录, 耗时 {}ms", participant.getStateName(),
+                EpochTimes.toLocalDateTime(current.createdAt), replayed, System.currentTimeMillis() - started);
+        return true;
+    }
+
+    /**
+     * 写入所有组件的状态快照
+     *
+     * @param participants 状态组件
+     * @return 快照文件字节数
+     * @throws IOException 写入失败
+     */
+    public synchronized long write(List<StreamingStateParticipant> participants) throws IOException {
+        // 快照时间取在序列化之前，之后到达的数据一定晚于快照时间，恢复时会被重放
+        long createdAt = System.currentTimeMillis();
+        Map<String, byte[]> sections = new HashMap<>();
+        for (StreamingStateParticipant participant : participants) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                participant.writeState(out);
+            } catch (IOException | RuntimeException e) {
+                log.warn("序列化流式状态 {} 失败: {}", participant.getStateName(), e.getMessage());
+                continue;
+            }
+            sections.put(participant.getStateName(), bytes.toByteArray());
+        }
+
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        Path target = directory.resolve(FILE_NAME);
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(createdAt);
+            out.writeInt(sections.size());
+            for (Map.Entry<String, byte[]> entry : sections.entrySet()) {
+                byte[] section = entry.getValue();
+                CRC32 crc = new CRC32();
+                crc.update(section);
+                out.writeUTF(entry.getKey());
+                out.writeInt(section.length);
+                out.write(section);
+                out.writeLong(crc.getValue());
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        snapshot = null;
+        return Files.size(target);
+    }
+
+    private synchronized Snapshot snapshot() {
+        if (!loaded) {
+            loaded = true;
+            snapshot = load();
+        }
+        return snapshot;
+    }
+
+    private Snapshot load() {
+        Path file = Paths.get(dir, FILE_NAME);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                log.warn("流式状态快照格式无法识别: {}", file);
+                return null;
+            }
+            short version = in.readShort();
+            if (version != FORMAT_VERSION) {
+                log.warn("不支持的流式状态快照版本: {}", version);
+                return null;
+            }
+            long createdAt = in.readLong();
+            if (System.currentTimeMillis() - createdAt > maxAge) {
+                log.info("流式状态快照已过期，快照时间: {}", EpochTimes.toLocalDateTime(createdAt));
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, byte[]> sections = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] section = new byte[in.readInt()];
+                in.readFully(section);
+                CRC32 crc = new CRC32();
+                crc.update(section);
+                if (crc.getValue() != in.readLong()) {
+                    log.warn("流式状态 {} 校验失败，忽略该状态", name);
+                    continue;
+                }
+                sections.put(name, section);
+            }
+            return new Snapshot(createdAt, sections);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("读取流式状态快照失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按组件各数据来源的水位重放之后的数据
+     */
+    private long replay(StreamingStateParticipant participant) {
+        long replayed = 0;
+        for (Map.Entry<String, Long> entry : participant.getWatermarks().entrySet()) {
+            Criteria criteria = Criteria.where("source").is(entry.getKey())
+                    .and("dataTime").gt(EpochTimes.toLocalDateTime(entry.getValue()));
+            replayed += replay(participant, criteria, maxReplay - replayed);
+        }
+        if (replayed >= maxReplay) {
+            log.warn("流式状态 {} 重放记录数达到上限 {}，部分数据来源的状态未补齐", participant.getStateName(), maxReplay);
+        }
+        return replayed;
+    }
+
+    private long replay(StreamingStateParticipant participant, Criteria criteria, long limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "dataTime"))
+                .limit((int) Math.min(Integer.MAX_VALUE, limit));
+        long replayed = 0;
+        try (Stream<RealTimeData> stream = mongoTemplate.stream(query, RealTimeData.class)) {
+            for (RealTimeData data : (Iterable<RealTimeData>) stream::iterator) {
+                participant.replay(data);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static final class Snapshot {
+
+        private final long createdAt;
+
+        private final Map<String, byte[]> sections;
+
+        Snapshot(long createdAt, Map<String, byte[]> sections) {
+            this.createdAt = createdAt;
+            this.sections = sections;
+        }
+    }
+}
@@ -22,6 +22,15 @@ public interface AnomalyDetectionStrategy {
      */
     String getAnomalyDescription(RealTimeData realTimeData);
     
+    /**
+     * 检测异常并生成描述，检测状态只推进一次
+     * @param realTimeData 实时数据
+     * @return 异常描述，未检测到异常时返回null
+     */
+    default String evaluate(RealTimeData realTimeData) {
+        return detectAnomaly(realTimeData) ? getAnomalyDescription(realTimeData) : null;
+    }
+    
     /**
      * 获取策略名称
      * @return 策略名称
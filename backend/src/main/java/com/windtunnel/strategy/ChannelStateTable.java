@@ -0,0 +1,196 @@
+package com.windtunnel.strategy;
+
+import java.util.Arrays;
+
+/**
+ * 通道检测状态表
+ *
+ * 以 (数据来源, 通道) 组合成的long为键，开放寻址定位槽位，每个槽位的检测状态按固定宽度连续存放在
+ * double数组中，查找和更新不产生对象分配。同时记录每个槽位最近一次评估的样本（时间和取值）及结论，
+ * 同一条数据被多处重复检测时直接复用结论，避免状态被重复推进。
+ *
+ * 非线程安全，由调用方加锁：分配槽位需独占访问，不同槽位的状态可由不同线程并发更新。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ChannelStateTable {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int width;
+
+    private long[] keys;
+
+    private int[] slotOfKey;
+
+    private int mask;
+
+    private int size;
+
+    private double[] state;
+
+    private long[] evaluatedTimes;
+
+    private double[] evaluatedValues;
+
+    private boolean[] verdicts;
+
+    /**
+     * @param width 每个槽位的状态宽度
+     */
+    public ChannelStateTable(int width) {
+        this.width = width;
+        this.keys = new long[64];
+        Arrays.fill(keys, EMPTY);
+        this.slotOfKey = new int[64];
+        this.mask = 63;
+        this.state = new double[32 * width];
+        this.evaluatedTimes = new long[32];
+        this.evaluatedValues = new double[32];
+        this.verdicts = new boolean[32];
+    }
+
+    /**
+     * 组合数据来源编号和通道序号为键
+     */
+    public static long key(int sourceId, int channel) {
+        return ((long) sourceId << 32) | (channel & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 查找槽位
+     *
+     * @return 槽位编号，不存在时返回-1
+     */
+    public int find(long key) {
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return slotOfKey[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找槽位，不存在时分配新槽位（状态全为0）
+     */
+    public int slot(long key) {
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return slotOfKey[index];
+            }
+            index = (index + 1) & mask;
+        }
+        int slot = size++;
+        keys[index] = key;
+        slotOfKey[index] = slot;
+        if (slot == evaluatedTimes.length) {
+            int capacity = slot * 2;
+            state = Arrays.copyOf(state, capacity * width);
+            evaluatedTimes = Arrays.copyOf(evaluatedTimes, capacity);
+            evaluatedValues = Arrays.copyOf(evaluatedValues, capacity);
+            verdicts = Arrays.copyOf(verdicts, capacity);
+        }
+        evaluatedTimes[slot] = EMPTY;
+        // 负载因子不超过0.5
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+        return slot;
+    }
+
+    /**
+     * 槽位状态在状态数组中的起始下标
+     */
+    public int offset(int slot) {
+        return slot * width;
+    }
+
+    /**
+     * 状态数组，扩容后引用会变化，不应跨调用持有
+     */
+    public double[] state() {
+        return state;
+    }
+
+    /**
+     * 槽位最近一次评估的是否为该样本
+     */
+    public boolean isEvaluated(int slot, long timestamp, double value) {
+        return evaluatedTimes[slot] == timestamp && evaluatedValues[slot] == value;
+    }
+
+    /**
+     * 记录槽位最近一次评估的样本和结论
+     */
+    public void recordVerdict(int slot, long timestamp, double value, boolean verdict) {
+        evaluatedTimes[slot] = timestamp;
+        evaluatedValues[slot] = value;
+        verdicts[slot] = verdict;
+    }
+
+    public boolean verdict(int slot) {
+        return verdicts[slot];
+    }
+
+    /**
+     * 槽位最近一次评估的样本时间，未评估时返回Long.MIN_VALUE
+     */
+    public long evaluatedTime(int slot) {
+        return evaluatedTimes[slot];
+    }
+
+    public double evaluatedValue(int slot) {
+        return evaluatedValues[slot];
+    }
+
+    /**
+     * 按槽位编号排列的键
+     */
+    public long[] slotKeys() {
+        long[] result = new long[size];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result[slotOfKey[i]] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slotOfKey;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        slotOfKey = new int[keys.length];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                slotOfKey[index] = oldSlots[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
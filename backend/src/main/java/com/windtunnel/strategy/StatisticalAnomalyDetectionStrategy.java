@@ -0,0 +1,295 @@
+package com.windtunnel.strategy;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 统计异常检测策略基类
+ *
+ * 按 (数据来源, 通道) 维护固定宽度的O(1)检测状态，每个样本只推进一次状态。
+ * 子类实现单个通道的状态更新和异常描述，状态全部为double，新槽位的状态为0。
+ *
+ * 同一数据来源的检测按来源分段加锁串行执行，不同来源并行；状态表结构（槽位分配、扩容）由读写锁保护，
+ * 检测持有读锁，分配新槽位、导出和恢复状态持有写锁。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public abstract class StatisticalAnomalyDetectionStrategy implements AnomalyDetectionStrategy {
+
+    /**
+     * 数据来源编号，所有统计检测策略共享
+     */
+    private static final Map<String, Integer> SOURCE_IDS = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_SOURCE_ID = new AtomicInteger();
+
+    /**
+     * 数据来源锁分段数，必须为2的幂
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final RealTimeDataChannel[] channels;
+
+    private final ChannelStateTable table;
+
+    private final ReentrantReadWriteLock tableLock = new ReentrantReadWriteLock();
+
+    private final Object[] sourceLocks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param width 每个通道的状态宽度
+     * @param channels 检测的通道
+     */
+    protected StatisticalAnomalyDetectionStrategy(int width, RealTimeDataChannel... channels) {
+        this.channels = channels;
+        this.table = new ChannelStateTable(width);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            sourceLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean detectAnomaly(RealTimeData realTimeData) {
+        return evaluate(realTimeData, false) != null;
+    }
+
+    @Override
+    public String evaluate(RealTimeData realTimeData) {
+        return evaluate(realTimeData, true);
+    }
+
+    @Override
+    public String getAnomalyDescription(RealTimeData realTimeData) {
+        StringBuilder description = new StringBuilder();
+        if (realTimeData.getDataTime() == null) {
+            return getStrategyName() + "异常: 未知值";
+        }
+        long timestamp = EpochTimes.toEpochMilli(realTimeData.getDataTime());
+        int sourceId = sourceId(realTimeData.getSource());
+        synchronized (sourceLock(sourceId)) {
+            tableLock.readLock().lock();
+            try {
+                for (RealTimeDataChannel channel : channels) {
+                    double value = channel.read(realTimeData);
+                    int slot = table.find(ChannelStateTable.key(sourceId, channel.ordinal()));
+                    if (slot >= 0 && table.isEvaluated(slot, timestamp, value) && table.verdict(slot)) {
+                        if (description.length() > 0) {
+                            description.append(", ");
+                        }
+                        description.append(describe(channel, table.state(), table.offset(slot), value));
+                    }
+                }
+            } finally {
+                tableLock.readLock().unlock();
+            }
+        }
+        return description.length() > 0 ? description.toString() : getStrategyName() + "异常: 未知值";
+    }
+
+    /**
+     * 推进该数据来源各通道的检测状态
+     *
+     * @param describe 是否生成异常描述
+     * @return 未检测到异常时返回null；检测到异常时返回描述，不生成描述时返回空串
+     */
+    private String evaluate(RealTimeData realTimeData, boolean describe) {
+        if (realTimeData.getDataTime() == null) {
+            return null;
+        }
+        long timestamp = EpochTimes.toEpochMilli(realTimeData.getDataTime());
+        int sourceId = sourceId(realTimeData.getSource());
+        StringBuilder description = null;
+        synchronized (sourceLock(sourceId)) {
+            tableLock.readLock().lock();
+            try {
+                for (RealTimeDataChannel channel : channels) {
+                    double value = channel.read(realTimeData);
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    int slot = slotFor(ChannelStateTable.key(sourceId, channel.ordinal()));
+                    if (!table.isEvaluated(slot, timestamp, value)) {
+                        boolean verdict = update(table.state(), table.offset(slot), value, timestamp);
+                        table.recordVerdict(slot, timestamp, value, verdict);
+                    }
+                    if (table.verdict(slot)) {
+                        if (description == null) {
+                            description = new StringBuilder();
+                        } else if (describe) {
+                            description.append(", ");
+                        }
+                        if (describe) {
+                            description.append(describe(channel, table.state(), table.offset(slot), value));
+                        }
+                    }
+                }
+            } finally {
+                tableLock.readLock().unlock();
+            }
+        }
+        return description != null ? description.toString() : null;
+    }
+
+    /**
+     * 查找槽位，不存在时在写锁下分配；调用方持有读锁，返回时仍持有读锁
+     */
+    private int slotFor(long key) {
+        int slot = table.find(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        tableLock.readLock().unlock();
+        tableLock.writeLock().lock();
+        try {
+            slot = table.slot(key);
+            // 写锁降级为读锁，期间槽位不会被其他线程改变
+            tableLock.readLock().lock();
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+        return slot;
+    }
+
+    private Object sourceLock(int sourceId) {
+        return sourceLocks[sourceId & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 写出全部通道的检测状态
+     */
+    public void writeState(DataOutput out) throws IOException {
+        tableLock.writeLock().lock();
+        try {
+            writeTable(out);
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+    }
+
+    private void writeTable(DataOutput out) throws IOException {
+        Map<Integer, String> sources = sourceNames();
+        long[] keys = table.slotKeys();
+        double[] state = table.state();
+        int width = table.width();
+        out.writeInt(width);
+        out.writeInt(keys.length);
+        for (int slot = 0; slot < keys.length; slot++) {
+            out.writeUTF(sources.getOrDefault((int) (keys[slot] >>> 32), ""));
+            out.writeInt((int) keys[slot]);
+            for (int i = 0; i < width; i++) {
+                out.writeDouble(state[table.offset(slot) + i]);
+            }
+            out.writeLong(table.evaluatedTime(slot));
+            out.writeDouble(table.evaluatedValue(slot));
+            out.writeBoolean(table.verdict(slot));
+        }
+    }
+
+    /**
+     * 恢复检测状态，状态宽度与当前策略不一致时跳过
+     */
+    public void readState(DataInput in) throws IOException {
+        tableLock.writeLock().lock();
+        try {
+            readTable(in);
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+    }
+
+    private void readTable(DataInput in) throws IOException {
+        int width = in.readInt();
+        int slots = in.readInt();
+        double[] values = new double[width];
+        for (int n = 0; n < slots; n++) {
+            String source = in.readUTF();
+            int channel = in.readInt();
+            for (int i = 0; i < width; i++) {
+                values[i] = in.readDouble();
+            }
+            long evaluatedTime = in.readLong();
+            double evaluatedValue = in.readDouble();
+            boolean verdict = in.readBoolean();
+            if (width != table.width()) {
+                continue;
+            }
+            int slot = table.slot(ChannelStateTable.key(sourceId(source), channel));
+            System.arraycopy(values, 0, table.state(), table.offset(slot), width);
+            table.recordVerdict(slot, evaluatedTime, evaluatedValue, verdict);
+        }
+    }
+
+    /**
+     * 各数据来源最近评估的样本时间
+     */
+    public Map<String, Long> watermarks() {
+        Map<Integer, String> sources = sourceNames();
+        Map<String, Long> watermarks = new HashMap<>();
+        tableLock.writeLock().lock();
+        try {
+            long[] keys = table.slotKeys();
+            for (int slot = 0; slot < keys.length; slot++) {
+                long evaluatedTime = table.evaluatedTime(slot);
+                String source = sources.get((int) (keys[slot] >>> 32));
+                if (source != null && evaluatedTime != Long.MIN_VALUE) {
+                    watermarks.merge(source, evaluatedTime, Math::max);
+                }
+            }
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+        return watermarks;
+    }
+
+    /**
+     * 用一个样本更新通道状态
+     *
+     * @param state 状态数组
+     * @param offset 该通道状态的起始下标
+     * @param value 取值
+     * @param timestamp 数据时间（毫秒）
+     * @return 该样本是否异常
+     */
+    protected abstract boolean update(double[] state, int offset, double value, long timestamp);
+
+    /**
+     * 描述通道最近一次检测到的异常
+     */
+    protected abstract String describe(RealTimeDataChannel channel, double[] state, int offset, double value);
+
+    /**
+     * 预热期内的平滑系数取 1/(n+1)，样本数较少时等价于算术平均，之后固定为alpha
+     */
+    protected static double smoothing(double alpha, double count) {
+        return Math.max(alpha, 1 / (count + 1));
+    }
+
+    /**
+     * 标准差过小（常量信号）时不做标准化
+     */
+    protected static boolean degenerate(double std, double mean) {
+        return !(std > 1e-12 * Math.max(1, Math.abs(mean)));
+    }
+
+    private static Map<Integer, String> sourceNames() {
+        Map<Integer, String> names = new HashMap<>();
+        SOURCE_IDS.forEach((source, id) -> names.put(id, source));
+        return names;
+    }
+
+    private static int sourceId(String source) {
+        return SOURCE_IDS.computeIfAbsent(source != null ? source : "", key -> NEXT_SOURCE_ID.getAndIncrement());
+    }
+}
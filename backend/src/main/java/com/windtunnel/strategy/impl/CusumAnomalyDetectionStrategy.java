@@ -0,0 +1,83 @@
+package com.windtunnel.strategy.impl;
+
+import com.windtunnel.strategy.StatisticalAnomalyDetectionStrategy;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+/**
+ * CUSUM均值漂移检测策略
+ *
+ * 以缓慢更新的指数加权均值和方差为基线，对标准化偏差做双边累积和，累积和超过决策阈值时判定异常并清零。
+ * 能发现单点仍在阈值范围内、但持续偏向一侧的小幅漂移。
+ */
+public class CusumAnomalyDetectionStrategy extends StatisticalAnomalyDetectionStrategy {
+
+    private static final int COUNT = 0;
+    private static final int MEAN = 1;
+    private static final int VARIANCE = 2;
+    private static final int UPPER = 3;
+    private static final int LOWER = 4;
+    private static final int LAST_BASELINE = 5;
+    private static final int LAST_STATISTIC = 6;
+
+    private final double alpha;
+
+    private final double slack;
+
+    private final double decisionThreshold;
+
+    private final int warmup;
+
+    /**
+     * @param alpha 基线平滑系数，应远小于EWMA控制带的系数
+     * @param slack 允许的偏移量（标准差倍数）
+     * @param decisionThreshold 决策阈值（标准差倍数）
+     * @param warmup 开始判定前的样本数
+     * @param channels 检测的通道
+     */
+    public CusumAnomalyDetectionStrategy(double alpha, double slack, double decisionThreshold, int warmup,
+                                         RealTimeDataChannel... channels) {
+        super(7, channels);
+        this.alpha = alpha;
+        this.slack = slack;
+        this.decisionThreshold = decisionThreshold;
+        this.warmup = warmup;
+    }
+
+    @Override
+    protected boolean update(double[] state, int offset, double value, long timestamp) {
+        double count = state[offset + COUNT];
+        double mean = state[offset + MEAN];
+        double variance = state[offset + VARIANCE];
+        double deviation = value - mean;
+        double std = Math.sqrt(variance);
+        boolean anomaly = false;
+        if (count >= warmup && !degenerate(std, mean)) {
+            double z = deviation / std;
+            double upper = Math.max(0, state[offset + UPPER] + z - slack);
+            double lower = Math.max(0, state[offset + LOWER] - z - slack);
+            anomaly = upper > decisionThreshold || lower > decisionThreshold;
+            state[offset + LAST_BASELINE] = mean;
+            state[offset + LAST_STATISTIC] = upper >= lower ? upper : -lower;
+            state[offset + UPPER] = anomaly ? 0 : upper;
+            state[offset + LOWER] = anomaly ? 0 : lower;
+        }
+
+        double a = smoothing(alpha, count);
+        state[offset + MEAN] = mean + a * deviation;
+        state[offset + VARIANCE] = (1 - a) * (variance + a * deviation * deviation);
+        state[offset + COUNT] = count + 1;
+        return anomaly;
+    }
+
+    @Override
+    protected String describe(RealTimeDataChannel channel, double[] state, int offset, double value) {
+        double statistic = state[offset + LAST_STATISTIC];
+        return String.format("%s CUSUM%s漂移: %.4g, 基线: %.4g, 累积和: %.1f", channel.getFieldName(),
+                statistic >= 0 ? "上" : "下", value, state[offset + LAST_BASELINE], Math.abs(statistic));
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "CusumAnomalyDetection";
+    }
+}
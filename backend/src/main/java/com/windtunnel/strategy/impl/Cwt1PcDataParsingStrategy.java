@@ -2,8 +2,8 @@ package com.windtunnel.strategy.impl;
 
 import com.windtunnel.entity.RealTimeData;
 import com.windtunnel.strategy.DataParsingStrategy;
+import com.windtunnel.timeseries.EpochTimes;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,7 +20,7 @@ public class Cwt1PcDataParsingStrategy implements DataParsingStrategy {
         // 解析数据内容
         Map<String, Object> dataContent = new HashMap<>();
         
-        // 假设数据格式为: "WIND_SPEED:10.5,TEMP:25.3,PRESSURE:101.3"
+        // 假设数据格式为: "TS:1704067200000,WIND_SPEED:10.5,TEMP:25.3,PRESSURE:101.3"，TS可选
         String[] pairs = rawData.split(",");
         for (String pair : pairs) {
             String[] keyValue = pair.split(":");
@@ -30,6 +30,10 @@ public class Cwt1PcDataParsingStrategy implements DataParsingStrategy {
                 
                 // 根据键名设置对应的值
                 switch (key.toUpperCase()) {
+                    case "TS":
+                        // 设备采集时间（毫秒时间戳），由时钟同步按来源校正为采集时间
+                        realTimeData.setDeviceTime(EpochTimes.toLocalDateTime(Long.parseLong(value)));
+                        break;
                     case "WIND_SPEED":
                         realTimeData.setWindSpeed(new java.math.BigDecimal(value));
                         break;
@@ -63,7 +67,6 @@ public class Cwt1PcDataParsingStrategy implements DataParsingStrategy {
         }
         
         realTimeData.setDataContent(dataContent);
-        realTimeData.setDataTime(LocalDateTime.now());
         realTimeData.setStatus(0); // 设置默认状态为正常
         
         return realTimeData;
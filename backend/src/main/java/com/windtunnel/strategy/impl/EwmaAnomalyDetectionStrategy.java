@@ -0,0 +1,66 @@
+package com.windtunnel.strategy.impl;
+
+import com.windtunnel.strategy.StatisticalAnomalyDetectionStrategy;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+/**
+ * EWMA控制带异常检测策略
+ *
+ * 以指数加权均值和方差为基线，取值偏离基线超过 k 倍标准差时判定异常，基线随数据缓慢漂移。
+ */
+public class EwmaAnomalyDetectionStrategy extends StatisticalAnomalyDetectionStrategy {
+
+    private static final int COUNT = 0;
+    private static final int MEAN = 1;
+    private static final int VARIANCE = 2;
+    private static final int LAST_BASELINE = 3;
+    private static final int LAST_SCORE = 4;
+
+    private final double alpha;
+
+    private final double bandWidth;
+
+    private final int warmup;
+
+    /**
+     * @param alpha 平滑系数
+     * @param bandWidth 控制带宽度（标准差倍数）
+     * @param warmup 开始判定前的样本数
+     * @param channels 检测的通道
+     */
+    public EwmaAnomalyDetectionStrategy(double alpha, double bandWidth, int warmup, RealTimeDataChannel... channels) {
+        super(5, channels);
+        this.alpha = alpha;
+        this.bandWidth = bandWidth;
+        this.warmup = warmup;
+    }
+
+    @Override
+    protected boolean update(double[] state, int offset, double value, long timestamp) {
+        double count = state[offset + COUNT];
+        double mean = state[offset + MEAN];
+        double variance = state[offset + VARIANCE];
+        double deviation = value - mean;
+        double std = Math.sqrt(variance);
+        double score = count == 0 || degenerate(std, mean) ? 0 : deviation / std;
+        state[offset + LAST_BASELINE] = mean;
+        state[offset + LAST_SCORE] = score;
+
+        double a = smoothing(alpha, count);
+        state[offset + MEAN] = mean + a * deviation;
+        state[offset + VARIANCE] = (1 - a) * (variance + a * deviation * deviation);
+        state[offset + COUNT] = count + 1;
+        return count >= warmup && Math.abs(score) > bandWidth;
+    }
+
+    @Override
+    protected String describe(RealTimeDataChannel channel, double[] state, int offset, double value) {
+        return String.format("%s EWMA偏离: %.4g, 基线: %.4g, 偏离: %.1fσ", channel.getFieldName(), value,
+                state[offset + LAST_BASELINE], state[offset + LAST_SCORE]);
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "EwmaAnomalyDetection";
+    }
+}
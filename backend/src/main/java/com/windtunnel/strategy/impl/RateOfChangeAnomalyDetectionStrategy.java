@@ -0,0 +1,74 @@
+package com.windtunnel.strategy.impl;
+
+import com.windtunnel.strategy.StatisticalAnomalyDetectionStrategy;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+/**
+ * 变化率异常检测策略
+ *
+ * 计算相邻样本的变化率（每秒），以变化率绝对值的指数加权均值为基线，超过基线 k 倍时判定异常，
+ * 用于发现阶跃和跳变。时间不递增的样本不参与计算。
+ */
+public class RateOfChangeAnomalyDetectionStrategy extends StatisticalAnomalyDetectionStrategy {
+
+    private static final int COUNT = 0;
+    private static final int LAST_VALUE = 1;
+    private static final int LAST_TIME = 2;
+    private static final int MEAN_ABS_RATE = 3;
+    private static final int LAST_RATE = 4;
+    private static final int LAST_BASELINE = 5;
+
+    private final double alpha;
+
+    private final double factor;
+
+    private final int warmup;
+
+    /**
+     * @param alpha 基线平滑系数
+     * @param factor 变化率超过基线的倍数
+     * @param warmup 开始判定前的样本数
+     * @param channels 检测的通道
+     */
+    public RateOfChangeAnomalyDetectionStrategy(double alpha, double factor, int warmup, RealTimeDataChannel... channels) {
+        super(6, channels);
+        this.alpha = alpha;
+        this.factor = factor;
+        this.warmup = warmup;
+    }
+
+    @Override
+    protected boolean update(double[] state, int offset, double value, long timestamp) {
+        double count = state[offset + COUNT];
+        double elapsed = timestamp - state[offset + LAST_TIME];
+        if (count > 0 && elapsed <= 0) {
+            return false;
+        }
+        boolean anomaly = false;
+        if (count > 0) {
+            double rate = (value - state[offset + LAST_VALUE]) * 1000 / elapsed;
+            double baseline = state[offset + MEAN_ABS_RATE];
+            anomaly = count > warmup && !degenerate(baseline, 0) && Math.abs(rate) > factor * baseline;
+            state[offset + LAST_RATE] = rate;
+            state[offset + LAST_BASELINE] = baseline;
+            // 首个变化率直接作为基线
+            double a = smoothing(alpha, count - 1);
+            state[offset + MEAN_ABS_RATE] = baseline + a * (Math.abs(rate) - baseline);
+        }
+        state[offset + LAST_VALUE] = value;
+        state[offset + LAST_TIME] = timestamp;
+        state[offset + COUNT] = count + 1;
+        return anomaly;
+    }
+
+    @Override
+    protected String describe(RealTimeDataChannel channel, double[] state, int offset, double value) {
+        return String.format("%s 变化率异常: %.4g, 变化率: %.4g/s, 基线: %.4g/s", channel.getFieldName(), value,
+                state[offset + LAST_RATE], state[offset + LAST_BASELINE]);
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "RateOfChangeAnomalyDetection";
+    }
+}
@@ -0,0 +1,91 @@
+package com.windtunnel.strategy.impl;
+
+import com.windtunnel.strategy.StatisticalAnomalyDetectionStrategy;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+/**
+ * 滚动Z分数异常检测策略
+ *
+ * 用前后两个定长分块的Welford统计量近似滚动窗口（窗口长度在 n 到 2n 个样本之间），
+ * 当前分块写满后替换前一分块，状态大小与窗口长度无关。取值的Z分数绝对值超过阈值时判定异常。
+ */
+public class ZScoreAnomalyDetectionStrategy extends StatisticalAnomalyDetectionStrategy {
+
+    private static final int PREVIOUS_COUNT = 0;
+    private static final int PREVIOUS_MEAN = 1;
+    private static final int PREVIOUS_M2 = 2;
+    private static final int CURRENT_COUNT = 3;
+    private static final int CURRENT_MEAN = 4;
+    private static final int CURRENT_M2 = 5;
+    private static final int LAST_BASELINE = 6;
+    private static final int LAST_SCORE = 7;
+
+    private final int blockSize;
+
+    private final double threshold;
+
+    private final int warmup;
+
+    /**
+     * @param blockSize 分块样本数
+     * @param threshold Z分数阈值
+     * @param warmup 开始判定前的样本数
+     * @param channels 检测的通道
+     */
+    public ZScoreAnomalyDetectionStrategy(int blockSize, double threshold, int warmup, RealTimeDataChannel... channels) {
+        super(8, channels);
+        this.blockSize = blockSize;
+        this.threshold = threshold;
+        this.warmup = warmup;
+    }
+
+    @Override
+    protected boolean update(double[] state, int offset, double value, long timestamp) {
+        double previousCount = state[offset + PREVIOUS_COUNT];
+        double currentCount = state[offset + CURRENT_COUNT];
+        double previousMean = state[offset + PREVIOUS_MEAN];
+        double currentMean = state[offset + CURRENT_MEAN];
+
+        // 合并两个分块的统计量
+        double count = previousCount + currentCount;
+        double mean = 0;
+        double score = 0;
+        if (count > 1) {
+            double delta = currentMean - previousMean;
+            mean = previousMean + delta * currentCount / count;
+            double m2 = state[offset + PREVIOUS_M2] + state[offset + CURRENT_M2]
+                    + delta * delta * previousCount * currentCount / count;
+            double std = Math.sqrt(m2 / (count - 1));
+            score = degenerate(std, mean) ? 0 : (value - mean) / std;
+        }
+        state[offset + LAST_BASELINE] = mean;
+        state[offset + LAST_SCORE] = score;
+
+        if (currentCount >= blockSize) {
+            state[offset + PREVIOUS_COUNT] = currentCount;
+            state[offset + PREVIOUS_MEAN] = currentMean;
+            state[offset + PREVIOUS_M2] = state[offset + CURRENT_M2];
+            currentCount = 0;
+            currentMean = 0;
+            state[offset + CURRENT_M2] = 0;
+        }
+        currentCount++;
+        double delta = value - currentMean;
+        currentMean += delta / currentCount;
+        state[offset + CURRENT_M2] += delta * (value - currentMean);
+        state[offset + CURRENT_COUNT] = currentCount;
+        state[offset + CURRENT_MEAN] = currentMean;
+        return count >= warmup && Math.abs(score) > threshold;
+    }
+
+    @Override
+    protected String describe(RealTimeDataChannel channel, double[] state, int offset, double value) {
+        return String.format("%s Z分数异常: %.4g, 窗口均值: %.4g, Z: %.1f", channel.getFieldName(), value,
+                state[offset + LAST_BASELINE], state[offset + LAST_SCORE]);
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "ZScoreAnomalyDetection";
+    }
+}
@@ -1,23 +1,37 @@
 package com.windtunnel.tcp;
 
+import com.windtunnel.alignment.ClockSyncRegistry;
+import com.windtunnel.calibration.CalibrationRegistry;
+import com.windtunnel.derived.DerivedChannelRegistry;
 import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.event.EventBus;
+import com.windtunnel.event.EventTopics;
 import com.windtunnel.repository.RealTimeDataRepository;
 import com.windtunnel.factory.DataParsingStrategyFactory;
 import com.windtunnel.factory.AnomalyDetectionStrategyFactory;
+import com.windtunnel.ingest.IngestLaneScheduler;
+import com.windtunnel.ingest.IngestMailbox;
+import com.windtunnel.quality.DataQualityMonitor;
 import com.windtunnel.strategy.DataParsingStrategy;
-import com.windtunnel.strategy.AnomalyDetectionStrategy;
+import com.windtunnel.wide.ChannelSchema;
+import com.windtunnel.wide.WideFrameParser;
+import com.windtunnel.service.MessageProducerService;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * TCP服务器处理器
  * 
- * 处理来自CWT1 PC、CWT2 PC、CWT3 PC、AAWT PC、公共动力系统PC的数据
+ * 处理来自CWT1 PC、CWT2 PC、CWT3 PC、AAWT PC、公共动力系统PC的数据。
+ * 所有连接共享同一个实例；启用接入优先级通道时，报文按客户端优先级排队，由接入线程解析和写库。
  * 
  * @author windtunnel team
  * @version 1.0.0
@@ -25,11 +39,44 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@ChannelHandler.Sharable
 public class TcpServerHandler extends ChannelInboundHandlerAdapter {
 
+    private static final AttributeKey<IngestMailbox> MAILBOX = AttributeKey.valueOf("ingestMailbox");
+
     @Autowired
     private RealTimeDataRepository realTimeDataRepository;
 
+    @Autowired
+    private MessageProducerService messageProducerService;
+
+    @Autowired
+    private EventBus eventBus;
+    
+    @Autowired
+    private ClockSyncRegistry clockSyncRegistry;
+    
+    @Autowired
+    private CalibrationRegistry calibrationRegistry;
+    
+    @Autowired
+    private DerivedChannelRegistry derivedChannelRegistry;
+    
+    @Autowired
+    private WideFrameParser wideFrameParser;
+
+    @Autowired
+    private DataQualityMonitor dataQualityMonitor;
+
+    @Autowired
+    private IngestLaneScheduler ingestLaneScheduler;
+
+    /**
+     * 数据采集传输方式：direct-直接写库，kafka-发送到Kafka由消费者组写库和检测
+     */
+    @Value("${wind-tunnel.data-collection.transport:direct}")
+    private String transport;
+
     /**
      * 通道激活时触发
      * 
@@ -38,6 +85,11 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         log.info("客户端连接: {}", ctx.channel().remoteAddress());
+        if (ingestLaneScheduler.isEnabled()) {
+            IngestMailbox mailbox = ingestLaneScheduler.open(ctx.channel().remoteAddress());
+            ctx.channel().attr(MAILBOX).set(mailbox);
+            log.info("客户端 {} 接入优先级: {}", ctx.channel().remoteAddress(), mailbox.getPriority());
+        }
         super.channelActive(ctx);
     }
 
@@ -49,6 +101,14 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         log.info("客户端断开连接: {}", ctx.channel().remoteAddress());
+        IngestMailbox mailbox = ctx.channel().attr(MAILBOX).get();
+        if (mailbox != null) {
+            // 连接已关闭，排队中的报文无法再应答，丢弃后不再占用处理线程
+            int discarded = ingestLaneScheduler.discard(mailbox);
+            if (discarded > 0) {
+                log.warn("客户端 {} 断开连接，丢弃 {} 条未处理的报文", ctx.channel().remoteAddress(), discarded);
+            }
+        }
         super.channelInactive(ctx);
     }
 
@@ -61,17 +121,79 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         String data = (String) msg;
-        log.info("接收到数据: {}", data);
+        IngestMailbox mailbox = ctx.channel().attr(MAILBOX).get();
+        if (mailbox == null) {
+            process(ctx, data);
+            return;
+        }
+        // 解析和写库移出IO线程，按优先级排队，同一连接的报文仍按到达顺序处理
+        ingestLaneScheduler.submit(mailbox, () -> {
+            // 排队期间连接可能已关闭，不再处理
+            if (!ctx.channel().isActive()) {
+                return;
+            }
+            try {
+                process(ctx, data);
+            } catch (Exception e) {
+                ctx.pipeline().fireExceptionCaught(e);
+            }
+        }, () -> ctx.writeAndFlush("服务繁忙，数据已丢弃\n"));
+    }
+
+    /**
+     * 处理一条报文
+     * 
+     * @param ctx 通道处理器上下文
+     * @param data 报文
+     */
+    private void process(ChannelHandlerContext ctx, String data) {
+        // 宽通道帧可达数千字节，只在调试级别输出原始报文
+        log.debug("接收到数据: {}", data);
+        
+        // 宽通道模式注册报文只需应答模式ID
+        if (wideFrameParser.isSchemaMessage(data)) {
+            try {
+                ChannelSchema schema = wideFrameParser.registerSchema(data);
+                ctx.writeAndFlush("SCHEMA_OK|" + schema.getSchemaId() + "\n");
+            } catch (Exception e) {
+                log.warn("宽通道模式注册失败: {}", e.getMessage());
+                ctx.writeAndFlush("SCHEMA_ERROR|" + e.getMessage() + "\n");
+            }
+            return;
+        }
         
         // 解析数据并保存到数据库
-        RealTimeData realTimeData = parseData(data, ctx.channel().remoteAddress().toString());
+        RealTimeData realTimeData = wideFrameParser.isFrameMessage(data)
+                ? parseFrame(data)
+                : parseData(data, ctx.channel().remoteAddress().toString());
+        // 在接入边缘按设备时间校正采集时间，之后的队列延迟不再影响数据时间
+        clockSyncRegistry.apply(realTimeData);
+        if (realTimeData != null && "rabbitmq".equals(transport)) {
+            // 交给异步发布器批量发送，不阻塞处理线程，Broker不可用时溢写到本地后重发；
+            // 数据质量统计、保存和异常检测由队列消费者完成
+            messageProducerService.sendRealTimeData(realTimeData);
+            ctx.writeAndFlush("数据接收成功\n");
+            return;
+        }
+        dataQualityMonitor.record(realTimeData);
+        if (realTimeData != null && "kafka".equals(transport)) {
+            // 按数据来源发送到Kafka，由消费者组负责保存和异常检测；Broker确认后才向数据源确认，
+            // 发送失败时通知数据源重发
+            messageProducerService.sendRealTimeDataToKafka(realTimeData).whenComplete((result, ex) ->
+                    ctx.writeAndFlush(ex == null ? "数据接收成功\n" : "数据发送失败，请重发\n"));
+            return;
+        }
         if (realTimeData != null) {
-            // 保存实时数据
+            // 校准并计算派生通道后保存实时数据
+            calibrationRegistry.apply(realTimeData);
+            derivedChannelRegistry.apply(realTimeData);
+            // 保存前检查数据中的异常，异常状态和描述随数据一起保存
+            checkForAnomalies(realTimeData);
             realTimeDataRepository.save(realTimeData);
             log.info("实时数据已保存，数据ID: {}", realTimeData.getId());
             
-            // 检查数据中的异常
-            checkForAnomalies(realTimeData);
+            // 异步通知订阅者，不阻塞当前IO线程
+            eventBus.publish(EventTopics.REAL_TIME_DATA, realTimeData);
         }
         
         // 回复确认消息
@@ -131,28 +253,30 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * 解析宽通道帧
+     * 
+     * @param data 原始数据
+     * @return 解析后的实时数据对象，格式错误时返回null
+     */
+    private RealTimeData parseFrame(String data) {
+        try {
+            return wideFrameParser.parseFrame(data);
+        } catch (Exception e) {
+            log.error("解析宽通道帧失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 检查数据中的异常
      * 
      * @param realTimeData 实时数据
      */
     private void checkForAnomalies(RealTimeData realTimeData) {
-        // 使用策略模式进行异常检测
-        boolean hasAnomaly = false;
-        StringBuilder anomalyDescription = new StringBuilder();
-        
-        // 获取所有异常检测策略并逐一应用
-        for (AnomalyDetectionStrategy strategy : AnomalyDetectionStrategyFactory.getAllStrategies()) {
-            if (strategy.detectAnomaly(realTimeData)) {
-                hasAnomaly = true;
-                anomalyDescription.append(strategy.getAnomalyDescription(realTimeData)).append(";");
-            }
-        }
-        
-        if (hasAnomaly) {
-            realTimeData.setStatus(1); // 设置为异常状态
-            realTimeData.setAnomalyDescription(anomalyDescription.toString());
-            log.warn("检测到数据异常: {}", anomalyDescription.toString());
+        // 使用策略模式进行异常检测，各策略的结论随数据传给告警等下游
+        if (AnomalyDetectionStrategyFactory.detect(realTimeData)) {
+            log.warn("检测到数据异常: {}", realTimeData.getAnomalyDescription());
             
             // 可以在这里添加告警逻辑
             triggerAlert(realTimeData);
@@ -0,0 +1,58 @@
+package com.windtunnel.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 位输入流
+ *
+ * 以绝对下标按位读取ByteBuffer，既可包装堆内数组，也可直接读取内存映射文件
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+
+    private final int offset;
+
+    /**
+     * 已读取的位数
+     */
+    private long bitPosition;
+
+    BitInput(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * 读取单个位
+     */
+    boolean readBit() {
+        int b = buffer.get(offset + (int) (bitPosition >>> 3));
+        boolean bit = (b & (0x80 >>> (int) (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    /**
+     * 读取bits位并按无符号数返回（高位在前）
+     * @param bits 位数（0-64）
+     */
+    long readBits(int bits) {
+        long result = 0;
+        while (bits > 0) {
+            int byteIndex = offset + (int) (bitPosition >>> 3);
+            int available = 8 - (int) (bitPosition & 7);
+            int take = Math.min(available, bits);
+            int b = buffer.get(byteIndex) & 0xFF;
+            int chunk = (b >>> (available - take)) & ((1 << take) - 1);
+            result = (result << take) | chunk;
+            bitPosition += take;
+            bits -= take;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.windtunnel.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * 位输出流
+ *
+ * 按位（高位在前）写入可自动扩容的字节数组，供时序压缩编码使用
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class BitOutput {
+
+    private byte[] buffer;
+
+    /**
+     * 已写入的位数
+     */
+    private long bitPosition;
+
+    BitOutput(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * 写入单个位
+     */
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            int byteIndex = (int) (bitPosition >>> 3);
+            buffer[byteIndex] |= (byte) (0x80 >>> (int) (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    /**
+     * 写入value的低bits位（高位在前）
+     * @param value 待写入的值
+     * @param bits 位数（0-64）
+     */
+    void writeBits(long value, int bits) {
+        ensureCapacity(bits);
+        while (bits > 0) {
+            int byteIndex = (int) (bitPosition >>> 3);
+            int free = 8 - (int) (bitPosition & 7);
+            int take = Math.min(free, bits);
+            int shift = bits - take;
+            int chunk = (int) ((value >>> shift) & ((1 << take) - 1));
+            buffer[byteIndex] |= (byte) (chunk << (free - take));
+            bitPosition += take;
+            bits -= take;
+        }
+    }
+
+    /**
+     * 已写入的字节数（不足一个字节按一个字节计算）
+     */
+    int byteLength() {
+        return (int) ((bitPosition + 7) >>> 3);
+    }
+
+    /**
+     * 将已写入内容拷贝到目标数组
+     */
+    void copyTo(byte[] target, int offset) {
+        System.arraycopy(buffer, 0, target, offset, byteLength());
+    }
+
+    private void ensureCapacity(int bits) {
+        long required = (bitPosition + bits + 7) >>> 3;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(required, buffer.length * 2L));
+        }
+    }
+}
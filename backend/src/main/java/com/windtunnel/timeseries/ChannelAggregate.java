@@ -0,0 +1,109 @@
+package com.windtunnel.timeseries;
+
+/**
+ * 通道聚合状态
+ *
+ * 以计数、和、平方和、最小值、最大值表示一组采样的可合并统计量，
+ * 可由逐点累加得到，也可直接由归档块的区域映射（zone map）合并得到
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ChannelAggregate {
+
+    private long count;
+
+    private double sum;
+
+    private double sumSquares;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * 累加一个采样值，NaN视为缺失值忽略
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        sum += value;
+        sumSquares += value * value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * 合并一组已汇总的统计量
+     */
+    public void merge(long otherCount, double otherSum, double otherSumSquares, double otherMin, double otherMax) {
+        if (otherCount <= 0) {
+            return;
+        }
+        count += otherCount;
+        sum += otherSum;
+        sumSquares += otherSumSquares;
+        if (otherMin < min) {
+            min = otherMin;
+        }
+        if (otherMax > max) {
+            max = otherMax;
+        }
+    }
+
+    /**
+     * 合并另一个聚合状态
+     */
+    public void merge(ChannelAggregate other) {
+        merge(other.count, other.sum, other.sumSquares, other.min, other.max);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getSumSquares() {
+        return sumSquares;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * 平均值，无数据时返回NaN
+     */
+    public double mean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * 样本标准差，少于两个采样点时返回NaN
+     */
+    public double stdDev() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double variance = (sumSquares - sum * sum / count) / (count - 1);
+        return Math.sqrt(Math.max(variance, 0));
+    }
+}
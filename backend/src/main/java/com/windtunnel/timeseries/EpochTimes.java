@@ -0,0 +1,36 @@
+package com.windtunnel.timeseries;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 时间戳转换工具类
+ *
+ * 实体中的时间均为LocalDateTime（系统时区），压缩编码与内存计算统一使用毫秒时间戳
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class EpochTimes {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private EpochTimes() {
+    }
+
+    /**
+     * LocalDateTime转毫秒时间戳
+     */
+    public static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 毫秒时间戳转LocalDateTime
+     */
+    public static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZONE);
+    }
+}
@@ -0,0 +1,142 @@
+package com.windtunnel.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla时序压缩流式解码器
+ *
+ * 逐点解码，不构造中间集合，可直接读取堆内字节数组或内存映射文件中的压缩块。
+ * 使用方式：
+ * <pre>
+ * GorillaDecoder decoder = new GorillaDecoder(bytes);
+ * while (decoder.next()) {
+ *     long time = decoder.timestamp();
+ *     double value = decoder.value();
+ * }
+ * </pre>
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class GorillaDecoder {
+
+    private final BitInput input;
+
+    private final int count;
+
+    private int index;
+
+    private long timestamp;
+
+    private long delta;
+
+    private long valueBits;
+
+    private int leadingZeros;
+
+    private int trailingZeros;
+
+    public GorillaDecoder(byte[] encoded) {
+        this(ByteBuffer.wrap(encoded), 0);
+    }
+
+    /**
+     * @param buffer 包含压缩块的缓冲区
+     * @param offset 压缩块在缓冲区中的起始位置
+     */
+    public GorillaDecoder(ByteBuffer buffer, int offset) {
+        byte version = buffer.get(offset);
+        if (version != GorillaEncoder.VERSION) {
+            throw new IllegalArgumentException("不支持的压缩格式版本: " + version);
+        }
+        this.count = buffer.getInt(offset + 1);
+        this.input = new BitInput(buffer, offset + GorillaEncoder.HEADER_SIZE);
+    }
+
+    /**
+     * 采样点总数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 解码下一个采样点
+     * @return 是否还有采样点
+     */
+    public boolean next() {
+        if (index >= count) {
+            return false;
+        }
+        if (index == 0) {
+            timestamp = input.readBits(64);
+            valueBits = input.readBits(64);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            readValue();
+        }
+        index++;
+        return true;
+    }
+
+    /**
+     * 当前采样点的毫秒时间戳
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 当前采样点的数值
+     */
+    public double value() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    /**
+     * 解码全部采样点
+     * @param encoded 压缩块
+     * @param consumer 采样点消费者
+     */
+    public static void decode(byte[] encoded, SampleConsumer consumer) {
+        GorillaDecoder decoder = new GorillaDecoder(encoded);
+        while (decoder.next()) {
+            consumer.accept(decoder.timestamp(), decoder.value());
+        }
+    }
+
+    private long readDeltaOfDelta() {
+        if (!input.readBit()) {
+            return 0;
+        }
+        if (!input.readBit()) {
+            return input.readBits(7) - 63;
+        }
+        if (!input.readBit()) {
+            return input.readBits(9) - 255;
+        }
+        if (!input.readBit()) {
+            return input.readBits(12) - 2047;
+        }
+        return input.readBits(64);
+    }
+
+    private void readValue() {
+        if (!input.readBit()) {
+            return;
+        }
+        if (input.readBit()) {
+            leadingZeros = (int) input.readBits(5);
+            int significantBits = (int) input.readBits(6);
+            if (significantBits == 0) {
+                significantBits = 64;
+            }
+            trailingZeros = 64 - leadingZeros - significantBits;
+        }
+        int significantBits = 64 - leadingZeros - trailingZeros;
+        long xor = input.readBits(significantBits) << trailingZeros;
+        valueBits ^= xor;
+    }
+}
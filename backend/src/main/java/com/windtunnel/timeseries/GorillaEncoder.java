@@ -0,0 +1,182 @@
+package com.windtunnel.timeseries;
+
+/**
+ * Gorilla时序压缩编码器
+ *
+ * 时间戳使用delta-of-delta编码，数值使用与前值异或（XOR）后的有效位编码。
+ * 风洞采样通常等间隔且数值变化平缓，大部分采样点可压缩到1~2个字节以内。
+ *
+ * 编码格式：[版本号:1字节][采样点数:4字节][位流]
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class GorillaEncoder {
+
+    /**
+     * 编码格式版本号
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * 头部长度（版本号 + 采样点数）
+     */
+    static final int HEADER_SIZE = 5;
+
+    private final BitOutput output;
+
+    private int count;
+
+    private long firstTimestamp;
+
+    private long previousTimestamp;
+
+    private long previousDelta;
+
+    private long previousValueBits;
+
+    private int previousLeadingZeros = -1;
+
+    private int previousTrailingZeros;
+
+    private double minValue = Double.POSITIVE_INFINITY;
+
+    private double maxValue = Double.NEGATIVE_INFINITY;
+
+    public GorillaEncoder() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedPoints 预计采样点数，用于预分配缓冲区
+     */
+    public GorillaEncoder(int expectedPoints) {
+        this.output = new BitOutput(16 + expectedPoints * 2);
+    }
+
+    /**
+     * 追加一个采样点
+     * @param timestamp 毫秒时间戳
+     * @param value 采样值
+     */
+    public void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            output.writeBits(timestamp, 64);
+            output.writeBits(valueBits, 64);
+        } else {
+            long delta = timestamp - previousTimestamp;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+            writeValue(valueBits);
+        }
+        previousTimestamp = timestamp;
+        previousValueBits = valueBits;
+        if (value < minValue) {
+            minValue = value;
+        }
+        if (value > maxValue) {
+            maxValue = value;
+        }
+        count++;
+    }
+
+    /**
+     * 完成编码并输出压缩后的字节数组，编码器可以继续追加但不建议复用
+     */
+    public byte[] finish() {
+        byte[] result = new byte[HEADER_SIZE + output.byteLength()];
+        result[0] = VERSION;
+        result[1] = (byte) (count >>> 24);
+        result[2] = (byte) (count >>> 16);
+        result[3] = (byte) (count >>> 8);
+        result[4] = (byte) count;
+        output.copyTo(result, HEADER_SIZE);
+        return result;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return previousTimestamp;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * 当前已编码的字节数
+     */
+    public int sizeInBytes() {
+        return HEADER_SIZE + output.byteLength();
+    }
+
+    /**
+     * 写入时间戳的delta-of-delta
+     *
+     * 0 -> '0'；[-63,64] -> '10'+7位；[-255,256] -> '110'+9位；[-2047,2048] -> '1110'+12位；其余 -> '1111'+64位
+     */
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            output.writeBit(false);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            output.writeBits(0b10, 2);
+            output.writeBits(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            output.writeBits(0b110, 3);
+            output.writeBits(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            output.writeBits(0b1110, 4);
+            output.writeBits(deltaOfDelta + 2047, 12);
+        } else {
+            output.writeBits(0b1111, 4);
+            output.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    /**
+     * 写入与前值异或后的数值
+     *
+     * 相同 -> '0'；有效位落在前一个窗口内 -> '10'+有效位；否则 -> '11'+前导零(5位)+有效位长度(6位)+有效位
+     */
+    private void writeValue(long valueBits) {
+        long xor = valueBits ^ previousValueBits;
+        if (xor == 0) {
+            output.writeBit(false);
+            return;
+        }
+        output.writeBit(true);
+
+        int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+        if (previousLeadingZeros >= 0 && leadingZeros >= previousLeadingZeros
+                && trailingZeros >= previousTrailingZeros) {
+            output.writeBit(false);
+            int significantBits = 64 - previousLeadingZeros - previousTrailingZeros;
+            output.writeBits(xor >>> previousTrailingZeros, significantBits);
+        } else {
+            output.writeBit(true);
+            int significantBits = 64 - leadingZeros - trailingZeros;
+            output.writeBits(leadingZeros, 5);
+            // 有效位长度为64时用0表示
+            output.writeBits(significantBits & 0x3F, 6);
+            output.writeBits(xor >>> trailingZeros, significantBits);
+            previousLeadingZeros = leadingZeros;
+            previousTrailingZeros = trailingZeros;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.windtunnel.timeseries;
+
+/**
+ * Largest-Triangle-Three-Buckets降采样
+ *
+ * 首末点固定保留，其余点等分为 threshold-2 个桶，每个桶选出与上一个选中点、下一个桶均值点
+ * 构成三角形面积最大的点，保留序列的视觉形状。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * 降采样
+     *
+     * @param source 按时间升序排列的采样点
+     * @param threshold 目标点数
+     * @param target 输出缓冲区
+     */
+    public static void downsample(SampleBuffer source, int threshold, SampleConsumer target) {
+        int size = source.size();
+        if (threshold >= size || threshold < 3) {
+            for (int i = 0; i < size; i++) {
+                target.accept(source.timestampAt(i), source.valueAt(i));
+            }
+            return;
+        }
+
+        // 时间戳相对首点计算，避免毫秒时间戳相乘损失精度
+        long origin = source.timestampAt(0);
+        double every = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        target.accept(source.timestampAt(0), source.valueAt(0));
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 下一个桶的均值点，最后一个桶使用末点
+            int nextStart = (int) ((bucket + 1) * every) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, size);
+            double averageTime = 0;
+            double averageValue = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageTime += source.timestampAt(i) - origin;
+                averageValue += source.valueAt(i);
+            }
+            int nextCount = nextEnd - nextStart;
+            averageTime /= nextCount;
+            averageValue /= nextCount;
+
+            int rangeStart = (int) (bucket * every) + 1;
+            int rangeEnd = (int) ((bucket + 1) * every) + 1;
+            double selectedTime = source.timestampAt(selected) - origin;
+            double selectedValue = source.valueAt(selected);
+            double maxArea = -1;
+            int candidate = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                // 三角形面积的两倍，比较大小时无需除以2
+                double area = Math.abs((selectedTime - averageTime) * (source.valueAt(i) - selectedValue)
+                        - (selectedTime - (source.timestampAt(i) - origin)) * (averageValue - selectedValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    candidate = i;
+                }
+            }
+            target.accept(source.timestampAt(candidate), source.valueAt(candidate));
+            selected = candidate;
+        }
+
+        target.accept(source.timestampAt(size - 1), source.valueAt(size - 1));
+    }
+}
@@ -0,0 +1,158 @@
+package com.windtunnel.timeseries;
+
+/**
+ * M4降采样聚合器
+ *
+ * 把时间范围等分为固定数量的桶（通常对应图表的像素列），每个桶只保留首点、末点、最小值点和最大值点，
+ * 按这些点绘制的折线与按全部原始点绘制的折线在像素上一致。
+ * 每个桶的状态为定长原始类型数组，与输入顺序无关，多个存储层的数据可以按任意顺序输入。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class M4Aggregator implements SampleConsumer {
+
+    private final long startMillis;
+
+    private final long endMillis;
+
+    private final int buckets;
+
+    private final double bucketWidth;
+
+    private final int[] counts;
+
+    private final long[] firstTimes;
+
+    private final double[] firstValues;
+
+    private final long[] lastTimes;
+
+    private final double[] lastValues;
+
+    private final long[] minTimes;
+
+    private final double[] minValues;
+
+    private final long[] maxTimes;
+
+    private final double[] maxValues;
+
+    private long accepted;
+
+    /**
+     * @param startMillis 开始时间（含）
+     * @param endMillis 结束时间（含）
+     * @param buckets 桶数量
+     */
+    public M4Aggregator(long startMillis, long endMillis, int buckets) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.buckets = buckets;
+        this.bucketWidth = (double) (endMillis - startMillis + 1) / buckets;
+        this.counts = new int[buckets];
+        this.firstTimes = new long[buckets];
+        this.firstValues = new double[buckets];
+        this.lastTimes = new long[buckets];
+        this.lastValues = new double[buckets];
+        this.minTimes = new long[buckets];
+        this.minValues = new double[buckets];
+        this.maxTimes = new long[buckets];
+        this.maxValues = new double[buckets];
+    }
+
+    @Override
+    public void accept(long timestamp, double value) {
+        if (Double.isNaN(value) || timestamp < startMillis || timestamp > endMillis) {
+            return;
+        }
+        int bucket = Math.min(buckets - 1, (int) ((timestamp - startMillis) / bucketWidth));
+        accepted++;
+        if (counts[bucket]++ == 0) {
+            firstTimes[bucket] = lastTimes[bucket] = minTimes[bucket] = maxTimes[bucket] = timestamp;
+            firstValues[bucket] = lastValues[bucket] = minValues[bucket] = maxValues[bucket] = value;
+            return;
+        }
+        if (timestamp < firstTimes[bucket]) {
+            firstTimes[bucket] = timestamp;
+            firstValues[bucket] = value;
+        }
+        if (timestamp >= lastTimes[bucket]) {
+            lastTimes[bucket] = timestamp;
+            lastValues[bucket] = value;
+        }
+        if (value < minValues[bucket]) {
+            minTimes[bucket] = timestamp;
+            minValues[bucket] = value;
+        }
+        if (value > maxValues[bucket]) {
+            maxTimes[bucket] = timestamp;
+            maxValues[bucket] = value;
+        }
+    }
+
+    /**
+     * 接收的有效采样点数量
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * 按时间顺序输出每个桶的首点、最小值点、最大值点和末点，同一时间戳只输出一次
+     *
+     * @param target 输出缓冲区
+     */
+    public void writeM4(SampleBuffer target) {
+        long[] times = new long[4];
+        double[] values = new double[4];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            times[0] = firstTimes[bucket];
+            values[0] = firstValues[bucket];
+            times[1] = minTimes[bucket];
+            values[1] = minValues[bucket];
+            times[2] = maxTimes[bucket];
+            values[2] = maxValues[bucket];
+            times[3] = lastTimes[bucket];
+            values[3] = lastValues[bucket];
+            // 最小值点和最大值点按时间排序，首点和末点固定在两端
+            if (times[1] > times[2]) {
+                long time = times[1];
+                times[1] = times[2];
+                times[2] = time;
+                double value = values[1];
+                values[1] = values[2];
+                values[2] = value;
+            }
+            long previous = Long.MIN_VALUE;
+            for (int i = 0; i < 4; i++) {
+                if (times[i] != previous) {
+                    target.accept(times[i], values[i]);
+                    previous = times[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * 按时间顺序输出每个桶的最小值点和最大值点
+     *
+     * @param target 输出缓冲区
+     */
+    public void writeMinMax(SampleBuffer target) {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            boolean minFirst = minTimes[bucket] <= maxTimes[bucket];
+            target.accept(minFirst ? minTimes[bucket] : maxTimes[bucket], minFirst ? minValues[bucket] : maxValues[bucket]);
+            if (minTimes[bucket] != maxTimes[bucket]) {
+                target.accept(minFirst ? maxTimes[bucket] : minTimes[bucket], minFirst ? maxValues[bucket] : minValues[bucket]);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.windtunnel.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 相对误差分位数草图
+ *
+ * 采用对数分桶（DDSketch方式）：取值 v 落入下标为 ceil(log(|v|) / log(γ)) 的桶，γ = (1 + α) / (1 - α)，
+ * 任意分位数的估计值与真实值的相对误差不超过 α。正值和负值分别计数，绝对值极小的取值计入零桶。
+ * 两个相同精度的草图逐桶相加即可精确合并，内存只与取值的数量级跨度有关，与样本数无关；
+ * 桶数超过上限时合并绝对值最小的桶，只影响最接近零的分位数精度。
+ *
+ * 非线程安全。
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class QuantileSketch {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * 绝对值小于该值的取值计入零桶
+     */
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+
+    private final double gamma;
+
+    private final double inverseLogGamma;
+
+    private final int maxBuckets;
+
+    private final Store positive;
+
+    private final Store negative;
+
+    private long zeroCount;
+
+    private long count;
+
+    private double sum;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param relativeAccuracy 相对误差 α（0 < α < 1）
+     * @param maxBuckets 每个符号方向的最大桶数
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("相对误差必须在0和1之间");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.inverseLogGamma = 1 / Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+        this.positive = new Store(maxBuckets);
+        this.negative = new Store(maxBuckets);
+    }
+
+    /**
+     * 添加一个取值，NaN和无穷值忽略
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 合并另一个草图
+     *
+     * @throws IllegalArgumentException 精度不一致
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("只能合并相同精度的分位数草图");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 估计分位数
+     *
+     * @param quantile 分位数（0到1）
+     * @return 估计值，草图为空时返回NaN
+     */
+    public double quantile(double quantile) {
+        if (count == 0 || quantile < 0 || quantile > 1) {
+            return Double.NaN;
+        }
+        if (quantile == 0) {
+            return min;
+        }
+        if (quantile == 1) {
+            return max;
+        }
+        long rank = (long) (quantile * (count - 1));
+        double value;
+        long negativeCount = negative.total;
+        if (rank < negativeCount) {
+            // 负值按绝对值从大到小排列
+            value = -bucketValue(negative.indexAtReverseRank(rank));
+        } else if (rank < negativeCount + zeroCount) {
+            value = 0;
+        } else {
+            value = bucketValue(positive.indexAtRank(rank - negativeCount - zeroCount));
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return count > 0 ? min : Double.NaN;
+    }
+
+    public double getMax() {
+        return count > 0 ? max : Double.NaN;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * 序列化为字节数组，用于持久化汇总结果
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 4 + 8 * 5 + positive.serializedSize() + negative.serializedSize());
+        buffer.put(FORMAT_VERSION)
+              .putDouble(relativeAccuracy)
+              .putInt(maxBuckets)
+              .putLong(count)
+              .putDouble(sum)
+              .putDouble(min)
+              .putDouble(max)
+              .putLong(zeroCount);
+        positive.writeTo(buffer);
+        negative.writeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组恢复草图
+     *
+     * @throws IllegalArgumentException 格式不支持
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的分位数草图版本: " + version);
+        }
+        QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getInt());
+        sketch.count = buffer.getLong();
+        sketch.sum = buffer.getDouble();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.zeroCount = buffer.getLong();
+        sketch.positive.readFrom(buffer);
+        sketch.negative.readFrom(buffer);
+        return sketch;
+    }
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) * inverseLogGamma);
+    }
+
+    /**
+     * 桶 (γ^(i-1), γ^i] 的代表值，与桶内任意取值的相对误差不超过 α
+     */
+    private double bucketValue(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * 单个符号方向的连续桶存储
+     */
+    private static final class Store {
+
+        private final int maxBuckets;
+
+        private long[] counts = new long[0];
+
+        /**
+         * counts[0] 对应的桶下标
+         */
+        private int offset;
+
+        private long total;
+
+        Store(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        void add(int index, long increment) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+            }
+            if (index < offset || index >= offset + counts.length) {
+                index = extend(index);
+            }
+            counts[index - offset] += increment;
+            total += increment;
+        }
+
+        void merge(Store other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        int indexAtRank(long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + counts.length - 1;
+        }
+
+        int indexAtReverseRank(long rank) {
+            long seen = 0;
+            for (int i = counts.length - 1; i >= 0; i--) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset;
+        }
+
+        /**
+         * 扩展存储使其覆盖index，超过桶数上限时把最低的桶折叠到新的最低桶
+         *
+         * @return 实际计入的桶下标
+         */
+        private int extend(int index) {
+            // 按实际有计数的桶计算跨度，数组中预留的空位不计入
+            int usedLow = offset + counts.length - 1;
+            int usedHigh = offset;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    usedLow = Math.min(usedLow, offset + i);
+                    usedHigh = Math.max(usedHigh, offset + i);
+                }
+            }
+            int low = Math.min(usedLow, index);
+            int high = Math.max(usedHigh, index);
+            if (high - low + 1 > maxBuckets) {
+                low = high - maxBuckets + 1;
+            }
+            int length = Math.min(maxBuckets, Math.max(counts.length * 2, high - low + 1));
+            // 预留空位放在扩展的方向上
+            int newOffset = index < usedLow ? high - length + 1 : low;
+            long[] resized = new long[length];
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    int target = Math.max(low, offset + i) - newOffset;
+                    resized[target] += counts[i];
+                }
+            }
+            counts = resized;
+            offset = newOffset;
+            return Math.max(low, index);
+        }
+
+        int serializedSize() {
+            return 8 + counts.length * 8;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putInt(offset).putInt(counts.length);
+            for (long value : counts) {
+                buffer.putLong(value);
+            }
+        }
+
+        void readFrom(ByteBuffer buffer) {
+            offset = buffer.getInt();
+            counts = new long[buffer.getInt()];
+            total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buffer.getLong();
+                total += counts[i];
+            }
+        }
+    }
+}
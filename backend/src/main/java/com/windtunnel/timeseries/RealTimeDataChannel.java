@@ -0,0 +1,118 @@
+package com.windtunnel.timeseries;
+
+import com.windtunnel.entity.RealTimeData;
+
+import java.math.BigDecimal;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 实时数据通道枚举
+ *
+ * 将RealTimeData中的数值字段统一抽象为通道，便于按通道进行压缩、归档和统计计算
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum RealTimeDataChannel {
+
+    WIND_SPEED("windSpeed", RealTimeData::getWindSpeed, RealTimeData::setWindSpeed),
+    TEMPERATURE("temperature", RealTimeData::getTemperature, RealTimeData::setTemperature),
+    PRESSURE("pressure", RealTimeData::getPressure, RealTimeData::setPressure),
+    FLOW("flow", RealTimeData::getFlow, RealTimeData::setFlow),
+    POWER("power", RealTimeData::getPower, RealTimeData::setPower),
+    VIBRATION("vibration", RealTimeData::getVibration, RealTimeData::setVibration),
+    VOLTAGE("voltage", RealTimeData::getVoltage, RealTimeData::setVoltage),
+    CURRENT("current", RealTimeData::getCurrent, RealTimeData::setCurrent);
+
+    private static final RealTimeDataChannel[] VALUES = values();
+
+    /**
+     * 字段名称（与RealTimeData属性名一致）
+     */
+    private final String fieldName;
+
+    private final Function<RealTimeData, BigDecimal> getter;
+
+    private final BiConsumer<RealTimeData, BigDecimal> setter;
+
+    RealTimeDataChannel(String fieldName, Function<RealTimeData, BigDecimal> getter,
+                        BiConsumer<RealTimeData, BigDecimal> setter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * 读取通道值
+     * @param realTimeData 实时数据
+     * @return 通道值，字段为空时返回NaN
+     */
+    public double read(RealTimeData realTimeData) {
+        BigDecimal value = getter.apply(realTimeData);
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * 写入通道值
+     * @param realTimeData 实时数据
+     * @param value 通道值，NaN表示清空字段
+     */
+    public void write(RealTimeData realTimeData, double value) {
+        setter.accept(realTimeData, Double.isNaN(value) ? null : BigDecimal.valueOf(value));
+    }
+
+    /**
+     * 读取通道的原始数值
+     * @param realTimeData 实时数据
+     * @return 字段值，可能为null
+     */
+    public BigDecimal decimal(RealTimeData realTimeData) {
+        return getter.apply(realTimeData);
+    }
+
+    /**
+     * 写入通道的原始数值
+     * @param realTimeData 实时数据
+     * @param value 字段值，null表示清空字段
+     */
+    public void setDecimal(RealTimeData realTimeData, BigDecimal value) {
+        setter.accept(realTimeData, value);
+    }
+
+    /**
+     * 通道数量
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * 根据序号获取通道，避免重复调用values()产生数组拷贝
+     */
+    public static RealTimeDataChannel of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * 根据字段名称获取通道
+     * @param fieldName 字段名称（windSpeed）或枚举名称（WIND_SPEED）
+     * @return 对应通道，找不到时返回null
+     */
+    public static RealTimeDataChannel fromFieldName(String fieldName) {
+        if (fieldName == null) {
+            return null;
+        }
+        for (RealTimeDataChannel channel : VALUES) {
+            if (channel.fieldName.equalsIgnoreCase(fieldName) || channel.name().equalsIgnoreCase(fieldName)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.windtunnel.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * 采样点缓冲区
+ *
+ * 使用原始类型数组保存时间戳和数值，自动扩容，用于解码结果收集和序列计算
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class SampleBuffer implements SampleConsumer {
+
+    private long[] timestamps;
+
+    private double[] values;
+
+    private int size;
+
+    public SampleBuffer() {
+        this(256);
+    }
+
+    public SampleBuffer(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    @Override
+    public void accept(long timestamp, double value) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public double valueAt(int index) {
+        return values[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 拷贝出时间戳数组（长度等于size）
+     */
+    public long[] toTimestampArray() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    /**
+     * 拷贝出数值数组（长度等于size）
+     */
+    public double[] toValueArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
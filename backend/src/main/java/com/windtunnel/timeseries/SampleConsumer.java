@@ -0,0 +1,21 @@
+package com.windtunnel.timeseries;
+
+/**
+ * 采样点消费者接口
+ *
+ * 以原始类型回调时间戳和数值，避免解码过程中产生装箱对象
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@FunctionalInterface
+public interface SampleConsumer {
+
+    /**
+     * 接收一个采样点
+     * @param timestamp 毫秒时间戳
+     * @param value 采样值
+     */
+    void accept(long timestamp, double value);
+}
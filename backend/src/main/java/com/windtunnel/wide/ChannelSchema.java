@@ -0,0 +1,127 @@
+package com.windtunnel.wide;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.RealTimeDataChannel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 宽通道模式
+ *
+ * 数据来源某一版本的通道列表，通道名称驻留（intern），帧内取值按通道序号存放在double数组中。
+ * 名称与实时数据数值字段相同的通道（如 windSpeed）同时映射到对应字段。构造后不可变
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class ChannelSchema {
+
+    private final String source;
+
+    private final int schemaId;
+
+    private final String[] names;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * 每个通道映射的实时数据通道序号，-1表示不映射
+     */
+    private final int[] nativeChannels;
+
+    ChannelSchema(String source, int schemaId, List<String> channels) {
+        this.source = source;
+        this.schemaId = schemaId;
+        this.names = new String[channels.size()];
+        this.indexes = new HashMap<>(channels.size() * 2);
+        this.nativeChannels = new int[channels.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = channels.get(i).intern();
+            indexes.put(names[i], i);
+            RealTimeDataChannel channel = RealTimeDataChannel.fromFieldName(names[i]);
+            nativeChannels[i] = channel != null ? channel.ordinal() : -1;
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getSchemaId() {
+        return schemaId;
+    }
+
+    /**
+     * 通道数量
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 通道名称
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * 通道名称列表
+     */
+    public List<String> getChannels() {
+        return List.of(names);
+    }
+
+    /**
+     * 通道序号
+     *
+     * @param name 通道名称
+     * @return 通道序号，不存在时返回-1
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 读取帧中指定通道的取值
+     *
+     * @param data 实时数据（宽通道帧）
+     * @param name 通道名称
+     * @return 通道取值，帧不属于该模式或通道不存在时返回NaN
+     */
+    public double value(RealTimeData data, String name) {
+        int index = indexOf(name);
+        double[] values = data.getChannelValues();
+        if (index < 0 || values == null || data.getSchemaId() == null || data.getSchemaId() != schemaId
+                || index >= values.length) {
+            return Double.NaN;
+        }
+        return values[index];
+    }
+
+    /**
+     * 将映射到实时数据字段的通道写入对应字段
+     *
+     * @param data 实时数据
+     * @param values 帧取值
+     */
+    public void writeNativeChannels(RealTimeData data, double[] values) {
+        for (int i = 0; i < nativeChannels.length; i++) {
+            if (nativeChannels[i] >= 0 && !Double.isNaN(values[i])) {
+                RealTimeDataChannel.of(nativeChannels[i]).write(data, values[i]);
+            }
+        }
+    }
+
+    /**
+     * 通道列表是否与给定列表一致
+     */
+    boolean sameChannels(List<String> channels) {
+        return Arrays.asList(names).equals(channels);
+    }
+}
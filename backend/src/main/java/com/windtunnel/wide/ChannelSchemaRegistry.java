@@ -0,0 +1,172 @@
+package com.windtunnel.wide;
+
+import com.windtunnel.entity.ChannelSchemaDefinition;
+import com.windtunnel.repository.ChannelSchemaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 宽通道模式注册表
+ *
+ * 客户端每个连接只需发送一次通道列表：列表与数据来源已有的某个版本相同时直接复用该版本，
+ * 否则持久化为新版本。帧按模式ID引用通道列表，模式定义按数据来源整体缓存
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ChannelSchemaRegistry {
+
+    @Autowired
+    private ChannelSchemaRepository channelSchemaRepository;
+
+    @Value("${wind-tunnel.wide-channel.max-channels:4096}")
+    private int maxChannels;
+
+    @Value("${wind-tunnel.wide-channel.negative-cache-ttl:1000}")
+    private long negativeCacheTtl;
+
+    /**
+     * 数据来源 -> 按模式ID升序排列的模式版本
+     */
+    private final Map<String, List<ChannelSchema>> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * 数据来源 -> 因未知模式ID最近一次重新加载的时间，用于限制未命中时查询数据库的频率
+     */
+    private final Map<String, Long> reloadTimes = new ConcurrentHashMap<>();
+
+    /**
+     * 注册通道列表
+     *
+     * @param source 数据来源
+     * @param channels 通道名称列表
+     * @return 对应的模式版本
+     * @throws IllegalArgumentException 通道列表无效
+     */
+    public synchronized ChannelSchema register(String source, List<String> channels) {
+        validate(source, channels);
+        List<ChannelSchema> versions = versions(source);
+        for (ChannelSchema schema : versions) {
+            if (schema.sameChannels(channels)) {
+                return schema;
+            }
+        }
+
+        int schemaId = versions.isEmpty() ? 1 : versions.get(versions.size() - 1).getSchemaId() + 1;
+        ChannelSchemaDefinition definition = new ChannelSchemaDefinition();
+        definition.setId(source + ":" + schemaId);
+        definition.setSource(source);
+        definition.setSchemaId(schemaId);
+        definition.setChannels(new ArrayList<>(channels));
+        definition.setCreateTime(LocalDateTime.now());
+        channelSchemaRepository.insert(definition);
+
+        ChannelSchema schema = new ChannelSchema(source, schemaId, channels);
+        List<ChannelSchema> updated = new ArrayList<>(versions);
+        updated.add(schema);
+        schemas.put(source, List.copyOf(updated));
+        log.info("宽通道模式已注册，数据来源: {}, 模式ID: {}, 通道数: {}", source, schemaId, channels.size());
+        return schema;
+    }
+
+    /**
+     * 获取指定版本的模式
+     *
+     * @param source 数据来源
+     * @param schemaId 模式ID
+     * @return 模式，不存在时返回null
+     */
+    public ChannelSchema get(String source, int schemaId) {
+        List<ChannelSchema> versions = versions(source);
+        // 模式ID从1连续递增，通常可直接按下标定位
+        int index = schemaId - 1;
+        if (index >= 0 && index < versions.size() && versions.get(index).getSchemaId() == schemaId) {
+            return versions.get(index);
+        }
+        for (ChannelSchema schema : versions) {
+            if (schema.getSchemaId() == schemaId) {
+                return schema;
+            }
+        }
+        // 其他实例可能刚注册了新版本，同一数据来源在缓存有效期内最多重新加载一次，
+        // 未知模式ID的帧在此期间直接返回null
+        long now = System.currentTimeMillis();
+        Long reloaded = reloadTimes.get(source);
+        if (reloaded != null && now - reloaded < negativeCacheTtl) {
+            return null;
+        }
+        reloadTimes.put(source, now);
+        schemas.remove(source);
+        for (ChannelSchema schema : versions(source)) {
+            if (schema.getSchemaId() == schemaId) {
+                return schema;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取数据来源最新版本的模式
+     *
+     * @param source 数据来源
+     * @return 模式，未注册时返回null
+     */
+    public ChannelSchema getLatest(String source) {
+        List<ChannelSchema> versions = versions(source);
+        return versions.isEmpty() ? null : versions.get(versions.size() - 1);
+    }
+
+    /**
+     * 获取数据来源的所有模式版本
+     *
+     * @param source 数据来源
+     * @return 按模式ID升序排列的模式列表
+     */
+    public List<ChannelSchema> getVersions(String source) {
+        return versions(source);
+    }
+
+    private List<ChannelSchema> versions(String source) {
+        return schemas.computeIfAbsent(source, key -> {
+            List<ChannelSchema> loaded = new ArrayList<>();
+            for (ChannelSchemaDefinition definition : channelSchemaRepository.findBySourceOrderBySchemaIdAsc(key)) {
+                loaded.add(new ChannelSchema(key, definition.getSchemaId(), definition.getChannels()));
+            }
+            return List.copyOf(loaded);
+        });
+    }
+
+    private void validate(String source, List<String> channels) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("数据来源不能为空");
+        }
+        if (channels == null || channels.isEmpty()) {
+            throw new IllegalArgumentException("通道列表不能为空");
+        }
+        if (channels.size() > maxChannels) {
+            throw new IllegalArgumentException("通道数量超过上限: " + channels.size() + " > " + maxChannels);
+        }
+        Set<String> seen = new HashSet<>();
+        for (String channel : channels) {
+            if (channel == null || channel.isBlank()) {
+                throw new IllegalArgumentException("通道名称不能为空");
+            }
+            if (!seen.add(channel)) {
+                throw new IllegalArgumentException("通道名称重复: " + channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.windtunnel.wide;
+
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * double数组与BSON二进制之间的转换器
+ *
+ * 默认映射下数组每个元素都带类型字节和下标键名，宽通道帧改为存储小端序紧凑二进制，每个通道固定8字节
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class PackedDoubleConverters {
+
+    private PackedDoubleConverters() {
+    }
+
+    /**
+     * 写入转换：double[] -> Binary
+     */
+    @WritingConverter
+    public enum DoubleArrayToBinaryConverter implements Converter<double[], Binary> {
+
+        INSTANCE;
+
+        @Override
+        public Binary convert(double[] source) {
+            byte[] bytes = new byte[source.length * Double.BYTES];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(source);
+            return new Binary(bytes);
+        }
+    }
+
+    /**
+     * 读取转换：Binary -> double[]
+     */
+    @ReadingConverter
+    public enum BinaryToDoubleArrayConverter implements Converter<Binary, double[]> {
+
+        INSTANCE;
+
+        @Override
+        public double[] convert(Binary source) {
+            byte[] bytes = source.getData();
+            double[] values = new double[bytes.length / Double.BYTES];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.windtunnel.wide;
+
+import com.windtunnel.entity.RealTimeData;
+import com.windtunnel.timeseries.EpochTimes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 宽通道报文解析器
+ *
+ * 报文格式：
+ * <pre>
+ * SCHEMA|{数据来源}|{通道1},{通道2},...                 注册通道列表，应答 SCHEMA_OK|{模式ID}
+ * FRAME|{数据来源}|{模式ID}|{毫秒时间戳}|{值1},{值2},...  按模式顺序的取值，时间戳为设备时间（可为空），单个取值为空时记为NaN
+ * </pre>
+ * 取值直接解析到double数组，常见的十进制小数走无分配的快速路径，不再逐个构造字符串和Map条目
+ *
+ * @author windtunnel team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class WideFrameParser {
+
+    public static final String SCHEMA_PREFIX = "SCHEMA|";
+
+    public static final String FRAME_PREFIX = "FRAME|";
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    @Autowired
+    private ChannelSchemaRegistry channelSchemaRegistry;
+
+    /**
+     * 是否为通道列表注册报文
+     */
+    public boolean isSchemaMessage(String message) {
+        return message.startsWith(SCHEMA_PREFIX);
+    }
+
+    /**
+     * 是否为宽通道帧报文
+     */
+    public boolean isFrameMessage(String message) {
+        return message.startsWith(FRAME_PREFIX);
+    }
+
+    /**
+     * 解析并注册通道列表
+     *
+     * @param message 注册报文
+     * @return 模式
+     * @throws IllegalArgumentException 报文格式错误
+     */
+    public ChannelSchema registerSchema(String message) {
+        int sourceEnd = message.indexOf('|', SCHEMA_PREFIX.length());
+        if (sourceEnd < 0) {
+            throw new IllegalArgumentException("通道列表报文格式错误");
+        }
+        String source = message.substring(SCHEMA_PREFIX.length(), sourceEnd).trim();
+        List<String> channels = new ArrayList<>();
+        for (String name : message.substring(sourceEnd + 1).split(",")) {
+            channels.add(name.trim());
+        }
+        return channelSchemaRegistry.register(source, channels);
+    }
+
+    /**
+     * 解析宽通道帧
+     *
+     * @param message 帧报文
+     * @return 实时数据
+     * @throws IllegalArgumentException 报文格式错误、模式不存在或取值数量与模式不一致
+     */
+    public RealTimeData parseFrame(String message) {
+        int sourceEnd = message.indexOf('|', FRAME_PREFIX.length());
+        int schemaEnd = sourceEnd < 0 ? -1 : message.indexOf('|', sourceEnd + 1);
+        int timeEnd = schemaEnd < 0 ? -1 : message.indexOf('|', schemaEnd + 1);
+        if (timeEnd < 0) {
+            throw new IllegalArgumentException("宽通道帧报文格式错误");
+        }
+        String source = message.substring(FRAME_PREFIX.length(), sourceEnd).trim();
+        int schemaId = Integer.parseInt(message.substring(sourceEnd + 1, schemaEnd).trim());
+        ChannelSchema schema = channelSchemaRegistry.get(source, schemaId);
+        if (schema == null) {
+            throw new IllegalArgumentException("未注册的宽通道模式: " + source + ":" + schemaId);
+        }
+
+        double[] values = new double[schema.size()];
+        int count = parseValues(message, timeEnd + 1, message.length(), values);
+        if (count != values.length) {
+            throw new IllegalArgumentException("取值数量与模式不一致，期望: " + values.length + "，实际: " + count);
+        }
+
+        RealTimeData data = new RealTimeData();
+        data.setSource(schema.getSource());
+        String timestamp = message.substring(schemaEnd + 1, timeEnd).trim();
+        if (!timestamp.isEmpty()) {
+            data.setDeviceTime(EpochTimes.toLocalDateTime(Long.parseLong(timestamp)));
+        }
+        data.setSchemaId(schemaId);
+        data.setChannelValues(values);
+        schema.writeNativeChannels(data, values);
+        data.setStatus(0);
+        return data;
+    }
+
+    /**
+     * 解析逗号分隔的取值
+     *
+     * @return 取值数量，超过数组长度的部分只计数不写入
+     */
+    static int parseValues(String text, int from, int to, double[] target) {
+        int count = 0;
+        int start = from;
+        while (start <= to) {
+            int end = text.indexOf(',', start);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            if (count < target.length) {
+                target[count] = parseDouble(text, start, end);
+            }
+            count++;
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * 解析十进制数，空白视为NaN
+     *
+     * 有效数字不超过15位且十进制指数绝对值不超过22时，尾数和10的幂都可精确表示为double，
+     * 一次乘除即得到正确舍入的结果；其余情况交给Double.parseDouble
+     */
+    static double parseDouble(String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        int position = start;
+        boolean negative = false;
+        char first = text.charAt(position);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            char c = text.charAt(position);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    // 前导零不计入有效数字
+                    if (fraction) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (++digits > 15) {
+                    return Double.parseDouble(text.substring(start, end));
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && anyDigit) {
+                int exponentStart = position + 1;
+                if (exponentStart >= end) {
+                    return Double.parseDouble(text.substring(start, end));
+                }
+                try {
+                    exponent += Integer.parseInt(text, exponentStart, end, 10);
+                } catch (NumberFormatException e) {
+                    return Double.parseDouble(text.substring(start, end));
+                }
+                position = end;
+                break;
+            } else {
+                return Double.parseDouble(text.substring(start, end));
+            }
+        }
+        if (!anyDigit) {
+            return Double.parseDouble(text.substring(start, end));
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent <= 22) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && exponent >= -22) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(text.substring(start, end));
+        }
+        return negative ? -value : value;
+    }
+}